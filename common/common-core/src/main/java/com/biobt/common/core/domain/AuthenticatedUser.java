@@ -0,0 +1,36 @@
+package com.biobt.common.core.domain;
+
+import java.security.Principal;
+
+/**
+ * 已认证用户
+ * 作为SecurityContext的principal时，{@link com.biobt.common.core.utils.SecurityUtils} 从中读取用户ID和用户名
+ *
+ * @author BioBt Team
+ * @since 1.0.0
+ */
+public interface AuthenticatedUser extends Principal {
+
+    /**
+     * 用户ID
+     */
+    String getUserId();
+
+    /**
+     * 用户名
+     */
+    String getUsername();
+
+    /**
+     * 租户ID
+     */
+    String getTenantId();
+
+    /**
+     * principal名称为用户名，缺少用户名时为用户ID
+     */
+    @Override
+    default String getName() {
+        return getUsername() != null ? getUsername() : getUserId();
+    }
+}
@@ -1,5 +1,6 @@
 package com.biobt.common.core.utils;
 
+import com.biobt.common.core.domain.AuthenticatedUser;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -25,7 +26,14 @@ public class SecurityUtils {
         }
         
         Object principal = authentication.getPrincipal();
-        if (principal instanceof UserDetails) {
+        if (principal instanceof AuthenticatedUser) {
+            // 网关签发的身份等，直接携带用户ID
+            try {
+                return Long.parseLong(((AuthenticatedUser) principal).getUserId());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        } else if (principal instanceof UserDetails) {
             // 如果是UserDetails实现，尝试从用户名解析ID
             // 这里假设用户名就是用户ID，实际项目中可能需要调整
             try {
@@ -59,7 +67,9 @@ public class SecurityUtils {
         }
         
         Object principal = authentication.getPrincipal();
-        if (principal instanceof UserDetails) {
+        if (principal instanceof AuthenticatedUser) {
+            return ((AuthenticatedUser) principal).getUsername();
+        } else if (principal instanceof UserDetails) {
             return ((UserDetails) principal).getUsername();
         } else if (principal instanceof String) {
             return (String) principal;
@@ -0,0 +1,56 @@
+package com.biobt.common.security.identity;
+
+import com.biobt.common.core.domain.AuthenticatedUser;
+
+/**
+ * 网关签发的调用方身份
+ * 校验通过后作为SecurityContext的principal，principal名称为用户名
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+public final class GatewayIdentity implements AuthenticatedUser {
+
+    private final String userId;
+
+    private final String username;
+
+    private final String tenantId;
+
+    /**
+     * 签发时间（秒）
+     */
+    private final long issuedAt;
+
+    public GatewayIdentity(String userId, String username, String tenantId, long issuedAt) {
+        this.userId = userId;
+        this.username = username;
+        this.tenantId = tenantId;
+        this.issuedAt = issuedAt;
+    }
+
+    @Override
+    public String getUserId() {
+        return userId;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "GatewayIdentity{userId='" + userId + "', username='" + username + "', tenantId='" + tenantId
+                + "', issuedAt=" + issuedAt + '}';
+    }
+}
@@ -0,0 +1,49 @@
+package com.biobt.common.security.identity;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * 网关身份自动配置
+ * 配置 biobt.security.identity.secret（与网关一致）后，为Servlet服务创建 {@link GatewayIdentityFilter}，
+ * 由 {@link GatewayIdentityConfigurer} 安装到Spring Security过滤器链内；同时关闭其Servlet容器自动注册，
+ * 避免在过滤器链之外再执行一次。各服务的密钥取自环境变量 IDENTITY_SECRET 且没有默认值，
+ * 未提供时占位符无法解析、启动失败；不足32个字符时同样启动失败
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@AutoConfiguration
+@ConditionalOnProperty(prefix = "biobt.security.identity", name = "secret")
+public class GatewayIdentityAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IdentityHeaderCodec identityHeaderCodec(
+            @Value("${biobt.security.identity.secret}") String secret,
+            @Value("${biobt.security.identity.max-age-seconds:300}") long maxAgeSeconds) {
+        return new IdentityHeaderCodec(secret, maxAgeSeconds);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public GatewayIdentityFilter gatewayIdentityFilter(
+            IdentityHeaderCodec identityHeaderCodec,
+            @Value("${biobt.security.identity.required:false}") boolean required) {
+        return new GatewayIdentityFilter(identityHeaderCodec, required);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<GatewayIdentityFilter> gatewayIdentityFilterRegistration(
+            GatewayIdentityFilter gatewayIdentityFilter) {
+        FilterRegistrationBean<GatewayIdentityFilter> registration = new FilterRegistrationBean<>(gatewayIdentityFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+}
@@ -0,0 +1,30 @@
+package com.biobt.common.security.identity;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+
+/**
+ * 将 {@link GatewayIdentityFilter} 安装到Spring Security过滤器链
+ * 经 META-INF/spring.factories 作为默认配置器应用到每个 {@link HttpSecurity}（包括Spring Boot默认的过滤器链），
+ * 过滤器位于授权过滤器之前，授权判断时身份已写入SecurityContext；未配置身份密钥时不做任何处理。
+ * 自定义过滤器链也可以通过 {@code http.with(new GatewayIdentityConfigurer(), Customizer.withDefaults())} 显式应用
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+public class GatewayIdentityConfigurer extends AbstractHttpConfigurer<GatewayIdentityConfigurer, HttpSecurity> {
+
+    @Override
+    public void configure(HttpSecurity http) {
+        ApplicationContext context = http.getSharedObject(ApplicationContext.class);
+        if (context == null) {
+            return;
+        }
+        GatewayIdentityFilter filter = context.getBeanProvider(GatewayIdentityFilter.class).getIfAvailable();
+        if (filter != null) {
+            http.addFilterBefore(filter, AuthorizationFilter.class);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.biobt.common.security.identity;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+/**
+ * 网关身份过滤器
+ * 校验网关签发的 {@value IdentityHeaderCodec#IDENTITY_HEADER} 请求头，通过后将 {@link GatewayIdentity} 作为principal
+ * 写入SecurityContext（{@link com.biobt.common.core.utils.SecurityUtils} 可直接读取用户ID与用户名），身份信息同时放入请求属性。
+ * 请求头缺失或无效时按未登录处理；开启required后直接返回401。
+ * 由 {@link GatewayIdentityConfigurer} 安装在Spring Security过滤器链的授权过滤器之前，不单独注册为Servlet过滤器
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+public class GatewayIdentityFilter extends OncePerRequestFilter {
+
+    /**
+     * 请求属性：校验通过的 {@link GatewayIdentity}
+     */
+    public static final String IDENTITY_ATTRIBUTE = GatewayIdentity.class.getName();
+
+    private static final byte[] UNAUTHORIZED_BODY =
+            "{\"code\":401,\"message\":\"身份校验失败\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final IdentityHeaderCodec codec;
+
+    private final boolean required;
+
+    public GatewayIdentityFilter(IdentityHeaderCodec codec, boolean required) {
+        this.codec = codec;
+        this.required = required;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(IdentityHeaderCodec.IDENTITY_HEADER);
+        GatewayIdentity identity = header != null
+                ? codec.decode(header, System.currentTimeMillis() / 1000) : null;
+
+        if (identity == null || identity.getUserId() == null) {
+            if (header != null) {
+                log.warn("身份请求头校验失败 - {} {}", request.getMethod(), request.getRequestURI());
+            }
+            if (required) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.setContentLength(UNAUTHORIZED_BODY.length);
+                response.getOutputStream().write(UNAUTHORIZED_BODY);
+                return;
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        request.setAttribute(IDENTITY_ATTRIBUTE, identity);
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(identity, null, Collections.emptyList());
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+}
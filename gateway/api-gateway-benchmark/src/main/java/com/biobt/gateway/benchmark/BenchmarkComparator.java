@@ -0,0 +1,146 @@
+package com.biobt.gateway.benchmark;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 基准测试结果比较
+ * 比较两次JMH运行的JSON结果（基线与当前提交），逐项输出主指标、p99（采样模式）和每次操作分配字节数的变化；
+ * 任一项劣化超过阈值时以退出码1结束，供CI判定。基线文件不存在时只输出当前结果
+ * <p>
+ * 用法：BenchmarkComparator &lt;基线结果&gt; &lt;当前结果&gt; [阈值，默认0.10]
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+public final class BenchmarkComparator {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    /**
+     * 分配字节数的绝对容差，避免几个字节的对齐差异被判为劣化
+     */
+    private static final double ALLOCATION_SLACK_BYTES = 16;
+
+    private BenchmarkComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: BenchmarkComparator <基线结果> <当前结果> [阈值]");
+            System.exit(2);
+        }
+        Path baselineFile = Path.of(args[0]);
+        Map<String, Measurement> current = load(Path.of(args[1]));
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+
+        if (!Files.exists(baselineFile)) {
+            System.out.println("基线结果不存在: " + baselineFile + "，仅输出当前结果");
+            current.forEach((key, measurement) -> System.out.println(key + "  " + measurement));
+            return;
+        }
+        Map<String, Measurement> baseline = load(baselineFile);
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "基准测试 / 指标", "基线", "当前", "变化");
+        for (Map.Entry<String, Measurement> entry : current.entrySet()) {
+            Measurement now = entry.getValue();
+            Measurement before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s%n", entry.getKey(), "-", now.score, "新增");
+                continue;
+            }
+            regressions += report(entry.getKey() + " [" + now.unit + "]",
+                    before.score, now.score, now.higherIsBetter, threshold, 0);
+            if (!Double.isNaN(now.p99) && !Double.isNaN(before.p99)) {
+                regressions += report(entry.getKey() + " p99", before.p99, now.p99, false, threshold, 0);
+            }
+            if (!Double.isNaN(now.allocatedBytes) && !Double.isNaN(before.allocatedBytes)) {
+                regressions += report(entry.getKey() + " B/op", before.allocatedBytes, now.allocatedBytes,
+                        false, threshold, ALLOCATION_SLACK_BYTES);
+            }
+        }
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("%-90s %14.3f %14s %9s%n", key, baseline.get(key).score, "-", "移除"));
+
+        if (regressions > 0) {
+            System.out.println("性能劣化项: " + regressions + "（阈值 " + Math.round(threshold * 100) + "%）");
+            System.exit(1);
+        }
+        System.out.println("未发现超过阈值的性能劣化");
+    }
+
+    /**
+     * 输出一项指标的变化
+     *
+     * @return 劣化超过阈值时返回1，否则返回0
+     */
+    private static int report(String name, double before, double now, boolean higherIsBetter,
+                              double threshold, double slack) {
+        double change = before == 0 ? 0 : (now - before) / before;
+        double worse = higherIsBetter ? -change : change;
+        boolean regressed = worse > threshold && Math.abs(now - before) > slack;
+        System.out.printf("%-90s %14.3f %14.3f %+8.1f%%%s%n", name, before, now, change * 100,
+                regressed ? "  << 劣化" : "");
+        return regressed ? 1 : 0;
+    }
+
+    /**
+     * 读取JMH JSON结果，以"基准方法 {参数} 模式"为key
+     */
+    private static Map<String, Measurement> load(Path file) throws IOException {
+        JSONArray results = JSON.parseArray(Files.readString(file, StandardCharsets.UTF_8));
+        Map<String, Measurement> measurements = new LinkedHashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            String mode = result.getString("mode");
+            JSONObject params = result.getJSONObject("params");
+            String key = result.getString("benchmark")
+                    + (params == null ? "" : " " + new TreeMap<>(params))
+                    + " " + mode;
+
+            JSONObject primary = result.getJSONObject("primaryMetric");
+            JSONObject percentiles = primary.getJSONObject("scorePercentiles");
+            JSONObject secondary = result.getJSONObject("secondaryMetrics");
+            JSONObject allocation = secondary == null ? null : secondary.getJSONObject(ALLOCATION_METRIC);
+
+            Measurement measurement = new Measurement();
+            measurement.score = primary.getDoubleValue("score");
+            measurement.unit = primary.getString("scoreUnit");
+            measurement.higherIsBetter = "thrpt".equals(mode);
+            measurement.p99 = "sample".equals(mode) && percentiles != null && percentiles.containsKey("99.0")
+                    ? percentiles.getDoubleValue("99.0") : Double.NaN;
+            measurement.allocatedBytes = allocation != null ? allocation.getDoubleValue("score") : Double.NaN;
+            measurements.put(key, measurement);
+        }
+        return measurements;
+    }
+
+    private static final class Measurement {
+
+        private double score;
+
+        private String unit;
+
+        private boolean higherIsBetter;
+
+        private double p99;
+
+        private double allocatedBytes;
+
+        @Override
+        public String toString() {
+            return String.format("%.3f %s, p99: %.3f, B/op: %.1f", score, unit, p99, allocatedBytes);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.biobt.gateway.benchmark;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.biobt.common.security.identity.IdentityHeaderCodec;
+import com.biobt.gateway.config.AccessLogConfig;
+import com.biobt.gateway.filter.AuthGlobalFilter;
+import com.biobt.gateway.filter.LogGlobalFilter;
+import com.biobt.gateway.filter.RateLimitGlobalFilter;
+import com.biobt.gateway.metrics.GatewayMetrics;
+import com.biobt.gateway.ratelimit.LocalBucketStore;
+import com.biobt.gateway.ratelimit.RateLimitPolicyRegistry;
+import com.biobt.gateway.ratelimit.RedisTokenBucketRateLimiter;
+import com.biobt.gateway.service.TokenVerificationService;
+import com.biobt.gateway.support.ErrorResponseWriter;
+import com.biobt.gateway.support.PathWhitelistMatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.OrderComparator;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试用的网关上下文
+ * 以网关自身的 application.yml 为配置，创建真实的认证、限流、日志过滤器及其依赖，
+ * 只替换外部依赖：Redis模板为不连接服务器的桩实现（吊销通知订阅永不触发），指标注册表为内存实现。
+ * 身份签名密钥使用固定的测试密钥，无需设置 IDENTITY_SECRET；各基准测试通过 overrides 覆盖个别配置项
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+public final class BenchmarkGatewayContext implements AutoCloseable {
+
+    private static final String IDENTITY_SECRET = "benchmark-only-identity-signing-key-0123456789";
+
+    private final AnnotationConfigApplicationContext context;
+
+    private BenchmarkGatewayContext(Map<String, Object> overrides) {
+        StandardEnvironment environment = new StandardEnvironment();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("logging.file.path", System.getProperty("benchmark.log.dir", "target/benchmark-logs"));
+        properties.put("biobt.security.identity.secret", IDENTITY_SECRET);
+        properties.putAll(overrides);
+        environment.getPropertySources().addFirst(new MapPropertySource("benchmarkOverrides", properties));
+        environment.getPropertySources().addLast(gatewayApplicationYaml());
+
+        context = new AnnotationConfigApplicationContext();
+        context.setEnvironment(environment);
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        context.register(StubInfrastructure.class, AccessLogConfig.class, GatewayMetrics.class,
+                ErrorResponseWriter.class, PathWhitelistMatcher.class, TokenVerificationService.class,
+                LocalBucketStore.class, RateLimitPolicyRegistry.class, RedisTokenBucketRateLimiter.class,
+                LogGlobalFilter.class, AuthGlobalFilter.class, RateLimitGlobalFilter.class);
+        context.refresh();
+    }
+
+    /**
+     * 使用网关默认配置创建上下文
+     */
+    public static BenchmarkGatewayContext start() {
+        return start(Map.of());
+    }
+
+    /**
+     * 覆盖部分配置项后创建上下文
+     */
+    public static BenchmarkGatewayContext start(Map<String, Object> overrides) {
+        return new BenchmarkGatewayContext(overrides);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public ConfigurableEnvironment getEnvironment() {
+        return context.getEnvironment();
+    }
+
+    /**
+     * 按执行顺序返回 LogGlobalFilter -> AuthGlobalFilter -> RateLimitGlobalFilter
+     */
+    public List<GlobalFilter> globalFilters() {
+        List<GlobalFilter> filters = new ArrayList<>(context.getBeansOfType(GlobalFilter.class).values());
+        filters.sort(OrderComparator.INSTANCE);
+        return filters;
+    }
+
+    /**
+     * 使用网关的JWT密钥签发token
+     */
+    public String issueToken(String userId, String username, String tenantId) {
+        return issueToken(userId, username, tenantId, getEnvironment().getRequiredProperty("jwt.secret"));
+    }
+
+    /**
+     * 使用指定密钥签发token，密钥与网关不一致时即为签名无效的token
+     */
+    public static String issueToken(String userId, String username, String tenantId, String secret) {
+        return JWT.create()
+                .withClaim("userId", userId)
+                .withClaim("username", username)
+                .withClaim("tenantId", tenantId)
+                .withExpiresAt(new Date(System.currentTimeMillis() + 3_600_000L))
+                .sign(Algorithm.HMAC256(secret));
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private static PropertySource<?> gatewayApplicationYaml() {
+        try {
+            // 文件中只有一个文档，取第一个即可
+            return new YamlPropertySourceLoader()
+                    .load("gatewayApplicationYaml", new ClassPathResource("application.yml"))
+                    .get(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取网关配置失败", e);
+        }
+    }
+
+    /**
+     * 替换外部依赖的桩实现
+     */
+    @Configuration(proxyBeanMethods = false)
+    static class StubInfrastructure {
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        public ReactiveStringRedisTemplate reactiveStringRedisTemplate() {
+            // 连接工厂不初始化，基准测试中不会发起任何Redis命令
+            return new ReactiveStringRedisTemplate(new LettuceConnectionFactory()) {
+                @Override
+                public Flux<? extends ReactiveSubscription.Message<String, String>> listenToChannel(String... channels) {
+                    return Flux.never();
+                }
+            };
+        }
+
+        @Bean
+        public IdentityHeaderCodec identityHeaderCodec(ConfigurableEnvironment environment) {
+            return new IdentityHeaderCodec(
+                    environment.getRequiredProperty("biobt.security.identity.secret"),
+                    environment.getProperty("biobt.security.identity.max-age-seconds", Long.class, 300L));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.biobt.gateway.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ * 接受标准JMH命令行参数（如 -rf json -rff target/jmh-result.json、按名称过滤基准测试的正则），
+ * 并始终启用GC分析器，以便每个结果都带有 gc.alloc.rate.norm（每次操作分配的字节数）。
+ * 基准测试出错（如内存占用超出上限）时退出码非0
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .shouldFailOnError(true)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,201 @@
+package com.biobt.gateway.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关过滤器链基准测试
+ * 按真实顺序执行 LogGlobalFilter -> AuthGlobalFilter -> RateLimitGlobalFilter，最后由进程内桩上游返回200。
+ * 四种流量：已认证、白名单、被限流、token无效。throughput 报告吞吐量，latency 的采样分布给出p99，
+ * 配合 -prof gc 的 gc.alloc.rate.norm 即每个请求的分配字节数；baseline 只构造请求并调用桩上游，用于扣除测试框架本身的开销
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterChainBenchmark {
+
+    private static final String ROUTE_ID = "user-service";
+
+    /**
+     * 足够大的令牌桶，非限流场景下请求不会被拒绝
+     */
+    private static final long UNLIMITED = 1_000_000_000_000L;
+
+    public enum Scenario {
+        /**
+         * 携带有效token访问业务接口
+         */
+        AUTHENTICATED(200),
+
+        /**
+         * 访问白名单路径，不携带token
+         */
+        WHITELISTED(200),
+
+        /**
+         * 携带有效token，但令牌桶已耗尽
+         */
+        RATE_LIMITED(429),
+
+        /**
+         * 携带签名无效的token
+         */
+        INVALID_TOKEN(401);
+
+        private final int expectedStatus;
+
+        Scenario(int expectedStatus) {
+            this.expectedStatus = expectedStatus;
+        }
+    }
+
+    @Param({"AUTHENTICATED", "WHITELISTED", "RATE_LIMITED", "INVALID_TOKEN"})
+    public Scenario scenario;
+
+    private BenchmarkGatewayContext gateway;
+
+    private List<GlobalFilter> filters;
+
+    private Route route;
+
+    private MockServerHttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gateway = BenchmarkGatewayContext.start(overrides(scenario));
+        filters = gateway.globalFilters();
+        route = Route.async()
+                .id(ROUTE_ID)
+                .uri("lb://user-service")
+                .predicate(exchange -> true)
+                .build();
+        request = buildRequest(scenario);
+
+        // 先走一遍，确认测的是目标场景（限流场景第一次请求消耗唯一的令牌）
+        execute();
+        int status = execute();
+        if (status != scenario.expectedStatus) {
+            throw new IllegalStateException("场景 " + scenario + " 期望状态码 " + scenario.expectedStatus
+                    + "，实际为 " + status);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        gateway.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int throughput() {
+        return execute();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int latency() {
+        return execute();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int baseline() {
+        MockServerWebExchange exchange = newExchange();
+        StubUpstreamChain.respond(exchange).block();
+        return status(exchange);
+    }
+
+    private int execute() {
+        MockServerWebExchange exchange = newExchange();
+        new StubUpstreamChain(filters).filter(exchange).block();
+        return status(exchange);
+    }
+
+    private MockServerWebExchange newExchange() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        return exchange;
+    }
+
+    private static int status(MockServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null ? status.value() : 0;
+    }
+
+    private MockServerHttpRequest buildRequest(Scenario scenario) {
+        String secret = gateway.getEnvironment().getRequiredProperty("jwt.secret");
+        MockServerHttpRequest.BaseBuilder<?> builder;
+        switch (scenario) {
+            case WHITELISTED:
+                builder = MockServerHttpRequest.post("/api/user/auth/login");
+                break;
+            case INVALID_TOKEN:
+                builder = MockServerHttpRequest.get("/api/user/api/users/10001")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + BenchmarkGatewayContext
+                                .issueToken("10001", "benchmark", "1", secret + "-tampered"));
+                break;
+            default:
+                builder = MockServerHttpRequest.get("/api/user/api/users/10001")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + gateway.issueToken("10001", "benchmark", "1"));
+                break;
+        }
+        return builder
+                .remoteAddress(new InetSocketAddress("10.0.0.8", 52100))
+                .header(HttpHeaders.USER_AGENT, "gateway-benchmark")
+                .build();
+    }
+
+    /**
+     * 与网关配置相同的三条叠加策略（按IP、按用户、按租户），非限流场景下容量足够大；
+     * 限流场景下按IP的令牌桶只有一个令牌且一小时才补充
+     */
+    private static Map<String, Object> overrides(Scenario scenario) {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("gateway.rate-limit.enabled", true);
+        overrides.put("gateway.rate-limit.mode", "local");
+        String[][] policies = {{"per-ip", "IP"}, {"per-user", "USER"}, {"tenant-total", "TENANT"}};
+        for (int i = 0; i < policies.length; i++) {
+            String prefix = "gateway.rate-limit.policies[" + i + "].";
+            boolean exhausted = scenario == Scenario.RATE_LIMITED && i == 0;
+            overrides.put(prefix + "id", policies[i][0]);
+            overrides.put(prefix + "key-by", policies[i][1]);
+            overrides.put(prefix + "capacity", exhausted ? 1L : UNLIMITED);
+            overrides.put(prefix + "refill-tokens", exhausted ? 1L : UNLIMITED);
+            overrides.put(prefix + "refill-seconds", exhausted ? 3600L : 1L);
+        }
+        // 空闲淘汰时间不小于补充周期，避免注册表告警
+        overrides.put("gateway.rate-limit.local.idle-expire-seconds", 3600L);
+        return overrides;
+    }
+}
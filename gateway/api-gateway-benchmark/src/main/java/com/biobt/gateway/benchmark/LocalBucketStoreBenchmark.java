@@ -0,0 +1,152 @@
+package com.biobt.gateway.benchmark;
+
+import com.biobt.gateway.ratelimit.LocalBucketStore;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Bucket4j;
+import io.github.bucket4j.Refill;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 本地令牌桶存储基准测试
+ * 存储上限为 capacity 个令牌桶（默认100万，相当于100万个活跃客户端IP），启动时依次放入 capacity × replayFactor 个
+ * 不同的key（默认1000万），每放入 capacity 个采样一次存储占用的堆内存。存储写满后占用应保持稳定：
+ * 任一采样超过写满时占用的 (1 + maxGrowth) 倍，或令牌桶数量超过上限时启动失败，基准测试以错误结束。
+ * hit 测量已有令牌桶的查找和扣减，churn 测量存储已满时不断出现新key（淘汰旧桶）的开销
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class LocalBucketStoreBenchmark {
+
+    @Param({"1000000"})
+    public int capacity;
+
+    /**
+     * 放入的不同key数量为上限的倍数
+     */
+    @Param({"10"})
+    public int replayFactor;
+
+    /**
+     * 写满后允许的堆内存增长比例
+     */
+    @Param({"0.10"})
+    public double maxGrowth;
+
+    private BenchmarkGatewayContext gateway;
+
+    private LocalBucketStore bucketStore;
+
+    private Function<String, Bucket> bucketFactory;
+
+    private String[] existingKeys;
+
+    private long nextNewKey;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gateway = BenchmarkGatewayContext.start(Map.of("gateway.rate-limit.local.maximum-size", capacity));
+        bucketStore = gateway.getBean(LocalBucketStore.class);
+        // 与默认限流策略相同：容量20，每秒补充10个
+        Bandwidth limit = Bandwidth.classic(20, Refill.intervally(10, Duration.ofSeconds(1)));
+        bucketFactory = key -> Bucket4j.builder().addLimit(limit).build();
+
+        // 占用统计包含key字符串本身，与线上一致
+        long before = usedHeapAfterGc();
+        long total = (long) capacity * replayFactor;
+        long full = -1;
+        for (long i = 0; i < total; i++) {
+            bucketStore.getBucket(key(i), bucketFactory).tryConsume(1);
+            if ((i + 1) % capacity == 0) {
+                bucketStore.cleanUp();
+                long retained = usedHeapAfterGc() - before;
+                long size = bucketStore.size();
+                System.out.printf("%n[LocalBucketStore] 已放入key: %d, 令牌桶数量: %d, 占用堆内存: %.1f MB, "
+                                + "平均每个桶: %d 字节",
+                        i + 1, size, retained / 1024.0 / 1024.0, retained / Math.max(1, size));
+                if (full < 0) {
+                    full = retained;
+                }
+                checkBound(i + 1, size, retained, full);
+            }
+        }
+        System.out.println();
+
+        // hit 使用最近放入的key，多数仍在存储中
+        existingKeys = new String[capacity];
+        for (int i = 0; i < capacity; i++) {
+            existingKeys[i] = key(total - capacity + i);
+        }
+        nextNewKey = total;
+    }
+
+    private void checkBound(long inserted, long size, long retained, long full) {
+        if (size > capacity) {
+            throw new IllegalStateException(String.format("已放入 %d 个key后令牌桶数量 %d 超过上限 %d",
+                    inserted, size, capacity));
+        }
+        if (retained > full * (1 + maxGrowth)) {
+            throw new IllegalStateException(String.format("已放入 %d 个key后堆内存占用 %.1f MB，超过写满时 %.1f MB 的 %.0f%%",
+                    inserted, retained / 1024.0 / 1024.0, full / 1024.0 / 1024.0, (1 + maxGrowth) * 100));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        gateway.close();
+    }
+
+    @Benchmark
+    public boolean hit() {
+        String key = existingKeys[ThreadLocalRandom.current().nextInt(existingKeys.length)];
+        return bucketStore.getBucket(key, bucketFactory).tryConsume(1);
+    }
+
+    @Benchmark
+    public boolean churn() {
+        return bucketStore.getBucket(key(nextNewKey++), bucketFactory).tryConsume(1);
+    }
+
+    /**
+     * 与限流过滤器生成的key格式一致：{策略前缀}{IP}:{路由模板}
+     */
+    private static String key(long index) {
+        return "rate_limit:per-ip:10." + ((index >> 16) & 0xFF) + '.' + ((index >> 8) & 0xFF) + '.' + (index & 0xFF)
+                + (index >> 24 == 0 ? "" : "-" + (index >> 24)) + ":user-service";
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,119 @@
+package com.biobt.gateway.benchmark;
+
+import com.biobt.gateway.route.PersistentRouteDefinitionRepository;
+import com.biobt.gateway.route.RoutePathIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 路由匹配基准测试
+ * 构造 routes 条带Path断言的动态路由，对比 {@link RoutePathIndex} 取候选后匹配与逐条匹配全部路由（默认实现）的耗时。
+ * 两种方式使用相同的响应式断言求值流程，差别只在参与求值的路由数量
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteLookupBenchmark {
+
+    @Param({"10", "1000", "5000"})
+    public int routes;
+
+    private List<Route> routeTable;
+
+    private RoutePathIndex index;
+
+    private MockServerHttpRequest lastRouteRequest;
+
+    private MockServerHttpRequest missRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PathPatternParser parser = new PathPatternParser();
+        routeTable = new ArrayList<>(routes);
+        for (int i = 0; i < routes; i++) {
+            String pattern = "/api/tenant" + (i % 50) + "/app" + i + "/**";
+            PathPattern pathPattern = parser.parse(pattern);
+            routeTable.add(Route.async()
+                    .id("dynamic-" + i)
+                    .uri("lb://app-" + i)
+                    .order(0)
+                    .predicate(exchange -> pathPattern.matches(exchange.getRequest().getPath().pathWithinApplication()))
+                    .metadata(PersistentRouteDefinitionRepository.PATH_PATTERNS, pattern)
+                    .build());
+        }
+        index = RoutePathIndex.build(routeTable);
+
+        int last = routes - 1;
+        lastRouteRequest = MockServerHttpRequest.get("/api/tenant" + (last % 50) + "/app" + last + "/orders/1").build();
+        missRequest = MockServerHttpRequest.get("/api/unknown/orders/1").build();
+
+        if (indexedLookup(lastRouteRequest) == null || linearLookup(lastRouteRequest) == null) {
+            throw new IllegalStateException("最后一条路由未匹配");
+        }
+    }
+
+    @Benchmark
+    public Route indexedLastRoute() {
+        return indexedLookup(lastRouteRequest);
+    }
+
+    @Benchmark
+    public Route linearLastRoute() {
+        return linearLookup(lastRouteRequest);
+    }
+
+    @Benchmark
+    public Route indexedMiss() {
+        return indexedLookup(missRequest);
+    }
+
+    @Benchmark
+    public Route linearMiss() {
+        return linearLookup(missRequest);
+    }
+
+    private Route indexedLookup(MockServerHttpRequest request) {
+        ServerWebExchange exchange = MockServerWebExchange.from(request);
+        return firstMatch(index.candidates(request.getPath().pathWithinApplication()), exchange);
+    }
+
+    private Route linearLookup(MockServerHttpRequest request) {
+        return firstMatch(routeTable, MockServerWebExchange.from(request));
+    }
+
+    private static Route firstMatch(List<Route> candidates, ServerWebExchange exchange) {
+        return Flux.fromIterable(candidates)
+                .concatMap(route -> Mono.just(route)
+                        .filterWhen(r -> r.getPredicate().apply(exchange)))
+                .next()
+                .block();
+    }
+}
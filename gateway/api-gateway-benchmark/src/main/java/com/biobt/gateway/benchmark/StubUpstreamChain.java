@@ -0,0 +1,60 @@
+package com.biobt.gateway.benchmark;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 依次执行给定的全局过滤器，最后由本地桩上游写出固定的200响应
+ * 桩上游在进程内直接写响应，不经过网络和负载均衡，测得的是网关过滤器本身的开销
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+public final class StubUpstreamChain implements GatewayFilterChain {
+
+    private static final byte[] UPSTREAM_BODY =
+            "{\"code\":200,\"message\":\"success\",\"data\":{\"id\":1,\"name\":\"benchmark\"}}"
+                    .getBytes(StandardCharsets.UTF_8);
+
+    private final List<GlobalFilter> filters;
+
+    private final int index;
+
+    public StubUpstreamChain(List<GlobalFilter> filters) {
+        this(filters, 0);
+    }
+
+    private StubUpstreamChain(List<GlobalFilter> filters, int index) {
+        this.filters = filters;
+        this.index = index;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange) {
+        if (index < filters.size()) {
+            return filters.get(index).filter(exchange, new StubUpstreamChain(filters, index + 1));
+        }
+        return respond(exchange);
+    }
+
+    /**
+     * 桩上游：写出固定的JSON响应
+     */
+    public static Mono<Void> respond(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(UPSTREAM_BODY.length);
+        DataBuffer buffer = response.bufferFactory().wrap(UPSTREAM_BODY);
+        return response.writeWith(Mono.just(buffer));
+    }
+}
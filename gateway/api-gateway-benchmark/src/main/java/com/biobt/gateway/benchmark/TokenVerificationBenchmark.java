@@ -0,0 +1,152 @@
+package com.biobt.gateway.benchmark;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.biobt.gateway.service.TokenVerificationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token验证基准测试
+ * 三种实现对比单次验证开销：
+ * <ul>
+ *     <li>cache：网关当前实现，复用JWTVerifier并缓存验证结果</li>
+ *     <li>noCache：复用JWTVerifier，关闭验证缓存</li>
+ *     <li>baseline：优化前的实现，每次验证都重新创建Algorithm和JWTVerifier</li>
+ * </ul>
+ * 每次验证以 reuseRatio 的概率使用 tokens 个活跃token之一，否则使用从未出现过的token（新登录的用户）；
+ * 新token池大于验证缓存容量，循环使用时基本不会命中缓存
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenVerificationBenchmark {
+
+    /**
+     * 复用模式的长度，模式由固定种子生成，各次运行一致
+     */
+    private static final int PATTERN_LENGTH = 1024;
+
+    @Param({"cache", "noCache", "baseline"})
+    public String mode;
+
+    @Param({"1.0", "0.9", "0.5"})
+    public double reuseRatio;
+
+    @Param({"1024"})
+    public int tokens;
+
+    /**
+     * 新token池大小，应大于 gateway.auth.token-cache.maximum-size（默认10万）
+     */
+    @Param({"262144"})
+    public int freshTokens;
+
+    private BenchmarkGatewayContext gateway;
+
+    private TokenVerificationService verificationService;
+
+    private String secret;
+
+    private boolean baseline;
+
+    private String[] issued;
+
+    private String[] fresh;
+
+    private boolean[] reusePattern;
+
+    private int nextIssued;
+
+    private int nextFresh;
+
+    private int nextPattern;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gateway = BenchmarkGatewayContext.start(Map.of("gateway.auth.token-cache.enabled", "cache".equals(mode)));
+        verificationService = gateway.getBean(TokenVerificationService.class);
+        secret = gateway.getEnvironment().getRequiredProperty("jwt.secret");
+        baseline = "baseline".equals(mode);
+
+        issued = new String[tokens];
+        for (int i = 0; i < tokens; i++) {
+            issued[i] = gateway.issueToken(String.valueOf(10000 + i), "user" + i, "1");
+        }
+        fresh = new String[reuseRatio < 1.0 ? freshTokens : 0];
+        for (int i = 0; i < fresh.length; i++) {
+            fresh[i] = gateway.issueToken(String.valueOf(1_000_000 + i), "new" + i, "1");
+        }
+        Random random = new Random(42);
+        reusePattern = new boolean[PATTERN_LENGTH];
+        for (int i = 0; i < PATTERN_LENGTH; i++) {
+            reusePattern[i] = fresh.length == 0 || random.nextDouble() < reuseRatio;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        gateway.close();
+    }
+
+    @Benchmark
+    public Object verify() {
+        String token = nextToken();
+        return baseline ? verifyWithNewVerifier(token) : verificationService.verify(token);
+    }
+
+    @Benchmark
+    public String hash() {
+        return TokenVerificationService.hash(nextToken());
+    }
+
+    private String nextToken() {
+        boolean reuse = reusePattern[nextPattern];
+        nextPattern = nextPattern + 1 == PATTERN_LENGTH ? 0 : nextPattern + 1;
+        if (reuse) {
+            String token = issued[nextIssued];
+            nextIssued = nextIssued + 1 == issued.length ? 0 : nextIssued + 1;
+            return token;
+        }
+        String token = fresh[nextFresh];
+        nextFresh = nextFresh + 1 == fresh.length ? 0 : nextFresh + 1;
+        return token;
+    }
+
+    /**
+     * 优化前的验证方式：每次创建Algorithm和JWTVerifier，解码后读取声明
+     */
+    private TokenVerificationService.VerifiedToken verifyWithNewVerifier(String token) {
+        DecodedJWT decodedJWT = JWT.require(Algorithm.HMAC256(secret)).build().verify(token);
+        Date expiresAt = decodedJWT.getExpiresAt();
+        return new TokenVerificationService.VerifiedToken(
+                decodedJWT.getClaim("userId").asString(),
+                decodedJWT.getClaim("username").asString(),
+                decodedJWT.getClaim("tenantId").asString(),
+                expiresAt != null ? expiresAt.getTime() : Long.MAX_VALUE
+        );
+    }
+}
@@ -0,0 +1,103 @@
+package com.biobt.gateway.benchmark;
+
+import com.biobt.gateway.support.PathWhitelistMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 白名单匹配基准测试
+ * 白名单规模为5、50、500条，其中精确路径、前缀通配（/**）和带变量的模式各占一部分；
+ * 分别测量精确命中、通配命中和未命中（大多数业务请求）的耗时，并与逐条AntPathMatcher匹配对比
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WhitelistMatcherBenchmark {
+
+    @Param({"5", "50", "500"})
+    public int size;
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    private PathWhitelistMatcher matcher;
+
+    private List<String> patterns;
+
+    private String exactPath;
+
+    private String wildcardPath;
+
+    private String missPath;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        patterns = new ArrayList<>(size);
+        for (int i = 0; patterns.size() < size; i++) {
+            switch (i % 3) {
+                case 0:
+                    patterns.add("/api/svc" + i + "/auth/login");
+                    break;
+                case 1:
+                    patterns.add("/api/svc" + i + "/public/**");
+                    break;
+                default:
+                    patterns.add("/api/svc" + i + "/files/{id}/preview");
+                    break;
+            }
+        }
+        matcher = new PathWhitelistMatcher();
+        matcher.update(patterns);
+
+        // 取靠后的模式，逐条匹配时需要遍历大部分白名单
+        int last = (size - 1) / 3 * 3;
+        exactPath = "/api/svc" + last + "/auth/login";
+        wildcardPath = "/api/svc" + (size > 1 ? last - 2 : 1) + "/public/docs/index.html";
+        missPath = "/api/user/api/users/10001";
+    }
+
+    @Benchmark
+    public boolean exactHit() {
+        return matcher.matches(exactPath);
+    }
+
+    @Benchmark
+    public boolean wildcardHit() {
+        return matcher.matches(wildcardPath);
+    }
+
+    @Benchmark
+    public boolean miss() {
+        return matcher.matches(missPath);
+    }
+
+    @Benchmark
+    public boolean linearAntMatcherMiss() {
+        for (String pattern : patterns) {
+            if (antPathMatcher.match(pattern, missPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
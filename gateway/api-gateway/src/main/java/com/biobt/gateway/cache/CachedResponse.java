@@ -0,0 +1,87 @@
+package com.biobt.gateway.cache;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.IllegalReferenceCountException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * 缓存的响应
+ * 响应体为直接内存缓冲区，由 {@link ResponseCacheStore} 在条目移除时释放；
+ * 读取时通过 {@link #retainBody(DataBufferFactory)} 获取独立引用，已释放时返回null
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+public final class CachedResponse {
+
+    private final int status;
+
+    private final HttpHeaders headers;
+
+    private final ByteBuf body;
+
+    private final String etag;
+
+    private final long expiresAt;
+
+    public CachedResponse(int status, HttpHeaders headers, ByteBuf body, String etag, long expiresAt) {
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+        this.etag = etag;
+        this.expiresAt = expiresAt;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public int getBodyLength() {
+        return body.readableBytes();
+    }
+
+    /**
+     * 获取响应体的一份引用，写出后由框架释放
+     *
+     * @return 响应体；条目已被淘汰并释放时返回null
+     */
+    public DataBuffer retainBody(DataBufferFactory factory) {
+        ByteBuf duplicate;
+        try {
+            duplicate = body.retainedDuplicate();
+        } catch (IllegalReferenceCountException e) {
+            return null;
+        }
+        if (factory instanceof NettyDataBufferFactory nettyFactory) {
+            return nettyFactory.wrap(duplicate);
+        }
+        try {
+            byte[] bytes = new byte[duplicate.readableBytes()];
+            duplicate.readBytes(bytes);
+            return factory.wrap(bytes);
+        } finally {
+            duplicate.release();
+        }
+    }
+
+    void release() {
+        if (body.refCnt() > 0) {
+            body.release();
+        }
+    }
+}
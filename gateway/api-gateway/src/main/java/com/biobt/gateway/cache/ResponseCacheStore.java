@@ -0,0 +1,109 @@
+package com.biobt.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关响应缓存存储
+ * 响应体存放在Netty池化的直接内存中，按总字节数限制容量，条目被淘汰或过期时立即释放直接内存；
+ * 堆内只保留状态码、响应头等元数据
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class ResponseCacheStore {
+
+    /**
+     * 每个条目除响应体外的估算开销（字节）
+     */
+    private static final int ENTRY_OVERHEAD = 512;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${gateway.response-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${gateway.response-cache.max-entry-bytes:1048576}")
+    private int maxEntryBytes;
+
+    private Cache<String, CachedResponse> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResponse value) -> ENTRY_OVERHEAD + key.length() + value.getBodyLength())
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.getExpiresAt() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .removalListener((String key, CachedResponse value, RemovalCause cause) -> {
+                    if (value != null) {
+                        value.release();
+                    }
+                })
+                .recordStats()
+                .build();
+
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.response.cache");
+        }
+
+        log.info("响应缓存初始化完成 - 最大容量: {}字节, 单条上限: {}字节", maxBytes, maxEntryBytes);
+    }
+
+    /**
+     * 分配用于累积响应体的直接内存缓冲区
+     */
+    public ByteBuf allocateBody(int initialCapacity) {
+        return PooledByteBufAllocator.DEFAULT.directBuffer(Math.min(initialCapacity, maxEntryBytes), maxEntryBytes);
+    }
+
+    public CachedResponse get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(String key, CachedResponse response) {
+        cache.put(key, response);
+    }
+
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public int getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+}
@@ -0,0 +1,88 @@
+package com.biobt.gateway.config;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.TimeBasedRollingPolicy;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 访问日志配置
+ * 访问日志写入独立的ACCESS_LOG日志器，经有界队列异步落盘，队列满时直接丢弃而不阻塞网关IO线程
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+@Configuration
+public class AccessLogConfig {
+
+    /**
+     * 访问日志器名称
+     */
+    public static final String ACCESS_LOGGER = "ACCESS_LOG";
+
+    @Value("${logging.file.path:/var/log/biobt/api-gateway}")
+    private String logPath;
+
+    @Value("${gateway.access-log.queue-size:8192}")
+    private int queueSize;
+
+    @Value("${gateway.access-log.max-history:7}")
+    private int maxHistory;
+
+    /**
+     * 初始化访问日志
+     */
+    @PostConstruct
+    public void initAccessLog() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+        RollingFileAppender<ILoggingEvent> fileAppender = new RollingFileAppender<>();
+        fileAppender.setContext(context);
+        fileAppender.setName("ACCESS_LOG_FILE");
+        fileAppender.setFile(logPath + "/access.log");
+
+        // 滚动策略
+        TimeBasedRollingPolicy<ILoggingEvent> policy = new TimeBasedRollingPolicy<>();
+        policy.setContext(context);
+        policy.setParent(fileAppender);
+        policy.setFileNamePattern(logPath + "/access.%d{yyyy-MM-dd}.log.gz");
+        policy.setMaxHistory(maxHistory);
+        policy.start();
+
+        // 编码器，消息本身已是结构化的key=value格式
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} %msg%n");
+        encoder.start();
+
+        fileAppender.setRollingPolicy(policy);
+        fileAppender.setEncoder(encoder);
+        fileAppender.start();
+
+        // 异步队列：不因日志IO阻塞请求线程，不按级别丢弃，队列满时丢弃新事件
+        AsyncAppender asyncAppender = new AsyncAppender();
+        asyncAppender.setContext(context);
+        asyncAppender.setName("ACCESS_LOG_ASYNC");
+        asyncAppender.setQueueSize(queueSize);
+        asyncAppender.setDiscardingThreshold(0);
+        asyncAppender.setNeverBlock(true);
+        asyncAppender.setIncludeCallerData(false);
+        asyncAppender.addAppender(fileAppender);
+        asyncAppender.start();
+
+        Logger logger = context.getLogger(ACCESS_LOGGER);
+        logger.addAppender(asyncAppender);
+        logger.setAdditive(false);
+
+        log.info("访问日志初始化完成 - 日志路径: {}, 队列大小: {}", logPath, queueSize);
+    }
+}
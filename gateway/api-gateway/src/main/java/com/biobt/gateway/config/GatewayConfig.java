@@ -1,9 +1,20 @@
 package com.biobt.gateway.config;
 
+import com.biobt.gateway.handler.FallbackHandler;
+import com.biobt.gateway.route.IndexedRoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.path;
 
 /**
  * 网关配置类
@@ -17,7 +28,7 @@ public class GatewayConfig {
     
     /**
      * 自定义路由配置
-     * 补充application.yml中的路由配置
+     * 补充application.yml中的路由配置；响应缓存直接加在application.yml的服务路由上，不在此重复定义路由
      */
     @Bean
     public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
@@ -25,7 +36,8 @@ public class GatewayConfig {
                 // 健康检查路由
                 .route("health-check", r -> r
                         .path("/health")
-                        .uri("http://localhost:8080/actuator/health")
+                        .filters(f -> f.setPath("/actuator/health"))
+                        .uri("forward:/actuator/health")
                 )
                 // API文档聚合路由
                 .route("api-docs", r -> r
@@ -47,4 +59,30 @@ public class GatewayConfig {
                 )
                 .build();
     }
+    
+    /**
+     * 路由匹配使用路径索引，动态路由数量增加时查找开销不随之增长
+     */
+    @Bean
+    public RoutePredicateHandlerMapping routePredicateHandlerMapping(FilteringWebHandler webHandler,
+                                                                     RouteLocator routeLocator,
+                                                                     GlobalCorsProperties globalCorsProperties,
+                                                                     Environment environment) {
+        return new IndexedRoutePredicateHandlerMapping(webHandler, routeLocator, globalCorsProperties, environment);
+    }
+    
+    /**
+     * 降级响应路由
+     * 上游熔断或超出并发上限时，UpstreamProtectionGlobalFilter将请求转到 /fallback/{服务名}
+     */
+    @Bean
+    public RouterFunction<ServerResponse> fallbackRouterFunction(FallbackHandler fallbackHandler) {
+        return RouterFunctions
+                .route(path("/fallback/user-service"), fallbackHandler::userServiceFallback)
+                .andRoute(path("/fallback/customer-service"), fallbackHandler::customerServiceFallback)
+                .andRoute(path("/fallback/project-service"), fallbackHandler::projectServiceFallback)
+                .andRoute(path("/fallback/contract-service"), fallbackHandler::contractServiceFallback)
+                .andRoute(path("/fallback/order-service"), fallbackHandler::orderServiceFallback)
+                .andRoute(path("/fallback/**"), fallbackHandler);
+    }
 }
\ No newline at end of file
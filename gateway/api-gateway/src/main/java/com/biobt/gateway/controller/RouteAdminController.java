@@ -0,0 +1,135 @@
+package com.biobt.gateway.controller;
+
+import com.biobt.common.core.domain.ApiResponse;
+import com.biobt.gateway.route.PersistentRouteDefinitionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 动态路由管理接口
+ * 新增、修改、删除单条路由后只刷新该路由；请求需携带 X-Admin-Token，未配置 gateway.admin.token 时接口不可用。
+ * 写文件的接口返回Mono，文件读写在 boundedElastic 调度器上完成
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@RestController
+@RequestMapping("/admin/routes")
+@Slf4j
+public class RouteAdminController {
+
+    private static final String ADMIN_TOKEN_HEADER = "X-Admin-Token";
+
+    @Autowired
+    private PersistentRouteDefinitionRepository routeRepository;
+
+    @Value("${gateway.admin.token:}")
+    private String adminToken;
+
+    /**
+     * 查询全部动态路由
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<RouteDefinition>>> list(
+            @RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String token) {
+        if (!authorized(token)) {
+            return forbidden();
+        }
+        return ResponseEntity.ok(ApiResponse.success(routeRepository.list()));
+    }
+
+    /**
+     * 查询单条动态路由
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<RouteDefinition>> get(
+            @RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String token,
+            @PathVariable String id) {
+        if (!authorized(token)) {
+            return forbidden();
+        }
+        RouteDefinition definition = routeRepository.get(id);
+        if (definition == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.notFound("路由不存在: " + id));
+        }
+        return ResponseEntity.ok(ApiResponse.success(definition));
+    }
+
+    /**
+     * 新增或更新动态路由
+     */
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<ApiResponse<RouteDefinition>>> save(
+            @RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String token,
+            @PathVariable String id,
+            @RequestBody RouteDefinition definition) {
+        if (!authorized(token)) {
+            return Mono.just(forbidden());
+        }
+        definition.setId(id);
+        return routeRepository.put(definition)
+                .map(saved -> ResponseEntity.ok(ApiResponse.success(saved)))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(
+                        ResponseEntity.badRequest().body(ApiResponse.<RouteDefinition>badRequest(e.getMessage()))));
+    }
+
+    /**
+     * 删除动态路由
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<ApiResponse<Void>>> delete(
+            @RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String token,
+            @PathVariable String id) {
+        if (!authorized(token)) {
+            return Mono.just(forbidden());
+        }
+        return routeRepository.remove(id)
+                .map(removed -> removed
+                        ? ResponseEntity.ok(ApiResponse.<Void>success())
+                        : ResponseEntity.status(HttpStatus.NOT_FOUND)
+                                .body(ApiResponse.<Void>notFound("路由不存在: " + id)));
+    }
+
+    /**
+     * 重新读取路由文件，只刷新有变化的路由
+     */
+    @PostMapping("/reload")
+    public Mono<ResponseEntity<ApiResponse<Set<String>>>> reload(
+            @RequestHeader(value = ADMIN_TOKEN_HEADER, required = false) String token) {
+        if (!authorized(token)) {
+            return Mono.just(forbidden());
+        }
+        return routeRepository.reload().map(changed -> ResponseEntity.ok(ApiResponse.success(changed)));
+    }
+
+    private boolean authorized(String token) {
+        if (!StringUtils.hasText(adminToken) || token == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(adminToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static <T> ResponseEntity<ApiResponse<T>> forbidden() {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ApiResponse.forbidden("无权访问路由管理接口"));
+    }
+}
@@ -1,36 +1,35 @@
 package com.biobt.gateway.filter;
 
-import com.alibaba.fastjson2.JSON;
-import com.auth0.jwt.JWT;
-import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
-import com.auth0.jwt.interfaces.DecodedJWT;
-import com.auth0.jwt.interfaces.JWTVerifier;
+import com.biobt.common.security.identity.IdentityHeaderCodec;
+import com.biobt.gateway.metrics.GatewayMetrics;
+import com.biobt.gateway.service.TokenVerificationService;
+import com.biobt.gateway.support.ErrorResponseWriter;
+import com.biobt.gateway.support.PathWhitelistMatcher;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
-import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 认证全局过滤器
- * 负责JWT token的验证和用户信息的传递
+ * 负责JWT token的验证和用户信息的传递。
+ * 客户端传入的身份请求头一律移除，认证通过后由网关重新写入，并附带签名的 {@value IdentityHeaderCodec#IDENTITY_HEADER}，
+ * 下游服务只需校验签名，无需再解析JWT。
+ * 已认证的登出请求（logout-paths）在转发前吊销当前token，并经Redis通知其他网关实例
  * 
  * @author BioBt Platform
  * @since 1.0.0
@@ -39,8 +38,14 @@ import java.util.Map;
 @Slf4j
 public class AuthGlobalFilter implements GlobalFilter, Ordered {
     
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    /**
+     * 由网关写入的身份请求头
+     */
+    private static final List<String> IDENTITY_HEADERS = List.of(
+            "X-User-Id", "X-Username", "X-Tenant-Id", IdentityHeaderCodec.IDENTITY_HEADER);
+    
+    @Autowired
+    private TokenVerificationService tokenVerificationService;
     
     @Value("${jwt.header}")
     private String tokenHeader;
@@ -48,14 +53,37 @@ public class AuthGlobalFilter implements GlobalFilter, Ordered {
     @Value("${jwt.prefix}")
     private String tokenPrefix;
     
-    @Value("${gateway.whitelist}")
-    private List<String> whitelist;
+    @Autowired
+    private PathWhitelistMatcher whitelistMatcher;
+    
+    @Autowired
+    private GatewayMetrics gatewayMetrics;
+    
+    @Autowired
+    private IdentityHeaderCodec identityHeaderCodec;
+    
+    @Autowired
+    private ErrorResponseWriter errorResponseWriter;
+    
+    /**
+     * 登出接口路径，请求通过认证后吊销所用的token
+     */
+    @Value("${gateway.auth.logout-paths:/api/user/auth/logout}")
+    private List<String> logoutPaths;
     
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    /**
+     * 身份请求头重新签发间隔，取有效期的一半，保证下游收到时仍在有效期内
+     */
+    private long identityRefreshSeconds;
+    
+    @PostConstruct
+    public void init() {
+        identityRefreshSeconds = Math.max(1, identityHeaderCodec.getMaxAgeSeconds() / 2);
+    }
     
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpRequest request = stripIdentityHeaders(exchange.getRequest());
         String path = request.getURI().getPath();
         
         log.debug("请求路径: {}", path);
@@ -63,24 +91,26 @@ public class AuthGlobalFilter implements GlobalFilter, Ordered {
         // 检查是否在白名单中
         if (isWhitelisted(path)) {
             log.debug("路径 {} 在白名单中，跳过认证", path);
-            return chain.filter(exchange);
+            return request == exchange.getRequest()
+                    ? chain.filter(exchange) : chain.filter(exchange.mutate().request(request).build());
         }
         
         // 获取token
         String token = getToken(request);
         if (!StringUtils.hasText(token)) {
             log.warn("请求路径 {} 缺少认证token", path);
-            return unauthorized(exchange.getResponse(), "缺少认证token");
+            gatewayMetrics.incrementUnauthorized("missing");
+            return unauthorized(exchange, "缺少认证token");
         }
         
         try {
-            // 验证token
-            DecodedJWT decodedJWT = verifyToken(token);
+            // 验证token（命中缓存时跳过签名校验）
+            TokenVerificationService.VerifiedToken verifiedToken = tokenVerificationService.verify(token);
             
             // 提取用户信息
-            String userId = decodedJWT.getClaim("userId").asString();
-            String username = decodedJWT.getClaim("username").asString();
-            String tenantId = decodedJWT.getClaim("tenantId").asString();
+            String userId = verifiedToken.getUserId();
+            String username = verifiedToken.getUsername();
+            String tenantId = verifiedToken.getTenantId();
             
             log.debug("用户 {} (ID: {}, 租户: {}) 认证成功", username, userId, tenantId);
             
@@ -89,24 +119,52 @@ public class AuthGlobalFilter implements GlobalFilter, Ordered {
                     .header("X-User-Id", userId)
                     .header("X-Username", username)
                     .header("X-Tenant-Id", tenantId)
+                    .header(IdentityHeaderCodec.IDENTITY_HEADER,
+                            verifiedToken.identityHeader(identityHeaderCodec, identityRefreshSeconds))
                     .build();
             
-            return chain.filter(exchange.mutate().request(mutatedRequest).build());
+            ServerWebExchange mutatedExchange = exchange.mutate().request(mutatedRequest).build();
+            if (isLogout(request, path)) {
+                log.info("用户 {} 登出，吊销token", userId);
+                return tokenVerificationService.revoke(token, verifiedToken).then(chain.filter(mutatedExchange));
+            }
+            return chain.filter(mutatedExchange);
             
         } catch (JWTVerificationException e) {
             log.warn("Token验证失败: {}", e.getMessage());
-            return unauthorized(exchange.getResponse(), "无效的认证token");
+            gatewayMetrics.incrementUnauthorized("invalid");
+            return unauthorized(exchange, "无效的认证token");
         } catch (Exception e) {
             log.error("认证过程中发生异常", e);
-            return unauthorized(exchange.getResponse(), "认证失败");
+            gatewayMetrics.incrementUnauthorized("error");
+            return unauthorized(exchange, "认证失败");
         }
     }
     
+    /**
+     * 移除客户端伪造的身份请求头，不包含时返回原请求
+     */
+    private ServerHttpRequest stripIdentityHeaders(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        for (String name : IDENTITY_HEADERS) {
+            if (headers.containsKey(name)) {
+                return request.mutate()
+                        .headers(h -> IDENTITY_HEADERS.forEach(h::remove))
+                        .build();
+            }
+        }
+        return request;
+    }
+    
     /**
      * 检查路径是否在白名单中
      */
     private boolean isWhitelisted(String path) {
-        return whitelist.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+        return whitelistMatcher.matches(path);
+    }
+    
+    private boolean isLogout(ServerHttpRequest request, String path) {
+        return request.getMethod() == HttpMethod.POST && logoutPaths.contains(path);
     }
     
     /**
@@ -120,31 +178,11 @@ public class AuthGlobalFilter implements GlobalFilter, Ordered {
         return null;
     }
     
-    /**
-     * 验证JWT token
-     */
-    private DecodedJWT verifyToken(String token) {
-        Algorithm algorithm = Algorithm.HMAC256(jwtSecret);
-        JWTVerifier verifier = JWT.require(algorithm).build();
-        return verifier.verify(token);
-    }
-    
     /**
      * 返回未授权响应
      */
-    private Mono<Void> unauthorized(ServerHttpResponse response, String message) {
-        response.setStatusCode(HttpStatus.UNAUTHORIZED);
-        response.getHeaders().add("Content-Type", MediaType.APPLICATION_JSON_VALUE);
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("code", 401);
-        result.put("message", message);
-        result.put("timestamp", System.currentTimeMillis());
-        
-        String body = JSON.toJSONString(result);
-        DataBuffer buffer = response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8));
-        
-        return response.writeWith(Mono.just(buffer));
+    private Mono<Void> unauthorized(ServerWebExchange exchange, String message) {
+        return errorResponseWriter.write(exchange, HttpStatus.UNAUTHORIZED, message);
     }
     
     @Override
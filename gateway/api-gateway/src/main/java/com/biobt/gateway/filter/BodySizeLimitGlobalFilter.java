@@ -0,0 +1,263 @@
+package com.biobt.gateway.filter;
+
+import com.biobt.gateway.support.BodySizeLimitRegistry;
+import com.biobt.gateway.support.ErrorResponseWriter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.PooledByteBufAllocator;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求体大小限制全局过滤器
+ * Content-Length超过路由上限时在读取请求体之前直接返回413；分块上传在转发过程中逐块计数，超限立即中断。
+ * 请求体始终以流的方式转发给上游，不在网关聚合：每个上传最多预取 prefetch 个数据块，
+ * 上游写入变慢时反压传导到客户端连接；已向客户端请求数据但超过空闲时间仍未收到数据块则中断（408），避免慢速客户端长期占用连接。
+ * 空闲计时只在有未满足的请求量时进行，上游反压导致网关暂停读取时不计时
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class BodySizeLimitGlobalFilter implements GlobalFilter, Ordered {
+
+    @Autowired
+    private BodySizeLimitRegistry limitRegistry;
+
+    @Autowired
+    private ErrorResponseWriter errorResponseWriter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${gateway.body-limit.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 每个上传在网关中最多缓冲的数据块数
+     */
+    @Value("${gateway.body-limit.prefetch:8}")
+    private int prefetch;
+
+    /**
+     * 已请求数据后等待下一个数据块的最长时间
+     */
+    @Value("${gateway.body-limit.read-idle-timeout:30s}")
+    private Duration readIdleTimeout;
+
+    private final AtomicInteger inFlightUploads = new AtomicInteger();
+
+    /**
+     * 所有在途上传已从客户端读取、尚未交给上游的字节数
+     */
+    private final AtomicLong bufferedBytes = new AtomicLong();
+
+    private final Map<String, DistributionSummary> uploadSizes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("gateway.upload.inflight", inFlightUploads, AtomicInteger::get)
+                .description("正在转发的请求体数量")
+                .register(meterRegistry);
+        Gauge.builder("gateway.upload.direct.memory", PooledByteBufAllocator.DEFAULT,
+                        allocator -> allocator.metric().usedDirectMemory())
+                .description("Netty池化直接内存占用")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("gateway.upload.buffered", bufferedBytes, AtomicLong::get)
+                .description("在途上传已读取、尚未转发给上游的请求体字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!enabled) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        HttpHeaders headers = request.getHeaders();
+        long contentLength = headers.getContentLength();
+        boolean chunked = headers.containsKey(HttpHeaders.TRANSFER_ENCODING);
+        if (contentLength <= 0 && !chunked) {
+            return chain.filter(exchange);
+        }
+
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "none";
+        long maxBytes = limitRegistry.maxBytes(routeId, request.getPath().pathWithinApplication());
+        if (maxBytes >= 0 && contentLength > maxBytes) {
+            log.warn("请求体超过上限 - 路由: {}, 路径: {}, 大小: {}, 上限: {}",
+                    routeId, request.getURI().getPath(), contentLength, maxBytes);
+            // 不读取请求体，响应后关闭连接
+            exchange.getResponse().getHeaders().setConnection("close");
+            return errorResponseWriter.write(exchange, HttpStatus.PAYLOAD_TOO_LARGE, "请求体超过大小限制");
+        }
+
+        DistributionSummary uploadSize = uploadSizes.computeIfAbsent(routeId, id -> DistributionSummary
+                .builder("gateway.upload.size")
+                .description("请求体大小")
+                .baseUnit("bytes")
+                .tag("route", id)
+                .register(meterRegistry));
+        LimitedRequest limited = new LimitedRequest(request, maxBytes, uploadSize);
+        inFlightUploads.incrementAndGet();
+        return chain.filter(exchange.mutate().request(limited).build())
+                .doFinally(signal -> {
+                    inFlightUploads.decrementAndGet();
+                    limited.record();
+                    limited.releaseBuffered();
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        // 在认证之前执行，超限请求不再校验token
+        return -110;
+    }
+
+    /**
+     * 逐块计数并限制预取的请求体
+     */
+    private final class LimitedRequest extends ServerHttpRequestDecorator {
+
+        private final long maxBytes;
+
+        private final DistributionSummary uploadSize;
+
+        private long received;
+
+        private boolean recorded;
+
+        /**
+         * 本上传已读取、尚未转发的字节数（预取队列中的数据块）
+         */
+        private final AtomicLong buffered = new AtomicLong();
+
+        private LimitedRequest(ServerHttpRequest delegate, long maxBytes, DistributionSummary uploadSize) {
+            super(delegate);
+            this.maxBytes = maxBytes;
+            this.uploadSize = uploadSize;
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return Flux.defer(() -> {
+                ReadIdleTimeout idle = new ReadIdleTimeout(readIdleTimeout);
+                return super.getBody()
+                        .doOnRequest(idle::requested)
+                        .doOnNext(buffer -> idle.received())
+                        .timeout(idle.next(), buffer -> idle.next())
+                        .onErrorMap(TimeoutException.class,
+                                e -> new ResponseStatusException(HttpStatus.REQUEST_TIMEOUT, "请求体读取超时"))
+                        .<DataBuffer>handle((buffer, sink) -> {
+                            received += buffer.readableByteCount();
+                            if (maxBytes >= 0 && received > maxBytes) {
+                                DataBufferUtils.release(buffer);
+                                sink.error(new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "请求体超过大小限制"));
+                                return;
+                            }
+                            buffered(buffer.readableByteCount());
+                            sink.next(buffer);
+                        })
+                        .limitRate(prefetch)
+                        .doOnNext(buffer -> buffered(-buffer.readableByteCount()));
+            });
+        }
+
+        private void buffered(long bytes) {
+            buffered.addAndGet(bytes);
+            bufferedBytes.addAndGet(bytes);
+        }
+
+        /**
+         * 上传结束时扣除未转发就被丢弃的数据块
+         */
+        private void releaseBuffered() {
+            bufferedBytes.addAndGet(-buffered.getAndSet(0));
+        }
+
+        private void record() {
+            if (!recorded && received > 0) {
+                recorded = true;
+                uploadSize.record(received);
+            }
+        }
+    }
+
+    /**
+     * 读取空闲计时：只在向客户端连接请求了数据且尚未收到时计时，
+     * 下游不再请求（上游反压）期间等待新的请求量，不会因网关自身暂停读取而超时
+     */
+    private static final class ReadIdleTimeout {
+
+        private final Duration timeout;
+
+        /**
+         * 已请求但尚未收到的数据块数
+         */
+        private final AtomicLong outstanding = new AtomicLong();
+
+        private volatile Sinks.Empty<Void> demandSignal = Sinks.empty();
+
+        private ReadIdleTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        private void requested(long n) {
+            outstanding.getAndAccumulate(n, Operators::addCap);
+            demandSignal.tryEmitEmpty();
+        }
+
+        private void received() {
+            outstanding.getAndUpdate(current -> current == Long.MAX_VALUE || current == 0 ? current : current - 1);
+        }
+
+        /**
+         * 下一个数据块的超时信号：有未满足的请求量时立即开始计时，否则等到下游再次请求后开始
+         */
+        private Mono<Long> next() {
+            return Mono.defer(() -> {
+                if (outstanding.get() > 0) {
+                    return Mono.delay(timeout);
+                }
+                Sinks.Empty<Void> signal = Sinks.empty();
+                demandSignal = signal;
+                // 替换信号前到达的请求不会通知新信号，重新检查
+                if (outstanding.get() > 0) {
+                    return Mono.delay(timeout);
+                }
+                return signal.asMono().then(Mono.delay(timeout));
+            });
+        }
+    }
+}
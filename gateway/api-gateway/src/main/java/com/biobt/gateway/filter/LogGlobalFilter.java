@@ -1,18 +1,31 @@
 package com.biobt.gateway.filter;
 
+import com.biobt.gateway.config.AccessLogConfig;
+import com.biobt.gateway.metrics.GatewayMetrics;
+import com.biobt.gateway.support.RequestIdGenerator;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 日志记录全局过滤器
- * 记录请求和响应的详细信息
+ * 为每个请求分配请求ID并传递给下游服务，请求结束时记录耗时指标并向访问日志写入一行结构化记录。
+ * 成功请求可按比例采样，错误请求和慢请求始终记录
  * 
  * @author BioBt Platform
  * @since 1.0.0
@@ -21,53 +34,130 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class LogGlobalFilter implements GlobalFilter, Ordered {
     
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger(AccessLogConfig.ACCESS_LOGGER);
+    
+    @Autowired
+    private GatewayMetrics gatewayMetrics;
+    
+    @Value("${gateway.access-log.enabled:true}")
+    private boolean accessLogEnabled;
+    
+    /**
+     * 成功请求的采样比例（0-1）
+     */
+    @Value("${gateway.access-log.success-sample-rate:1.0}")
+    private double successSampleRate;
+    
+    /**
+     * 慢请求阈值（毫秒）
+     */
+    @Value("${gateway.access-log.slow-threshold-millis:1000}")
+    private long slowThresholdMillis;
+    
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
         
         // 记录请求开始时间
-        long startTime = System.currentTimeMillis();
-        
-        // 记录请求信息
-        String requestId = generateRequestId();
-        String method = request.getMethod().name();
-        String path = request.getURI().getPath();
-        String query = request.getURI().getQuery();
-        String clientIp = getClientIp(request);
-        String userAgent = request.getHeaders().getFirst("User-Agent");
+        long startNanos = System.nanoTime();
         
-        log.info("[{}] 请求开始 - {} {} {} - IP: {} - UA: {}", 
-                requestId, method, path, query != null ? "?" + query : "", clientIp, userAgent);
+        // 生成请求ID，并写入请求头传递给下游服务
+        String requestId = resolveRequestId(request);
+        ServerHttpRequest mutatedRequest = request.mutate()
+                .headers(headers -> headers.set(RequestIdGenerator.REQUEST_ID_HEADER, requestId))
+                .build();
         
         // 将请求ID添加到响应头
         ServerHttpResponse response = exchange.getResponse();
-        response.getHeaders().add("X-Request-Id", requestId);
+        response.getHeaders().set(RequestIdGenerator.REQUEST_ID_HEADER, requestId);
         
-        return chain.filter(exchange).then(
-            Mono.fromRunnable(() -> {
-                // 记录响应信息
-                long endTime = System.currentTimeMillis();
-                long duration = endTime - startTime;
-                int statusCode = response.getStatusCode() != null ? response.getStatusCode().value() : 0;
-                
-                log.info("[{}] 请求完成 - {} {} - 状态码: {} - 耗时: {}ms", 
-                        requestId, method, path, statusCode, duration);
-                
-                // 记录慢请求
-                if (duration > 1000) {
-                    log.warn("[{}] 慢请求警告 - {} {} - 耗时: {}ms", 
-                            requestId, method, path, duration);
-                }
-            })
-        );
+        return chain.filter(exchange.mutate().request(mutatedRequest).build())
+                .doFinally(signal -> logAccess(exchange, request, response, requestId, startNanos, signal));
     }
     
     /**
-     * 生成请求ID
+     * 记录耗时指标并写入访问日志
      */
-    private String generateRequestId() {
-        return String.valueOf(System.currentTimeMillis()) + "-" + 
-               String.valueOf((int)(Math.random() * 10000));
+    private void logAccess(ServerWebExchange exchange, ServerHttpRequest request, ServerHttpResponse response,
+                           String requestId, long startNanos, SignalType signal) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long duration = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        HttpStatusCode statusCode = response.getStatusCode();
+        int status = signal == SignalType.ON_ERROR ? 500 : (statusCode != null ? statusCode.value() : 0);
+        
+        gatewayMetrics.recordRequest(exchange, status, elapsedNanos);
+        boolean error = status >= 400 || signal != SignalType.ON_COMPLETE;
+        boolean slow = duration > slowThresholdMillis;
+        
+        // 记录慢请求
+        if (slow) {
+            log.warn("[{}] 慢请求警告 - {} {} - 耗时: {}ms", 
+                    requestId, request.getMethod().name(), request.getURI().getPath(), duration);
+        }
+        
+        if (!accessLogEnabled || !(error || slow || sampled())) {
+            return;
+        }
+        
+        ACCESS_LOG.info("requestId={} method={} path={} query={} status={} duration={} signal={} ip={} ua=\"{}\"",
+                requestId,
+                request.getMethod().name(),
+                request.getURI().getRawPath(),
+                request.getURI().getRawQuery(),
+                status,
+                duration,
+                signal,
+                escape(getClientIp(request)),
+                escape(request.getHeaders().getFirst("User-Agent")));
+    }
+    
+    /**
+     * 成功请求是否被采样
+     */
+    private boolean sampled() {
+        return successSampleRate >= 1.0
+                || (successSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < successSampleRate);
+    }
+    
+    /**
+     * 获取请求ID，上游已传入合法的请求ID（见 {@link RequestIdGenerator#isValid}）时沿用，否则生成新的
+     */
+    private String resolveRequestId(ServerHttpRequest request) {
+        String inbound = request.getHeaders().getFirst(RequestIdGenerator.REQUEST_ID_HEADER);
+        if (RequestIdGenerator.isValid(inbound)) {
+            return inbound;
+        }
+        String requestId = RequestIdGenerator.next();
+        if (inbound != null) {
+            // 不记录原值，避免日志注入
+            log.debug("上游请求ID不合法，已重新生成: {}, 原长度: {}", requestId, inbound.length());
+        }
+        return requestId;
+    }
+    
+    /**
+     * 转义客户端可控的请求头值中的引号、反斜杠和控制字符，保证访问日志一条记录一行
+     */
+    private static String escape(String value) {
+        if (value == null) {
+            return null;
+        }
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = c == '"' ? "\\\"" : c == '\\' ? "\\\\" : c < 0x20 || c == 0x7f ? "?" : null;
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 8).append(value, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? value : escaped.toString();
     }
     
     /**
@@ -92,4 +182,4 @@ public class LogGlobalFilter implements GlobalFilter, Ordered {
     public int getOrder() {
         return Ordered.HIGHEST_PRECEDENCE; // 最高优先级，第一个执行
     }
-}
\ No newline at end of file
+}
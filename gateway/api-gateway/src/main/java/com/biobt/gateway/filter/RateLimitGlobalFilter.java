@@ -1,35 +1,42 @@
 package com.biobt.gateway.filter;
 
-import com.alibaba.fastjson2.JSON;
+import com.biobt.gateway.metrics.GatewayMetrics;
+import com.biobt.gateway.ratelimit.LocalBucketStore;
+import com.biobt.gateway.ratelimit.RateLimitDecision;
+import com.biobt.gateway.ratelimit.RateLimitPolicy;
+import com.biobt.gateway.ratelimit.RateLimitPolicyRegistry;
+import com.biobt.gateway.ratelimit.RedisTokenBucketRateLimiter;
+import com.biobt.gateway.support.ErrorResponseWriter;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.Bucket4j;
+import io.github.bucket4j.ConsumptionProbe;
 import io.github.bucket4j.Refill;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.Ordered;
-import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 限流全局过滤器
- * 基于令牌桶算法实现分布式限流
+ * 基于令牌桶算法实现限流，支持单机（local）和基于Redis的分布式（distributed）两种模式。
+ * 按路由模板而非原始路径计数，可按路由、租户、用户叠加多条策略，策略见 {@link RateLimitPolicyRegistry}
  * 
  * @author BioBt Platform
  * @since 1.0.0
@@ -39,22 +46,28 @@ import java.util.concurrent.ConcurrentHashMap;
 public class RateLimitGlobalFilter implements GlobalFilter, Ordered {
     
     @Autowired
-    private ReactiveStringRedisTemplate redisTemplate;
+    private RedisTokenBucketRateLimiter distributedRateLimiter;
     
-    @Value("${gateway.rate-limit.enabled:true}")
-    private boolean rateLimitEnabled;
+    @Autowired
+    private LocalBucketStore bucketStore;
+    
+    @Autowired
+    private RateLimitPolicyRegistry policyRegistry;
     
-    @Value("${gateway.rate-limit.default-capacity:20}")
-    private long defaultCapacity;
+    @Autowired
+    private GatewayMetrics gatewayMetrics;
     
-    @Value("${gateway.rate-limit.default-tokens:10}")
-    private long defaultTokens;
+    @Autowired
+    private ErrorResponseWriter errorResponseWriter;
     
-    @Value("${gateway.rate-limit.default-seconds:1}")
-    private long defaultSeconds;
+    @Value("${gateway.rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
     
-    // 本地缓存，避免频繁创建Bucket
-    private final Map<String, Bucket> bucketCache = new ConcurrentHashMap<>();
+    /**
+     * 限流模式：local（每个网关节点独立计数）或 distributed（所有节点共享Redis中的令牌桶）
+     */
+    @Value("${gateway.rate-limit.mode:local}")
+    private String rateLimitMode;
     
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
@@ -63,25 +76,92 @@ public class RateLimitGlobalFilter implements GlobalFilter, Ordered {
         }
         
         ServerHttpRequest request = exchange.getRequest();
-        String path = request.getURI().getPath();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : null;
+        List<RateLimitPolicyRegistry.CompiledPolicy> policies = policyRegistry.policiesFor(routeId);
+        if (policies.isEmpty()) {
+            return chain.filter(exchange);
+        }
         
-        // 生成限流key（基于IP + 路径）
+        // 用户和租户信息由认证过滤器写入请求头
         String clientIp = getClientIp(request);
-        String rateLimitKey = generateRateLimitKey(clientIp, path);
+        String userId = request.getHeaders().getFirst("X-User-Id");
+        String tenantId = request.getHeaders().getFirst("X-Tenant-Id");
         
-        log.debug("限流检查 - IP: {}, 路径: {}, Key: {}", clientIp, path, rateLimitKey);
+        if (isDistributedMode()) {
+            return Flux.fromIterable(policies)
+                    .concatMap(policy -> {
+                        String rateLimitKey = generateRateLimitKey(policy, request, routeId, clientIp, userId, tenantId);
+                        if (rateLimitKey == null) {
+                            return Mono.empty();
+                        }
+                        return distributedRateLimiter.tryAcquire(rateLimitKey, policy.getCapacity(),
+                                policy.getRefillTokens(), policy.getPeriodMillis());
+                    })
+                    // 任一策略拒绝即停止，不再消耗后续策略的令牌
+                    .takeUntil(decision -> !decision.isAllowed())
+                    .reduce(RateLimitDecision::mostRestrictive)
+                    .flatMap(decision -> applyDecision(exchange, chain, decision, clientIp))
+                    .switchIfEmpty(Mono.defer(() -> chain.filter(exchange)));
+        }
         
-        // 获取或创建令牌桶
-        Bucket bucket = getBucket(rateLimitKey);
+        RateLimitDecision decision = null;
+        for (RateLimitPolicyRegistry.CompiledPolicy policy : policies) {
+            String rateLimitKey = generateRateLimitKey(policy, request, routeId, clientIp, userId, tenantId);
+            if (rateLimitKey == null) {
+                continue;
+            }
+            decision = tryConsumeLocal(rateLimitKey, policy).mostRestrictive(decision);
+            if (!decision.isAllowed()) {
+                break;
+            }
+        }
+        if (decision == null) {
+            return chain.filter(exchange);
+        }
+        return applyDecision(exchange, chain, decision, clientIp);
+    }
+    
+    /**
+     * 根据判定结果写入限流响应头并放行或拒绝
+     */
+    private Mono<Void> applyDecision(ServerWebExchange exchange, GatewayFilterChain chain,
+                                     RateLimitDecision decision, String clientIp) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.set("X-RateLimit-Limit", String.valueOf(decision.getLimit()));
+        headers.set("X-RateLimit-Remaining", String.valueOf(decision.getRemaining()));
+        headers.set("X-RateLimit-Reset", String.valueOf(decision.getResetAt()));
         
-        // 尝试获取令牌
-        if (bucket.tryConsume(1)) {
-            log.debug("限流通过 - Key: {}", rateLimitKey);
+        if (decision.isAllowed()) {
             return chain.filter(exchange);
-        } else {
-            log.warn("触发限流 - IP: {}, 路径: {}", clientIp, path);
-            return rateLimited(exchange.getResponse());
         }
+        log.warn("触发限流 - IP: {}, 路径: {}", clientIp, exchange.getRequest().getURI().getPath());
+        gatewayMetrics.incrementRateLimited(exchange);
+        return rateLimited(exchange, decision);
+    }
+    
+    /**
+     * 本地令牌桶扣减
+     */
+    private RateLimitDecision tryConsumeLocal(String key, RateLimitPolicyRegistry.CompiledPolicy policy) {
+        Bucket bucket = getBucket(key, policy);
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        long now = System.currentTimeMillis();
+        return new RateLimitDecision(
+                probe.isConsumed(),
+                policy.getCapacity(),
+                probe.getRemainingTokens(),
+                now + TimeUnit.NANOSECONDS.toMillis(probe.getNanosToWaitForReset()),
+                TimeUnit.NANOSECONDS.toMillis(probe.getNanosToWaitForRefill())
+        );
+    }
+    
+    /**
+     * 是否为分布式限流模式
+     */
+    private boolean isDistributedMode() {
+        return "distributed".equalsIgnoreCase(rateLimitMode);
     }
     
     /**
@@ -103,25 +183,52 @@ public class RateLimitGlobalFilter implements GlobalFilter, Ordered {
     }
     
     /**
-     * 生成限流key
+     * 生成限流key，格式为 {策略前缀}{维度值}:{路由模板}，模板中的'/'替换为'_'
+     *
+     * @return 限流key；策略不适用于该请求时返回null
      */
-    private String generateRateLimitKey(String clientIp, String path) {
-        return String.format("rate_limit:%s:%s", clientIp, path.replaceAll("/", "_"));
+    private String generateRateLimitKey(RateLimitPolicyRegistry.CompiledPolicy policy, ServerHttpRequest request,
+                                        String routeId, String clientIp, String userId, String tenantId) {
+        String template = policy.resolveTemplate(request.getPath().pathWithinApplication(), routeId, tenantId);
+        if (template == null) {
+            return null;
+        }
+        
+        String dimension;
+        RateLimitPolicy.KeyType keyBy = policy.getKeyBy();
+        if (keyBy == RateLimitPolicy.KeyType.USER && userId != null) {
+            dimension = "u" + userId;
+        } else if (keyBy == RateLimitPolicy.KeyType.TENANT && tenantId != null) {
+            dimension = "t" + tenantId;
+        } else if (keyBy == RateLimitPolicy.KeyType.ROUTE) {
+            dimension = "*";
+        } else {
+            dimension = clientIp;
+        }
+        
+        String prefix = policy.getKeyPrefix();
+        StringBuilder key = new StringBuilder(prefix.length() + dimension.length() + 1 + template.length());
+        key.append(prefix).append(dimension).append(':');
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            key.append(c == '/' ? '_' : c);
+        }
+        return key.toString();
     }
     
     /**
      * 获取或创建令牌桶
      */
-    private Bucket getBucket(String key) {
-        return bucketCache.computeIfAbsent(key, k -> {
+    private Bucket getBucket(String key, RateLimitPolicyRegistry.CompiledPolicy policy) {
+        return bucketStore.getBucket(key, k -> {
             // 创建令牌桶配置
             Bandwidth limit = Bandwidth.classic(
-                    defaultCapacity, 
-                    Refill.intervally(defaultTokens, Duration.ofSeconds(defaultSeconds))
+                    policy.getCapacity(), 
+                    Refill.intervally(policy.getRefillTokens(), Duration.ofMillis(policy.getPeriodMillis()))
             );
             
-            log.debug("创建新的令牌桶 - Key: {}, 容量: {}, 补充速率: {}/{} 秒", 
-                    key, defaultCapacity, defaultTokens, defaultSeconds);
+            log.debug("创建新的令牌桶 - Key: {}, 容量: {}, 补充速率: {}/{} 毫秒", 
+                    key, policy.getCapacity(), policy.getRefillTokens(), policy.getPeriodMillis());
             
             return Bucket4j.builder()
                     .addLimit(limit)
@@ -132,22 +239,10 @@ public class RateLimitGlobalFilter implements GlobalFilter, Ordered {
     /**
      * 返回限流响应
      */
-    private Mono<Void> rateLimited(ServerHttpResponse response) {
-        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
-        response.getHeaders().add("Content-Type", MediaType.APPLICATION_JSON_VALUE);
-        response.getHeaders().add("X-RateLimit-Limit", String.valueOf(defaultCapacity));
-        response.getHeaders().add("X-RateLimit-Remaining", "0");
-        response.getHeaders().add("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() + defaultSeconds * 1000));
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("code", 429);
-        result.put("message", "请求过于频繁，请稍后再试");
-        result.put("timestamp", System.currentTimeMillis());
-        
-        String body = JSON.toJSONString(result);
-        DataBuffer buffer = response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8));
-        
-        return response.writeWith(Mono.just(buffer));
+    private Mono<Void> rateLimited(ServerWebExchange exchange, RateLimitDecision decision) {
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(decision.getRetryAfterMillis() + 999))));
+        return errorResponseWriter.write(exchange, HttpStatus.TOO_MANY_REQUESTS, "请求过于频繁，请稍后再试");
     }
     
     @Override
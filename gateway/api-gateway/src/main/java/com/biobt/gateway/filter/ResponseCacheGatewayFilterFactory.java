@@ -0,0 +1,479 @@
+package com.biobt.gateway.filter;
+
+import com.biobt.gateway.cache.CachedResponse;
+import com.biobt.gateway.cache.ResponseCacheStore;
+import io.netty.buffer.ByteBuf;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.security.MessageDigest;
+import java.net.URI;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 响应缓存过滤器工厂
+ * 缓存幂等GET请求的200响应，缓存键包含路由、路径、查询参数、租户、用户及内容协商请求头；
+ * 遵循上游Cache-Control（no-store/no-cache/private/max-age），命中时支持If-None-Match返回304。
+ * 同一缓存键并发未命中时只向上游转发一次，其余请求等待该结果；响应体边转发边复制到直接内存，不阻塞客户端。
+ * 配置 paths 时只缓存原始请求路径（StripPrefix之前）匹配的请求，可直接加在服务路由上，与该路由的限流等过滤器共用
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    public static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    /**
+     * 由网关按请求生成、不应随缓存回放的响应头
+     */
+    private static final Set<String> EXCLUDED_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            "keep-alive",
+            HttpHeaders.DATE.toLowerCase(),
+            CACHE_STATUS_HEADER.toLowerCase(),
+            "x-request-id",
+            "x-ratelimit-limit",
+            "x-ratelimit-remaining",
+            "x-ratelimit-reset"
+    );
+
+    @Autowired
+    private ResponseCacheStore cacheStore;
+
+    /**
+     * 正在向上游请求的缓存键，用于合并并发的未命中请求
+     */
+    private final Map<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public ResponseCacheGatewayFilterFactory() {
+        super(Config.class);
+    }
+
+    @Override
+    public String name() {
+        return "ResponseCache";
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        List<PathPattern> paths = new ArrayList<>();
+        if (config.getPaths() != null) {
+            for (String path : config.getPaths()) {
+                if (StringUtils.hasText(path)) {
+                    paths.add(PathPatternParser.defaultInstance.parse(path.trim()));
+                }
+            }
+        }
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET || !matches(paths, exchange)) {
+                return chain.filter(exchange);
+            }
+
+            String requestCacheControl = request.getHeaders().getCacheControl();
+            if (hasDirective(requestCacheControl, "no-store")) {
+                return chain.filter(exchange);
+            }
+
+            String key = cacheKey(exchange);
+            if (!hasDirective(requestCacheControl, "no-cache")) {
+                CachedResponse cached = cacheStore.get(key);
+                if (cached != null) {
+                    Mono<Void> hit = writeCached(exchange, cached);
+                    if (hit != null) {
+                        return hit;
+                    }
+                }
+            }
+
+            Sinks.One<CachedResponse> sink = Sinks.one();
+            Sinks.One<CachedResponse> leader = config.isCollapse() ? inFlight.putIfAbsent(key, sink) : null;
+            if (leader != null) {
+                return awaitLeader(exchange, chain, config, key, leader);
+            }
+            return fetchAndStore(exchange, chain, config, key, sink);
+        };
+    }
+
+    /**
+     * 等待同一缓存键的首个请求返回；超时、失败或结果不可缓存时自行转发
+     */
+    private Mono<Void> awaitLeader(ServerWebExchange exchange,
+                                   GatewayFilterChain chain,
+                                   Config config, String key, Sinks.One<CachedResponse> leader) {
+        return leader.asMono()
+                .timeout(Duration.ofMillis(config.getCollapseTimeoutMillis()))
+                .onErrorResume(e -> Mono.empty())
+                .flatMap(cached -> Mono.justOrEmpty(writeCached(exchange, cached)))
+                .flatMap(write -> write.thenReturn(Boolean.TRUE))
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.debug("合并请求未获得可用缓存，直接转发 - key: {}", key);
+                    return chain.filter(exchange).thenReturn(Boolean.TRUE);
+                }))
+                .then();
+    }
+
+    private Mono<Void> fetchAndStore(ServerWebExchange exchange,
+                                     GatewayFilterChain chain,
+                                     Config config, String key, Sinks.One<CachedResponse> sink) {
+        exchange.getResponse().getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+        CachingResponseDecorator decorator = new CachingResponseDecorator(exchange.getResponse(), config, key, sink,
+                StringUtils.hasText(exchange.getRequest().getHeaders().getFirst("X-User-Id")));
+        return chain.filter(exchange.mutate().response(decorator).build())
+                .doFinally(signal -> decorator.abandon());
+    }
+
+    /**
+     * 写出缓存的响应
+     *
+     * @return 写出操作；缓存条目已释放时返回null
+     */
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        String ifNoneMatch = exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+        if (cached.getEtag() != null && etagMatches(ifNoneMatch, cached.getEtag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            response.getHeaders().setETag(cached.getEtag());
+            response.getHeaders().set(CACHE_STATUS_HEADER, "HIT");
+            return response.setComplete();
+        }
+
+        DataBuffer body = cached.retainBody(response.bufferFactory());
+        if (body == null) {
+            return null;
+        }
+        response.setStatusCode(HttpStatusCode.valueOf(cached.getStatus()));
+        HttpHeaders headers = response.getHeaders();
+        cached.getHeaders().forEach((name, values) -> {
+            if (!headers.containsKey(name)) {
+                headers.put(name, values);
+            }
+        });
+        if (cached.getEtag() != null) {
+            headers.setETag(cached.getEtag());
+        }
+        headers.set(CACHE_STATUS_HEADER, "HIT");
+        return response.writeWith(Mono.just(body));
+    }
+
+    /**
+     * 未配置路径时匹配全部请求
+     */
+    private static boolean matches(List<PathPattern> paths, ServerWebExchange exchange) {
+        if (paths.isEmpty()) {
+            return true;
+        }
+        PathContainer path = PathContainer.parsePath(originalPath(exchange));
+        for (PathPattern pattern : paths) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * StripPrefix等过滤器修改路径前的请求路径
+     */
+    private static String originalPath(ServerWebExchange exchange) {
+        LinkedHashSet<URI> originalUrls = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR);
+        if (originalUrls != null && !originalUrls.isEmpty()) {
+            return originalUrls.iterator().next().getRawPath();
+        }
+        return exchange.getRequest().getURI().getRawPath();
+    }
+
+    private static String cacheKey(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        HttpHeaders headers = request.getHeaders();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+
+        StringBuilder key = new StringBuilder(128);
+        key.append(route != null ? route.getId() : "").append('|')
+                .append(request.getURI().getRawPath());
+        String query = request.getURI().getRawQuery();
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        key.append('|').append(nullToEmpty(headers.getFirst("X-Tenant-Id")))
+                .append('|').append(nullToEmpty(headers.getFirst("X-User-Id")))
+                .append('|').append(nullToEmpty(headers.getFirst(HttpHeaders.ACCEPT)))
+                .append('|').append(nullToEmpty(headers.getFirst(HttpHeaders.ACCEPT_ENCODING)))
+                .append('|').append(nullToEmpty(headers.getFirst(HttpHeaders.ACCEPT_LANGUAGE)));
+        return key.toString();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static boolean hasDirective(String cacheControl, String directive) {
+        if (!StringUtils.hasText(cacheControl)) {
+            return false;
+        }
+        for (String part : cacheControl.split(",")) {
+            if (part.trim().equalsIgnoreCase(directive)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 从Cache-Control中解析缓存时间（秒），s-maxage优先
+     *
+     * @return 秒数；未指定时返回-1
+     */
+    private static long maxAge(String cacheControl) {
+        if (!StringUtils.hasText(cacheControl)) {
+            return -1;
+        }
+        long maxAge = -1;
+        for (String part : cacheControl.split(",")) {
+            String directive = part.trim().toLowerCase();
+            try {
+                if (directive.startsWith("s-maxage=")) {
+                    return Long.parseLong(directive.substring("s-maxage=".length()));
+                }
+                if (directive.startsWith("max-age=")) {
+                    maxAge = Long.parseLong(directive.substring("max-age=".length()));
+                }
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return maxAge;
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (!StringUtils.hasText(ifNoneMatch)) {
+            return false;
+        }
+        String normalized = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if ("*".equals(value)) {
+                return true;
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(normalized)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String computeEtag(ByteBuf body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            digest.update(body.nioBuffer());
+            return '"' + HexFormat.of().formatHex(digest.digest()) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 转发响应体的同时复制到直接内存，完整接收且可缓存时写入缓存并通知等待中的请求
+     */
+    private final class CachingResponseDecorator extends ServerHttpResponseDecorator {
+
+        private final Config config;
+
+        private final String key;
+
+        private final Sinks.One<CachedResponse> sink;
+
+        private final boolean userScoped;
+
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private ByteBuf captured;
+
+        private CachingResponseDecorator(ServerHttpResponse delegate, Config config, String key,
+                                         Sinks.One<CachedResponse> sink, boolean userScoped) {
+            super(delegate);
+            this.userScoped = userScoped;
+            this.config = config;
+            this.key = key;
+            this.sink = sink;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            long ttlMillis = ttlMillis();
+            long contentLength = getHeaders().getContentLength();
+            if (ttlMillis <= 0 || contentLength > cacheStore.getMaxEntryBytes()) {
+                abandon();
+                return super.writeWith(body);
+            }
+
+            captured = cacheStore.allocateBody(contentLength > 0 ? (int) contentLength : 4096);
+            Flux<DataBuffer> tee = Flux.from(body)
+                    .doOnNext(this::capture)
+                    .doOnComplete(() -> complete(ttlMillis));
+            return super.writeWith(tee);
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            // 流式响应不缓存
+            abandon();
+            return super.writeAndFlushWith(body);
+        }
+
+        /**
+         * 根据状态码和响应头计算缓存时间，不可缓存时返回0
+         */
+        private long ttlMillis() {
+            HttpStatusCode status = getStatusCode();
+            HttpHeaders headers = getHeaders();
+            if (status == null || status.value() != HttpStatus.OK.value()
+                    || headers.containsKey(HttpHeaders.SET_COOKIE)
+                    || "*".equals(headers.getFirst(HttpHeaders.VARY))) {
+                return 0;
+            }
+            String cacheControl = headers.getCacheControl();
+            if (hasDirective(cacheControl, "no-store") || hasDirective(cacheControl, "no-cache")) {
+                return 0;
+            }
+            // private响应只在缓存键包含用户标识时缓存
+            if (hasDirective(cacheControl, "private") && !userScoped) {
+                return 0;
+            }
+            long seconds = maxAge(cacheControl);
+            if (seconds < 0) {
+                seconds = config.getTtlSeconds();
+            }
+            return Math.min(seconds, config.getMaxTtlSeconds()) * 1000L;
+        }
+
+        private synchronized void capture(DataBuffer buffer) {
+            if (captured == null) {
+                return;
+            }
+            int length = buffer.readableByteCount();
+            if (captured.writerIndex() + length > captured.maxCapacity()) {
+                log.debug("响应体超过单条缓存上限，不缓存 - key: {}", key);
+                releaseCaptured();
+                return;
+            }
+            try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+                while (iterator.hasNext()) {
+                    captured.writeBytes(iterator.next());
+                }
+            }
+        }
+
+        private synchronized void complete(long ttlMillis) {
+            if (captured == null || !finished.compareAndSet(false, true)) {
+                return;
+            }
+            HttpHeaders headers = new HttpHeaders();
+            getHeaders().forEach((name, values) -> {
+                if (!EXCLUDED_HEADERS.contains(name.toLowerCase())) {
+                    headers.put(name, List.copyOf(values));
+                }
+            });
+            String etag = getHeaders().getETag();
+            if (etag == null) {
+                etag = computeEtag(captured);
+            }
+            CachedResponse cached = new CachedResponse(HttpStatus.OK.value(), headers, captured, etag,
+                    System.currentTimeMillis() + ttlMillis);
+            captured = null;
+            cacheStore.put(key, cached);
+            inFlight.remove(key, sink);
+            sink.tryEmitValue(cached);
+        }
+
+        /**
+         * 响应不可缓存或请求中断时释放已复制的内容，并唤醒等待中的请求
+         */
+        private synchronized void abandon() {
+            releaseCaptured();
+            if (finished.compareAndSet(false, true)) {
+                inFlight.remove(key, sink);
+                sink.tryEmitEmpty();
+            }
+        }
+
+        private void releaseCaptured() {
+            if (captured != null) {
+                captured.release();
+                captured = null;
+            }
+        }
+    }
+
+    /**
+     * 过滤器配置
+     */
+    @Data
+    public static class Config {
+
+        /**
+         * 上游未指定max-age时的缓存时间（秒）
+         */
+        private long ttlSeconds = 60;
+
+        /**
+         * 缓存时间上限（秒），上游max-age超过该值时截断
+         */
+        private long maxTtlSeconds = 300;
+
+        /**
+         * 是否合并同一缓存键的并发未命中请求
+         */
+        private boolean collapse = true;
+
+        /**
+         * 合并请求等待首个请求返回的最长时间（毫秒）
+         */
+        private long collapseTimeoutMillis = 3000;
+
+        /**
+         * 缓存的原始请求路径模式（与Path断言语法相同），为空时缓存路由上的全部GET请求
+         */
+        private List<String> paths;
+    }
+}
@@ -0,0 +1,170 @@
+package com.biobt.gateway.filter;
+
+import com.biobt.gateway.metrics.GatewayMetrics;
+import com.biobt.gateway.resilience.AdaptiveConcurrencyLimiter;
+import com.biobt.gateway.resilience.UpstreamProtectionRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.DispatcherHandler;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 上游保护全局过滤器
+ * 在负载均衡之前按上游服务检查熔断状态和自适应并发上限，超限或熔断时不再转发，
+ * 直接转到 {@link com.biobt.gateway.handler.FallbackHandler} 对应服务的降级响应（503）。
+ * 上游5xx和异常计入熔断失败率，503/504和超时同时作为并发限制器的过载信号
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class UpstreamProtectionGlobalFilter implements GlobalFilter, Ordered {
+
+    /**
+     * 降级响应路径前缀，后接上游服务名
+     */
+    public static final String FALLBACK_PATH_PREFIX = "/fallback/";
+
+    public static final String SHED_REASON_HEADER = "X-Gateway-Shed";
+
+    @Autowired
+    private UpstreamProtectionRegistry protectionRegistry;
+
+    @Autowired
+    private GatewayMetrics gatewayMetrics;
+
+    @Autowired
+    private ObjectProvider<DispatcherHandler> dispatcherHandler;
+
+    @Value("${gateway.protection.enabled:true}")
+    private boolean protectionEnabled;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!protectionEnabled) {
+            return chain.filter(exchange);
+        }
+        String upstream = upstream(exchange);
+        if (upstream == null) {
+            return chain.filter(exchange);
+        }
+
+        UpstreamProtectionRegistry.UpstreamProtection protection = protectionRegistry.get(upstream);
+        CircuitBreaker circuitBreaker = protection.getCircuitBreaker();
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return shed(exchange, upstream, "circuit-open");
+        }
+        AdaptiveConcurrencyLimiter limiter = protection.getLimiter();
+        int inFlight = limiter.tryAcquire();
+        if (inFlight < 0) {
+            // 未实际调用上游，归还熔断器许可（半开状态下的试探名额）
+            circuitBreaker.releasePermission();
+            return shed(exchange, upstream, "concurrency");
+        }
+
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doOnSuccess(v -> onComplete(exchange, limiter, circuitBreaker, start, inFlight))
+                .doOnError(e -> onError(limiter, circuitBreaker, start, inFlight, e))
+                .doOnCancel(() -> {
+                    limiter.onIgnore();
+                    circuitBreaker.releasePermission();
+                });
+    }
+
+    private void onComplete(ServerWebExchange exchange, AdaptiveConcurrencyLimiter limiter,
+                            CircuitBreaker circuitBreaker, long start, int inFlight) {
+        long elapsed = System.nanoTime() - start;
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        int code = status != null ? status.value() : 200;
+        if (code == 503 || code == 504) {
+            limiter.onDropped(elapsed, inFlight);
+        } else {
+            limiter.onSuccess(elapsed, inFlight);
+        }
+        if (code >= 500) {
+            circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, new UpstreamErrorStatusException(code));
+        } else {
+            circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void onError(AdaptiveConcurrencyLimiter limiter, CircuitBreaker circuitBreaker,
+                         long start, int inFlight, Throwable e) {
+        long elapsed = System.nanoTime() - start;
+        limiter.onDropped(elapsed, inFlight);
+        circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, e);
+        if (!(e instanceof TimeoutException)) {
+            log.debug("上游调用异常: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 拒绝转发，交给降级处理器返回503
+     */
+    private Mono<Void> shed(ServerWebExchange exchange, String upstream, String reason) {
+        log.warn("上游保护触发降级 - 服务: {}, 原因: {}, 路径: {}", upstream, reason,
+                exchange.getRequest().getURI().getPath());
+        gatewayMetrics.incrementShed(upstream, reason);
+
+        exchange.getResponse().getHeaders().set(SHED_REASON_HEADER, reason);
+        ServerWebExchangeUtils.removeAlreadyRouted(exchange);
+        ServerHttpRequest fallbackRequest = exchange.getRequest().mutate()
+                .path(FALLBACK_PATH_PREFIX + upstream)
+                .build();
+        return dispatcherHandler.getObject().handle(exchange.mutate().request(fallbackRequest).build());
+    }
+
+    /**
+     * 路由目标对应的上游服务名；lb路由取服务名，http路由取主机和端口，其他（forward等）不做保护
+     */
+    private static String upstream(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return null;
+        }
+        URI uri = route.getUri();
+        String scheme = uri.getScheme();
+        if ("lb".equalsIgnoreCase(scheme)) {
+            return uri.getHost();
+        }
+        if ("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme)) {
+            return uri.getPort() > 0 ? uri.getHost() + ':' + uri.getPort() : uri.getHost();
+        }
+        return null;
+    }
+
+    @Override
+    public int getOrder() {
+        // 在负载均衡选择实例之前，响应缓存等路由过滤器之后
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+    }
+
+    /**
+     * 上游返回5xx，作为熔断器的失败记录
+     */
+    private static final class UpstreamErrorStatusException extends RuntimeException {
+
+        private UpstreamErrorStatusException(int status) {
+            super("上游返回状态码 " + status, null, false, false);
+        }
+    }
+}
@@ -1,24 +1,18 @@
 package com.biobt.gateway.handler;
 
-import com.alibaba.fastjson2.JSON;
+import com.biobt.gateway.support.ErrorResponseWriter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
 import org.springframework.cloud.gateway.support.NotFoundException;
 import org.springframework.core.annotation.Order;
-import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * 全局异常处理器
  * 统一处理网关层的异常
@@ -31,6 +25,9 @@ import java.util.Map;
 @Slf4j
 public class GlobalExceptionHandler implements ErrorWebExceptionHandler {
     
+    @Autowired
+    private ErrorResponseWriter errorResponseWriter;
+    
     @Override
     public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
         ServerHttpResponse response = exchange.getResponse();
@@ -39,9 +36,6 @@ public class GlobalExceptionHandler implements ErrorWebExceptionHandler {
             return Mono.error(ex);
         }
         
-        // 设置响应头
-        response.getHeaders().add("Content-Type", MediaType.APPLICATION_JSON_VALUE);
-        
         HttpStatus status;
         String message;
 
@@ -65,18 +59,6 @@ public class GlobalExceptionHandler implements ErrorWebExceptionHandler {
                 status.value(),
                 ex.getMessage(), ex);
         
-        response.setStatusCode(status);
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("code", status.value());
-        result.put("message", message);
-        result.put("timestamp", System.currentTimeMillis());
-        result.put("path", exchange.getRequest().getURI().getPath());
-        result.put("method", exchange.getRequest().getMethod().name());
-        
-        String body = JSON.toJSONString(result);
-        DataBuffer buffer = response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8));
-        
-        return response.writeWith(Flux.just(buffer));
+        return errorResponseWriter.write(exchange, status, message, true);
     }
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.biobt.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * 本地令牌桶存储
+ * 限制条目数量并淘汰长时间未访问的令牌桶，避免大量不同IP或路径参数导致内存无限增长。
+ * 空闲时间应不短于令牌桶从空补满所需的时间，这样被淘汰的桶重新创建时与原状态等价
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class LocalBucketStore {
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${gateway.rate-limit.local.maximum-size:100000}")
+    private long maximumSize;
+
+    @Value("${gateway.rate-limit.local.idle-expire-seconds:300}")
+    private long idleExpireSeconds;
+
+    private Cache<String, Bucket> buckets;
+
+    @PostConstruct
+    public void init() {
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(Duration.ofSeconds(idleExpireSeconds))
+                .recordStats()
+                .build();
+
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, buckets, "gateway.rate-limit.buckets");
+        }
+
+        log.info("本地令牌桶存储初始化完成 - 最大条目: {}, 空闲淘汰: {}秒", maximumSize, idleExpireSeconds);
+    }
+
+    /**
+     * 获取或创建令牌桶
+     */
+    public Bucket getBucket(String key, Function<String, Bucket> factory) {
+        return buckets.get(key, factory);
+    }
+
+    /**
+     * 空闲淘汰时间（秒）
+     */
+    public long getIdleExpireSeconds() {
+        return idleExpireSeconds;
+    }
+
+    /**
+     * 当前令牌桶数量（估算值）
+     */
+    public long size() {
+        return buckets.estimatedSize();
+    }
+
+    /**
+     * 执行挂起的淘汰任务
+     */
+    public void cleanUp() {
+        buckets.cleanUp();
+    }
+}
@@ -0,0 +1,59 @@
+package com.biobt.gateway.ratelimit;
+
+import lombok.Getter;
+
+/**
+ * 限流判定结果，剩余令牌数和重置时间取自令牌桶的实际状态
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Getter
+public class RateLimitDecision {
+
+    /**
+     * 是否放行
+     */
+    private final boolean allowed;
+
+    /**
+     * 令牌桶容量
+     */
+    private final long limit;
+
+    /**
+     * 剩余令牌数
+     */
+    private final long remaining;
+
+    /**
+     * 令牌桶补满的时间（毫秒时间戳）
+     */
+    private final long resetAt;
+
+    /**
+     * 被拒绝时距离下一个可用令牌的等待时间（毫秒）
+     */
+    private final long retryAfterMillis;
+
+    public RateLimitDecision(boolean allowed, long limit, long remaining, long resetAt, long retryAfterMillis) {
+        this.allowed = allowed;
+        this.limit = limit;
+        this.remaining = remaining;
+        this.resetAt = resetAt;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * 叠加策略时取更严格的结果：拒绝优先，其次剩余令牌较少者
+     */
+    public RateLimitDecision mostRestrictive(RateLimitDecision other) {
+        if (other == null) {
+            return this;
+        }
+        if (allowed != other.allowed) {
+            return allowed ? other : this;
+        }
+        return other.remaining < remaining ? other : this;
+    }
+}
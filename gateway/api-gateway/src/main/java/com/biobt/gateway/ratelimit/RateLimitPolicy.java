@@ -0,0 +1,83 @@
+package com.biobt.gateway.ratelimit;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 限流策略配置
+ * 对应 gateway.rate-limit.policies 下的一项，同一请求命中的多条策略叠加生效，全部通过才放行
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Data
+public class RateLimitPolicy {
+
+    /**
+     * 策略ID，用于区分不同策略的令牌桶
+     */
+    private String id;
+
+    /**
+     * 生效的路由ID，为空时对所有路由生效
+     */
+    private String routeId;
+
+    /**
+     * 路径模板（PathPattern语法，如 /api/user/{id}），为空时以路由ID作为模板。
+     * 配置后仅对匹配的请求生效，同一模板下的不同路径共享令牌桶
+     */
+    private String path;
+
+    /**
+     * 生效的租户ID列表，为空时对所有租户生效
+     */
+    private List<String> tenantIds = new ArrayList<>();
+
+    /**
+     * 限流维度
+     */
+    private KeyType keyBy = KeyType.IP;
+
+    /**
+     * 令牌桶容量
+     */
+    private Long capacity;
+
+    /**
+     * 每个周期补充的令牌数
+     */
+    private Long refillTokens;
+
+    /**
+     * 补充周期（秒）
+     */
+    private Long refillSeconds;
+
+    /**
+     * 限流维度枚举
+     */
+    public enum KeyType {
+        /**
+         * 按客户端IP
+         */
+        IP,
+
+        /**
+         * 按用户（X-User-Id），未认证请求按IP
+         */
+        USER,
+
+        /**
+         * 按租户（X-Tenant-Id），无租户请求按IP
+         */
+        TENANT,
+
+        /**
+         * 整个路由共享一个令牌桶
+         */
+        ROUTE
+    }
+}
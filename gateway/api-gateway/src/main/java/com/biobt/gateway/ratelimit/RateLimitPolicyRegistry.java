@@ -0,0 +1,196 @@
+package com.biobt.gateway.ratelimit;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 限流策略注册表
+ * 将 gateway.rate-limit.policies 编译为按路由ID索引的策略列表，配置变更时热加载。
+ * 未配置任何策略时，使用 default-* 参数生成一条按IP、按路由的默认策略
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class RateLimitPolicyRegistry {
+
+    private static final String PROPERTY_PREFIX = "gateway.rate-limit";
+
+    private static final String KEY_PREFIX = "rate_limit:";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private LocalBucketStore bucketStore;
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap(), Collections.emptyList());
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * 配置中心推送变更后重建策略
+     */
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        for (String key : event.getKeys()) {
+            if (key.startsWith(PROPERTY_PREFIX)) {
+                reload();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 从当前环境重新加载限流策略
+     */
+    public void reload() {
+        Binder binder = Binder.get(environment);
+        long defaultCapacity = binder.bind(PROPERTY_PREFIX + ".default-capacity", Long.class).orElse(20L);
+        long defaultTokens = binder.bind(PROPERTY_PREFIX + ".default-tokens", Long.class).orElse(10L);
+        long defaultSeconds = binder.bind(PROPERTY_PREFIX + ".default-seconds", Long.class).orElse(1L);
+        List<RateLimitPolicy> policies = binder
+                .bind(PROPERTY_PREFIX + ".policies", Bindable.listOf(RateLimitPolicy.class))
+                .orElse(Collections.emptyList());
+
+        if (policies.isEmpty()) {
+            RateLimitPolicy defaultPolicy = new RateLimitPolicy();
+            defaultPolicy.setId("default");
+            defaultPolicy.setKeyBy(RateLimitPolicy.KeyType.IP);
+            policies = List.of(defaultPolicy);
+        }
+
+        Map<String, List<CompiledPolicy>> byRoute = new HashMap<>();
+        List<CompiledPolicy> global = new ArrayList<>();
+        PathPatternParser parser = new PathPatternParser();
+        for (int i = 0; i < policies.size(); i++) {
+            RateLimitPolicy policy = policies.get(i);
+            CompiledPolicy compiled = new CompiledPolicy(policy, i, parser,
+                    defaultCapacity, defaultTokens, defaultSeconds);
+            warnIfEvictedBeforeRefill(compiled);
+            if (StringUtils.hasText(policy.getRouteId())) {
+                byRoute.computeIfAbsent(policy.getRouteId(), k -> new ArrayList<>()).add(compiled);
+            } else {
+                global.add(compiled);
+            }
+        }
+        // 全局策略合并进每个路由的列表，匹配时只需一次查找
+        byRoute.values().forEach(list -> list.addAll(global));
+
+        snapshot = new Snapshot(byRoute, global);
+        log.info("限流策略已加载 - 策略数量: {}, 路由数量: {}", policies.size(), byRoute.size());
+    }
+
+    /**
+     * 获取路由适用的策略
+     *
+     * @param routeId 路由ID，未匹配路由时为null
+     */
+    public List<CompiledPolicy> policiesFor(String routeId) {
+        Snapshot current = snapshot;
+        if (routeId != null) {
+            List<CompiledPolicy> policies = current.byRoute.get(routeId);
+            if (policies != null) {
+                return policies;
+            }
+        }
+        return current.global;
+    }
+
+    private void warnIfEvictedBeforeRefill(CompiledPolicy policy) {
+        long fullRefillMillis = (policy.capacity + policy.refillTokens - 1) / policy.refillTokens * policy.periodMillis;
+        if (bucketStore.getIdleExpireSeconds() * 1000 < fullRefillMillis) {
+            log.warn("限流策略 {} 的补满时间 {}ms 大于令牌桶空闲淘汰时间 {}秒，被淘汰的桶将以满桶状态重建",
+                    policy.id, fullRefillMillis, bucketStore.getIdleExpireSeconds());
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final Map<String, List<CompiledPolicy>> byRoute;
+
+        private final List<CompiledPolicy> global;
+
+        private Snapshot(Map<String, List<CompiledPolicy>> byRoute, List<CompiledPolicy> global) {
+            this.byRoute = byRoute;
+            this.global = global;
+        }
+    }
+
+    /**
+     * 编译后的限流策略，构建完成后只读
+     */
+    @Getter
+    public static final class CompiledPolicy {
+
+        private final String id;
+
+        private final PathPattern pathPattern;
+
+        private final Set<String> tenantIds;
+
+        private final RateLimitPolicy.KeyType keyBy;
+
+        private final long capacity;
+
+        private final long refillTokens;
+
+        private final long periodMillis;
+
+        /**
+         * 令牌桶key前缀，包含容量和速率，策略参数变更后自动使用新的令牌桶
+         */
+        private final String keyPrefix;
+
+        CompiledPolicy(RateLimitPolicy policy, int index, PathPatternParser parser,
+                       long defaultCapacity, long defaultTokens, long defaultSeconds) {
+            this.id = StringUtils.hasText(policy.getId()) ? policy.getId() : "policy-" + index;
+            this.pathPattern = StringUtils.hasText(policy.getPath()) ? parser.parse(policy.getPath()) : null;
+            this.tenantIds = policy.getTenantIds() == null ? Collections.emptySet() : new HashSet<>(policy.getTenantIds());
+            this.keyBy = policy.getKeyBy() == null ? RateLimitPolicy.KeyType.IP : policy.getKeyBy();
+            this.capacity = policy.getCapacity() != null ? policy.getCapacity() : defaultCapacity;
+            this.refillTokens = policy.getRefillTokens() != null ? policy.getRefillTokens() : defaultTokens;
+            this.periodMillis = (policy.getRefillSeconds() != null ? policy.getRefillSeconds() : defaultSeconds) * 1000;
+            this.keyPrefix = KEY_PREFIX + id + '@' + capacity + '/' + refillTokens + '/' + periodMillis + ':';
+        }
+
+        /**
+         * 解析请求对应的路径模板
+         *
+         * @return 模板字符串；策略不适用于该请求时返回null
+         */
+        public String resolveTemplate(PathContainer path, String routeId, String tenantId) {
+            if (!tenantIds.isEmpty() && (tenantId == null || !tenantIds.contains(tenantId))) {
+                return null;
+            }
+            if (pathPattern != null) {
+                return pathPattern.matches(path) ? pathPattern.getPatternString() : null;
+            }
+            return routeId != null ? routeId : path.value();
+        }
+    }
+}
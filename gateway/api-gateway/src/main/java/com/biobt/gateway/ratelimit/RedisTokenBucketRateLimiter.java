@@ -0,0 +1,162 @@
+package com.biobt.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于Redis的分布式令牌桶限流器
+ * 令牌桶状态保存在Redis中，通过Lua脚本原子地补充和扣减，所有网关节点共享同一个限额。
+ * 桶内余量充足时一次预取多个令牌作为本地租约，后续请求直接消耗本地租约，
+ * 远低于限额的客户端因此不必每次都访问Redis
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class RedisTokenBucketRateLimiter {
+
+    @Autowired
+    private ReactiveStringRedisTemplate redisTemplate;
+
+    @Value("${gateway.rate-limit.distributed.max-lease:5}")
+    private long maxLease;
+
+    @Value("${gateway.rate-limit.distributed.timeout-millis:200}")
+    private long timeoutMillis;
+
+    @Value("${gateway.rate-limit.distributed.fail-open:true}")
+    private boolean failOpen;
+
+    private final RedisScript<List<Long>> script = tokenBucketScript();
+
+    /**
+     * 本地租约，租约在一个补充周期后失效，未用完的令牌随之作废
+     */
+    private final Cache<String, Lease> leases = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofMinutes(1))
+            .build();
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @param key          限流key
+     * @param capacity     桶容量
+     * @param refillTokens 每个周期补充的令牌数
+     * @param periodMillis 补充周期（毫秒）
+     * @return 限流判定结果
+     */
+    public Mono<RateLimitDecision> tryAcquire(String key, long capacity, long refillTokens, long periodMillis) {
+        long now = System.currentTimeMillis();
+
+        // 本地预检：租约内还有令牌时不访问Redis
+        Lease lease = leases.getIfPresent(key);
+        if (lease != null) {
+            long leaseRemaining = lease.tryTake(now);
+            if (leaseRemaining >= 0) {
+                return Mono.just(new RateLimitDecision(true, capacity,
+                        leaseRemaining + lease.remoteRemaining, lease.resetAt, 0));
+            }
+        }
+
+        List<String> keys = List.of(key);
+        List<String> args = List.of(
+                String.valueOf(capacity),
+                String.valueOf(refillTokens),
+                String.valueOf(periodMillis),
+                String.valueOf(maxLease)
+        );
+
+        return redisTemplate.execute(script, keys, args)
+                .reduce(new ArrayList<Long>(), (results, partial) -> {
+                    results.addAll(partial);
+                    return results;
+                })
+                .timeout(Duration.ofMillis(timeoutMillis))
+                .map(results -> {
+                    long granted = results.get(0);
+                    long remaining = results.get(1);
+                    long resetAt = results.get(2);
+                    if (granted <= 0) {
+                        return new RateLimitDecision(false, capacity, 0, resetAt, results.get(3));
+                    }
+                    if (granted > 1) {
+                        leases.put(key, new Lease(granted - 1, remaining, resetAt, now + periodMillis));
+                    }
+                    return new RateLimitDecision(true, capacity, remaining + granted - 1, resetAt, 0);
+                })
+                .onErrorResume(e -> {
+                    log.warn("分布式限流执行失败，{}请求 - Key: {}, 错误: {}",
+                            failOpen ? "放行" : "拒绝", key, e.getMessage());
+                    return Mono.just(new RateLimitDecision(failOpen, capacity, failOpen ? capacity : 0,
+                            now, failOpen ? 0 : periodMillis));
+                });
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static RedisScript<List<Long>> tokenBucketScript() {
+        DefaultRedisScript redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/token_bucket.lua")));
+        redisScript.setResultType(List.class);
+        return redisScript;
+    }
+
+    /**
+     * 本地令牌租约
+     */
+    static final class Lease {
+
+        private final AtomicLong tokens;
+
+        /**
+         * 预取时Redis桶内的剩余令牌数
+         */
+        private final long remoteRemaining;
+
+        private final long resetAt;
+
+        private final long expiresAt;
+
+        Lease(long tokens, long remoteRemaining, long resetAt, long expiresAt) {
+            this.tokens = new AtomicLong(tokens);
+            this.remoteRemaining = remoteRemaining;
+            this.resetAt = resetAt;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * 从租约中取一个令牌
+         *
+         * @return 取走后租约内剩余的令牌数；租约已过期或耗尽时返回-1
+         */
+        long tryTake(long now) {
+            if (now >= expiresAt) {
+                return -1;
+            }
+            long current;
+            do {
+                current = tokens.get();
+                if (current <= 0) {
+                    return -1;
+                }
+            } while (!tokens.compareAndSet(current, current - 1));
+            return current - 1;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.biobt.gateway.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 自适应并发限制器（Gradient算法）
+ * 以长期平均RTT为基线、最近一个采样窗口的平均RTT为当前值：RTT升高时按比例收缩并发上限，
+ * RTT平稳时按 sqrt(limit) 的排队余量缓慢扩张；出现上游超时/失败时按退避系数收缩。
+ * 在途请求数达到上限时直接拒绝，避免请求在上游队列中堆积
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double rttTolerance;
+
+    private final double smoothing;
+
+    private final double backoffRatio;
+
+    private final int windowSize;
+
+    private final int longWindowSize;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double estimatedLimit;
+
+    private volatile int limit;
+
+    /**
+     * 长期平均RTT（纳秒），指数移动平均
+     */
+    private double longRtt;
+
+    private long windowRttSum;
+
+    private int windowSamples;
+
+    private int windowMaxInFlight;
+
+    private boolean windowDropped;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double rttTolerance,
+                                      double smoothing, double backoffRatio, int windowSize, int longWindowSize) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.backoffRatio = backoffRatio;
+        this.windowSize = windowSize;
+        this.longWindowSize = longWindowSize;
+        this.estimatedLimit = clamp(initialLimit);
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * 尝试占用一个并发名额
+     *
+     * @return 占用成功时返回当前在途请求数，超过上限时返回-1
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * 请求正常完成
+     *
+     * @param rttNanos       请求耗时
+     * @param inFlightAtStart 请求开始时的在途请求数
+     */
+    public void onSuccess(long rttNanos, int inFlightAtStart) {
+        inFlight.decrementAndGet();
+        sample(rttNanos, inFlightAtStart, false);
+    }
+
+    /**
+     * 请求超时或上游失败，视为过载信号
+     */
+    public void onDropped(long rttNanos, int inFlightAtStart) {
+        inFlight.decrementAndGet();
+        sample(rttNanos, inFlightAtStart, true);
+    }
+
+    /**
+     * 请求被取消等与上游负载无关的结束，只释放名额
+     */
+    public void onIgnore() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightAtStart, boolean dropped) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+        windowDropped |= dropped;
+        if (windowSamples < windowSize) {
+            return;
+        }
+
+        double shortRtt = (double) windowRttSum / windowSamples;
+        int maxInFlight = windowMaxInFlight;
+        boolean didDrop = windowDropped;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt += (shortRtt - longRtt) / longWindowSize;
+            // 负载下降后基线过高会导致上限长期偏大，向当前值回落
+            if (longRtt / shortRtt > 2) {
+                longRtt *= 0.95;
+            }
+        }
+
+        double current = estimatedLimit;
+        double newLimit;
+        if (didDrop) {
+            newLimit = current * backoffRatio;
+        } else if (maxInFlight < current / 2) {
+            // 流量远低于上限时RTT不反映上游容量，保持不变
+            return;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+            newLimit = current * gradient + Math.sqrt(current);
+        }
+        estimatedLimit = clamp(current * (1 - smoothing) + newLimit * smoothing);
+        limit = (int) estimatedLimit;
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
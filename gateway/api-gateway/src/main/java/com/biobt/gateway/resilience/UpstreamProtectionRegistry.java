@@ -0,0 +1,178 @@
+package com.biobt.gateway.resilience;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 上游保护注册表
+ * 为每个上游服务维护一个自适应并发限制器和一个熔断器，并导出并发上限、在途请求数和熔断状态指标。
+ * 熔断器使用基于时间的滑动窗口并要求最小调用次数，单次请求尖峰不会导致状态切换
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class UpstreamProtectionRegistry {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${gateway.protection.concurrency.initial-limit:50}")
+    private int initialLimit;
+
+    @Value("${gateway.protection.concurrency.min-limit:10}")
+    private int minLimit;
+
+    @Value("${gateway.protection.concurrency.max-limit:1000}")
+    private int maxLimit;
+
+    @Value("${gateway.protection.concurrency.rtt-tolerance:1.5}")
+    private double rttTolerance;
+
+    @Value("${gateway.protection.concurrency.smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${gateway.protection.concurrency.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${gateway.protection.concurrency.window-size:50}")
+    private int windowSize;
+
+    @Value("${gateway.protection.concurrency.long-window-size:20}")
+    private int longWindowSize;
+
+    @Value("${gateway.protection.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value("${gateway.protection.circuit-breaker.slow-call-rate-threshold:80}")
+    private float slowCallRateThreshold;
+
+    @Value("${gateway.protection.circuit-breaker.slow-call-duration-millis:3000}")
+    private long slowCallDurationMillis;
+
+    @Value("${gateway.protection.circuit-breaker.sliding-window-seconds:20}")
+    private int slidingWindowSeconds;
+
+    @Value("${gateway.protection.circuit-breaker.minimum-number-of-calls:50}")
+    private int minimumNumberOfCalls;
+
+    @Value("${gateway.protection.circuit-breaker.wait-open-seconds:15}")
+    private long waitOpenSeconds;
+
+    @Value("${gateway.protection.circuit-breaker.half-open-calls:10}")
+    private int halfOpenCalls;
+
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private final Map<String, UpstreamProtection> protections = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.TIME_BASED)
+                .slidingWindowSize(slidingWindowSeconds)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMillis))
+                .waitDurationInOpenState(Duration.ofSeconds(waitOpenSeconds))
+                .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build();
+        circuitBreakerRegistry = CircuitBreakerRegistry.of(config);
+
+        log.info("上游保护初始化完成 - 并发上限: {}~{}, 熔断窗口: {}秒, 最小调用次数: {}",
+                minLimit, maxLimit, slidingWindowSeconds, minimumNumberOfCalls);
+    }
+
+    /**
+     * 获取上游服务的保护组件，首次访问时创建并注册指标
+     */
+    public UpstreamProtection get(String upstream) {
+        return protections.computeIfAbsent(upstream, this::create);
+    }
+
+    private UpstreamProtection create(String upstream) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                rttTolerance, smoothing, backoffRatio, windowSize, longWindowSize);
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(upstream);
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("上游熔断状态变化 - 服务: {}, {}", upstream, event.getStateTransition()));
+
+        Gauge.builder("gateway.upstream.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("上游自适应并发上限")
+                .tag("upstream", upstream)
+                .register(meterRegistry);
+        Gauge.builder("gateway.upstream.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("上游在途请求数")
+                .tag("upstream", upstream)
+                .register(meterRegistry);
+        Gauge.builder("gateway.upstream.circuit.state", circuitBreaker, cb -> stateValue(cb.getState()))
+                .description("上游熔断状态：0关闭，1打开，2半开，3其他")
+                .tag("upstream", upstream)
+                .register(meterRegistry);
+        Gauge.builder("gateway.upstream.circuit.failure.rate", circuitBreaker, cb -> cb.getMetrics().getFailureRate())
+                .description("上游熔断窗口内失败率（%），调用次数不足时为-1")
+                .tag("upstream", upstream)
+                .register(meterRegistry);
+
+        return new UpstreamProtection(upstream, limiter, circuitBreaker);
+    }
+
+    private static int stateValue(CircuitBreaker.State state) {
+        switch (state) {
+            case CLOSED:
+                return 0;
+            case OPEN:
+            case FORCED_OPEN:
+                return 1;
+            case HALF_OPEN:
+                return 2;
+            default:
+                return 3;
+        }
+    }
+
+    /**
+     * 单个上游服务的保护组件
+     */
+    public static final class UpstreamProtection {
+
+        private final String upstream;
+
+        private final AdaptiveConcurrencyLimiter limiter;
+
+        private final CircuitBreaker circuitBreaker;
+
+        private UpstreamProtection(String upstream, AdaptiveConcurrencyLimiter limiter, CircuitBreaker circuitBreaker) {
+            this.upstream = upstream;
+            this.limiter = limiter;
+            this.circuitBreaker = circuitBreaker;
+        }
+
+        public String getUpstream() {
+            return upstream;
+        }
+
+        public AdaptiveConcurrencyLimiter getLimiter() {
+            return limiter;
+        }
+
+        public CircuitBreaker getCircuitBreaker() {
+            return circuitBreaker;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.biobt.gateway.route;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_PREDICATE_ROUTE_ATTR;
+
+/**
+ * 基于路径索引的路由匹配
+ * 每次路由表刷新后重建 {@link RoutePathIndex}，请求只依次判断候选路由的断言，
+ * 不再遍历全部路由；索引尚未建立时退回默认的逐条匹配
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+public class IndexedRoutePredicateHandlerMapping extends RoutePredicateHandlerMapping
+        implements ApplicationListener<RefreshRoutesResultEvent> {
+
+    private final RouteLocator routeLocator;
+
+    private volatile RoutePathIndex index;
+
+    public IndexedRoutePredicateHandlerMapping(FilteringWebHandler webHandler, RouteLocator routeLocator,
+                                               GlobalCorsProperties globalCorsProperties, Environment environment) {
+        super(webHandler, routeLocator, globalCorsProperties, environment);
+        this.routeLocator = routeLocator;
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        if (!event.isSuccess()) {
+            return;
+        }
+        routeLocator.getRoutes()
+                .collectList()
+                .subscribe(routes -> {
+                    index = RoutePathIndex.build(routes);
+                    log.debug("路由索引已重建 - 路由数量: {}", routes.size());
+                }, e -> log.warn("路由索引重建失败，继续使用上一次索引: {}", e.getMessage()));
+    }
+
+    @Override
+    protected Mono<Route> lookupRoute(ServerWebExchange exchange) {
+        RoutePathIndex current = index;
+        if (current == null) {
+            return super.lookupRoute(exchange);
+        }
+        return Flux.fromIterable(current.candidates(exchange.getRequest().getPath().pathWithinApplication()))
+                .concatMap(route -> Mono.just(route)
+                        .filterWhen(r -> {
+                            exchange.getAttributes().put(GATEWAY_PREDICATE_ROUTE_ATTR, r.getId());
+                            return r.getPredicate().apply(exchange);
+                        })
+                        .doOnError(e -> log.error("路由断言执行异常 - 路由: {}", route.getId(), e))
+                        .onErrorResume(e -> Mono.empty()))
+                .next()
+                .map(route -> {
+                    validateRoute(route, exchange);
+                    return route;
+                });
+    }
+}
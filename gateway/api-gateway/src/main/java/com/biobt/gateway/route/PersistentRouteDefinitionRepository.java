@@ -0,0 +1,284 @@
+package com.biobt.gateway.route;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONWriter;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionRepository;
+import org.springframework.cloud.gateway.support.NotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 持久化路由定义仓库
+ * 动态路由保存在本地JSON文件中，启动时加载；新增、修改、删除单条路由后写回文件，
+ * 并发布只包含该路由的局部刷新事件，网关只重建这一条路由，不重建整个路由表。
+ * 读写文件是阻塞操作，变更方法返回Mono并在 boundedElastic 调度器上执行，不占用Netty事件循环线程
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class PersistentRouteDefinitionRepository implements RouteDefinitionRepository {
+
+    /**
+     * 路由元数据：动态路由ID，用于局部刷新
+     */
+    public static final String DYNAMIC_ROUTE_ID = "dynamic-route-id";
+
+    /**
+     * 路由元数据：Path断言的路径模式（逗号分隔），用于路由索引
+     */
+    public static final String PATH_PATTERNS = "path-patterns";
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${gateway.routes.store-file:${user.home}/.biobt/api-gateway/routes.json}")
+    private String storeFile;
+
+    private final Map<String, RouteDefinition> routes = new LinkedHashMap<>();
+
+    /**
+     * 对外提供的只读快照，写入时整体替换
+     */
+    private volatile List<RouteDefinition> snapshot = Collections.emptyList();
+
+    @PostConstruct
+    public void init() {
+        synchronized (this) {
+            for (RouteDefinition definition : readStore()) {
+                routes.put(definition.getId(), normalize(definition));
+            }
+            snapshot = List.copyOf(routes.values());
+        }
+        log.info("动态路由加载完成 - 文件: {}, 路由数量: {}", storeFile, snapshot.size());
+    }
+
+    @Override
+    public Flux<RouteDefinition> getRouteDefinitions() {
+        return Flux.fromIterable(snapshot);
+    }
+
+    @Override
+    public Mono<Void> save(Mono<RouteDefinition> route) {
+        return route.flatMap(this::put).then();
+    }
+
+    @Override
+    public Mono<Void> delete(Mono<String> routeId) {
+        return routeId.flatMap(id -> remove(id).flatMap(removed -> removed
+                ? Mono.<Void>empty()
+                : Mono.error(new NotFoundException("路由不存在: " + id))));
+    }
+
+    public RouteDefinition get(String routeId) {
+        synchronized (this) {
+            return routes.get(routeId);
+        }
+    }
+
+    public List<RouteDefinition> list() {
+        return snapshot;
+    }
+
+    /**
+     * 新增或更新路由
+     *
+     * @return 保存后的路由；ID或URI为空时以 IllegalArgumentException 结束
+     */
+    public Mono<RouteDefinition> put(RouteDefinition definition) {
+        return Mono.fromCallable(() -> putBlocking(definition)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * 删除路由
+     *
+     * @return 路由存在并已删除时为true
+     */
+    public Mono<Boolean> remove(String routeId) {
+        return Mono.fromCallable(() -> removeBlocking(routeId)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * 重新读取路由文件（例如手工修改或由配置同步工具更新后），只刷新有变化的路由
+     *
+     * @return 发生变化的路由ID
+     */
+    public Mono<Set<String>> reload() {
+        return Mono.fromCallable(this::reloadBlocking).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private RouteDefinition putBlocking(RouteDefinition definition) {
+        if (!StringUtils.hasText(definition.getId())) {
+            throw new IllegalArgumentException("路由ID不能为空");
+        }
+        if (definition.getUri() == null) {
+            throw new IllegalArgumentException("路由URI不能为空");
+        }
+        RouteDefinition normalized = normalize(definition);
+        synchronized (this) {
+            RouteDefinition previous = routes.put(normalized.getId(), normalized);
+            try {
+                persist();
+            } catch (RuntimeException e) {
+                if (previous != null) {
+                    routes.put(previous.getId(), previous);
+                } else {
+                    routes.remove(normalized.getId());
+                }
+                snapshot = List.copyOf(routes.values());
+                throw e;
+            }
+        }
+        log.info("动态路由已保存 - ID: {}, URI: {}", normalized.getId(), normalized.getUri());
+        publishRefresh(normalized.getId());
+        return normalized;
+    }
+
+    private boolean removeBlocking(String routeId) {
+        synchronized (this) {
+            RouteDefinition previous = routes.remove(routeId);
+            if (previous == null) {
+                return false;
+            }
+            try {
+                persist();
+            } catch (RuntimeException e) {
+                routes.put(routeId, previous);
+                snapshot = List.copyOf(routes.values());
+                throw e;
+            }
+        }
+        log.info("动态路由已删除 - ID: {}", routeId);
+        publishRefresh(routeId);
+        return true;
+    }
+
+    private Set<String> reloadBlocking() {
+        Set<String> changed = new HashSet<>();
+        synchronized (this) {
+            Map<String, RouteDefinition> loaded = new LinkedHashMap<>();
+            for (RouteDefinition definition : readStore()) {
+                loaded.put(definition.getId(), normalize(definition));
+            }
+            for (Map.Entry<String, RouteDefinition> entry : loaded.entrySet()) {
+                if (!Objects.equals(routes.get(entry.getKey()), entry.getValue())) {
+                    changed.add(entry.getKey());
+                }
+            }
+            for (String id : routes.keySet()) {
+                if (!loaded.containsKey(id)) {
+                    changed.add(id);
+                }
+            }
+            routes.clear();
+            routes.putAll(loaded);
+            snapshot = List.copyOf(routes.values());
+        }
+        changed.forEach(this::publishRefresh);
+        log.info("动态路由重新加载完成 - 变化数量: {}", changed.size());
+        return changed;
+    }
+
+    /**
+     * 只刷新带有该路由ID元数据的路由
+     */
+    private void publishRefresh(String routeId) {
+        eventPublisher.publishEvent(new RefreshRoutesEvent(this, Map.of(DYNAMIC_ROUTE_ID, routeId)));
+    }
+
+    /**
+     * 写入局部刷新和路由索引需要的元数据
+     */
+    private static RouteDefinition normalize(RouteDefinition definition) {
+        Map<String, Object> metadata = new LinkedHashMap<>(definition.getMetadata());
+        metadata.put(DYNAMIC_ROUTE_ID, definition.getId());
+        List<String> patterns = pathPatterns(definition);
+        if (patterns.isEmpty()) {
+            metadata.remove(PATH_PATTERNS);
+        } else {
+            metadata.put(PATH_PATTERNS, String.join(",", patterns));
+        }
+        definition.setMetadata(metadata);
+        return definition;
+    }
+
+    private static List<String> pathPatterns(RouteDefinition definition) {
+        List<String> patterns = new ArrayList<>();
+        for (PredicateDefinition predicate : definition.getPredicates()) {
+            if ("Path".equals(predicate.getName())) {
+                for (Map.Entry<String, String> arg : predicate.getArgs().entrySet()) {
+                    // 跳过matchTrailingSlash等非路径参数
+                    if (!arg.getKey().startsWith("_genkey_") && !arg.getKey().startsWith("patterns")) {
+                        continue;
+                    }
+                    for (String pattern : arg.getValue().split(",")) {
+                        if (StringUtils.hasText(pattern)) {
+                            patterns.add(pattern.trim());
+                        }
+                    }
+                }
+            }
+        }
+        return patterns;
+    }
+
+    private List<RouteDefinition> readStore() {
+        Path path = Paths.get(storeFile);
+        if (!Files.exists(path)) {
+            return Collections.emptyList();
+        }
+        try {
+            String content = Files.readString(path, StandardCharsets.UTF_8);
+            List<RouteDefinition> definitions = JSON.parseArray(content, RouteDefinition.class);
+            return definitions != null ? definitions : Collections.emptyList();
+        } catch (IOException | RuntimeException e) {
+            log.error("读取动态路由文件失败: {}", storeFile, e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 先写临时文件再原子替换，避免进程中断留下不完整的文件
+     */
+    private void persist() {
+        snapshot = List.copyOf(routes.values());
+        Path path = Paths.get(storeFile);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.writeString(temp, JSON.toJSONString(snapshot, JSONWriter.Feature.PrettyFormat), StandardCharsets.UTF_8);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("保存动态路由文件失败: " + storeFile, e);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.biobt.gateway.route;
+
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 路由路径索引
+ * 带有 {@link PersistentRouteDefinitionRepository#PATH_PATTERNS} 元数据的路由按路径模式的字面前缀挂到段前缀树上，
+ * 查找时只沿请求路径取出前缀相同的路由，再加上无法索引的路由（配置文件、Java DSL、服务发现路由），
+ * 按原路由顺序返回候选列表。候选数量与动态路由总数无关
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+public final class RoutePathIndex {
+
+    private final Node root = new Node();
+
+    /**
+     * 无法索引的路由，对所有请求都是候选
+     */
+    private final List<IndexedRoute> unindexed = new ArrayList<>();
+
+    private final List<Route> unindexedRoutes;
+
+    private final int size;
+
+    private RoutePathIndex(List<Route> routes) {
+        for (int i = 0; i < routes.size(); i++) {
+            Route route = routes.get(i);
+            IndexedRoute indexed = new IndexedRoute(i, route);
+            Object patterns = route.getMetadata().get(PersistentRouteDefinitionRepository.PATH_PATTERNS);
+            if (!(patterns instanceof String) || !StringUtils.hasText((String) patterns)) {
+                unindexed.add(indexed);
+                continue;
+            }
+            for (String pattern : ((String) patterns).split(",")) {
+                insert(pattern.trim(), indexed);
+            }
+        }
+        List<Route> unindexedList = new ArrayList<>(unindexed.size());
+        unindexed.forEach(indexed -> unindexedList.add(indexed.route));
+        this.unindexedRoutes = Collections.unmodifiableList(unindexedList);
+        this.size = routes.size();
+    }
+
+    /**
+     * 按路由顺序（已排序）建立索引
+     */
+    public static RoutePathIndex build(List<Route> routes) {
+        return new RoutePathIndex(routes);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 查找可能匹配该路径的路由，顺序与原路由表一致
+     */
+    public List<Route> candidates(PathContainer path) {
+        List<IndexedRoute> matched = null;
+        Node node = root;
+        for (PathContainer.Element element : path.elements()) {
+            if (!(element instanceof PathContainer.PathSegment)) {
+                continue;
+            }
+            if (!node.routes.isEmpty()) {
+                matched = add(matched, node.routes);
+            }
+            node = node.children.get(((PathContainer.PathSegment) element).valueToMatch());
+            if (node == null) {
+                break;
+            }
+        }
+        if (node != null && !node.routes.isEmpty()) {
+            matched = add(matched, node.routes);
+        }
+        if (matched == null) {
+            return unindexedRoutes;
+        }
+
+        matched.addAll(unindexed);
+        matched.sort(null);
+        List<Route> result = new ArrayList<>(matched.size());
+        int last = -1;
+        for (IndexedRoute indexed : matched) {
+            if (indexed.position != last) {
+                result.add(indexed.route);
+                last = indexed.position;
+            }
+        }
+        return result;
+    }
+
+    private static List<IndexedRoute> add(List<IndexedRoute> matched, List<IndexedRoute> routes) {
+        if (matched == null) {
+            matched = new ArrayList<>(routes.size() + 4);
+        }
+        matched.addAll(routes);
+        return matched;
+    }
+
+    /**
+     * 以模式中第一个含通配符或变量的段之前的字面段作为前缀
+     */
+    private void insert(String pattern, IndexedRoute route) {
+        Node node = root;
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (!isLiteral(segment)) {
+                break;
+            }
+            node = node.children.computeIfAbsent(segment, k -> new Node());
+        }
+        node.routes.add(route);
+    }
+
+    /**
+     * 只索引由URL安全字符组成的字面段，其余情况（通配符、变量、需要解码比较的字符）停止
+     */
+    private static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            boolean safe = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~';
+            if (!safe) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+
+        private final List<IndexedRoute> routes = new ArrayList<>(1);
+    }
+
+    private static final class IndexedRoute implements Comparable<IndexedRoute> {
+
+        private final int position;
+
+        private final Route route;
+
+        private IndexedRoute(int position, Route route) {
+            this.position = position;
+            this.route = route;
+        }
+
+        @Override
+        public int compareTo(IndexedRoute other) {
+            return Integer.compare(position, other.position);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.biobt.gateway.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.client.discovery.event.HeartbeatMonitor;
+import org.springframework.cloud.client.discovery.event.InstanceRegisteredEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务注册表快照
+ * 在注册中心心跳（服务目录变化）或实例注册事件到达时刷新一次服务和实例信息，
+ * 查询统计、服务可用性和路由列表时直接读取内存快照，不再逐个调用注册中心。
+ * 刷新在专用线程上进行，不阻塞事件发布线程；刷新期间到达的事件合并为下一次刷新。
+ * 另按 refresh-interval-seconds 定时全量刷新，事件丢失时快照最多滞后一个间隔。
+ * 指标记录事件到达到快照生效的延迟，以及最近一次成功刷新的时间戳
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class ServiceRegistrySnapshot {
+
+    private static final long NO_PENDING = Long.MIN_VALUE;
+
+    private final DiscoveryClient discoveryClient;
+
+    private final RouteLocator routeLocator;
+
+    private final HeartbeatMonitor heartbeatMonitor = new HeartbeatMonitor();
+
+    private final Timer refreshTimer;
+
+    private final Timer propagationTimer;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    private volatile List<Route> routes = Collections.emptyList();
+
+    /**
+     * 最早一个未处理事件的到达时间（System.nanoTime），没有待处理事件时为 {@link #NO_PENDING}
+     */
+    private final AtomicLong pendingSince = new AtomicLong(NO_PENDING);
+
+    private final ScheduledExecutorService refresher;
+
+    @Autowired
+    public ServiceRegistrySnapshot(DiscoveryClient discoveryClient, RouteLocator routeLocator,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${gateway.discovery-snapshot.refresh-interval-seconds:30}")
+                                   long refreshIntervalSeconds) {
+        this.discoveryClient = discoveryClient;
+        this.routeLocator = routeLocator;
+        this.refreshTimer = Timer.builder("gateway.discovery.snapshot.refresh")
+                .description("服务注册表快照刷新耗时")
+                .register(meterRegistry);
+        this.propagationTimer = Timer.builder("gateway.discovery.snapshot.propagation")
+                .description("注册中心事件到达到快照生效的延迟，含等待进行中刷新的时间")
+                .register(meterRegistry);
+        Gauge.builder("gateway.discovery.snapshot.last-success", this, s -> s.getRefreshedAtMillis() / 1000.0)
+                .description("服务注册表快照最近一次成功刷新的时间（Unix秒），未刷新过时为0")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gateway-registry-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refresher.scheduleWithFixedDelay(this::refresh, refreshIntervalSeconds, refreshIntervalSeconds,
+                TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresher.execute(this::refresh);
+        refreshRoutes();
+    }
+
+    /**
+     * 注册中心心跳，仅在服务目录版本变化时刷新
+     */
+    @EventListener
+    public void onHeartbeat(HeartbeatEvent event) {
+        if (heartbeatMonitor.update(event.getValue())) {
+            refreshOnEvent(System.nanoTime());
+        }
+    }
+
+    @EventListener
+    public void onInstanceRegistered(InstanceRegisteredEvent<?> event) {
+        refreshOnEvent(System.nanoTime());
+    }
+
+    /**
+     * 提交到刷新线程；已有待处理事件时与之合并
+     */
+    private void refreshOnEvent(long receivedNanos) {
+        if (!pendingSince.compareAndSet(NO_PENDING, receivedNanos)) {
+            return;
+        }
+        try {
+            refresher.execute(this::refreshPending);
+        } catch (RejectedExecutionException e) {
+            pendingSince.set(NO_PENDING);
+        }
+    }
+
+    private void refreshPending() {
+        // 先取走待处理标记再刷新，刷新期间到达的事件会再提交一次
+        long receivedNanos = pendingSince.getAndSet(NO_PENDING);
+        if (refresh() && receivedNanos != NO_PENDING) {
+            propagationTimer.record(System.nanoTime() - receivedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 路由表刷新后更新路由缓存
+     */
+    @EventListener
+    public void onRoutesRefreshed(RefreshRoutesResultEvent event) {
+        if (event.isSuccess()) {
+            refreshRoutes();
+        }
+    }
+
+    /**
+     * 从注册中心重新拉取服务和实例信息
+     *
+     * @return 是否刷新成功；失败时继续使用上一次快照
+     */
+    public synchronized boolean refresh() {
+        return refreshTimer.record(() -> {
+            try {
+                List<String> services = discoveryClient.getServices();
+                Map<String, List<ServiceInstance>> instances = new LinkedHashMap<>();
+                for (String serviceId : services) {
+                    instances.put(serviceId, List.copyOf(discoveryClient.getInstances(serviceId)));
+                }
+                snapshot = new Snapshot(List.copyOf(services), Collections.unmodifiableMap(instances),
+                        System.currentTimeMillis());
+                log.debug("服务注册表快照已刷新 - 服务数量: {}, 实例数量: {}",
+                        services.size(), snapshot.totalInstances);
+                return true;
+            } catch (Exception e) {
+                log.warn("服务注册表快照刷新失败，继续使用上一次快照: {}", e.getMessage());
+                return false;
+            }
+        });
+    }
+
+    private void refreshRoutes() {
+        routeLocator.getRoutes()
+                .collectList()
+                .subscribe(list -> routes = List.copyOf(list),
+                        e -> log.warn("路由缓存刷新失败: {}", e.getMessage()));
+    }
+
+    public List<String> getServices() {
+        return snapshot.services;
+    }
+
+    public List<ServiceInstance> getInstances(String serviceId) {
+        return snapshot.instances.getOrDefault(serviceId, Collections.emptyList());
+    }
+
+    public Map<String, List<ServiceInstance>> getAllInstances() {
+        return snapshot.instances;
+    }
+
+    public boolean isAvailable(String serviceId) {
+        return !getInstances(serviceId).isEmpty();
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * 网关统计信息，快照刷新时预先计算
+     */
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new HashMap<>(current.stats);
+        stats.put("timestamp", System.currentTimeMillis());
+        stats.put("snapshotRefreshedAt", current.refreshedAt);
+        return stats;
+    }
+
+    /**
+     * 快照最近一次成功刷新的时间（毫秒时间戳），未刷新过时为0
+     */
+    public long getRefreshedAtMillis() {
+        return snapshot.refreshedAt;
+    }
+
+    /**
+     * 不可变快照
+     */
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(Collections.emptyList(), Collections.emptyMap(), 0);
+
+        private final List<String> services;
+
+        private final Map<String, List<ServiceInstance>> instances;
+
+        private final int totalInstances;
+
+        private final Map<String, Object> stats;
+
+        private final long refreshedAt;
+
+        private Snapshot(List<String> services, Map<String, List<ServiceInstance>> instances, long refreshedAt) {
+            this.services = services;
+            this.instances = instances;
+            this.refreshedAt = refreshedAt;
+
+            int total = 0;
+            int available = 0;
+            for (List<ServiceInstance> serviceInstances : instances.values()) {
+                total += serviceInstances.size();
+                if (!serviceInstances.isEmpty()) {
+                    available++;
+                }
+            }
+            this.totalInstances = total;
+            this.stats = Map.of(
+                    "totalServices", services.size(),
+                    "availableServices", available,
+                    "totalInstances", total,
+                    "services", services
+            );
+        }
+    }
+}
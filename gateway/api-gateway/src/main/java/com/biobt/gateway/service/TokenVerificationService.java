@@ -0,0 +1,325 @@
+package com.biobt.gateway.service;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.JWTVerifier;
+import com.biobt.common.security.identity.GatewayIdentity;
+import com.biobt.common.security.identity.IdentityHeaderCodec;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token验证服务
+ * 复用同一个JWTVerifier，并按token摘要缓存已验证的结果，
+ * 缓存条目在token的exp时间点过期，可在登出或吊销时主动失效。
+ * 吊销经Redis频道广播给所有网关实例，消息为 {@code <token摘要>:<exp毫秒时间戳>}；
+ * 吊销记录保留到token本身过期，不按条目数淘汰
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Service
+@Slf4j
+public class TokenVerificationService {
+
+    @Autowired
+    private ReactiveStringRedisTemplate redisTemplate;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @Value("${jwt.expiration:86400000}")
+    private long jwtExpiration;
+
+    @Value("${gateway.auth.token-cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${gateway.auth.token-cache.maximum-size:100000}")
+    private long maximumSize;
+
+    @Value("${gateway.auth.token-cache.max-ttl-seconds:1800}")
+    private long maxTtlSeconds;
+
+    @Value("${gateway.auth.token-cache.revoke-channel:gateway:token:revoke}")
+    private String revokeChannel;
+
+    private JWTVerifier verifier;
+
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    /**
+     * 已吊销token的摘要 -> token过期时间，保留到token本身过期为止，防止吊销后被重新验证通过
+     */
+    private Cache<String, Long> revokedTokens;
+
+    private Disposable revokeSubscription;
+
+    @PostConstruct
+    public void init() {
+        verifier = JWT.require(Algorithm.HMAC256(jwtSecret)).build();
+
+        long maxTtlNanos = TimeUnit.SECONDS.toNanos(maxTtlSeconds);
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        long untilExp = TimeUnit.MILLISECONDS.toNanos(value.getExpiresAt() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(untilExp, maxTtlNanos));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        // 不设条目上限：按数量淘汰会让仍在有效期内的已吊销token重新通过验证
+        revokedTokens = Caffeine.newBuilder()
+                .expireAfter(new Expiry<String, Long>() {
+                    @Override
+                    public long expireAfterCreate(String key, Long expiresAt, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiresAt - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Long expiresAt, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, expiresAt, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Long expiresAt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "gateway.token.cache");
+        }
+
+        // 订阅吊销通知，任一网关实例处理登出时发布
+        revokeSubscription = redisTemplate.listenToChannel(revokeChannel)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(message -> onRevokeMessage(message.getMessage()),
+                        e -> log.error("Token吊销通知订阅异常", e));
+
+        log.info("Token验证缓存初始化完成 - 启用: {}, 最大条目: {}, 最长缓存: {}秒",
+                cacheEnabled, maximumSize, maxTtlSeconds);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (revokeSubscription != null) {
+            revokeSubscription.dispose();
+        }
+    }
+
+    /**
+     * 验证token，命中缓存时跳过签名校验和解码
+     *
+     * @param token JWT token
+     * @return 已验证的token信息
+     * @throws JWTVerificationException token无效、过期或已吊销
+     */
+    public VerifiedToken verify(String token) {
+        String tokenHash = hash(token);
+
+        if (revokedTokens.getIfPresent(tokenHash) != null) {
+            throw new JWTVerificationException("Token已被吊销");
+        }
+
+        if (cacheEnabled) {
+            VerifiedToken cached = verifiedTokens.getIfPresent(tokenHash);
+            if (cached != null && cached.getExpiresAt() > System.currentTimeMillis()) {
+                return cached;
+            }
+        }
+
+        DecodedJWT decodedJWT = verifier.verify(token);
+        Date expiresAt = decodedJWT.getExpiresAt();
+        VerifiedToken verified = new VerifiedToken(
+                decodedJWT.getClaim("userId").asString(),
+                decodedJWT.getClaim("username").asString(),
+                decodedJWT.getClaim("tenantId").asString(),
+                expiresAt != null ? expiresAt.getTime() : Long.MAX_VALUE
+        );
+
+        if (cacheEnabled) {
+            verifiedTokens.put(tokenHash, verified);
+        }
+        return verified;
+    }
+
+    /**
+     * 吊销已验证的token（登出时调用），在本实例立即生效并广播给其他网关实例
+     *
+     * @param token JWT token
+     * @param verified 该token的验证结果，用于确定吊销记录的保留时间
+     */
+    public Mono<Void> revoke(String token, VerifiedToken verified) {
+        String tokenHash = hash(token);
+        long expiresAt = revocationExpiry(verified.getExpiresAt());
+        revokeByHash(tokenHash, expiresAt);
+        return redisTemplate.convertAndSend(revokeChannel, tokenHash + ":" + expiresAt)
+                .doOnError(e -> log.error("Token吊销通知发布失败，其他网关实例在缓存过期前仍可能放行: {}", tokenHash, e))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    /**
+     * 按token摘要吊销
+     *
+     * @param tokenHash token摘要
+     * @param expiresAt token过期时间（毫秒时间戳），吊销记录保留到该时间
+     */
+    public void revokeByHash(String tokenHash, long expiresAt) {
+        if (tokenHash == null || tokenHash.isEmpty() || expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        revokedTokens.put(tokenHash, expiresAt);
+        verifiedTokens.invalidate(tokenHash);
+        log.debug("Token已吊销: {}", tokenHash);
+    }
+
+    /**
+     * 处理吊销通知：{@code <token摘要>:<exp毫秒时间戳>}，缺少过期时间时按token最长有效期保留
+     */
+    private void onRevokeMessage(String message) {
+        int separator = message.indexOf(':');
+        if (separator < 0) {
+            revokeByHash(message, revocationExpiry(Long.MAX_VALUE));
+            return;
+        }
+        try {
+            revokeByHash(message.substring(0, separator), Long.parseLong(message.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("无法解析Token吊销通知: {}", message);
+        }
+    }
+
+    /**
+     * 吊销记录的保留时间：token的exp；没有exp声明的token按签发有效期保留
+     */
+    private long revocationExpiry(long expiresAt) {
+        return expiresAt == Long.MAX_VALUE ? System.currentTimeMillis() + jwtExpiration : expiresAt;
+    }
+
+    /**
+     * 使缓存中的token失效，下次请求时重新验证
+     */
+    public void evict(String token) {
+        verifiedTokens.invalidate(hash(token));
+    }
+
+    /**
+     * 当前缓存的token数量
+     */
+    public long cachedTokenCount() {
+        return verifiedTokens.estimatedSize();
+    }
+
+    /**
+     * 计算token的SHA-256摘要（十六进制）
+     */
+    public static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    /**
+     * 已验证的token信息
+     */
+    @Getter
+    public static class VerifiedToken {
+
+        private final String userId;
+
+        private final String username;
+
+        private final String tenantId;
+
+        /**
+         * 过期时间（毫秒时间戳），无exp声明时为Long.MAX_VALUE
+         */
+        private final long expiresAt;
+
+        /**
+         * 最近一次签发的身份请求头，在有效期内复用，避免每个请求重新计算签名
+         */
+        private volatile SignedIdentity signedIdentity;
+
+        public VerifiedToken(String userId, String username, String tenantId, long expiresAt) {
+            this.userId = userId;
+            this.username = username;
+            this.tenantId = tenantId;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * 获取身份请求头，超过刷新间隔后重新签发
+         *
+         * @param codec                  身份请求头编解码
+         * @param refreshIntervalSeconds 重新签发间隔（秒）
+         */
+        public String identityHeader(IdentityHeaderCodec codec, long refreshIntervalSeconds) {
+            long now = System.currentTimeMillis() / 1000;
+            SignedIdentity current = signedIdentity;
+            if (current == null || now - current.issuedAt >= refreshIntervalSeconds) {
+                current = new SignedIdentity(codec.encode(new GatewayIdentity(userId, username, tenantId, now)), now);
+                signedIdentity = current;
+            }
+            return current.header;
+        }
+    }
+
+    private static final class SignedIdentity {
+
+        private final String header;
+
+        private final long issuedAt;
+
+        private SignedIdentity(String header, long issuedAt) {
+            this.header = header;
+            this.issuedAt = issuedAt;
+        }
+    }
+}
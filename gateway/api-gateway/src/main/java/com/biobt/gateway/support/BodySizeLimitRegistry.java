@@ -0,0 +1,134 @@
+package com.biobt.gateway.support;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 请求体大小限制策略
+ * 将 gateway.body-limit.policies 编译为按配置顺序匹配的策略列表，第一条匹配（路由ID和/或路径）的策略生效，
+ * 未匹配时使用 default-max-size；配置变更时热加载
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class BodySizeLimitRegistry {
+
+    private static final String PROPERTY_PREFIX = "gateway.body-limit";
+
+    @Autowired
+    private Environment environment;
+
+    private volatile List<CompiledPolicy> policies = Collections.emptyList();
+
+    private volatile long defaultMaxBytes = DataSize.ofMegabytes(10).toBytes();
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        for (String key : event.getKeys()) {
+            if (key.startsWith(PROPERTY_PREFIX)) {
+                reload();
+                return;
+            }
+        }
+    }
+
+    public void reload() {
+        Binder binder = Binder.get(environment);
+        DataSize defaultMaxSize = binder.bind(PROPERTY_PREFIX + ".default-max-size", DataSize.class)
+                .orElse(DataSize.ofMegabytes(10));
+        List<Policy> configured = binder
+                .bind(PROPERTY_PREFIX + ".policies", Bindable.listOf(Policy.class))
+                .orElse(Collections.emptyList());
+
+        PathPatternParser parser = new PathPatternParser();
+        List<CompiledPolicy> compiled = new ArrayList<>(configured.size());
+        for (Policy policy : configured) {
+            if (policy.getMaxSize() == null) {
+                log.warn("请求体大小策略缺少max-size，已忽略 - 路由: {}, 路径: {}", policy.getRouteId(), policy.getPath());
+                continue;
+            }
+            PathPattern pattern = StringUtils.hasText(policy.getPath()) ? parser.parse(policy.getPath()) : null;
+            compiled.add(new CompiledPolicy(policy.getRouteId(), pattern, policy.getMaxSize().toBytes()));
+        }
+        this.defaultMaxBytes = defaultMaxSize.toBytes();
+        this.policies = List.copyOf(compiled);
+        log.info("请求体大小策略加载完成 - 默认上限: {}, 策略数量: {}", defaultMaxSize, compiled.size());
+    }
+
+    /**
+     * 请求体大小上限（字节），小于0表示不限制
+     */
+    public long maxBytes(String routeId, PathContainer path) {
+        for (CompiledPolicy policy : policies) {
+            if (policy.routeId != null && !policy.routeId.equals(routeId)) {
+                continue;
+            }
+            if (policy.pattern != null && !policy.pattern.matches(path)) {
+                continue;
+            }
+            return policy.maxBytes;
+        }
+        return defaultMaxBytes;
+    }
+
+    /**
+     * 请求体大小策略配置
+     */
+    @Data
+    public static class Policy {
+
+        /**
+         * 路由ID，为空时匹配所有路由
+         */
+        private String routeId;
+
+        /**
+         * 请求路径模式，为空时匹配所有路径
+         */
+        private String path;
+
+        /**
+         * 请求体大小上限，-1B表示不限制
+         */
+        private DataSize maxSize;
+    }
+
+    private static final class CompiledPolicy {
+
+        private final String routeId;
+
+        private final PathPattern pattern;
+
+        private final long maxBytes;
+
+        private CompiledPolicy(String routeId, PathPattern pattern, long maxBytes) {
+            this.routeId = StringUtils.hasText(routeId) ? routeId : null;
+            this.pattern = pattern;
+            this.maxBytes = maxBytes;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.biobt.gateway.support;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 网关错误响应写出器
+ * 响应体格式与原先一致：{"code":..,"message":"..","timestamp":..,"requestId":".."}，可选附带path和method。
+ * 状态码和消息部分预先编码为字节模板并缓存，每次只向响应缓冲区（Netty池化内存）追加时间戳和请求ID，
+ * 拒绝请求时不再构建Map、序列化JSON和分配临时字节数组
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Component
+public class ErrorResponseWriter {
+
+    /**
+     * 模板缓存上限，消息来自异常原因时可能不固定，超过后不再缓存
+     */
+    private static final int MAX_TEMPLATES = 256;
+
+    private static final byte[] REQUEST_ID_FIELD = ascii(",\"requestId\":\"");
+
+    private static final byte[] PATH_FIELD = ascii(",\"path\":\"");
+
+    private static final byte[] METHOD_FIELD = ascii(",\"method\":\"");
+
+    private static final byte[] QUOTE = ascii("\"");
+
+    private static final byte[] END = ascii("}");
+
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    private final Map<String, byte[]> templates = new ConcurrentHashMap<>();
+
+    /**
+     * 写出错误响应
+     */
+    public Mono<Void> write(ServerWebExchange exchange, HttpStatus status, String message) {
+        return write(exchange, status, message, false);
+    }
+
+    /**
+     * 写出错误响应
+     *
+     * @param includeRequestLine 是否附带请求路径和方法
+     */
+    public Mono<Void> write(ServerWebExchange exchange, HttpStatus status, String message, boolean includeRequestLine) {
+        ServerHttpResponse response = exchange.getResponse();
+        byte[] template = template(status, message);
+        String requestId = response.getHeaders().getFirst(RequestIdGenerator.REQUEST_ID_HEADER);
+        String path = includeRequestLine ? exchange.getRequest().getURI().getPath() : null;
+
+        int capacity = template.length + 20 + END.length
+                + (requestId != null ? REQUEST_ID_FIELD.length + requestId.length() + 1 : 0)
+                + (path != null ? PATH_FIELD.length + METHOD_FIELD.length + path.length() * 3 + 16 : 0);
+        DataBuffer buffer = response.bufferFactory().allocateBuffer(capacity);
+        buffer.write(template);
+        writeLong(buffer, System.currentTimeMillis());
+        if (requestId != null) {
+            buffer.write(REQUEST_ID_FIELD);
+            writeJsonString(buffer, requestId);
+            buffer.write(QUOTE);
+        }
+        if (path != null) {
+            buffer.write(PATH_FIELD);
+            writeJsonString(buffer, path);
+            buffer.write(QUOTE);
+            buffer.write(METHOD_FIELD);
+            writeJsonString(buffer, exchange.getRequest().getMethod().name());
+            buffer.write(QUOTE);
+        }
+        buffer.write(END);
+
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(buffer.readableByteCount());
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    /**
+     * 预编码的 {"code":..,"message":"..","timestamp": 部分
+     */
+    private byte[] template(HttpStatus status, String message) {
+        String key = status.value() + ":" + message;
+        byte[] template = templates.get(key);
+        if (template != null) {
+            return template;
+        }
+        StringBuilder json = new StringBuilder(64)
+                .append("{\"code\":").append(status.value())
+                .append(",\"message\":\"");
+        appendEscaped(json, message != null ? message : "");
+        template = json.append("\",\"timestamp\":").toString().getBytes(StandardCharsets.UTF_8);
+        if (templates.size() < MAX_TEMPLATES) {
+            templates.putIfAbsent(key, template);
+        }
+        return template;
+    }
+
+    private static void writeLong(DataBuffer buffer, long value) {
+        if (value < 0) {
+            buffer.write((byte) '-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.write((byte) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    /**
+     * 按UTF-8写出JSON字符串内容（不含引号），转义引号、反斜杠和控制字符
+     */
+    private static void writeJsonString(DataBuffer buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer.write((byte) '\\');
+                buffer.write((byte) c);
+            } else if (c < 0x20) {
+                buffer.write((byte) '\\');
+                buffer.write((byte) 'u');
+                buffer.write((byte) '0');
+                buffer.write((byte) '0');
+                buffer.write(HEX[c >> 4]);
+                buffer.write(HEX[c & 0xF]);
+            } else if (c < 0x80) {
+                buffer.write((byte) c);
+            } else if (c < 0x800) {
+                buffer.write((byte) (0xC0 | (c >> 6)));
+                buffer.write((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.write((byte) (0xF0 | (codePoint >> 18)));
+                buffer.write((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.write((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.write((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.write((byte) '?');
+            } else {
+                buffer.write((byte) (0xE0 | (c >> 12)));
+                buffer.write((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.write((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static void appendEscaped(StringBuilder json, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,221 @@
+package com.biobt.gateway.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import org.springframework.web.util.pattern.PatternParseException;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 白名单路径匹配器
+ * 启动时将gateway.whitelist编译为按字面前缀分组的段前缀树，
+ * 每次匹配只检查与请求路径前缀相同的少量模式，配置变更时自动重建
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Component
+@Slf4j
+public class PathWhitelistMatcher {
+
+    private static final String WHITELIST_PROPERTY = "gateway.whitelist";
+
+    @Autowired
+    private Environment environment;
+
+    private volatile CompiledWhitelist compiled = CompiledWhitelist.compile(Collections.emptyList());
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * 配置中心推送变更后重建白名单
+     */
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        for (String key : event.getKeys()) {
+            if (key.startsWith(WHITELIST_PROPERTY)) {
+                reload();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 从当前环境重新加载白名单
+     */
+    public void reload() {
+        List<String> patterns = Binder.get(environment)
+                .bind(WHITELIST_PROPERTY, Bindable.listOf(String.class))
+                .orElse(Collections.emptyList());
+        update(patterns);
+    }
+
+    /**
+     * 使用给定的模式列表替换当前白名单
+     */
+    public void update(List<String> patterns) {
+        compiled = CompiledWhitelist.compile(patterns);
+        log.info("白名单已加载 - 模式数量: {}", patterns.size());
+    }
+
+    /**
+     * 判断路径是否命中白名单
+     */
+    public boolean matches(String path) {
+        return compiled.matches(path);
+    }
+
+    /**
+     * 编译后的白名单快照，构建完成后只读
+     */
+    static final class CompiledWhitelist {
+
+        private final Set<String> exactPaths;
+
+        private final TrieNode root;
+
+        /**
+         * PathPattern不支持的模式（如中间位置的**），回退到AntPathMatcher
+         */
+        private final List<String> antPatterns;
+
+        private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+        private CompiledWhitelist(Set<String> exactPaths, TrieNode root, List<String> antPatterns) {
+            this.exactPaths = exactPaths;
+            this.root = root;
+            this.antPatterns = antPatterns;
+        }
+
+        static CompiledWhitelist compile(List<String> patterns) {
+            PathPatternParser parser = new PathPatternParser();
+            Set<String> exactPaths = new HashSet<>();
+            TrieNode root = new TrieNode();
+            List<String> antPatterns = new ArrayList<>();
+
+            for (String pattern : patterns) {
+                if (pattern == null || pattern.isEmpty()) {
+                    continue;
+                }
+                List<String> segments = splitSegments(pattern);
+                int literalCount = 0;
+                while (literalCount < segments.size() && isLiteral(segments.get(literalCount))) {
+                    literalCount++;
+                }
+                if (literalCount == segments.size()) {
+                    exactPaths.add(pattern);
+                    continue;
+                }
+
+                PathPattern pathPattern;
+                try {
+                    pathPattern = parser.parse(pattern);
+                } catch (PatternParseException e) {
+                    log.debug("白名单模式 {} 无法预编译，使用AntPathMatcher匹配", pattern);
+                    antPatterns.add(pattern);
+                    continue;
+                }
+
+                TrieNode node = root;
+                for (int i = 0; i < literalCount; i++) {
+                    node = node.children.computeIfAbsent(segments.get(i), k -> new TrieNode());
+                }
+                node.patterns.add(pathPattern);
+            }
+            return new CompiledWhitelist(exactPaths, root, antPatterns);
+        }
+
+        boolean matches(String path) {
+            if (exactPaths.contains(path)) {
+                return true;
+            }
+
+            PathContainer pathContainer = null;
+            TrieNode node = root;
+            int length = path.length();
+            int start = 0;
+            while (node != null) {
+                if (!node.patterns.isEmpty()) {
+                    if (pathContainer == null) {
+                        pathContainer = PathContainer.parsePath(path);
+                    }
+                    for (PathPattern pattern : node.patterns) {
+                        if (pattern.matches(pathContainer)) {
+                            return true;
+                        }
+                    }
+                }
+                // 跳过分隔符，取下一个路径段
+                while (start < length && path.charAt(start) == '/') {
+                    start++;
+                }
+                if (start >= length) {
+                    break;
+                }
+                int end = path.indexOf('/', start);
+                if (end < 0) {
+                    end = length;
+                }
+                node = node.children.get(path.substring(start, end));
+                start = end;
+            }
+
+            for (String antPattern : antPatterns) {
+                if (antPathMatcher.match(antPattern, path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static List<String> splitSegments(String pattern) {
+            List<String> segments = new ArrayList<>();
+            for (String segment : pattern.split("/")) {
+                if (!segment.isEmpty()) {
+                    segments.add(segment);
+                }
+            }
+            return segments;
+        }
+
+        private static boolean isLiteral(String segment) {
+            for (int i = 0; i < segment.length(); i++) {
+                char c = segment.charAt(i);
+                if (c == '*' || c == '?' || c == '{') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 前缀树节点，patterns为字面前缀恰好止于此节点的模式
+     */
+    static final class TrieNode {
+
+        private final Map<String, TrieNode> children = new HashMap<>();
+
+        private final List<PathPattern> patterns = new ArrayList<>();
+    }
+}
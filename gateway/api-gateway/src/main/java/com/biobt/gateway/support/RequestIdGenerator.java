@@ -0,0 +1,70 @@
+package com.biobt.gateway.support;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求ID生成器
+ * 格式为 {节点标识}-{序号}：节点标识由进程启动时间和随机数组成，序号在进程内单调递增，
+ * 同一节点内不会重复，不同节点之间依靠节点标识区分。
+ * 上游传入的请求ID会写入日志和响应头，只有长度不超过 {@value #MAX_INBOUND_LENGTH} 且只含字母、数字、'.'、'_'、'-' 时才沿用
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+public final class RequestIdGenerator {
+
+    /**
+     * 请求ID请求头
+     */
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    /**
+     * 沿用上游传入的请求ID时允许的最大长度
+     */
+    public static final int MAX_INBOUND_LENGTH = 64;
+
+    private static final String NODE_PREFIX = createNodePrefix();
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private RequestIdGenerator() {
+    }
+
+    /**
+     * 生成下一个请求ID
+     */
+    public static String next() {
+        return NODE_PREFIX + Long.toString(SEQUENCE.incrementAndGet(), 36);
+    }
+
+    /**
+     * 是否为可沿用的请求ID：非空、长度不超过 {@value #MAX_INBOUND_LENGTH}、只含 [A-Za-z0-9._-]
+     */
+    public static boolean isValid(String requestId) {
+        if (requestId == null || requestId.isEmpty() || requestId.length() > MAX_INBOUND_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < requestId.length(); i++) {
+            char c = requestId.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '.' || c == '_' || c == '-';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String createNodePrefix() {
+        long startSeconds = System.currentTimeMillis() / 1000;
+        // 随机部分固定4位，保证节点标识之间不会因长度不同而产生歧义
+        int random = new SecureRandom().nextInt(36 * 36 * 36 * 36);
+        StringBuilder prefix = new StringBuilder(Long.toString(startSeconds, 36));
+        String randomPart = Integer.toString(random, 36);
+        for (int i = randomPart.length(); i < 4; i++) {
+            prefix.append('0');
+        }
+        return prefix.append(randomPart).append('-').toString();
+    }
+}
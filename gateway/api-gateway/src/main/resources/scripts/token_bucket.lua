@@ -0,0 +1,51 @@
+-- 分布式令牌桶（按周期整批补充，与Bucket4j的Refill.intervally语义一致）
+-- KEYS[1]  令牌桶key
+-- ARGV[1]  桶容量
+-- ARGV[2]  每个周期补充的令牌数
+-- ARGV[3]  补充周期（毫秒）
+-- ARGV[4]  单次最多预取的令牌数（本地租约大小）
+-- 返回 {本次发放的令牌数, 桶内剩余令牌数, 桶补满的时间（毫秒时间戳）, 距下次补充的等待时间（毫秒）}
+
+local key = KEYS[1]
+local capacity = tonumber(ARGV[1])
+local refill_tokens = tonumber(ARGV[2])
+local period = tonumber(ARGV[3])
+local max_lease = tonumber(ARGV[4])
+
+-- 使用Redis服务器时间，避免各网关节点时钟不一致
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', key, 'tokens', 'ts')
+local tokens = tonumber(state[1])
+local ts = tonumber(state[2])
+
+if tokens == nil or ts == nil then
+  tokens = capacity
+  ts = now
+else
+  local periods = math.floor((now - ts) / period)
+  if periods > 0 then
+    tokens = math.min(capacity, tokens + periods * refill_tokens)
+    ts = ts + periods * period
+  end
+end
+
+-- 余量充足时按租约批量发放，接近上限时逐个发放以保证精度
+local granted = 0
+if tokens >= 1 then
+  granted = math.max(1, math.min(max_lease, math.floor(tokens / 2)))
+end
+tokens = tokens - granted
+
+redis.call('HSET', key, 'tokens', tokens, 'ts', ts)
+-- 桶从空补满所需时间之后即可删除，重新创建时等价于满桶
+local ttl = math.ceil(capacity / refill_tokens) * period + period
+redis.call('PEXPIRE', key, ttl)
+
+local reset_at = ts
+if tokens < capacity then
+  reset_at = ts + math.ceil((capacity - tokens) / refill_tokens) * period
+end
+
+return {granted, tokens, reset_at, ts + period - now}
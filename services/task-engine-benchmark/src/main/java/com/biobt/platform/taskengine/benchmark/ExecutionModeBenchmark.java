@@ -0,0 +1,140 @@
+package com.biobt.platform.taskengine.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务执行模式基准测试
+ * 64个并发提交方（模拟Quartz线程和HTTP线程）各自提交一个任务并等待完成，比较两种执行模式：
+ * <ul>
+ *     <li>POOL：与 AsyncConfig 的 taskExecutor 相同的线程池（核心10、最大50、队列1000、CallerRunsPolicy）</li>
+ *     <li>VIRTUAL：每个任务一个虚拟线程，按执行器类型用公平信号量限制并发（I/O型200，CPU型为处理器核数）</li>
+ * </ul>
+ * 吞吐量模式给出每毫秒完成的任务数，采样模式给出提交到完成的延迟分布（含p99）。虚拟线程模式需要Java 21运行
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class ExecutionModeBenchmark {
+
+    /**
+     * I/O型任务的阻塞时间（毫秒），模拟一次下游调用或数据库查询
+     */
+    private static final long IO_LATENCY_MILLIS = 20;
+
+    /**
+     * CPU型任务的计算量（约1毫秒）
+     */
+    private static final long CPU_TOKENS = 250_000;
+
+    /**
+     * 虚拟线程模式下I/O型执行器的并发上限，与 task.engine.execution.virtual.default-limit 默认值一致
+     */
+    private static final int IO_LIMIT = 200;
+
+    @Param({"POOL", "VIRTUAL"})
+    public String mode;
+
+    @Param({"IO", "CPU"})
+    public String workload;
+
+    private Executor executor;
+
+    private Semaphore permits;
+
+    private Runnable work;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean io = "IO".equals(workload);
+        work = io ? ExecutionModeBenchmark::blockingCall : () -> Blackhole.consumeCPU(CPU_TOKENS);
+
+        if ("VIRTUAL".equals(mode)) {
+            SimpleAsyncTaskExecutor virtualExecutor = new SimpleAsyncTaskExecutor("task-virtual-");
+            virtualExecutor.setVirtualThreads(true);
+            executor = virtualExecutor;
+            permits = new Semaphore(io ? IO_LIMIT : Runtime.getRuntime().availableProcessors(), true);
+        } else {
+            ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+            pool.setCorePoolSize(10);
+            pool.setMaxPoolSize(50);
+            pool.setQueueCapacity(1000);
+            pool.setKeepAliveSeconds(60);
+            pool.setThreadNamePrefix("task-executor-");
+            pool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+            pool.initialize();
+            executor = pool;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        } else if (executor instanceof SimpleAsyncTaskExecutor virtualExecutor) {
+            virtualExecutor.close();
+        }
+    }
+
+    @Benchmark
+    public void submitAndWait() throws Exception {
+        CompletableFuture.runAsync(this::runTask, executor).get();
+    }
+
+    /**
+     * 与 TaskDispatcher 一致：虚拟线程模式先获取执行器的许可再执行
+     */
+    private void runTask() {
+        if (permits == null) {
+            work.run();
+            return;
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            work.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static void blockingCall() {
+        try {
+            Thread.sleep(IO_LATENCY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
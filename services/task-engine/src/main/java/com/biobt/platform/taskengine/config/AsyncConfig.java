@@ -1,9 +1,13 @@
 package com.biobt.platform.taskengine.config;
 
+import com.biobt.platform.taskengine.executor.TaskConcurrencyLimiter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -36,6 +40,12 @@ public class AsyncConfig {
     @Value("${task.engine.execution.thread-name-prefix:task-executor-}")
     private String threadNamePrefix;
     
+    /**
+     * 任务执行模式：pool（线程池，默认）或 virtual（每个任务一个虚拟线程，需要Java 21）
+     */
+    @Value("${task.engine.execution.mode:pool}")
+    private String executionMode;
+    
     /**
      * 任务执行线程池
      */
@@ -76,6 +86,54 @@ public class AsyncConfig {
         return executor;
     }
     
+    /**
+     * 任务分发执行器
+     * 线程池模式下即任务执行线程池；虚拟线程模式下每个任务一个虚拟线程，并发由 {@link TaskConcurrencyLimiter} 按执行器限制，
+     * 不再因线程池饱和而由Quartz或HTTP线程执行任务
+     */
+    @Bean(name = "taskDispatchExecutor")
+    public Executor taskDispatchExecutor(@Qualifier("taskExecutor") Executor taskExecutor) {
+        if (!isVirtualMode()) {
+            return taskExecutor;
+        }
+        
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("task-virtual-");
+        executor.setVirtualThreads(true);
+        
+        // 关闭时等待执行中的任务结束
+        executor.setTaskTerminationTimeout(60_000);
+        
+        log.info("任务执行使用虚拟线程模式");
+        
+        return executor;
+    }
+    
+    /**
+     * 任务并发限制（仅虚拟线程模式启用）
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "task.engine.execution.virtual")
+    public TaskConcurrencyLimiter taskConcurrencyLimiter() {
+        TaskConcurrencyLimiter limiter = new TaskConcurrencyLimiter();
+        limiter.setEnabled(isVirtualMode());
+        return limiter;
+    }
+    
+    /**
+     * 任务分发队列配置
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "task.engine.dispatch")
+    public TaskDispatchProperties taskDispatchProperties() {
+        TaskDispatchProperties properties = new TaskDispatchProperties();
+        properties.setMaxInFlight(isVirtualMode() ? 1000 : corePoolSize);
+        return properties;
+    }
+    
+    private boolean isVirtualMode() {
+        return "virtual".equalsIgnoreCase(executionMode);
+    }
+    
     /**
      * 消息发送线程池
      */
@@ -84,9 +84,6 @@ public class CacheConfig {
         // 任务调度信息缓存 - 2小时
         cacheConfigurations.put("taskSchedules", config.entryTtl(Duration.ofHours(2)));
         
-        // 任务统计信息缓存 - 15分钟
-        cacheConfigurations.put("taskStatistics", config.entryTtl(Duration.ofMinutes(15)));
-        
         // 系统配置缓存 - 24小时
         cacheConfigurations.put("systemConfig", config.entryTtl(Duration.ofHours(24)));
         
@@ -209,6 +209,13 @@ public class DistributedLockConfig {
             unlock(lockKey);
         }
         
+        /**
+         * 强制释放任务执行锁（执行被取消或超时时，不必等待执行线程退出）
+         */
+        public void forceUnlockTaskExecution(String taskId) {
+            forceUnlock("task:execution:" + taskId);
+        }
+        
         /**
          * 获取任务调度锁
          */
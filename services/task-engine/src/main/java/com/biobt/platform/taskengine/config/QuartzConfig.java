@@ -1,16 +1,17 @@
 package com.biobt.platform.taskengine.config;
 
 import org.quartz.Scheduler;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.quartz.SchedulerFactoryBean;
+import org.springframework.scheduling.quartz.SpringBeanJobFactory;
 
-import javax.sql.DataSource;
 import java.util.Properties;
 
 /**
  * Quartz调度器配置
+ * 各节点只调度自己所持分片内的任务（见 ShardedTaskScheduler），触发器使用内存存储，
+ * 不再依赖JDBC集群锁在节点间争抢
  * 
  * @author BioBt Platform
  * @since 1.0.0
@@ -18,9 +19,6 @@ import java.util.Properties;
 @Configuration
 public class QuartzConfig {
     
-    @Autowired
-    private DataSource dataSource;
-    
     /**
      * 调度器工厂Bean
      */
@@ -28,12 +26,12 @@ public class QuartzConfig {
     public SchedulerFactoryBean schedulerFactoryBean() {
         SchedulerFactoryBean factory = new SchedulerFactoryBean();
         
-        // 设置数据源
-        factory.setDataSource(dataSource);
-        
         // 设置Quartz属性
         factory.setQuartzProperties(quartzProperties());
         
+        // Job实例由Spring容器创建，可注入Bean
+        factory.setJobFactory(new SpringBeanJobFactory());
+        
         // 设置调度器名称
         factory.setSchedulerName("TaskEngineScheduler");
         
@@ -43,9 +41,6 @@ public class QuartzConfig {
         // 应用关闭时等待任务完成
         factory.setWaitForJobsToCompleteOnShutdown(true);
         
-        // 覆盖已存在的任务
-        factory.setOverwriteExistingJobs(true);
-        
         return factory;
     }
     
@@ -65,13 +60,9 @@ public class QuartzConfig {
         properties.setProperty("org.quartz.threadPool.threadPriority", "5");
         properties.setProperty("org.quartz.threadPool.threadsInheritContextClassLoaderOfInitializingThread", "true");
         
-        // JobStore属性
-        properties.setProperty("org.quartz.jobStore.class", "org.quartz.impl.jdbcjobstore.JobStoreTX");
-        properties.setProperty("org.quartz.jobStore.driverDelegateClass", "org.quartz.impl.jdbcjobstore.StdJDBCDelegate");
-        properties.setProperty("org.quartz.jobStore.tablePrefix", "QRTZ_");
-        properties.setProperty("org.quartz.jobStore.isClustered", "true");
-        properties.setProperty("org.quartz.jobStore.clusterCheckinInterval", "10000");
-        properties.setProperty("org.quartz.jobStore.useProperties", "false");
+        // JobStore属性：触发器随分片租约加载，无需持久化
+        properties.setProperty("org.quartz.jobStore.class", "org.quartz.simpl.RAMJobStore");
+        properties.setProperty("org.quartz.jobStore.misfireThreshold", "60000");
         
         return properties;
     }
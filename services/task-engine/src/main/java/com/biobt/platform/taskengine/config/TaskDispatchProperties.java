@@ -0,0 +1,46 @@
+package com.biobt.platform.taskengine.config;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 任务分发队列配置
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Data
+public class TaskDispatchProperties {
+
+    /**
+     * 队列容量，超出后拒绝提交
+     */
+    private int capacity = 10000;
+
+    /**
+     * 同时交给执行器的最大任务数，默认线程池模式为核心线程数（线程池队列不再积压任务，排队统一在分发队列中按优先级进行），虚拟线程模式为1000
+     */
+    private int maxInFlight;
+
+    /**
+     * 老化间隔（毫秒）：任务每等待一个间隔，相当于优先级提升一级，避免低优先级任务饿死
+     */
+    private long agingIntervalMillis = 10000;
+
+    /**
+     * 手动触发和API触发的任务所在通道的权重
+     */
+    private int interactiveWeight = 4;
+
+    /**
+     * 未单独配置的分类的权重
+     */
+    private int defaultWeight = 1;
+
+    /**
+     * 任务分类 -> 权重，权重越大分到的执行机会越多
+     */
+    private Map<String, Integer> categoryWeights = new HashMap<>();
+}
@@ -2,9 +2,14 @@ package com.biobt.platform.taskengine.controller;
 
 import com.biobt.common.core.controller.BaseController;
 import com.biobt.common.core.result.Result;
+import com.biobt.platform.taskengine.dto.TaskBatchRequest;
+import com.biobt.platform.taskengine.dto.TaskBatchStatus;
 import com.biobt.platform.taskengine.entity.TaskDefinition;
 import com.biobt.platform.taskengine.entity.TaskExecution;
+import com.biobt.platform.taskengine.service.TaskBatchService;
+import com.biobt.platform.taskengine.service.TaskCancellationService;
 import com.biobt.platform.taskengine.service.TaskEngineService;
+import com.biobt.platform.taskengine.service.TaskProgressStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,10 +18,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * 任务引擎控制器
@@ -33,6 +41,12 @@ public class TaskEngineController {
     
     private final TaskEngineService taskEngineService;
     
+    private final TaskBatchService taskBatchService;
+    
+    private final TaskProgressStreamService taskProgressStreamService;
+    
+    private final TaskCancellationService taskCancellationService;
+    
     /**
      * 创建任务定义
      */
@@ -159,21 +173,110 @@ public class TaskEngineController {
      * 立即执行任务
      */
     @PostMapping("/tasks/{taskId}/execute")
-    @Operation(summary = "立即执行任务", description = "立即执行指定的任务")
-    public Result<Void> executeTask(
+    @Operation(summary = "立即执行任务",
+            description = "立即执行指定的任务，执行开始后返回执行ID，可用于订阅进度或取消执行")
+    public CompletableFuture<Result<Long>> executeTask(
             @Parameter(description = "任务ID") @PathVariable Long taskId,
             @RequestBody(required = false) Map<String, Object> params) {
         log.info("立即执行任务: {}", taskId);
         
         try {
-            CompletableFuture<Void> future = taskEngineService.executeTaskImmediately(taskId, params);
-            return Result.success();
+            return taskEngineService.executeTaskImmediately(taskId, params)
+                    .thenApply(Result::success)
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        return Result.error("立即执行任务失败: " + cause.getMessage());
+                    });
         } catch (Exception e) {
             log.error("立即执行任务失败", e);
-            return Result.error("立即执行任务失败: " + e.getMessage());
+            return CompletableFuture.completedFuture(Result.error("立即执行任务失败: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * 取消执行
+     */
+    @PostMapping("/executions/{executionId}/cancel")
+    @Operation(summary = "取消执行", description = "协作式取消执行中的记录，或取消待重试记录的后续重试")
+    public Result<Void> cancelExecution(@Parameter(description = "执行ID") @PathVariable Long executionId) {
+        log.info("取消执行: {}", executionId);
+        
+        try {
+            taskCancellationService.cancelExecution(executionId);
+            return Result.success();
+        } catch (Exception e) {
+            log.error("取消执行失败", e);
+            return Result.error("取消执行失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 提交批量执行
+     */
+    @PostMapping("/batches")
+    @Operation(summary = "提交批量执行", description = "批量执行多个任务实例，或按依赖关系执行任务DAG")
+    public Result<TaskBatchStatus> submitBatch(@RequestBody TaskBatchRequest request) {
+        log.info("提交批量执行: {}, 节点数: {}", request.getBatchName(),
+                request.getNodes() == null ? 0 : request.getNodes().size());
+        
+        try {
+            return Result.success(taskBatchService.submit(request));
+        } catch (Exception e) {
+            log.error("提交批量执行失败", e);
+            return Result.error("提交批量执行失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取批次进度
+     */
+    @GetMapping("/batches/{batchId}")
+    @Operation(summary = "获取批次进度", description = "获取指定批次的节点统计与进度")
+    public Result<TaskBatchStatus> getBatch(@Parameter(description = "批次号") @PathVariable String batchId) {
+        try {
+            return Result.success(taskBatchService.getStatus(batchId));
+        } catch (Exception e) {
+            log.error("获取批次进度失败", e);
+            return Result.error("获取批次进度失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 取消批次
+     */
+    @PostMapping("/batches/{batchId}/cancel")
+    @Operation(summary = "取消批次", description = "取消指定批次中尚未开始、执行中与待重试的节点")
+    public Result<TaskBatchStatus> cancelBatch(@Parameter(description = "批次号") @PathVariable String batchId) {
+        log.info("取消批次: {}", batchId);
+        
+        try {
+            return Result.success(taskBatchService.cancel(batchId));
+        } catch (Exception e) {
+            log.error("取消批次失败", e);
+            return Result.error("取消批次失败: " + e.getMessage());
         }
     }
     
+    /**
+     * 订阅执行进度
+     */
+    @GetMapping(value = "/executions/{executionId}/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅执行进度", description = "以Server-Sent Events推送指定执行的进度，结束后关闭连接")
+    public SseEmitter streamExecutionProgress(@Parameter(description = "执行ID") @PathVariable Long executionId) {
+        log.info("订阅执行进度: {}", executionId);
+        return taskProgressStreamService.openExecutionStream(executionId);
+    }
+    
+    /**
+     * 订阅批次进度
+     */
+    @GetMapping(value = "/batches/{batchId}/progress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅批次进度", description = "以Server-Sent Events推送指定批次的汇总进度，结束后关闭连接")
+    public SseEmitter streamBatchProgress(@Parameter(description = "批次号") @PathVariable String batchId) {
+        log.info("订阅批次进度: {}", batchId);
+        return taskProgressStreamService.openBatchStream(batchId);
+    }
+    
     /**
      * 获取任务执行历史
      */
@@ -0,0 +1,55 @@
+package com.biobt.platform.taskengine.dto;
+
+import com.biobt.platform.taskengine.entity.TaskDefinition;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量执行请求
+ * 节点间无依赖时即批量执行同一或不同任务的多个实例；通过 dependsOn 声明依赖时构成有向无环图，
+ * 前置节点全部成功后才执行
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Data
+@Schema(description = "批量执行请求")
+public class TaskBatchRequest {
+
+    @Schema(description = "批次名称", example = "夜间数据同步")
+    private String batchName;
+
+    @Schema(description = "节点失败时的处理：STOP取消未开始的节点，其余策略跳过失败节点的下游并继续；"
+            + "节点自身的重试按任务定义执行", example = "CONTINUE")
+    private TaskDefinition.FailureStrategy failureStrategy;
+
+    @Schema(description = "同时执行的最大节点数，为空时取默认值", example = "32")
+    private Integer maxParallelism;
+
+    @Schema(description = "执行节点")
+    private List<Node> nodes = new ArrayList<>();
+
+    /**
+     * 执行节点
+     */
+    @Data
+    @Schema(description = "批次执行节点")
+    public static class Node {
+
+        @Schema(description = "节点标识，批次内唯一；为空时取节点序号", example = "extract")
+        private String key;
+
+        @Schema(description = "任务ID", example = "1")
+        private Long taskId;
+
+        @Schema(description = "本次执行参数")
+        private Map<String, Object> params;
+
+        @Schema(description = "依赖的节点标识")
+        private List<String> dependsOn = new ArrayList<>();
+    }
+}
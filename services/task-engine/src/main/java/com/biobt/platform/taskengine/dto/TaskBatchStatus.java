@@ -0,0 +1,56 @@
+package com.biobt.platform.taskengine.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 批次执行进度
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Data
+@Schema(description = "批次执行进度")
+public class TaskBatchStatus {
+
+    @Schema(description = "批次号")
+    private String batchId;
+
+    @Schema(description = "批次名称")
+    private String batchName;
+
+    @Schema(description = "批次状态：RUNNING、SUCCESS、FAILED、CANCELLED")
+    private String status;
+
+    @Schema(description = "节点总数")
+    private int total;
+
+    @Schema(description = "等待依赖或排队的节点数")
+    private int pending;
+
+    @Schema(description = "执行中（含待重试）的节点数")
+    private int running;
+
+    @Schema(description = "成功的节点数")
+    private int succeeded;
+
+    @Schema(description = "失败的节点数")
+    private int failed;
+
+    @Schema(description = "因上游失败而跳过的节点数")
+    private int skipped;
+
+    @Schema(description = "被取消的节点数")
+    private int cancelled;
+
+    @Schema(description = "进度百分比：已结束节点占总数的比例")
+    private int progressPercent;
+
+    @Schema(description = "开始时间")
+    private LocalDateTime startTime;
+
+    @Schema(description = "结束时间")
+    private LocalDateTime endTime;
+}
@@ -0,0 +1,46 @@
+package com.biobt.platform.taskengine.dto;
+
+import com.biobt.platform.taskengine.entity.TaskExecution;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 执行进度事件
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Data
+@Schema(description = "执行进度事件")
+public class TaskProgressEvent {
+
+    @Schema(description = "执行ID")
+    private Long executionId;
+
+    @Schema(description = "任务ID")
+    private Long taskId;
+
+    @Schema(description = "批次号")
+    private String batchId;
+
+    @Schema(description = "执行状态")
+    private TaskExecution.ExecutionStatus status;
+
+    @Schema(description = "进度百分比")
+    private Integer progressPercent;
+
+    @Schema(description = "进度描述")
+    private String progressDescription;
+
+    @Schema(description = "事件时间戳（毫秒）")
+    private long timestamp;
+
+    /**
+     * 是否为最终状态，之后不再有该执行的事件
+     */
+    public boolean isTerminal() {
+        return status != null && status != TaskExecution.ExecutionStatus.RUNNING
+                && status != TaskExecution.ExecutionStatus.PENDING
+                && status != TaskExecution.ExecutionStatus.RETRYING;
+    }
+}
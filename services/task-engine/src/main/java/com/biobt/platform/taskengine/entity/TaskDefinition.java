@@ -16,7 +16,9 @@ import java.time.LocalDateTime;
 @Data
 @EqualsAndHashCode(callSuper = true)
 @Entity
-@Table(name = "task_definition")
+@Table(name = "task_definition", indexes = {
+        @Index(name = "idx_task_definition_status_shard", columnList = "status, shard_id")
+})
 public class TaskDefinition extends BaseEntity {
     
     /**
@@ -89,7 +91,13 @@ public class TaskDefinition extends BaseEntity {
     private TaskStatus status;
     
     /**
-     * 优先级
+     * 所在分片，创建时按任务ID计算；节点获得分片时据此只加载该分片的任务
+     */
+    @Column(name = "shard_id")
+    private Integer shardId;
+    
+    /**
+     * 优先级（1-10，数字越小优先级越高）
      */
     @Column(name = "priority")
     private Integer priority;
@@ -16,7 +16,12 @@ import java.time.LocalDateTime;
 @Data
 @EqualsAndHashCode(callSuper = true)
 @Entity
-@Table(name = "task_execution")
+@Table(name = "task_execution", indexes = {
+        @Index(name = "idx_task_execution_task_start", columnList = "task_id, start_time"),
+        @Index(name = "idx_task_execution_status_node", columnList = "execution_status, execution_node"),
+        @Index(name = "idx_task_execution_status_retry", columnList = "execution_status, next_retry_time"),
+        @Index(name = "idx_task_execution_batch", columnList = "batch_id")
+})
 public class TaskExecution extends BaseEntity {
     
     /**
@@ -24,6 +29,7 @@ public class TaskExecution extends BaseEntity {
      */
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "execution_id")
     private Long executionId;
     
     /**
@@ -0,0 +1,156 @@
+package com.biobt.platform.taskengine.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 任务执行统计汇总实体
+ * 每个任务按分钟、按天各一行计数，执行结束时增量累加（见 TaskStatisticsRollup），
+ * 统计查询只汇总桶行，不扫描执行记录。耗时直方图按区间分别计数，各区间不累计
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Data
+@Entity
+@Table(name = "task_execution_rollup", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_task_rollup_bucket", columnNames = {"task_id", "granularity", "bucket_start"})
+}, indexes = {
+        @Index(name = "idx_task_rollup_granularity_bucket", columnList = "granularity, bucket_start")
+})
+public class TaskExecutionRollup {
+
+    /**
+     * 汇总ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    /**
+     * 任务ID
+     */
+    @Column(name = "task_id", nullable = false)
+    private Long taskId;
+
+    /**
+     * 时间粒度
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false, length = 10)
+    private Granularity granularity;
+
+    /**
+     * 桶起始时间（按执行结束时间归桶）
+     */
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    /**
+     * 结束的执行数
+     */
+    @Column(name = "total_count", nullable = false)
+    private Long totalCount;
+
+    /**
+     * 成功数
+     */
+    @Column(name = "success_count", nullable = false)
+    private Long successCount;
+
+    /**
+     * 失败数
+     */
+    @Column(name = "failure_count", nullable = false)
+    private Long failureCount;
+
+    /**
+     * 超时数
+     */
+    @Column(name = "timeout_count", nullable = false)
+    private Long timeoutCount;
+
+    /**
+     * 取消数
+     */
+    @Column(name = "cancelled_count", nullable = false)
+    private Long cancelledCount;
+
+    /**
+     * 有耗时的执行数
+     */
+    @Column(name = "duration_count", nullable = false)
+    private Long durationCount;
+
+    /**
+     * 耗时合计（毫秒）
+     */
+    @Column(name = "duration_sum", nullable = false)
+    private Long durationSum;
+
+    /**
+     * 最大耗时（毫秒）
+     */
+    @Column(name = "duration_max", nullable = false)
+    private Long durationMax;
+
+    /**
+     * 耗时不超过100毫秒的执行数
+     */
+    @Column(name = "duration_le_100ms", nullable = false)
+    private Long durationLe100ms;
+
+    /**
+     * 耗时在(100毫秒, 1秒]的执行数
+     */
+    @Column(name = "duration_le_1s", nullable = false)
+    private Long durationLe1s;
+
+    /**
+     * 耗时在(1秒, 10秒]的执行数
+     */
+    @Column(name = "duration_le_10s", nullable = false)
+    private Long durationLe10s;
+
+    /**
+     * 耗时在(10秒, 1分钟]的执行数
+     */
+    @Column(name = "duration_le_1m", nullable = false)
+    private Long durationLe1m;
+
+    /**
+     * 耗时在(1分钟, 10分钟]的执行数
+     */
+    @Column(name = "duration_le_10m", nullable = false)
+    private Long durationLe10m;
+
+    /**
+     * 耗时超过10分钟的执行数
+     */
+    @Column(name = "duration_gt_10m", nullable = false)
+    private Long durationGt10m;
+
+    /**
+     * 最后更新时间
+     */
+    @Column(name = "update_time")
+    private LocalDateTime updateTime;
+
+    /**
+     * 时间粒度
+     */
+    public enum Granularity {
+        /**
+         * 分钟，保留 task.engine.statistics.minute-retention-hours
+         */
+        MINUTE,
+
+        /**
+         * 天，长期保留
+         */
+        DAY
+    }
+}
@@ -52,6 +52,16 @@ public class BusinessException extends RuntimeException {
                 String.format("任务不存在: %s", taskId), HttpStatus.NOT_FOUND);
     }
     
+    public static BusinessException executionNotFound(String executionId) {
+        return new BusinessException("EXECUTION_NOT_FOUND", 
+                String.format("执行记录不存在: %s", executionId), HttpStatus.NOT_FOUND);
+    }
+    
+    public static BusinessException batchNotFound(String batchId) {
+        return new BusinessException("BATCH_NOT_FOUND", 
+                String.format("任务批次不存在: %s", batchId), HttpStatus.NOT_FOUND);
+    }
+    
     public static BusinessException taskAlreadyRunning(String taskId) {
         return new BusinessException("TASK_ALREADY_RUNNING", 
                 String.format("任务正在运行中: %s", taskId), HttpStatus.CONFLICT);
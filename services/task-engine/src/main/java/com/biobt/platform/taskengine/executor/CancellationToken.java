@@ -0,0 +1,154 @@
+package com.biobt.platform.taskengine.executor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 执行取消令牌
+ * 到达截止时间或收到取消请求时被置为取消，执行器应在循环、分批处理等安全点检查并尽快返回；
+ * 超过宽限时间仍未返回时，引擎会中断执行线程。执行器也通过本令牌上报执行进度
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+public class CancellationToken {
+
+    /**
+     * 取消原因
+     */
+    public enum Reason {
+        /**
+         * 用户或批次取消
+         */
+        CANCELLED,
+
+        /**
+         * 超过任务定义的超时时间
+         */
+        TIMEOUT
+    }
+
+    private final long deadlineNanos;
+
+    private final boolean hasDeadline;
+
+    private final AtomicReference<Reason> reason = new AtomicReference<>();
+
+    private final List<Runnable> callbacks = new CopyOnWriteArrayList<>();
+
+    private volatile ProgressReporter progressReporter = ProgressReporter.NONE;
+
+    /**
+     * @param timeoutMillis 超时毫秒数，小于等于0表示没有截止时间
+     */
+    public CancellationToken(long timeoutMillis) {
+        this.hasDeadline = timeoutMillis > 0;
+        this.deadlineNanos = hasDeadline ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : 0;
+    }
+
+    /**
+     * 不会被取消、没有截止时间的令牌
+     */
+    public static CancellationToken none() {
+        return new CancellationToken(0);
+    }
+
+    /**
+     * 是否已取消（含超时）
+     */
+    public boolean isCancelled() {
+        return reason.get() != null;
+    }
+
+    /**
+     * 取消原因，未取消时为null
+     */
+    public Reason getReason() {
+        return reason.get();
+    }
+
+    /**
+     * 已取消时抛出 {@link CancellationException}，由引擎按取消或超时记录结果
+     */
+    public void throwIfCancelled() {
+        Reason current = reason.get();
+        if (current != null) {
+            throw new CancellationException(current == Reason.TIMEOUT ? "任务执行超时" : "任务已取消");
+        }
+    }
+
+    /**
+     * 是否有截止时间
+     */
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    /**
+     * 距截止时间的剩余毫秒数，没有截止时间时为 {@link Long#MAX_VALUE}
+     */
+    public long remainingMillis() {
+        if (!hasDeadline) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * 上报执行进度，由引擎转发给进度订阅者；没有设置上报回调时忽略
+     *
+     * @param progressPercent 进度百分比（0-100）
+     * @param progressDescription 进度描述，可为空
+     */
+    public void reportProgress(int progressPercent, String progressDescription) {
+        progressReporter.report(progressPercent, progressDescription);
+    }
+
+    /**
+     * 设置进度上报回调，由引擎在调用执行器前设置
+     */
+    public void setProgressReporter(ProgressReporter progressReporter) {
+        this.progressReporter = progressReporter == null ? ProgressReporter.NONE : progressReporter;
+    }
+
+    /**
+     * 注册取消回调（如关闭连接、取消下游请求）；已取消时立即执行。回调在取消方线程上执行，不能阻塞
+     */
+    public void onCancel(Runnable callback) {
+        callbacks.add(callback);
+        if (isCancelled() && callbacks.remove(callback)) {
+            run(callback);
+        }
+    }
+
+    /**
+     * 取消；只有第一次取消生效
+     *
+     * @return 本次是否生效
+     */
+    public boolean cancel(Reason cancelReason) {
+        if (!reason.compareAndSet(null, cancelReason)) {
+            return false;
+        }
+        for (Runnable callback : callbacks) {
+            if (callbacks.remove(callback)) {
+                run(callback);
+            }
+        }
+        return true;
+    }
+
+    private static void run(Runnable callback) {
+        try {
+            callback.run();
+        } catch (Exception e) {
+            log.warn("取消回调执行失败", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.biobt.platform.taskengine.executor;
+
+/**
+ * 执行进度上报回调
+ * 由引擎在调用执行器前通过 {@link CancellationToken#reportProgress} 提供，执行器无需依赖进度的发布方式
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface ProgressReporter {
+
+    /**
+     * 不做任何处理的回调
+     */
+    ProgressReporter NONE = (progressPercent, progressDescription) -> { };
+
+    /**
+     * 上报执行进度；可高频调用，只保留最新值
+     *
+     * @param progressPercent 进度百分比（0-100）
+     * @param progressDescription 进度描述，可为空
+     */
+    void report(int progressPercent, String progressDescription);
+}
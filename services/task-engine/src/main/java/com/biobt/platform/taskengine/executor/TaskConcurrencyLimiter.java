@@ -0,0 +1,64 @@
+package com.biobt.platform.taskengine.executor;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 任务并发限制
+ * 虚拟线程模式下每个任务一个线程，不再由线程池大小限制并发；改为按执行器类型各用一个信号量限制同时执行的任务数，
+ * 避免大量I/O型任务耗尽下游连接，或CPU型任务压满载体线程。线程池模式下不启用
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Data
+public class TaskConcurrencyLimiter {
+
+    /**
+     * 是否启用（仅虚拟线程模式）
+     */
+    private boolean enabled;
+
+    /**
+     * 未单独配置的执行器的并发上限
+     */
+    private int defaultLimit = 200;
+
+    /**
+     * 执行器名称 -> 并发上限
+     */
+    private Map<String, Integer> limits = new HashMap<>();
+
+    /**
+     * 信号量是否公平，公平模式下按等待顺序获取许可，尾延迟更稳定
+     */
+    private boolean fair = true;
+
+    private final Map<String, Semaphore> semaphores = new ConcurrentHashMap<>();
+
+    /**
+     * 获取执行器对应的信号量
+     *
+     * @param executor 执行器
+     * @return 信号量；未启用时返回null
+     */
+    public Semaphore semaphoreFor(TaskExecutor executor) {
+        if (!enabled) {
+            return null;
+        }
+        return semaphores.computeIfAbsent(executor.getExecutorName(),
+                name -> new Semaphore(limits.getOrDefault(name, defaultLimit), fair));
+    }
+
+    /**
+     * 执行器当前可用许可数，未启用或未使用过时返回-1
+     */
+    public int availablePermits(String executorName) {
+        Semaphore semaphore = semaphores.get(executorName);
+        return semaphore == null ? -1 : semaphore.availablePermits();
+    }
+}
@@ -22,6 +22,22 @@ public interface TaskExecutor {
      */
     TaskExecutionResult execute(TaskExecution taskExecution, Map<String, Object> parameters) throws Exception;
     
+    /**
+     * 可取消地执行任务，引擎调用此方法
+     * 需要响应取消或超时的执行器覆盖本方法，在安全点检查 {@link CancellationToken#isCancelled()}
+     * 或调用 {@link CancellationToken#throwIfCancelled()}；默认忽略令牌，超时后由引擎中断执行线程
+     * 
+     * @param taskExecution 任务执行记录
+     * @param parameters 执行参数
+     * @param cancellationToken 取消令牌
+     * @return 执行结果
+     * @throws Exception 执行异常
+     */
+    default TaskExecutionResult execute(TaskExecution taskExecution, Map<String, Object> parameters,
+                                        CancellationToken cancellationToken) throws Exception {
+        return execute(taskExecution, parameters);
+    }
+    
     /**
      * 获取执行器名称
      * 
@@ -0,0 +1,225 @@
+package com.biobt.platform.taskengine.executor;
+
+import com.alibaba.fastjson2.JSON;
+import com.biobt.platform.taskengine.entity.TaskDefinition;
+import com.biobt.platform.taskengine.exception.BusinessException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 任务执行器注册表
+ * 启动时收集容器中所有 {@link TaskExecutor} Bean，按执行器名称、Bean名称、类全名和类简单名建立索引；
+ * 任务调度时把 {@link TaskDefinition#getExecutorClass()} 解析为执行器并连同默认参数、超时、并发约束缓存为 {@link Binding}，
+ * 执行时按任务ID直接取用，热路径上只有一次哈希查找，不做反射
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class TaskExecutorRegistry {
+
+    /**
+     * 名称 -> 执行器，启动后只读
+     */
+    private final Map<String, TaskExecutor> executors;
+
+    /**
+     * 已注册的执行器（按注册顺序去重）
+     */
+    private final Collection<TaskExecutor> registered;
+
+    /**
+     * 任务ID -> 调度时解析出的执行绑定
+     */
+    private final Map<Long, Binding> bindings = new ConcurrentHashMap<>();
+
+    public TaskExecutorRegistry(Map<String, TaskExecutor> executorBeans) {
+        Map<String, TaskExecutor> index = new HashMap<>();
+        Map<TaskExecutor, Boolean> unique = new LinkedHashMap<>();
+        executorBeans.forEach((beanName, executor) -> {
+            Class<?> targetClass = AopUtils.getTargetClass(executor);
+            register(index, executor.getExecutorName(), executor);
+            register(index, beanName, executor);
+            register(index, targetClass.getName(), executor);
+            register(index, targetClass.getSimpleName(), executor);
+            unique.put(executor, Boolean.TRUE);
+            log.info("注册任务执行器: {} ({})", executor.getExecutorName(), targetClass.getName());
+        });
+        this.executors = Collections.unmodifiableMap(index);
+        this.registered = Collections.unmodifiableCollection(unique.keySet());
+    }
+
+    private static void register(Map<String, TaskExecutor> index, String name, TaskExecutor executor) {
+        if (!StringUtils.hasText(name)) {
+            return;
+        }
+        TaskExecutor existing = index.putIfAbsent(name, executor);
+        if (existing != null && existing != executor) {
+            log.warn("任务执行器名称冲突: {}，保留 {}", name, existing.getExecutorName());
+        }
+    }
+
+    /**
+     * 按名称解析执行器
+     *
+     * @param executorClass 执行器名称、Bean名称、类全名或类简单名
+     * @return 执行器
+     * @throws BusinessException 执行器不存在
+     */
+    public TaskExecutor resolve(String executorClass) {
+        TaskExecutor executor = executorClass == null ? null : executors.get(executorClass.trim());
+        if (executor == null) {
+            throw BusinessException.executorClassNotFound(executorClass);
+        }
+        return executor;
+    }
+
+    /**
+     * 是否存在对应的执行器
+     */
+    public boolean contains(String executorClass) {
+        return executorClass != null && executors.containsKey(executorClass.trim());
+    }
+
+    /**
+     * 获取已注册的执行器
+     */
+    public Collection<TaskExecutor> getExecutors() {
+        return registered;
+    }
+
+    /**
+     * 解析任务定义并缓存执行绑定（调度时调用）
+     *
+     * @param taskDefinition 任务定义
+     * @return 执行绑定
+     */
+    public Binding bind(TaskDefinition taskDefinition) {
+        Binding binding = new Binding(taskDefinition, resolve(taskDefinition.getExecutorClass()));
+        bindings.put(taskDefinition.getTaskId(), binding);
+        return binding;
+    }
+
+    /**
+     * 获取任务的执行绑定；未绑定或任务定义的执行相关字段已变化时重新解析
+     * （例如集群中其他节点修改了任务定义，或本节点重启后由Quartz恢复的调度）
+     *
+     * @param taskDefinition 任务定义
+     * @return 执行绑定
+     */
+    public Binding getBinding(TaskDefinition taskDefinition) {
+        Binding binding = bindings.get(taskDefinition.getTaskId());
+        if (binding != null && binding.matches(taskDefinition)) {
+            return binding;
+        }
+        return bind(taskDefinition);
+    }
+
+    /**
+     * 移除任务的执行绑定（停止或删除任务时调用）
+     */
+    public void unbind(Long taskId) {
+        bindings.remove(taskId);
+    }
+
+    /**
+     * 任务执行绑定
+     * 执行器、默认参数、必填参数、超时和并发约束都在调度时一次性计算
+     */
+    @Getter
+    public static final class Binding {
+
+        private final Long taskId;
+
+        private final TaskExecutor executor;
+
+        private final String executorClass;
+
+        private final String taskParams;
+
+        private final Integer timeoutSeconds;
+
+        private final Boolean allowConcurrent;
+
+        /**
+         * 任务定义中的默认参数（只读）
+         */
+        private final Map<String, Object> defaultParameters;
+
+        private final String[] requiredParameters;
+
+        /**
+         * 超时毫秒数，0表示不限
+         */
+        private final long timeoutMillis;
+
+        /**
+         * 同一任务是否只允许单实例执行：任务定义不允许并发，或执行器本身不支持并发
+         */
+        private final boolean exclusive;
+
+        Binding(TaskDefinition taskDefinition, TaskExecutor executor) {
+            this.taskId = taskDefinition.getTaskId();
+            this.executor = executor;
+            this.executorClass = taskDefinition.getExecutorClass();
+            this.taskParams = taskDefinition.getTaskParams();
+            this.timeoutSeconds = taskDefinition.getTimeoutSeconds();
+            this.allowConcurrent = taskDefinition.getAllowConcurrent();
+            this.defaultParameters = StringUtils.hasText(taskParams)
+                    ? Collections.unmodifiableMap(JSON.parseObject(taskParams))
+                    : Collections.emptyMap();
+            this.requiredParameters = executor.getRequiredParameters();
+            this.timeoutMillis = timeoutSeconds != null && timeoutSeconds > 0 ? timeoutSeconds * 1000L : 0L;
+            this.exclusive = !Boolean.TRUE.equals(allowConcurrent) || !executor.supportsConcurrentExecution();
+        }
+
+        /**
+         * 任务定义中与执行相关的字段是否与绑定一致
+         */
+        boolean matches(TaskDefinition taskDefinition) {
+            return Objects.equals(executorClass, taskDefinition.getExecutorClass())
+                    && Objects.equals(taskParams, taskDefinition.getTaskParams())
+                    && Objects.equals(timeoutSeconds, taskDefinition.getTimeoutSeconds())
+                    && Objects.equals(allowConcurrent, taskDefinition.getAllowConcurrent());
+        }
+
+        /**
+         * 合并默认参数与本次执行参数，本次参数优先
+         */
+        public Map<String, Object> mergeParameters(Map<String, Object> params) {
+            if (params == null || params.isEmpty()) {
+                return defaultParameters;
+            }
+            if (defaultParameters.isEmpty()) {
+                return params;
+            }
+            Map<String, Object> merged = new HashMap<>(defaultParameters);
+            merged.putAll(params);
+            return merged;
+        }
+
+        /**
+         * 返回第一个缺失的必填参数，全部存在时返回null
+         */
+        public String findMissingParameter(Map<String, Object> parameters) {
+            for (String name : requiredParameters) {
+                if (parameters.get(name) == null) {
+                    return name;
+                }
+            }
+            return null;
+        }
+    }
+}
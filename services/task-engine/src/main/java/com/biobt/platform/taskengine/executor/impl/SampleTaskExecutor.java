@@ -1,6 +1,7 @@
 package com.biobt.platform.taskengine.executor.impl;
 
 import com.biobt.platform.taskengine.entity.TaskExecution;
+import com.biobt.platform.taskengine.executor.CancellationToken;
 import com.biobt.platform.taskengine.executor.TaskExecutionResult;
 import com.biobt.platform.taskengine.executor.TaskExecutor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +23,12 @@ public class SampleTaskExecutor implements TaskExecutor {
     
     @Override
     public TaskExecutionResult execute(TaskExecution taskExecution, Map<String, Object> parameters) throws Exception {
+        return execute(taskExecution, parameters, CancellationToken.none());
+    }
+    
+    @Override
+    public TaskExecutionResult execute(TaskExecution taskExecution, Map<String, Object> parameters,
+                                       CancellationToken cancellationToken) throws Exception {
         LocalDateTime startTime = LocalDateTime.now();
         
         try {
@@ -39,10 +46,10 @@ public class SampleTaskExecutor implements TaskExecutor {
                 Thread.sleep(1000); // 模拟耗时操作
                 
                 int progress = (i * 100) / duration;
-                log.info("任务执行进度: {}%", progress);
+                cancellationToken.reportProgress(progress, String.format("已执行 %d/%d 秒", i, duration));
                 
-                // 检查是否被取消
-                if (Thread.currentThread().isInterrupted()) {
+                // 检查是否被取消或超时
+                if (cancellationToken.isCancelled() || Thread.currentThread().isInterrupted()) {
                     log.warn("任务被中断: {}", taskExecution.getTaskCode());
                     return TaskExecutionResult.cancelled();
                 }
@@ -158,13 +165,6 @@ public class SampleTaskExecutor implements TaskExecutor {
         // 例如：设置停止标志、中断线程等
     }
     
-    @Override
-    public int getExecutionProgress(TaskExecution taskExecution) {
-        // 这里可以根据实际情况返回任务执行进度
-        // 示例中返回固定值，实际应用中可以根据任务状态计算
-        return 50;
-    }
-    
     @Override
     public String getExecutionStatusDescription(TaskExecution taskExecution) {
         return "示例任务正在执行中...";
@@ -0,0 +1,39 @@
+package com.biobt.platform.taskengine.repository;
+
+import com.biobt.platform.taskengine.entity.TaskDefinition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 任务定义数据访问
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Repository
+public interface TaskDefinitionRepository extends JpaRepository<TaskDefinition, Long> {
+
+    /**
+     * 按任务编码查询
+     */
+    Optional<TaskDefinition> findByTaskCode(String taskCode);
+
+    /**
+     * 任务编码是否已存在
+     */
+    boolean existsByTaskCode(String taskCode);
+
+    /**
+     * 按状态查询任务定义
+     */
+    List<TaskDefinition> findByStatus(TaskDefinition.TaskStatus status);
+
+    /**
+     * 按状态查询指定分片内的任务定义
+     */
+    List<TaskDefinition> findByStatusAndShardIdIn(TaskDefinition.TaskStatus status, Collection<Integer> shardIds);
+}
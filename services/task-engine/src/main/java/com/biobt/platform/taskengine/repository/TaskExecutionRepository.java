@@ -0,0 +1,44 @@
+package com.biobt.platform.taskengine.repository;
+
+import com.biobt.platform.taskengine.entity.TaskExecution;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 任务执行记录数据访问
+ * 执行记录的写入由 {@link com.biobt.platform.taskengine.service.TaskExecutionWriter} 异步批量完成，这里只用于查询
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Repository
+public interface TaskExecutionRepository extends JpaRepository<TaskExecution, Long> {
+
+    /**
+     * 按开始时间倒序分页查询任务的执行记录
+     */
+    Page<TaskExecution> findByTaskIdOrderByStartTimeDesc(Long taskId, Pageable pageable);
+
+    /**
+     * 任务的执行次数
+     */
+    long countByTaskId(Long taskId);
+
+    /**
+     * 任务指定状态的执行次数
+     */
+    long countByTaskIdAndExecutionStatus(Long taskId, TaskExecution.ExecutionStatus executionStatus);
+
+    /**
+     * 批次内各执行状态的记录数，每行为 [执行状态, 数量]
+     */
+    @Query("SELECT e.executionStatus, COUNT(e) FROM TaskExecution e "
+            + "WHERE e.batchId = :batchId GROUP BY e.executionStatus")
+    List<Object[]> countByBatchIdGroupByStatus(@Param("batchId") String batchId);
+}
@@ -0,0 +1,333 @@
+package com.biobt.platform.taskengine.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分片租约管理
+ * 任务ID经哈希映射到固定数量的分片；各节点在Redis中登记心跳，按最高随机权重（rendezvous hashing）
+ * 计算每个分片应归属的节点，只为归属自己的分片获取并续约租约，不再归属的分片主动释放。
+ * 节点加入或离开时只有少量分片易主，调度负载随节点数近似线性扩展
+ * <p>
+ * 租约在本地记录到期时间：续约失败（如Redis不可用）时到期即视为失去分片，不会与新主重复调度
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class ShardLeaseManager {
+
+    private static final String NODES_KEY = "task:engine:nodes";
+
+    private static final String LEASE_KEY_PREFIX = "task:shard:lease:";
+
+    /**
+     * 未被占用则占用，由本节点持有则续约
+     */
+    private static final String ACQUIRE_SCRIPT =
+            "local owner = redis.call('get', KEYS[1]) " +
+            "if owner == false then " +
+            "    redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]) " +
+            "    return 1 " +
+            "elseif owner == ARGV[1] then " +
+            "    redis.call('pexpire', KEYS[1], ARGV[2]) " +
+            "    return 1 " +
+            "end " +
+            "return 0";
+
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "    return redis.call('del', KEYS[1]) " +
+            "end " +
+            "return 0";
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private TaskEngineNode taskEngineNode;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${task.engine.sharding.shard-count:64}")
+    private int shardCount;
+
+    @Value("${task.engine.sharding.lease-millis:30000}")
+    private long leaseMillis;
+
+    @Value("${task.engine.sharding.renew-interval-millis:10000}")
+    private long renewIntervalMillis;
+
+    /**
+     * 持有的分片 -> 本地记录的租约到期时间（System.nanoTime）
+     */
+    private final Map<Integer, Long> ownedShards = new ConcurrentHashMap<>();
+
+    private final List<ShardListener> listeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService renewer;
+
+    private RScript script;
+
+    private RScoredSortedSet<String> nodes;
+
+    @PostConstruct
+    public void init() {
+        script = redissonClient.getScript(StringCodec.INSTANCE);
+        nodes = redissonClient.getScoredSortedSet(NODES_KEY, StringCodec.INSTANCE);
+        Gauge.builder("task.shard.owned", ownedShards, Map::size)
+                .description("本节点持有的分片数")
+                .register(meterRegistry);
+
+        renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-shard-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        renewer.scheduleWithFixedDelay(this::rebalanceQuietly, 0, renewIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("分片租约管理启动 - 分片数: {}, 租期: {}ms, 续约间隔: {}ms", shardCount, leaseMillis, renewIntervalMillis);
+    }
+
+    /**
+     * 停机时释放全部租约并注销节点，其他节点在下一次续约时接管
+     */
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        renewer.shutdown();
+        renewer.awaitTermination(5, TimeUnit.SECONDS);
+        Set<Integer> released = new TreeSet<>(ownedShards.keySet());
+        ownedShards.clear();
+        notifyRevoked(released);
+        try {
+            for (Integer shard : released) {
+                release(shard);
+            }
+            nodes.remove(taskEngineNode.getNodeId());
+        } catch (Exception e) {
+            log.warn("释放分片租约失败，等待租约过期", e);
+        }
+    }
+
+    /**
+     * 注册分片变化监听器
+     */
+    public void addListener(ShardListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 任务所在分片
+     */
+    public int shardOf(Long taskId) {
+        return (int) Math.floorMod(mix(taskId), (long) shardCount);
+    }
+
+    /**
+     * 本节点当前是否持有任务所在分片的有效租约
+     */
+    public boolean owns(Long taskId) {
+        Long expiresAt = ownedShards.get(shardOf(taskId));
+        return expiresAt != null && expiresAt - System.nanoTime() > 0;
+    }
+
+    /**
+     * 本节点持有的分片
+     */
+    public Set<Integer> getOwnedShards() {
+        return Collections.unmodifiableSet(new TreeSet<>(ownedShards.keySet()));
+    }
+
+    private void rebalanceQuietly() {
+        try {
+            rebalance();
+        } catch (Exception e) {
+            log.error("分片租约续约失败", e);
+            expireLocally();
+        }
+    }
+
+    /**
+     * 心跳、计算应持有的分片、释放多余分片、续约并获取缺少的分片
+     */
+    private void rebalance() {
+        String self = taskEngineNode.getNodeId();
+        long now = System.currentTimeMillis();
+        nodes.add(now, self);
+        nodes.removeRangeByScore(0, true, now - leaseMillis, false);
+        Collection<String> liveNodes = nodes.readAll();
+        Map<String, Long> nodeHashes = new LinkedHashMap<>();
+        for (String node : liveNodes) {
+            nodeHashes.put(node, hashNode(node));
+        }
+
+        Set<Integer> revoked = new TreeSet<>();
+        Set<Integer> assigned = new TreeSet<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            boolean desired = self.equals(ownerOf(shard, nodeHashes));
+            boolean owned = ownedShards.containsKey(shard);
+            if (owned && !desired) {
+                ownedShards.remove(shard);
+                revoked.add(shard);
+                release(shard);
+            } else if (desired) {
+                long leaseStart = System.nanoTime();
+                if (acquire(shard)) {
+                    // 本地到期时间比Redis中略早，留出一个续约间隔的余量
+                    ownedShards.put(shard, leaseStart + TimeUnit.MILLISECONDS.toNanos(leaseMillis - renewIntervalMillis));
+                    if (!owned) {
+                        assigned.add(shard);
+                    }
+                } else if (owned) {
+                    ownedShards.remove(shard);
+                    revoked.add(shard);
+                }
+            }
+        }
+        notifyRevoked(revoked);
+        notifyAssigned(assigned);
+        if (!assigned.isEmpty() || !revoked.isEmpty()) {
+            log.info("分片重新分配 - 节点数: {}, 获得: {}, 释放: {}, 当前持有: {}",
+                    liveNodes.size(), assigned, revoked, ownedShards.size());
+        }
+    }
+
+    /**
+     * 续约失败时移除本地已到期的分片
+     */
+    private void expireLocally() {
+        long now = System.nanoTime();
+        Set<Integer> expired = new TreeSet<>();
+        ownedShards.forEach((shard, expiresAt) -> {
+            if (expiresAt - now <= 0) {
+                expired.add(shard);
+            }
+        });
+        expired.forEach(ownedShards::remove);
+        notifyRevoked(expired);
+    }
+
+    private boolean acquire(int shard) {
+        Long result = script.eval(RScript.Mode.READ_WRITE, ACQUIRE_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(LEASE_KEY_PREFIX + shard), taskEngineNode.getNodeId(), String.valueOf(leaseMillis));
+        return result != null && result > 0;
+    }
+
+    private void release(int shard) {
+        script.eval(RScript.Mode.READ_WRITE, RELEASE_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(LEASE_KEY_PREFIX + shard), taskEngineNode.getNodeId());
+    }
+
+    /**
+     * 最高随机权重：每个节点与分片组合出一个哈希值，取最大者为归属节点
+     *
+     * @param nodeHashes 存活节点 -> {@link #hashNode} 的结果
+     */
+    static String ownerOf(int shard, Map<String, Long> nodeHashes) {
+        String owner = null;
+        long best = Long.MIN_VALUE;
+        long shardHash = mix(shard * 0x9e3779b97f4a7c15L);
+        for (Map.Entry<String, Long> node : nodeHashes.entrySet()) {
+            long weight = mix(node.getValue() ^ shardHash);
+            if (owner == null || weight > best) {
+                best = weight;
+                owner = node.getKey();
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * 节点ID的64位哈希：对完整的UTF-8字节做FNV-1a后再混淆。
+     * String.hashCode只有32位，且前缀相同、只有末尾不同的节点ID（如同一主机上的多个实例）哈希值相近，权重分布不均
+     */
+    static long hashNode(String nodeId) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : nodeId.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * 64位混淆（MurmurHash3 fmix64），使连续的ID均匀分布
+     */
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void notifyAssigned(Set<Integer> shards) {
+        if (shards.isEmpty()) {
+            return;
+        }
+        for (ShardListener listener : listeners) {
+            try {
+                listener.onShardsAssigned(shards);
+            } catch (Exception e) {
+                log.error("分片分配处理失败: {}", shards, e);
+            }
+        }
+    }
+
+    private void notifyRevoked(Set<Integer> shards) {
+        if (shards.isEmpty()) {
+            return;
+        }
+        for (ShardListener listener : new ArrayList<>(listeners)) {
+            try {
+                listener.onShardsRevoked(shards);
+            } catch (Exception e) {
+                log.error("分片回收处理失败: {}", shards, e);
+            }
+        }
+    }
+
+    /**
+     * 分片变化监听器
+     */
+    public interface ShardListener {
+
+        /**
+         * 获得分片租约
+         */
+        void onShardsAssigned(Set<Integer> shards);
+
+        /**
+         * 失去或释放分片租约
+         */
+        void onShardsRevoked(Set<Integer> shards);
+    }
+}
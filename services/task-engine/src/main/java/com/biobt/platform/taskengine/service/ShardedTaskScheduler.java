@@ -0,0 +1,379 @@
+package com.biobt.platform.taskengine.service;
+
+import com.biobt.platform.taskengine.entity.TaskDefinition;
+import com.biobt.platform.taskengine.repository.TaskDefinitionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.CronTrigger;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.BaseStatusListener;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分片任务调度器
+ * 每个节点的Quartz只保存本节点所持分片内的任务（内存存储，无集群锁）：获得分片时按 shard_id 列只加载其中已启用的任务，
+ * 失去分片时移除。启动时校正缺失或与当前分片数不一致的 shard_id。启动、停止等调度变更经Redis主题广播，由当前持有该分片的节点应用，
+ * 定时触发时再以 {@link ShardLeaseManager#owns(Long)} 校验租约，分片易主期间不会重复触发
+ * <p>
+ * 分片加载、移除和调度事件都在同一个单线程上依次处理，迟到的加载不会为已失去的分片重建任务。
+ * 广播事件不可靠（断线期间的事件会丢失），因此每 resync-interval-millis 以及重新订阅主题后按所持分片全量校正一次
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class ShardedTaskScheduler implements ShardLeaseManager.ShardListener {
+
+    private static final String TOPIC = "task:schedule:events";
+
+    private static final String DEFAULT_CRON = "0 0 12 * * ?";
+
+    private static final String SCHEDULE = "SCHEDULE";
+
+    private static final String UNSCHEDULE = "UNSCHEDULE";
+
+    private static final String SHARD_IDS_SQL = "SELECT task_id, shard_id FROM task_definition";
+
+    private static final String UPDATE_SHARD_SQL = "UPDATE task_definition SET shard_id = ? WHERE task_id = ?";
+
+    @Autowired
+    private Scheduler scheduler;
+
+    @Autowired
+    private ShardLeaseManager shardLeaseManager;
+
+    @Autowired
+    private TaskDefinitionRepository taskDefinitionRepository;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${task.engine.sharding.resync-interval-millis:60000}")
+    private long resyncIntervalMillis;
+
+    /**
+     * 分片 -> 本节点已调度的任务ID
+     */
+    private final Map<Integer, Set<Long>> scheduledTasks = new ConcurrentHashMap<>();
+
+    private RTopic topic;
+
+    private int listenerId;
+
+    private int statusListenerId;
+
+    /**
+     * 修改本节点调度的唯一线程
+     */
+    private ScheduledExecutorService worker;
+
+    @PostConstruct
+    public void init() {
+        reconcileShardIds();
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-shard-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::resyncQuietly, resyncIntervalMillis, resyncIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+        listenerId = topic.addListener(String.class, (channel, message) -> onEvent(message));
+        statusListenerId = topic.addListener(new BaseStatusListener() {
+            @Override
+            public void onSubscribe(String channel) {
+                // 断线重连后重新订阅，期间的事件已丢失
+                submit(ShardedTaskScheduler.this::resyncQuietly);
+            }
+        });
+        shardLeaseManager.addListener(this);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        topic.removeListener(listenerId, statusListenerId);
+        worker.shutdownNow();
+    }
+
+    /**
+     * 通知持有分片的节点调度任务；在事务中调用时于提交后发送
+     */
+    public void publishSchedule(Long taskId) {
+        publish(SCHEDULE, taskId);
+    }
+
+    /**
+     * 通知持有分片的节点取消调度
+     */
+    public void publishUnschedule(Long taskId) {
+        publish(UNSCHEDULE, taskId);
+    }
+
+    /**
+     * 根据表达式构建触发器，未配置时默认每天12点
+     */
+    public static String cronOf(TaskDefinition taskDefinition) {
+        return StringUtils.hasText(taskDefinition.getCronExpression())
+                ? taskDefinition.getCronExpression() : DEFAULT_CRON;
+    }
+
+    @Override
+    public void onShardsAssigned(Set<Integer> shards) {
+        submit(() -> {
+            int count = 0;
+            for (TaskDefinition definition : taskDefinitionRepository.findByStatusAndShardIdIn(
+                    TaskDefinition.TaskStatus.ENABLED, shards)) {
+                // 分片数调整后到校正完成前，shard_id 可能是旧值；加载期间租约也可能已过期
+                Long taskId = definition.getTaskId();
+                if (shards.contains(shardLeaseManager.shardOf(taskId)) && shardLeaseManager.owns(taskId)
+                        && scheduleLocally(definition)) {
+                    count++;
+                }
+            }
+            log.info("加载分片任务 - 分片: {}, 任务数: {}", shards, count);
+        });
+    }
+
+    @Override
+    public void onShardsRevoked(Set<Integer> shards) {
+        submit(() -> {
+            int count = 0;
+            for (Integer shard : shards) {
+                count += removeShard(shard);
+            }
+            log.info("移除分片任务 - 分片: {}, 任务数: {}", shards, count);
+        });
+    }
+
+    /**
+     * 补齐缺失的 shard_id（加列之前创建的任务），分片数调整后按新分片数重算
+     */
+    private void reconcileShardIds() {
+        List<long[]> changes = new ArrayList<>();
+        jdbcTemplate.query(SHARD_IDS_SQL, (RowCallbackHandler) rs -> {
+            long taskId = rs.getLong(1);
+            int stored = rs.getInt(2);
+            boolean missing = rs.wasNull();
+            int shard = shardLeaseManager.shardOf(taskId);
+            if (missing || stored != shard) {
+                changes.add(new long[]{taskId, shard});
+            }
+        });
+        if (changes.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SHARD_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, (int) changes.get(i)[1]);
+                ps.setLong(2, changes.get(i)[0]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return changes.size();
+            }
+        });
+        log.info("已校正任务分片 - 任务数: {}", changes.size());
+    }
+
+    private void resyncQuietly() {
+        try {
+            resync();
+        } catch (Exception e) {
+            log.error("校正分片任务调度失败", e);
+        }
+    }
+
+    /**
+     * 按所持分片全量校正本节点的调度：补上缺失或表达式已变化的任务，移除已停用或不再持有的任务
+     */
+    private void resync() {
+        Set<Integer> owned = shardLeaseManager.getOwnedShards();
+        int removed = 0;
+        for (Integer shard : new ArrayList<>(scheduledTasks.keySet())) {
+            if (!owned.contains(shard)) {
+                removed += removeShard(shard);
+            }
+        }
+        Set<Long> enabled = new HashSet<>();
+        int scheduled = 0;
+        if (!owned.isEmpty()) {
+            for (TaskDefinition definition : taskDefinitionRepository.findByStatusAndShardIdIn(
+                    TaskDefinition.TaskStatus.ENABLED, owned)) {
+                Long taskId = definition.getTaskId();
+                if (!owned.contains(shardLeaseManager.shardOf(taskId)) || !shardLeaseManager.owns(taskId)) {
+                    continue;
+                }
+                enabled.add(taskId);
+                if (!isScheduled(definition) && scheduleLocally(definition)) {
+                    scheduled++;
+                }
+            }
+        }
+        for (Set<Long> taskIds : scheduledTasks.values()) {
+            for (Long taskId : new ArrayList<>(taskIds)) {
+                if (!enabled.contains(taskId)) {
+                    unscheduleLocally(taskId);
+                    removed++;
+                }
+            }
+        }
+        if (scheduled > 0 || removed > 0) {
+            log.info("校正分片任务调度 - 新增或更新: {}, 移除: {}", scheduled, removed);
+        }
+    }
+
+    private int removeShard(Integer shard) {
+        Set<Long> taskIds = scheduledTasks.remove(shard);
+        if (taskIds == null) {
+            return 0;
+        }
+        for (Long taskId : taskIds) {
+            unscheduleLocally(taskId);
+        }
+        return taskIds.size();
+    }
+
+    /**
+     * 在调度线程上执行；停机后提交的变更直接丢弃（Quartz 随之关闭）
+     */
+    private void submit(Runnable action) {
+        try {
+            worker.execute(action);
+        } catch (RejectedExecutionException e) {
+            log.debug("分片调度线程已关闭，忽略调度变更");
+        }
+    }
+
+    private void publish(String type, Long taskId) {
+        String message = type + ":" + taskId;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    topic.publish(message);
+                }
+            });
+        } else {
+            topic.publish(message);
+        }
+    }
+
+    private void onEvent(String message) {
+        int separator = message.indexOf(':');
+        String type = message.substring(0, separator);
+        Long taskId = Long.valueOf(message.substring(separator + 1));
+        submit(() -> {
+            if (!shardLeaseManager.owns(taskId)) {
+                // 非本节点分片；分片刚易主时旧节点可能仍有调度，一并移除
+                if (UNSCHEDULE.equals(type)) {
+                    unscheduleLocally(taskId);
+                }
+                return;
+            }
+            if (SCHEDULE.equals(type)) {
+                taskDefinitionRepository.findById(taskId)
+                        .filter(definition -> definition.getStatus() == TaskDefinition.TaskStatus.ENABLED)
+                        .ifPresent(this::scheduleLocally);
+            } else {
+                unscheduleLocally(taskId);
+            }
+        });
+    }
+
+    /**
+     * 在本节点调度任务，已存在时按最新表达式重建
+     */
+    private boolean scheduleLocally(TaskDefinition definition) {
+        Long taskId = definition.getTaskId();
+        try {
+            JobDetail jobDetail = JobBuilder.newJob(TaskEngineService.TaskExecutorJob.class)
+                    .withIdentity(jobKey(taskId))
+                    .usingJobData("taskId", taskId)
+                    .build();
+            Trigger trigger = TriggerBuilder.newTrigger()
+                    .withIdentity(triggerKey(taskId))
+                    .startNow()
+                    .withSchedule(CronScheduleBuilder.cronSchedule(cronOf(definition)))
+                    .build();
+            scheduler.scheduleJob(jobDetail, Set.of(trigger), true);
+            scheduledTasks.computeIfAbsent(shardLeaseManager.shardOf(taskId), shard -> ConcurrentHashMap.newKeySet())
+                    .add(taskId);
+            return true;
+        } catch (SchedulerException | RuntimeException e) {
+            log.error("调度任务失败: {}", taskId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 本节点是否已按当前表达式调度任务
+     */
+    private boolean isScheduled(TaskDefinition definition) {
+        try {
+            Trigger trigger = scheduler.getTrigger(triggerKey(definition.getTaskId()));
+            return trigger instanceof CronTrigger cronTrigger
+                    && cronOf(definition).equals(cronTrigger.getCronExpression());
+        } catch (SchedulerException e) {
+            return false;
+        }
+    }
+
+    private void unscheduleLocally(Long taskId) {
+        Set<Long> taskIds = scheduledTasks.get(shardLeaseManager.shardOf(taskId));
+        if (taskIds != null) {
+            taskIds.remove(taskId);
+        }
+        try {
+            scheduler.deleteJob(jobKey(taskId));
+        } catch (SchedulerException e) {
+            log.error("取消调度任务失败: {}", taskId, e);
+        }
+    }
+
+    private static JobKey jobKey(Long taskId) {
+        return JobKey.jobKey("task_" + taskId, "DEFAULT");
+    }
+
+    private static TriggerKey triggerKey(Long taskId) {
+        return TriggerKey.triggerKey("trigger_" + taskId, "DEFAULT");
+    }
+}
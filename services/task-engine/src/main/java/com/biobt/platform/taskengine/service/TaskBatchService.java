@@ -0,0 +1,725 @@
+package com.biobt.platform.taskengine.service;
+
+import com.biobt.platform.taskengine.dto.TaskBatchRequest;
+import com.biobt.platform.taskengine.dto.TaskBatchStatus;
+import com.biobt.platform.taskengine.entity.TaskDefinition;
+import com.biobt.platform.taskengine.entity.TaskExecution;
+import com.biobt.platform.taskengine.exception.BusinessException;
+import com.biobt.platform.taskengine.executor.TaskExecutorRegistry;
+import com.biobt.platform.taskengine.repository.TaskDefinitionRepository;
+import com.biobt.platform.taskengine.repository.TaskExecutionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 批量与DAG执行
+ * 批次在提交节点的内存中协调：入度为0的节点进入就绪队列，同时在执行的节点数不超过 maxParallelism，
+ * 节点结束后再放行下游，执行本身经 {@link TaskDispatchQueue} 在任务分发执行器（线程池或虚拟线程）上完成，
+ * 协调过程不占用线程。执行记录带批次号，批次从内存淘汰后按批次号从执行记录汇总进度
+ * <p>
+ * 节点失败时按批次的失败策略处理：STOP 取消尚未开始的节点（执行中的节点不受影响），其余策略跳过失败节点的全部下游、其他分支继续；
+ * 已交给分发队列、尚未开始执行的节点带有取消标志，批次取消或STOP时置位，分发时不再执行、节点记为已取消；
+ * 节点自身的重试按任务定义执行，重试期间不占用批次的并发名额
+ * <p>
+ * 独占任务（不允许并发）的多个节点在批次内串行：同一任务同时只放行一个节点，其余节点留在该任务的等待队列，
+ * 前一个节点结束或转入重试后依次放行；任务正被批次外的执行占用时，节点退回就绪状态、稍后再试，不记为失败
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+@Service
+public class TaskBatchService {
+
+    private static final String STATUS_RUNNING = "RUNNING";
+
+    private static final String STATUS_SUCCESS = "SUCCESS";
+
+    private static final String STATUS_FAILED = "FAILED";
+
+    private static final String STATUS_CANCELLED = "CANCELLED";
+
+    @Autowired
+    private TaskDefinitionRepository taskDefinitionRepository;
+
+    @Autowired
+    private TaskExecutionRepository taskExecutionRepository;
+
+    @Autowired
+    private TaskExecutorRegistry taskExecutorRegistry;
+
+    @Autowired
+    private TaskDispatchQueue taskDispatchQueue;
+
+    @Autowired
+    private TaskProgressBus taskProgressBus;
+
+    @Autowired
+    private TaskDispatcher taskDispatcher;
+
+    @Autowired
+    private TaskCancellationService taskCancellationService;
+
+    @Autowired
+    private TaskExecutionWriter taskExecutionWriter;
+
+    @Value("${task.engine.batch.default-parallelism:32}")
+    private int defaultParallelism;
+
+    @Value("${task.engine.batch.max-parallelism:256}")
+    private int maxParallelism;
+
+    @Value("${task.engine.batch.max-nodes:10000}")
+    private int maxNodes;
+
+    @Value("${task.engine.batch.busy-retry-millis:1000}")
+    private long busyRetryMillis;
+
+    @Value("${task.engine.batch.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+
+    /**
+     * 转入重试的节点与重试结果的汇合点：执行ID -> 节点或已到达终态的执行记录，先到的一方登记，后到的一方完成节点
+     */
+    private final Map<Long, Object> retryRendezvous = new ConcurrentHashMap<>();
+
+    /**
+     * 提交批次
+     *
+     * @param request 批量执行请求
+     * @return 批次进度
+     */
+    public TaskBatchStatus submit(TaskBatchRequest request) {
+        List<TaskBatchRequest.Node> requestNodes = request.getNodes();
+        if (requestNodes == null || requestNodes.isEmpty()) {
+            throw BusinessException.parameterRequired("nodes");
+        }
+        if (requestNodes.size() > maxNodes) {
+            throw BusinessException.parameterInvalid("nodes", "节点数超过上限 " + maxNodes);
+        }
+        Map<Long, TaskDefinition> definitions = loadDefinitions(requestNodes);
+
+        int parallelism = request.getMaxParallelism() == null ? defaultParallelism
+                : Math.max(1, Math.min(request.getMaxParallelism(), maxParallelism));
+        TaskDefinition.FailureStrategy strategy = request.getFailureStrategy() == null
+                ? TaskDefinition.FailureStrategy.CONTINUE : request.getFailureStrategy();
+        Batch batch = new Batch(UUID.randomUUID().toString().replace("-", ""), request.getBatchName(),
+                strategy, parallelism);
+        buildGraph(batch, requestNodes, definitions);
+
+        batches.put(batch.batchId, batch);
+        log.info("提交任务批次: {}, 节点数: {}, 并发: {}, 失败策略: {}", batch.batchId, batch.nodes.size(),
+                parallelism, strategy);
+        pump(batch);
+        return batch.snapshot();
+    }
+
+    /**
+     * 查询批次进度
+     */
+    public TaskBatchStatus getStatus(String batchId) {
+        Batch batch = batches.get(batchId);
+        if (batch != null) {
+            return batch.snapshot();
+        }
+        return summarize(batchId);
+    }
+
+    /**
+     * 批次是否由本节点协调（提交到本节点且尚未淘汰）
+     */
+    public boolean isLocal(String batchId) {
+        return batches.containsKey(batchId);
+    }
+
+    /**
+     * 取消批次：尚未开始的节点不再执行，执行中的节点协作式取消，待重试的节点取消重试
+     * 批次由其他节点协调时经进度总线把取消请求转给协调节点，返回按执行记录汇总的进度（取消异步生效）
+     *
+     * @throws BusinessException 批次不在本节点且没有任何执行记录
+     */
+    public TaskBatchStatus cancel(String batchId) {
+        Batch batch = batches.get(batchId);
+        if (batch == null) {
+            log.info("批次不在本节点，转给协调节点取消: {}", batchId);
+            taskProgressBus.relayBatchCancel(batchId);
+            return summarize(batchId);
+        }
+        synchronized (batch) {
+            if (!batch.isDone()) {
+                log.info("取消任务批次: {}", batchId);
+                batch.cancelRemaining();
+            }
+        }
+        taskDispatcher.cancelBatch(batchId);
+        retryRendezvous.forEach((executionId, value) -> {
+            if (value instanceof Node node && node.batch == batch) {
+                try {
+                    taskCancellationService.cancelExecution(executionId);
+                } catch (Exception e) {
+                    log.warn("取消批次节点的重试失败: {}/{}", batchId, node.key, e);
+                }
+            }
+        });
+        taskProgressBus.batchChanged(batchId);
+        return batch.snapshot();
+    }
+
+    /**
+     * 重试的节点到达终态
+     */
+    @EventListener
+    public void onExecutionCompleted(TaskExecutionCompletedEvent event) {
+        TaskExecution execution = event.getExecution();
+        if (execution.getBatchId() == null || execution.getExecutionId() == null
+                || !batches.containsKey(execution.getBatchId())) {
+            return;
+        }
+        boolean retried = execution.getRetryCount() != null && execution.getRetryCount() > 0;
+        if (!retried && !retryRendezvous.containsKey(execution.getExecutionId())) {
+            // 首次执行直接结束，由提交回调处理
+            return;
+        }
+        Object waiting = retryRendezvous.putIfAbsent(execution.getExecutionId(), execution);
+        if (waiting instanceof Node node) {
+            retryRendezvous.remove(execution.getExecutionId());
+            finish(node, outcome(execution));
+        }
+    }
+
+    /**
+     * 重新放行因任务被批次外执行占用而推迟的节点
+     */
+    @Scheduled(fixedDelayString = "${task.engine.batch.busy-retry-millis:1000}")
+    public void resumeDeferred() {
+        long now = System.nanoTime();
+        for (Batch batch : batches.values()) {
+            boolean resumed = false;
+            synchronized (batch) {
+                while (!batch.deferred.isEmpty() && now - batch.deferred.peek().deferredUntilNanos >= 0) {
+                    Node node = batch.deferred.poll();
+                    batch.busyTasks.remove(node.taskDefinition.getTaskId());
+                    batch.ready.addFirst(node);
+                    resumed = true;
+                }
+            }
+            if (resumed) {
+                pump(batch);
+            }
+        }
+    }
+
+    /**
+     * 淘汰结束超过保留时间的批次，之后按执行记录汇总
+     */
+    @Scheduled(fixedDelayString = "${task.engine.batch.cleanup-interval-millis:60000}")
+    public void evictFinished() {
+        long threshold = System.nanoTime() - TimeUnit.MINUTES.toNanos(retentionMinutes);
+        batches.values().removeIf(batch -> {
+            synchronized (batch) {
+                return batch.isDone() && batch.finishedNanos - threshold < 0;
+            }
+        });
+        retryRendezvous.values().removeIf(value -> value instanceof TaskExecution execution
+                ? !batches.containsKey(execution.getBatchId())
+                : !batches.containsKey(((Node) value).batch.batchId));
+    }
+
+    private Map<Long, TaskDefinition> loadDefinitions(List<TaskBatchRequest.Node> requestNodes) {
+        Set<Long> taskIds = new HashSet<>();
+        for (TaskBatchRequest.Node requestNode : requestNodes) {
+            if (requestNode.getTaskId() == null) {
+                throw BusinessException.parameterRequired("nodes.taskId");
+            }
+            taskIds.add(requestNode.getTaskId());
+        }
+        Map<Long, TaskDefinition> definitions = taskDefinitionRepository.findAllById(taskIds).stream()
+                .collect(Collectors.toMap(TaskDefinition::getTaskId, Function.identity()));
+        for (Long taskId : taskIds) {
+            TaskDefinition definition = definitions.get(taskId);
+            if (definition == null || definition.getStatus() == TaskDefinition.TaskStatus.DELETED) {
+                throw BusinessException.taskNotFound(String.valueOf(taskId));
+            }
+            if (!StringUtils.hasText(definition.getExecutorClass())
+                    || !taskExecutorRegistry.contains(definition.getExecutorClass())) {
+                throw BusinessException.executorClassNotFound(definition.getExecutorClass());
+            }
+        }
+        return definitions;
+    }
+
+    /**
+     * 建立节点与依赖关系，并校验无环
+     */
+    private void buildGraph(Batch batch, List<TaskBatchRequest.Node> requestNodes,
+                            Map<Long, TaskDefinition> definitions) {
+        Map<String, Node> byKey = new HashMap<>(requestNodes.size() * 2);
+        for (int i = 0; i < requestNodes.size(); i++) {
+            TaskBatchRequest.Node requestNode = requestNodes.get(i);
+            String key = StringUtils.hasText(requestNode.getKey()) ? requestNode.getKey() : String.valueOf(i);
+            TaskDefinition definition = definitions.get(requestNode.getTaskId());
+            Node node = new Node(batch, key, definition, requestNode.getParams(),
+                    taskExecutorRegistry.getBinding(definition).isExclusive());
+            if (byKey.put(key, node) != null) {
+                throw BusinessException.parameterInvalid("nodes.key", "节点标识重复: " + key);
+            }
+            batch.nodes.add(node);
+        }
+        for (int i = 0; i < requestNodes.size(); i++) {
+            Node node = batch.nodes.get(i);
+            List<String> dependsOn = requestNodes.get(i).getDependsOn();
+            if (dependsOn == null) {
+                continue;
+            }
+            for (String upstreamKey : new HashSet<>(dependsOn)) {
+                Node upstream = byKey.get(upstreamKey);
+                if (upstream == null || upstream == node) {
+                    throw BusinessException.parameterInvalid("nodes.dependsOn",
+                            "节点 " + node.key + " 的依赖不存在: " + upstreamKey);
+                }
+                upstream.downstream.add(node);
+                node.remainingUpstream++;
+            }
+        }
+
+        // 拓扑排序校验无环
+        int[] inDegree = new int[batch.nodes.size()];
+        Map<Node, Integer> index = new HashMap<>(batch.nodes.size() * 2);
+        Deque<Node> roots = new ArrayDeque<>();
+        for (int i = 0; i < batch.nodes.size(); i++) {
+            Node node = batch.nodes.get(i);
+            index.put(node, i);
+            inDegree[i] = node.remainingUpstream;
+            if (inDegree[i] == 0) {
+                roots.add(node);
+            }
+        }
+        int visited = 0;
+        while (!roots.isEmpty()) {
+            Node node = roots.poll();
+            visited++;
+            for (Node downstream : node.downstream) {
+                if (--inDegree[index.get(downstream)] == 0) {
+                    roots.add(downstream);
+                }
+            }
+        }
+        if (visited != batch.nodes.size()) {
+            throw BusinessException.parameterInvalid("nodes.dependsOn", "节点依赖存在环");
+        }
+
+        for (Node node : batch.nodes) {
+            if (node.remainingUpstream == 0) {
+                batch.transition(node, NodeState.READY);
+                batch.ready.add(node);
+            }
+        }
+    }
+
+    /**
+     * 在并发名额内放行就绪节点
+     */
+    private void pump(Batch batch) {
+        List<Node> launching = new ArrayList<>();
+        synchronized (batch) {
+            while (batch.inFlight < batch.parallelism && !batch.ready.isEmpty()) {
+                Node node = batch.ready.poll();
+                if (node.exclusive && !batch.busyTasks.add(node.taskDefinition.getTaskId())) {
+                    // 同一独占任务已有节点在执行，排在其后
+                    batch.parked.computeIfAbsent(node.taskDefinition.getTaskId(), taskId -> new ArrayDeque<>())
+                            .add(node);
+                    continue;
+                }
+                batch.transition(node, NodeState.RUNNING);
+                batch.inFlight++;
+                launching.add(node);
+            }
+        }
+        for (Node node : launching) {
+            try {
+                taskDispatchQueue.submit(node.taskDefinition, node.params, TaskExecution.TriggerType.DEPENDENCY,
+                                batch.batchId, () -> node.cancelled)
+                        .whenComplete((execution, e) -> onDispatched(node, execution, e));
+            } catch (Exception e) {
+                onDispatched(node, null, e);
+            }
+        }
+    }
+
+    private void onDispatched(Node node, TaskExecution execution, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CancellationException && node.cancelled) {
+            log.debug("批次节点在开始执行前已取消: {}/{}", node.batch.batchId, node.key);
+            finish(node, NodeState.CANCELLED);
+        } else if (error != null) {
+            log.error("批次节点执行失败: {}/{}", node.batch.batchId, node.key, error);
+            finish(node, NodeState.FAILED);
+        } else if (execution == null) {
+            defer(node);
+        } else if (execution.getExecutionStatus() == TaskExecution.ExecutionStatus.RETRYING) {
+            // 待重试状态异步落库，按执行ID汇合前等待写入
+            taskExecutionWriter.afterPersisted(execution, () -> {
+                if (execution.getExecutionId() != null) {
+                    awaitRetry(node, execution.getExecutionId());
+                } else {
+                    finish(node, NodeState.FAILED);
+                }
+            });
+        } else {
+            finish(node, outcome(execution));
+        }
+    }
+
+    private static NodeState outcome(TaskExecution execution) {
+        return switch (execution.getExecutionStatus()) {
+            case SUCCESS -> NodeState.SUCCESS;
+            case CANCELLED -> NodeState.CANCELLED;
+            default -> NodeState.FAILED;
+        };
+    }
+
+    /**
+     * 独占任务正被批次外的执行占用：节点退回就绪并释放并发名额，同一任务的后续节点继续等待，稍后重新放行
+     */
+    private void defer(Node node) {
+        if (node.cancelled) {
+            finish(node, NodeState.CANCELLED);
+            return;
+        }
+        Batch batch = node.batch;
+        synchronized (batch) {
+            if (node.state != NodeState.RUNNING) {
+                return;
+            }
+            log.debug("批次节点的任务正在执行，稍后重试: {}/{}", batch.batchId, node.key);
+            batch.transition(node, NodeState.READY);
+            batch.inFlight--;
+            node.deferredUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(busyRetryMillis);
+            batch.deferred.add(node);
+        }
+        pump(batch);
+    }
+
+    /**
+     * 节点转入重试：释放并发名额与独占任务，等待重试到达终态
+     */
+    private void awaitRetry(Node node, Long executionId) {
+        Batch batch = node.batch;
+        synchronized (batch) {
+            batch.transition(node, NodeState.RETRYING);
+            batch.inFlight--;
+            batch.release(node);
+        }
+        Object result = retryRendezvous.putIfAbsent(executionId, node);
+        if (result instanceof TaskExecution execution) {
+            retryRendezvous.remove(executionId);
+            finish(node, outcome(execution));
+            return;
+        }
+        pump(batch);
+    }
+
+    /**
+     * 节点到达终态
+     *
+     * @param outcome SUCCESS、FAILED 或 CANCELLED；取消的节点跳过下游，不触发失败策略
+     */
+    private void finish(Node node, NodeState outcome) {
+        Batch batch = node.batch;
+        synchronized (batch) {
+            if (node.state.isTerminal()) {
+                return;
+            }
+            if (node.state == NodeState.RUNNING) {
+                batch.inFlight--;
+                batch.release(node);
+            }
+            if (outcome == NodeState.SUCCESS) {
+                batch.transition(node, NodeState.SUCCESS);
+                for (Node downstream : node.downstream) {
+                    if (--downstream.remainingUpstream == 0 && downstream.state == NodeState.WAITING) {
+                        batch.transition(downstream, NodeState.READY);
+                        batch.ready.add(downstream);
+                    }
+                }
+            } else if (outcome == NodeState.CANCELLED) {
+                batch.transition(node, NodeState.CANCELLED);
+                batch.skipDownstream(node);
+            } else {
+                batch.transition(node, NodeState.FAILED);
+                if (batch.strategy == TaskDefinition.FailureStrategy.STOP) {
+                    batch.cancelRemaining();
+                } else {
+                    batch.skipDownstream(node);
+                }
+                if (batch.strategy == TaskDefinition.FailureStrategy.ALERT) {
+                    log.error("任务批次节点失败: {}/{}, 任务: {}", batch.batchId, node.key,
+                            node.taskDefinition.getTaskId());
+                }
+            }
+            if (batch.isDone() && batch.endTime == null) {
+                batch.endTime = LocalDateTime.now();
+                batch.finishedNanos = System.nanoTime();
+                log.info("任务批次结束: {}, 状态: {}", batch.batchId, batch.status());
+            }
+        }
+        taskProgressBus.batchChanged(batch.batchId);
+        pump(batch);
+    }
+
+    /**
+     * 已淘汰的批次按执行记录汇总；尚未开始的节点没有执行记录，不计入
+     */
+    private TaskBatchStatus summarize(String batchId) {
+        List<Object[]> rows = taskExecutionRepository.countByBatchIdGroupByStatus(batchId);
+        if (rows.isEmpty()) {
+            throw BusinessException.batchNotFound(batchId);
+        }
+        TaskBatchStatus status = new TaskBatchStatus();
+        status.setBatchId(batchId);
+        for (Object[] row : rows) {
+            TaskExecution.ExecutionStatus executionStatus = (TaskExecution.ExecutionStatus) row[0];
+            int count = ((Number) row[1]).intValue();
+            status.setTotal(status.getTotal() + count);
+            switch (executionStatus) {
+                case SUCCESS -> status.setSucceeded(status.getSucceeded() + count);
+                case FAILED, TIMEOUT -> status.setFailed(status.getFailed() + count);
+                case CANCELLED -> status.setCancelled(status.getCancelled() + count);
+                default -> status.setRunning(status.getRunning() + count);
+            }
+        }
+        status.setProgressPercent((status.getTotal() - status.getRunning()) * 100 / status.getTotal());
+        status.setStatus(status.getRunning() > 0 ? STATUS_RUNNING
+                : status.getFailed() > 0 ? STATUS_FAILED
+                : status.getCancelled() > 0 ? STATUS_CANCELLED : STATUS_SUCCESS);
+        return status;
+    }
+
+    private enum NodeState {
+        WAITING, READY, RUNNING, RETRYING, SUCCESS, FAILED, SKIPPED, CANCELLED;
+
+        private boolean isTerminal() {
+            return ordinal() >= SUCCESS.ordinal();
+        }
+    }
+
+    /**
+     * 批次，状态变更在批次对象上同步
+     */
+    private static final class Batch {
+
+        private final String batchId;
+
+        private final String batchName;
+
+        private final TaskDefinition.FailureStrategy strategy;
+
+        private final int parallelism;
+
+        private final LocalDateTime startTime = LocalDateTime.now();
+
+        private final List<Node> nodes = new ArrayList<>();
+
+        private final Deque<Node> ready = new ArrayDeque<>();
+
+        /**
+         * 本批次中有节点正在执行的独占任务
+         */
+        private final Set<Long> busyTasks = new HashSet<>();
+
+        /**
+         * 独占任务 -> 等待同任务前一个节点结束的就绪节点
+         */
+        private final Map<Long, Deque<Node>> parked = new HashMap<>();
+
+        /**
+         * 任务被批次外执行占用而推迟的节点，按推迟到期时间排列
+         */
+        private final Deque<Node> deferred = new ArrayDeque<>();
+
+        private int inFlight;
+
+        private int finished;
+
+        private boolean cancelled;
+
+        private LocalDateTime endTime;
+
+        private long finishedNanos;
+
+        private Batch(String batchId, String batchName, TaskDefinition.FailureStrategy strategy, int parallelism) {
+            this.batchId = batchId;
+            this.batchName = batchName;
+            this.strategy = strategy;
+            this.parallelism = parallelism;
+        }
+
+        private void transition(Node node, NodeState state) {
+            if (!node.state.isTerminal() && state.isTerminal()) {
+                finished++;
+            }
+            node.state = state;
+        }
+
+        /**
+         * 节点不再执行时释放其独占任务，放行同一任务的下一个等待节点
+         */
+        private void release(Node node) {
+            if (!node.exclusive) {
+                return;
+            }
+            Long taskId = node.taskDefinition.getTaskId();
+            busyTasks.remove(taskId);
+            Deque<Node> waiting = parked.get(taskId);
+            if (waiting != null) {
+                ready.addFirst(waiting.poll());
+                if (waiting.isEmpty()) {
+                    parked.remove(taskId);
+                }
+            }
+        }
+
+        /**
+         * 跳过失败节点的全部下游
+         */
+        private void skipDownstream(Node failed) {
+            Deque<Node> stack = new ArrayDeque<>(failed.downstream);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                if (node.state == NodeState.WAITING) {
+                    transition(node, NodeState.SKIPPED);
+                    stack.addAll(node.downstream);
+                }
+            }
+        }
+
+        /**
+         * 取消尚未开始的节点：等待和就绪的节点直接取消；已交给分发队列的节点置取消标志，分发时不再执行，
+         * 已开始执行的节点不受影响
+         */
+        private void cancelRemaining() {
+            cancelled = true;
+            ready.clear();
+            parked.clear();
+            deferred.clear();
+            for (Node node : nodes) {
+                if (node.state == NodeState.WAITING || node.state == NodeState.READY) {
+                    transition(node, NodeState.CANCELLED);
+                } else if (node.state == NodeState.RUNNING) {
+                    node.cancelled = true;
+                }
+            }
+            if (isDone() && endTime == null) {
+                endTime = LocalDateTime.now();
+                finishedNanos = System.nanoTime();
+            }
+        }
+
+        private boolean isDone() {
+            return finished == nodes.size();
+        }
+
+        private String status() {
+            if (!isDone()) {
+                return STATUS_RUNNING;
+            }
+            if (cancelled) {
+                return STATUS_CANCELLED;
+            }
+            for (Node node : nodes) {
+                if (node.state != NodeState.SUCCESS) {
+                    return STATUS_FAILED;
+                }
+            }
+            return STATUS_SUCCESS;
+        }
+
+        private synchronized TaskBatchStatus snapshot() {
+            TaskBatchStatus status = new TaskBatchStatus();
+            status.setBatchId(batchId);
+            status.setBatchName(batchName);
+            status.setTotal(nodes.size());
+            for (Node node : nodes) {
+                switch (node.state) {
+                    case WAITING, READY -> status.setPending(status.getPending() + 1);
+                    case RUNNING, RETRYING -> status.setRunning(status.getRunning() + 1);
+                    case SUCCESS -> status.setSucceeded(status.getSucceeded() + 1);
+                    case FAILED -> status.setFailed(status.getFailed() + 1);
+                    case SKIPPED -> status.setSkipped(status.getSkipped() + 1);
+                    case CANCELLED -> status.setCancelled(status.getCancelled() + 1);
+                }
+            }
+            int finished = nodes.size() - status.getPending() - status.getRunning();
+            status.setProgressPercent(finished * 100 / nodes.size());
+            status.setStatus(status());
+            status.setStartTime(startTime);
+            status.setEndTime(endTime);
+            return status;
+        }
+    }
+
+    /**
+     * 批次节点
+     */
+    private static final class Node {
+
+        private final Batch batch;
+
+        private final String key;
+
+        private final TaskDefinition taskDefinition;
+
+        private final Map<String, Object> params;
+
+        private final List<Node> downstream = new ArrayList<>();
+
+        private int remainingUpstream;
+
+        /**
+         * 任务是否只允许单实例执行
+         */
+        private final boolean exclusive;
+
+        private NodeState state = NodeState.WAITING;
+
+        private long deferredUntilNanos;
+
+        /**
+         * 批次取消或STOP后置位，分发队列出队时和分发器登记执行后检查
+         */
+        private volatile boolean cancelled;
+
+        private Node(Batch batch, String key, TaskDefinition taskDefinition, Map<String, Object> params,
+                     boolean exclusive) {
+            this.batch = batch;
+            this.key = key;
+            this.taskDefinition = taskDefinition;
+            this.params = params;
+            this.exclusive = exclusive;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.biobt.platform.taskengine.service;
+
+import com.biobt.platform.taskengine.entity.TaskDefinition;
+import com.biobt.platform.taskengine.entity.TaskExecution;
+import com.biobt.platform.taskengine.exception.BusinessException;
+import com.biobt.platform.taskengine.executor.TaskExecutionResult;
+import com.biobt.platform.taskengine.repository.TaskDefinitionRepository;
+import com.biobt.platform.taskengine.repository.TaskExecutionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * 执行取消
+ * 执行中的记录可能在任意节点上运行，取消请求经Redis主题广播，由正在执行的节点协作式取消；
+ * 待重试的记录直接以条件更新置为已取消
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+@Service
+public class TaskCancellationService {
+
+    private static final String TOPIC = "task:execution:cancel";
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private TaskDispatcher taskDispatcher;
+
+    @Autowired
+    private TaskRetryScheduler taskRetryScheduler;
+
+    @Autowired
+    private TaskExecutionRepository taskExecutionRepository;
+
+    @Autowired
+    private TaskDefinitionRepository taskDefinitionRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TaskProgressBus taskProgressBus;
+
+    private RTopic topic;
+
+    private int listenerId;
+
+    @PostConstruct
+    public void init() {
+        topic = redissonClient.getTopic(TOPIC, StringCodec.INSTANCE);
+        listenerId = topic.addListener(String.class, (channel, message) -> {
+            Long executionId = Long.valueOf(message);
+            if (taskDispatcher.cancel(executionId)) {
+                log.info("已取消本节点的执行: {}", executionId);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        topic.removeListener(listenerId);
+    }
+
+    /**
+     * 取消执行
+     *
+     * @param executionId 执行ID
+     * @throws BusinessException 执行记录不存在或已结束
+     */
+    public void cancelExecution(Long executionId) {
+        TaskExecution execution = taskExecutionRepository.findById(executionId)
+                .orElseThrow(() -> BusinessException.executionNotFound(String.valueOf(executionId)));
+        TaskExecution.ExecutionStatus status = execution.getExecutionStatus();
+        if (status == TaskExecution.ExecutionStatus.RETRYING && taskRetryScheduler.cancel(executionId)) {
+            log.info("已取消待重试的执行: {}", executionId);
+            publishCancelled(execution);
+            return;
+        }
+        // 待重试的记录刚被认领时同样按执行中处理
+        if (status != TaskExecution.ExecutionStatus.RUNNING && status != TaskExecution.ExecutionStatus.PENDING
+                && status != TaskExecution.ExecutionStatus.RETRYING) {
+            throw BusinessException.invalidTaskStatus(String.valueOf(executionId), status.name(),
+                    TaskExecution.ExecutionStatus.RUNNING.name());
+        }
+        if (!taskDispatcher.cancel(executionId)) {
+            topic.publish(String.valueOf(executionId));
+        }
+    }
+
+    /**
+     * 待重试的记录不会再经过分发器，在本节点补发执行结束事件
+     */
+    private void publishCancelled(TaskExecution execution) {
+        LocalDateTime now = LocalDateTime.now();
+        execution.setExecutionStatus(TaskExecution.ExecutionStatus.CANCELLED);
+        execution.setNextRetryTime(null);
+        execution.setEndTime(now);
+        execution.setErrorMessage("任务已取消");
+        TaskDefinition taskDefinition = taskDefinitionRepository.findById(execution.getTaskId()).orElse(null);
+        TaskExecutionResult result = TaskExecutionResult.cancelled();
+        result.setErrorMessage("任务已取消");
+        taskProgressBus.untrack(execution);
+        eventPublisher.publishEvent(new TaskExecutionCompletedEvent(this, taskDefinition, execution, result));
+    }
+}
@@ -0,0 +1,533 @@
+package com.biobt.platform.taskengine.service;
+
+import com.biobt.platform.taskengine.config.TaskDispatchProperties;
+import com.biobt.platform.taskengine.entity.TaskDefinition;
+import com.biobt.platform.taskengine.entity.TaskExecution;
+import com.biobt.platform.taskengine.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 任务分发队列
+ * 位于任务分发执行器之前，按以下规则决定下一个执行的任务：
+ * <ul>
+ *     <li>通道间加权公平：每个任务分类一个通道，手动触发和API触发的任务共用交互通道；按步长调度（stride scheduling）
+ *     轮转，通道获得的执行机会与权重成正比，批量任务再多也不会饿死交互式的立即执行</li>
+ *     <li>通道内按优先级（1最高，10最低）并带老化：排序键为 入队时间 + (优先级 - 1) × 老化间隔，
+ *     等待越久越靠前，低优先级任务最多落后高优先级任务 9 个老化间隔</li>
+ * </ul>
+ * 同时交给执行器的任务数不超过 maxInFlight，排队只发生在本队列中，线程池队列不再积压任务。
+ * 启用按执行器的并发限制时，出队前先取得执行器许可：队首任务的执行器没有许可的通道本轮跳过（不消耗其额度），
+ * 某一类执行器的突发任务不会占满 maxInFlight 而卡住其他通道。
+ * 提交时可附带取消标志，出队时已取消的任务不再执行，返回的future以 {@link CancellationException} 结束
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class TaskDispatchQueue {
+
+    private static final int MIN_PRIORITY = 1;
+
+    private static final int MAX_PRIORITY = 10;
+
+    private static final int DEFAULT_PRIORITY = 5;
+
+    private static final String INTERACTIVE_LANE = "interactive";
+
+    private static final String DEFAULT_LANE = "default";
+
+    /**
+     * 步长基数，通道步长 = STRIDE_BASE / 权重
+     */
+    private static final long STRIDE_BASE = 1L << 20;
+
+    /**
+     * 所有通道都在等待执行器许可时的复查间隔；队列外的执行释放许可时不会通知本队列
+     */
+    private static final long PERMIT_RECHECK_MILLIS = 50;
+
+    private final TaskDispatcher taskDispatcher;
+
+    private final Executor taskDispatchExecutor;
+
+    private final TaskDispatchProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    /**
+     * 本队列分发的任务结束、释放了执行器许可
+     */
+    private final Condition permitReleased = lock.newCondition();
+
+    /**
+     * 分类 -> 通道
+     */
+    private final Map<String, Lane> lanes = new HashMap<>();
+
+    /**
+     * 有排队任务的通道，按pass升序
+     */
+    private final PriorityQueue<Lane> activeLanes = new PriorityQueue<>(
+            Comparator.comparingLong((Lane lane) -> lane.pass).thenComparingLong(lane -> lane.order));
+
+    /**
+     * 最近一次出队通道的pass，新激活的通道从这里开始，不能用空闲期间积累的额度插队
+     */
+    private long globalPass;
+
+    private long sequence;
+
+    private int size;
+
+    /**
+     * 各优先级的排队任务数，下标为优先级
+     */
+    private final AtomicInteger[] depthByPriority = new AtomicInteger[MAX_PRIORITY + 1];
+
+    private Semaphore inFlight;
+
+    private Thread dispatchThread;
+
+    private volatile boolean running;
+
+    private Timer waitTimer;
+
+    private Counter rejectedCounter;
+
+    public TaskDispatchQueue(TaskDispatcher taskDispatcher,
+                             @Qualifier("taskDispatchExecutor") Executor taskDispatchExecutor,
+                             TaskDispatchProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.taskDispatcher = taskDispatcher;
+        this.taskDispatchExecutor = taskDispatchExecutor;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        waitTimer = Timer.builder("task.dispatch.queue.wait")
+                .description("任务在分发队列中的等待时间")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("task.dispatch.queue.rejected")
+                .description("队列已满被拒绝的任务数")
+                .register(meterRegistry);
+        for (int priority = MIN_PRIORITY; priority <= MAX_PRIORITY; priority++) {
+            AtomicInteger depth = new AtomicInteger();
+            depthByPriority[priority] = depth;
+            Gauge.builder("task.dispatch.queue.depth", depth, AtomicInteger::get)
+                    .description("分发队列中各优先级的排队任务数")
+                    .tag("priority", String.valueOf(priority))
+                    .register(meterRegistry);
+        }
+
+        inFlight = new Semaphore(Math.max(1, properties.getMaxInFlight()));
+        running = true;
+        dispatchThread = new Thread(this::dispatchLoop, "task-dispatch-queue");
+        dispatchThread.setDaemon(true);
+        dispatchThread.start();
+        log.info("任务分发队列启动 - 容量: {}, 最大并发: {}, 老化间隔: {}ms",
+                properties.getCapacity(), properties.getMaxInFlight(), properties.getAgingIntervalMillis());
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param taskDefinition 任务定义
+     * @param params 本次执行参数，可为空
+     * @param triggerType 触发方式
+     * @return 执行记录；独占任务已在执行时为null
+     * @throws BusinessException 队列已满
+     */
+    public CompletableFuture<TaskExecution> submit(TaskDefinition taskDefinition, Map<String, Object> params,
+                                                   TaskExecution.TriggerType triggerType) {
+        return submit(taskDefinition, params, triggerType, null);
+    }
+
+    /**
+     * 提交批次内的一次执行
+     *
+     * @param taskDefinition 任务定义
+     * @param params 本次执行参数，可为空
+     * @param triggerType 触发方式
+     * @param batchId 所属批次，写入执行记录
+     * @return 执行记录；独占任务已在执行时为null
+     * @throws BusinessException 队列已满
+     */
+    public CompletableFuture<TaskExecution> submit(TaskDefinition taskDefinition, Map<String, Object> params,
+                                                   TaskExecution.TriggerType triggerType, String batchId) {
+        return submit(taskDefinition, params, triggerType, batchId, null);
+    }
+
+    /**
+     * 提交批次内的一次执行，可在开始执行前取消
+     *
+     * @param taskDefinition 任务定义
+     * @param params 本次执行参数，可为空
+     * @param triggerType 触发方式
+     * @param batchId 所属批次，写入执行记录
+     * @param cancelled 取消标志，出队时和执行登记后检查；可以为null
+     * @return 执行记录；独占任务已在执行时为null；开始执行前已取消时以 {@link CancellationException} 结束
+     * @throws BusinessException 队列已满
+     */
+    public CompletableFuture<TaskExecution> submit(TaskDefinition taskDefinition, Map<String, Object> params,
+                                                   TaskExecution.TriggerType triggerType, String batchId,
+                                                   BooleanSupplier cancelled) {
+        return submit(taskDefinition, params, triggerType, batchId, cancelled, null);
+    }
+
+    /**
+     * 提交任务，执行记录创建后回调
+     *
+     * @param taskDefinition 任务定义
+     * @param params 本次执行参数，可为空
+     * @param triggerType 触发方式
+     * @param batchId 所属批次，可为空
+     * @param cancelled 取消标志，出队时和执行登记后检查；可以为null
+     * @param onStarted 执行记录创建并登记写入后、调用执行器前在执行线程上回调，不能阻塞；可以为null
+     * @return 执行记录；独占任务已在执行时为null；开始执行前已取消时以 {@link CancellationException} 结束
+     * @throws BusinessException 队列已满
+     */
+    public CompletableFuture<TaskExecution> submit(TaskDefinition taskDefinition, Map<String, Object> params,
+                                                   TaskExecution.TriggerType triggerType, String batchId,
+                                                   BooleanSupplier cancelled, Consumer<TaskExecution> onStarted) {
+        return enqueue(taskDefinition, params, triggerType, batchId, null, cancelled, onStarted);
+    }
+
+    /**
+     * 提交重试，按执行记录原触发方式进入对应通道
+     *
+     * @param taskDefinition 任务定义
+     * @param execution 待重试的执行记录
+     * @return 执行记录；独占任务已在执行时为null
+     * @throws BusinessException 队列已满
+     */
+    public CompletableFuture<TaskExecution> submitRetry(TaskDefinition taskDefinition, TaskExecution execution) {
+        return enqueue(taskDefinition, null, execution.getTriggerType(), execution.getBatchId(), execution, null,
+                null);
+    }
+
+    private CompletableFuture<TaskExecution> enqueue(TaskDefinition taskDefinition, Map<String, Object> params,
+                                                     TaskExecution.TriggerType triggerType, String batchId,
+                                                     TaskExecution retryExecution, BooleanSupplier cancelled,
+                                                     Consumer<TaskExecution> onStarted) {
+        String laneName = laneOf(taskDefinition, triggerType);
+        int priority = normalizePriority(taskDefinition.getPriority());
+        long now = System.nanoTime();
+        QueuedTask task = new QueuedTask(taskDefinition, params, triggerType, batchId, retryExecution, priority, now,
+                now + (priority - MIN_PRIORITY) * TimeUnit.MILLISECONDS.toNanos(properties.getAgingIntervalMillis()),
+                permitsFor(taskDefinition), cancelled, onStarted);
+
+        lock.lock();
+        try {
+            if (!running) {
+                throw BusinessException.operationNotAllowed("提交任务", "任务分发队列已关闭");
+            }
+            if (size >= properties.getCapacity()) {
+                rejectedCounter.increment();
+                throw BusinessException.systemBusy();
+            }
+            task.order = sequence++;
+            Lane lane = lanes.computeIfAbsent(laneName, this::newLane);
+            if (lane.tasks.isEmpty()) {
+                lane.pass = Math.max(lane.pass, globalPass);
+                activeLanes.add(lane);
+            }
+            lane.tasks.add(task);
+            size++;
+            depthByPriority[priority].incrementAndGet();
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return task.future;
+    }
+
+    /**
+     * 排队任务总数
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private String laneOf(TaskDefinition taskDefinition, TaskExecution.TriggerType triggerType) {
+        if (triggerType == TaskExecution.TriggerType.MANUAL || triggerType == TaskExecution.TriggerType.API) {
+            return INTERACTIVE_LANE;
+        }
+        return StringUtils.hasText(taskDefinition.getCategory()) ? taskDefinition.getCategory() : DEFAULT_LANE;
+    }
+
+    /**
+     * 执行器无法解析时不限制，由分发器在执行时报告错误
+     */
+    private Semaphore permitsFor(TaskDefinition taskDefinition) {
+        try {
+            return taskDispatcher.permitsFor(taskDefinition);
+        } catch (RuntimeException e) {
+            log.debug("解析任务执行器失败，出队时不获取执行器许可: {}", taskDefinition.getTaskId(), e);
+            return null;
+        }
+    }
+
+    private static int normalizePriority(Integer priority) {
+        if (priority == null) {
+            return DEFAULT_PRIORITY;
+        }
+        return Math.min(MAX_PRIORITY, Math.max(MIN_PRIORITY, priority));
+    }
+
+    private Lane newLane(String name) {
+        int weight = INTERACTIVE_LANE.equals(name)
+                ? properties.getInteractiveWeight()
+                : properties.getCategoryWeights().getOrDefault(name, properties.getDefaultWeight());
+        return new Lane(STRIDE_BASE / Math.max(1, weight), lanes.size());
+    }
+
+    /**
+     * 取出下一个任务：能取得执行器许可的通道中pass最小者的排序键最小的任务，返回时已持有其执行器许可
+     */
+    private QueuedTask take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                while (size == 0) {
+                    notEmpty.await();
+                }
+                QueuedTask task = pollPermitted();
+                if (task != null) {
+                    return task;
+                }
+                permitReleased.await(PERMIT_RECHECK_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按pass顺序找到第一个队首任务能取得执行器许可的通道；跳过的通道保持原pass
+     */
+    private QueuedTask pollPermitted() {
+        List<Lane> skipped = new ArrayList<>();
+        try {
+            Lane lane;
+            while ((lane = activeLanes.poll()) != null) {
+                QueuedTask head = lane.tasks.peek();
+                if (head.permits != null && !head.permits.tryAcquire()) {
+                    skipped.add(lane);
+                    continue;
+                }
+                QueuedTask task = lane.tasks.poll();
+                globalPass = lane.pass;
+                lane.pass += lane.stride;
+                if (!lane.tasks.isEmpty()) {
+                    activeLanes.add(lane);
+                }
+                size--;
+                depthByPriority[task.priority].decrementAndGet();
+                return task;
+            }
+            return null;
+        } finally {
+            activeLanes.addAll(skipped);
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            QueuedTask task;
+            try {
+                inFlight.acquire();
+                task = take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            waitTimer.record(System.nanoTime() - task.enqueueNanos, TimeUnit.NANOSECONDS);
+            try {
+                taskDispatchExecutor.execute(() -> run(task));
+            } catch (RejectedExecutionException e) {
+                if (task.permits != null) {
+                    task.permits.release();
+                }
+                inFlight.release();
+                task.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void run(QueuedTask task) {
+        try {
+            if (task.cancelled != null && task.cancelled.getAsBoolean()) {
+                if (task.permits != null) {
+                    task.permits.release();
+                }
+                task.future.completeExceptionally(new CancellationException("任务已取消"));
+                return;
+            }
+            // 执行器许可由分发器在执行结束后释放
+            task.future.complete(task.retryExecution != null
+                    ? taskDispatcher.retry(task.taskDefinition, task.retryExecution, task.permits)
+                    : taskDispatcher.dispatch(task.taskDefinition, task.params, task.triggerType, task.batchId,
+                    task.permits, task.cancelled, task.onStarted));
+        } catch (Throwable e) {
+            task.future.completeExceptionally(e);
+        } finally {
+            inFlight.release();
+            if (task.permits != null) {
+                signalPermitReleased();
+            }
+        }
+    }
+
+    private void signalPermitReleased() {
+        lock.lock();
+        try {
+            permitReleased.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lock.lock();
+        try {
+            running = false;
+            for (Lane lane : lanes.values()) {
+                QueuedTask task;
+                while ((task = lane.tasks.poll()) != null) {
+                    depthByPriority[task.priority].decrementAndGet();
+                    task.future.completeExceptionally(new CancellationException("任务分发队列已关闭"));
+                }
+            }
+            activeLanes.clear();
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+        if (dispatchThread != null) {
+            dispatchThread.interrupt();
+        }
+    }
+
+    /**
+     * 通道：一个任务分类（或交互式提交）的排队任务
+     */
+    private static final class Lane {
+
+        private final long stride;
+
+        private final long order;
+
+        private final PriorityQueue<QueuedTask> tasks = new PriorityQueue<>(
+                Comparator.comparingLong((QueuedTask task) -> task.deadline).thenComparingLong(task -> task.order));
+
+        private long pass;
+
+        private Lane(long stride, long order) {
+            this.stride = stride;
+            this.order = order;
+        }
+    }
+
+    /**
+     * 排队中的任务
+     */
+    private static final class QueuedTask {
+
+        private final TaskDefinition taskDefinition;
+
+        private final Map<String, Object> params;
+
+        private final TaskExecution.TriggerType triggerType;
+
+        private final String batchId;
+
+        /**
+         * 重试时为待重试的执行记录，否则为null
+         */
+        private final TaskExecution retryExecution;
+
+        private final int priority;
+
+        private final long enqueueNanos;
+
+        /**
+         * 排序键：入队时间 + 优先级对应的老化偏移
+         */
+        private final long deadline;
+
+        /**
+         * 执行器并发信号量，未启用并发限制时为null
+         */
+        private final Semaphore permits;
+
+        /**
+         * 取消标志，未设置时为null
+         */
+        private final BooleanSupplier cancelled;
+
+        /**
+         * 执行记录创建后的回调，未设置时为null
+         */
+        private final Consumer<TaskExecution> onStarted;
+
+        private final CompletableFuture<TaskExecution> future = new CompletableFuture<>();
+
+        private long order;
+
+        private QueuedTask(TaskDefinition taskDefinition, Map<String, Object> params,
+                           TaskExecution.TriggerType triggerType, String batchId, TaskExecution retryExecution,
+                           int priority, long enqueueNanos, long deadline, Semaphore permits,
+                           BooleanSupplier cancelled, Consumer<TaskExecution> onStarted) {
+            this.taskDefinition = taskDefinition;
+            this.params = params;
+            this.triggerType = triggerType;
+            this.batchId = batchId;
+            this.retryExecution = retryExecution;
+            this.priority = priority;
+            this.enqueueNanos = enqueueNanos;
+            this.deadline = deadline;
+            this.permits = permits;
+            this.cancelled = cancelled;
+            this.onStarted = onStarted;
+        }
+    }
+}
@@ -0,0 +1,561 @@
+package com.biobt.platform.taskengine.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.biobt.platform.taskengine.config.DistributedLockConfig.DistributedLockService;
+import com.biobt.platform.taskengine.entity.TaskDefinition;
+import com.biobt.platform.taskengine.entity.TaskExecution;
+import com.biobt.platform.taskengine.executor.CancellationToken;
+import com.biobt.platform.taskengine.executor.TaskConcurrencyLimiter;
+import com.biobt.platform.taskengine.executor.TaskExecutionResult;
+import com.biobt.platform.taskengine.executor.TaskExecutor;
+import com.biobt.platform.taskengine.executor.TaskExecutorRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 任务分发器
+ * 按 {@link TaskExecutorRegistry} 中缓存的绑定执行任务：校验参数、执行并发约束、调用执行前后钩子，
+ * 按任务定义的超时时间协作式取消、超过宽限时间后中断执行线程；执行记录通过 {@link TaskExecutionWriter} 异步写入，
+ * 到达终态时发布 {@link TaskExecutionCompletedEvent}。
+ * 任务经 {@link TaskDispatchQueue} 排队后在任务分发执行器（线程池或虚拟线程）上调用 {@link #dispatch}
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class TaskDispatcher {
+
+    private static final int STATE_RUNNING = 0;
+
+    private static final int STATE_DONE = 1;
+
+    private static final int STATE_INTERRUPTED = 2;
+
+    /**
+     * 未设置超时时分布式锁的租期（秒），-1表示由Redisson看门狗自动续期
+     */
+    private static final long LOCK_LEASE_WATCHDOG = -1;
+
+    private final TaskExecutorRegistry taskExecutorRegistry;
+
+    private final TaskExecutionWriter taskExecutionWriter;
+
+    private final DistributedLockService distributedLockService;
+
+    private final TaskConcurrencyLimiter taskConcurrencyLimiter;
+
+    private final TaskRetryScheduler taskRetryScheduler;
+
+    private final TaskEngineNode taskEngineNode;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TaskProgressBus taskProgressBus;
+
+    /**
+     * 取消后等待执行器自行退出的时间，超过后中断执行线程
+     */
+    private final long cancelGraceMillis;
+
+    /**
+     * 本节点正在执行的独占任务 -> 持有凭证，先于分布式锁判断，避免同节点重复触发时访问Redis
+     */
+    private final Map<Long, Object> runningExclusiveTasks = new ConcurrentHashMap<>();
+
+    /**
+     * 本节点正在执行的记录
+     */
+    private final Set<RunningExecution> runningExecutions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 超时看门狗：到期后取消执行，宽限时间后中断执行线程
+     */
+    private final ScheduledExecutorService timeoutWatchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-timeout-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TaskDispatcher(TaskExecutorRegistry taskExecutorRegistry,
+                          TaskExecutionWriter taskExecutionWriter,
+                          DistributedLockService distributedLockService,
+                          TaskConcurrencyLimiter taskConcurrencyLimiter,
+                          TaskRetryScheduler taskRetryScheduler,
+                          TaskEngineNode taskEngineNode,
+                          ApplicationEventPublisher eventPublisher,
+                          TaskProgressBus taskProgressBus,
+                          @Value("${task.engine.execution.cancel-grace-millis:5000}") long cancelGraceMillis) {
+        this.taskExecutorRegistry = taskExecutorRegistry;
+        this.taskExecutionWriter = taskExecutionWriter;
+        this.distributedLockService = distributedLockService;
+        this.taskConcurrencyLimiter = taskConcurrencyLimiter;
+        this.taskRetryScheduler = taskRetryScheduler;
+        this.taskEngineNode = taskEngineNode;
+        this.eventPublisher = eventPublisher;
+        this.taskProgressBus = taskProgressBus;
+        this.cancelGraceMillis = cancelGraceMillis;
+    }
+
+    /**
+     * 在当前线程执行任务
+     *
+     * @param taskDefinition 任务定义
+     * @param params 本次执行参数，可为空
+     * @param triggerType 触发方式
+     * @param batchId 所属批次，可为空
+     * @return 执行记录；独占任务已在执行或等待许可时被中断返回null
+     */
+    public TaskExecution dispatch(TaskDefinition taskDefinition, Map<String, Object> params,
+                                  TaskExecution.TriggerType triggerType, String batchId) {
+        return dispatch(taskDefinition, params, triggerType, batchId, null, null, null);
+    }
+
+    /**
+     * 在当前线程执行任务，调用方已获取执行器许可
+     *
+     * @param heldPermits 调用方已从中获取一个许可的信号量（见 {@link #permitsFor}），执行结束后由本方法释放；
+     *                    为null时按需自行获取
+     * @param cancelled 取消标志，执行登记后为true时不调用执行器，执行记录直接以已取消结束；可以为null
+     * @param onStarted 执行记录创建并登记写入后、调用执行器前的回调，不能阻塞；可以为null
+     */
+    TaskExecution dispatch(TaskDefinition taskDefinition, Map<String, Object> params,
+                           TaskExecution.TriggerType triggerType, String batchId, Semaphore heldPermits,
+                           BooleanSupplier cancelled, Consumer<TaskExecution> onStarted) {
+        TaskExecutorRegistry.Binding binding;
+        try {
+            binding = taskExecutorRegistry.getBinding(taskDefinition);
+        } catch (RuntimeException e) {
+            releaseHeld(heldPermits);
+            throw e;
+        }
+        return execute(taskDefinition, binding, binding.mergeParameters(params),
+                () -> newExecution(taskDefinition, binding, params, triggerType, batchId), heldPermits, cancelled,
+                onStarted);
+    }
+
+    /**
+     * 在当前线程重试执行记录，重试次数加一
+     *
+     * @param taskDefinition 任务定义
+     * @param execution 待重试的执行记录
+     * @return 执行记录；独占任务已在执行或等待许可时被中断返回null（执行记录未被修改）
+     */
+    public TaskExecution retry(TaskDefinition taskDefinition, TaskExecution execution) {
+        return retry(taskDefinition, execution, null);
+    }
+
+    /**
+     * 在当前线程重试执行记录，调用方已获取执行器许可
+     *
+     * @param heldPermits 调用方已从中获取一个许可的信号量，执行结束后由本方法释放；为null时按需自行获取
+     */
+    TaskExecution retry(TaskDefinition taskDefinition, TaskExecution execution, Semaphore heldPermits) {
+        TaskExecutorRegistry.Binding binding;
+        Map<String, Object> params;
+        try {
+            binding = taskExecutorRegistry.getBinding(taskDefinition);
+            params = StringUtils.hasText(execution.getExecutionParams())
+                    ? JSON.parseObject(execution.getExecutionParams()) : null;
+        } catch (RuntimeException e) {
+            releaseHeld(heldPermits);
+            throw e;
+        }
+        return execute(taskDefinition, binding, binding.mergeParameters(params), () -> {
+            int retryCount = execution.getRetryCount() == null ? 0 : execution.getRetryCount();
+            execution.setRetryCount(retryCount + 1);
+            execution.setExecutionStatus(TaskExecution.ExecutionStatus.RUNNING);
+            execution.setStartTime(LocalDateTime.now());
+            execution.setEndTime(null);
+            execution.setDuration(null);
+            execution.setErrorMessage(null);
+            execution.setErrorStack(null);
+            execution.setNextRetryTime(null);
+            execution.setProgressPercent(0);
+            execution.setExecutionNode(taskEngineNode.getNodeId());
+            execution.setExecutorInstance(binding.getExecutor().getExecutorName());
+            return execution;
+        }, heldPermits, null, null);
+    }
+
+    /**
+     * 任务的执行器对应的并发信号量，供分发队列在出队前获取许可
+     *
+     * @return 信号量；未启用并发限制时为null
+     */
+    Semaphore permitsFor(TaskDefinition taskDefinition) {
+        return taskConcurrencyLimiter.semaphoreFor(taskExecutorRegistry.getBinding(taskDefinition).getExecutor());
+    }
+
+    private TaskExecution execute(TaskDefinition taskDefinition, TaskExecutorRegistry.Binding binding,
+                                  Map<String, Object> parameters, Supplier<TaskExecution> executionSupplier,
+                                  Semaphore heldPermits, BooleanSupplier cancelled,
+                                  Consumer<TaskExecution> onStarted) {
+        Long taskId = taskDefinition.getTaskId();
+        Semaphore permits = heldPermits != null ? heldPermits : taskConcurrencyLimiter.semaphoreFor(binding.getExecutor());
+        boolean permitted = heldPermits != null;
+        Object lockToken = null;
+        try {
+            lockToken = binding.isExclusive() ? acquire(binding) : null;
+            if (binding.isExclusive() && lockToken == null) {
+                log.info("任务正在执行，跳过本次触发: {}", taskId);
+                return null;
+            }
+            if (permits != null && !permitted) {
+                permits.acquire();
+                permitted = true;
+            }
+            TaskExecution execution = executionSupplier.get();
+            taskExecutionWriter.record(execution);
+            if (onStarted != null) {
+                onStarted.accept(execution);
+            }
+            run(taskDefinition, binding, execution, parameters, lockToken, cancelled);
+            return execution;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("等待执行许可时被中断: {}", taskId);
+            return null;
+        } finally {
+            if (permitted && permits != null) {
+                permits.release();
+            }
+            if (lockToken != null) {
+                release(taskId, lockToken);
+            }
+        }
+    }
+
+    private static void releaseHeld(Semaphore heldPermits) {
+        if (heldPermits != null) {
+            heldPermits.release();
+        }
+    }
+
+    private TaskExecution newExecution(TaskDefinition taskDefinition, TaskExecutorRegistry.Binding binding,
+                                       Map<String, Object> params, TaskExecution.TriggerType triggerType,
+                                       String batchId) {
+        TaskExecution execution = new TaskExecution();
+        execution.setTaskId(taskDefinition.getTaskId());
+        execution.setTaskCode(taskDefinition.getTaskCode());
+        execution.setTaskName(taskDefinition.getTaskName());
+        execution.setBatchId(batchId);
+        execution.setExecutionStatus(TaskExecution.ExecutionStatus.RUNNING);
+        execution.setStartTime(LocalDateTime.now());
+        execution.setTriggerType(triggerType);
+        execution.setRetryCount(0);
+        execution.setMaxRetryCount(taskDefinition.getMaxRetryCount());
+        execution.setProgressPercent(0);
+        execution.setExecutionNode(taskEngineNode.getNodeId());
+        execution.setExecutorInstance(binding.getExecutor().getExecutorName());
+        if (params != null && !params.isEmpty()) {
+            execution.setExecutionParams(JSON.toJSONString(params));
+        }
+        return execution;
+    }
+
+    /**
+     * 在当前线程执行任务并写回执行结果
+     */
+    private void run(TaskDefinition taskDefinition, TaskExecutorRegistry.Binding binding, TaskExecution execution,
+                     Map<String, Object> parameters, Object lockToken, BooleanSupplier cancelled) {
+        TaskExecutor executor = binding.getExecutor();
+
+        String missing = binding.findMissingParameter(parameters);
+        if (missing != null) {
+            complete(taskDefinition, execution, TaskExecutionResult.failureNoRetry("缺少必填参数: " + missing));
+            return;
+        }
+        if (!executor.validateParameters(parameters)) {
+            complete(taskDefinition, execution, TaskExecutionResult.failureNoRetry("参数校验失败"));
+            return;
+        }
+
+        RunningExecution running = new RunningExecution(execution, binding, lockToken);
+        runningExecutions.add(running);
+        // 登记后再检查取消标志：取消方先置位再遍历执行中的记录，两者之一必然看到对方
+        if (cancelled != null && cancelled.getAsBoolean()) {
+            finish(running);
+            complete(taskDefinition, execution, cancelled());
+            return;
+        }
+        if (binding.getTimeoutMillis() > 0) {
+            running.deadline = timeoutWatchdog.schedule(() -> cancel(running, CancellationToken.Reason.TIMEOUT),
+                    binding.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        }
+        taskProgressBus.track(execution, executor);
+        running.token.setProgressReporter((percent, description) -> taskProgressBus.report(execution, percent, description));
+        TaskExecutionResult result;
+        try {
+            executor.beforeExecution(execution, parameters);
+            result = executor.execute(execution, parameters, running.token);
+            if (result == null) {
+                result = TaskExecutionResult.success(null, "任务执行成功");
+            }
+        } catch (CancellationException e) {
+            result = TaskExecutionResult.cancelled();
+        } catch (Exception e) {
+            if (running.token.isCancelled()) {
+                log.warn("任务取消后退出: {}, 原因: {}", execution.getTaskId(), e.toString());
+            } else {
+                log.error("任务执行失败: {}", execution.getTaskId(), e);
+                executor.onExecutionException(execution, parameters, e);
+            }
+            result = TaskExecutionResult.failure("任务执行异常: " + e.getMessage(), e);
+        } finally {
+            finish(running);
+        }
+
+        CancellationToken.Reason reason = running.token.getReason();
+        if (reason != null && !result.isSuccess()) {
+            result = reason == CancellationToken.Reason.TIMEOUT ? timedOut(binding) : cancelled();
+        }
+        complete(taskDefinition, execution, result);
+
+        try {
+            executor.afterExecution(execution, parameters, result);
+        } catch (Exception e) {
+            log.warn("执行器后置处理失败: {}", execution.getTaskId(), e);
+        }
+    }
+
+    /**
+     * 取消本节点正在执行的记录
+     *
+     * @param executionId 执行ID
+     * @return 是否找到并发出取消
+     */
+    public boolean cancel(Long executionId) {
+        for (RunningExecution running : runningExecutions) {
+            if (executionId.equals(running.execution.getExecutionId())) {
+                return cancel(running, CancellationToken.Reason.CANCELLED);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 取消本节点正在执行的批次内记录
+     *
+     * @return 发出取消的执行数
+     */
+    public int cancelBatch(String batchId) {
+        int count = 0;
+        for (RunningExecution running : runningExecutions) {
+            if (batchId.equals(running.execution.getBatchId())
+                    && cancel(running, CancellationToken.Reason.CANCELLED)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 协作式取消：置位令牌、通知执行器停止、立即释放执行锁，宽限时间后仍未返回则中断执行线程
+     */
+    private boolean cancel(RunningExecution running, CancellationToken.Reason reason) {
+        if (!running.token.cancel(reason)) {
+            return false;
+        }
+        TaskExecution execution = running.execution;
+        TaskExecutorRegistry.Binding binding = running.binding;
+        if (reason == CancellationToken.Reason.TIMEOUT) {
+            log.warn("任务执行超时，请求停止: {}, 超时时间: {}秒", execution.getTaskId(), binding.getTimeoutSeconds());
+        } else {
+            log.info("取消任务执行: {}, 执行ID: {}", execution.getTaskId(), execution.getExecutionId());
+        }
+        try {
+            binding.getExecutor().stopExecution(execution);
+        } catch (Exception e) {
+            log.warn("执行器停止处理失败: {}", execution.getTaskId(), e);
+        }
+        if (binding.isExclusive()) {
+            releaseEarly(execution.getTaskId(), running.lockToken);
+        }
+        running.hardInterrupt = timeoutWatchdog.schedule(() -> {
+            synchronized (running) {
+                if (running.state == STATE_RUNNING) {
+                    running.state = STATE_INTERRUPTED;
+                    log.warn("任务未在宽限时间内退出，中断执行线程: {}", execution.getTaskId());
+                    running.worker.interrupt();
+                }
+            }
+        }, cancelGraceMillis, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * 执行线程退出：取消截止与中断计划；已被中断时清除中断标志，避免影响线程池中的后续任务
+     */
+    private void finish(RunningExecution running) {
+        runningExecutions.remove(running);
+        synchronized (running) {
+            if (running.state == STATE_INTERRUPTED) {
+                Thread.interrupted();
+            }
+            running.state = STATE_DONE;
+        }
+        if (running.deadline != null) {
+            running.deadline.cancel(false);
+        }
+        ScheduledFuture<?> hardInterrupt = running.hardInterrupt;
+        if (hardInterrupt != null) {
+            hardInterrupt.cancel(false);
+        }
+    }
+
+    private static TaskExecutionResult timedOut(TaskExecutorRegistry.Binding binding) {
+        TaskExecutionResult result = TaskExecutionResult.timeout();
+        result.setErrorMessage("任务执行超时: " + binding.getTimeoutSeconds() + "秒");
+        return result;
+    }
+
+    private static TaskExecutionResult cancelled() {
+        TaskExecutionResult result = TaskExecutionResult.cancelled();
+        result.setErrorMessage("任务已取消");
+        return result;
+    }
+
+    /**
+     * 把执行结果写回执行记录；失败且符合重试条件时转为待重试并交给重试调度器
+     */
+    private void complete(TaskDefinition taskDefinition, TaskExecution execution, TaskExecutionResult result) {
+        LocalDateTime endTime = result.getEndTime() != null ? result.getEndTime() : LocalDateTime.now();
+        execution.setExecutionStatus(result.getStatus() != null ? result.getStatus() : TaskExecution.ExecutionStatus.SUCCESS);
+        execution.setEndTime(endTime);
+        execution.setDuration(Duration.between(execution.getStartTime(), endTime).toMillis());
+        if (result.getResultData() != null) {
+            execution.setExecutionResult(JSON.toJSONString(result.getResultData()));
+        }
+        execution.setErrorMessage(result.getErrorMessage());
+        execution.setErrorStack(result.getErrorStack());
+        if (result.getProgressDescription() != null) {
+            execution.setProgressDescription(result.getProgressDescription());
+        }
+        if (result.isSuccess()) {
+            execution.setProgressPercent(100);
+        } else if (result.getProgressPercent() != null) {
+            execution.setProgressPercent(result.getProgressPercent());
+        }
+
+        LocalDateTime nextRetryTime = result.isSuccess() ? null
+                : taskRetryScheduler.planRetry(taskDefinition, execution, result);
+        if (nextRetryTime != null) {
+            execution.setExecutionStatus(TaskExecution.ExecutionStatus.RETRYING);
+            execution.setNextRetryTime(nextRetryTime);
+            taskRetryScheduler.schedule(execution);
+            log.warn("任务执行失败，{} 重试: {}, 第{}次, 原因: {}", nextRetryTime, execution.getTaskId(),
+                    execution.getRetryCount() + 1, execution.getErrorMessage());
+            taskProgressBus.untrack(execution);
+            return;
+        }
+        taskExecutionWriter.record(execution);
+        taskProgressBus.untrack(execution);
+
+        if (result.isSuccess()) {
+            log.info("任务执行成功: {}, 耗时: {}ms", execution.getTaskId(), execution.getDuration());
+        } else {
+            log.warn("任务执行结束: {}, 状态: {}, 原因: {}", execution.getTaskId(),
+                    execution.getExecutionStatus(), execution.getErrorMessage());
+        }
+        try {
+            eventPublisher.publishEvent(new TaskExecutionCompletedEvent(this, taskDefinition, execution, result));
+        } catch (Exception e) {
+            log.warn("执行结束事件处理失败: {}", execution.getTaskId(), e);
+        }
+    }
+
+    /**
+     * 获取独占执行权：先本地去重，再获取分布式锁（租期为超时时间加一分钟，未设置超时则由看门狗续期）
+     *
+     * @return 持有凭证，未获取到时为null
+     */
+    private Object acquire(TaskExecutorRegistry.Binding binding) {
+        Long taskId = binding.getTaskId();
+        Object lockToken = new Object();
+        if (runningExclusiveTasks.putIfAbsent(taskId, lockToken) != null) {
+            return null;
+        }
+        long leaseSeconds = binding.getTimeoutMillis() > 0
+                ? binding.getTimeoutSeconds() + 60L : LOCK_LEASE_WATCHDOG;
+        if (distributedLockService.tryLockTaskExecution(String.valueOf(taskId), 0, leaseSeconds)) {
+            return lockToken;
+        }
+        runningExclusiveTasks.remove(taskId, lockToken);
+        return null;
+    }
+
+    /**
+     * 执行结束释放独占执行权；取消时已提前释放的不再重复释放
+     */
+    private void release(Long taskId, Object lockToken) {
+        if (runningExclusiveTasks.remove(taskId, lockToken)) {
+            distributedLockService.unlockTaskExecution(String.valueOf(taskId));
+        }
+    }
+
+    /**
+     * 取消或超时时立即释放独占执行权，下一次触发不必等待执行线程退出
+     */
+    private void releaseEarly(Long taskId, Object lockToken) {
+        if (runningExclusiveTasks.remove(taskId, lockToken)) {
+            distributedLockService.forceUnlockTaskExecution(String.valueOf(taskId));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timeoutWatchdog.shutdownNow();
+    }
+
+    /**
+     * 执行中的记录
+     */
+    private static final class RunningExecution {
+
+        private final TaskExecution execution;
+
+        private final TaskExecutorRegistry.Binding binding;
+
+        private final Object lockToken;
+
+        private final CancellationToken token;
+
+        private final Thread worker = Thread.currentThread();
+
+        /**
+         * 在本对象上同步修改，保证中断只发生在执行线程退出之前
+         */
+        private int state = STATE_RUNNING;
+
+        private volatile ScheduledFuture<?> deadline;
+
+        private volatile ScheduledFuture<?> hardInterrupt;
+
+        private RunningExecution(TaskExecution execution, TaskExecutorRegistry.Binding binding, Object lockToken) {
+            this.execution = execution;
+            this.binding = binding;
+            this.lockToken = lockToken;
+            this.token = new CancellationToken(binding.getTimeoutMillis());
+        }
+    }
+}
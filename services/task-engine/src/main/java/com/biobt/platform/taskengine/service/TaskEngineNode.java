@@ -0,0 +1,43 @@
+package com.biobt.platform.taskengine.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * 当前任务引擎节点
+ * 节点标识写入执行记录的 execution_node，用于重启后找回本节点的待重试任务；
+ * 未配置 task.engine.node-id 时取"主机名:端口"，需在重启前后保持不变
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class TaskEngineNode {
+
+    private final String nodeId;
+
+    public TaskEngineNode(@Value("${task.engine.node-id:}") String configuredNodeId,
+                          @Value("${server.port:8083}") int port) {
+        this.nodeId = StringUtils.hasText(configuredNodeId) ? configuredNodeId : hostName() + ":" + port;
+        log.info("任务引擎节点标识: {}", nodeId);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            log.warn("获取主机名失败，使用localhost", e);
+            return "localhost";
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
@@ -3,17 +3,21 @@ package com.biobt.platform.taskengine.service;
 import com.biobt.platform.taskengine.entity.TaskDefinition;
 import com.biobt.platform.taskengine.entity.TaskExecution;
 import com.biobt.platform.taskengine.entity.TaskSchedule;
+import com.biobt.platform.taskengine.exception.BusinessException;
+import com.biobt.platform.taskengine.executor.TaskExecutorRegistry;
+import com.biobt.platform.taskengine.repository.TaskDefinitionRepository;
+import com.biobt.platform.taskengine.repository.TaskExecutionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.*;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
-import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -28,7 +32,21 @@ import java.util.concurrent.CompletableFuture;
 @RequiredArgsConstructor
 public class TaskEngineService {
     
-    private final Scheduler scheduler;
+    private final TaskDefinitionRepository taskDefinitionRepository;
+    
+    private final TaskExecutionRepository taskExecutionRepository;
+    
+    private final TaskExecutorRegistry taskExecutorRegistry;
+    
+    private final TaskDispatchQueue taskDispatchQueue;
+    
+    private final TaskExecutionWriter taskExecutionWriter;
+    
+    private final ShardedTaskScheduler shardedTaskScheduler;
+    
+    private final ShardLeaseManager shardLeaseManager;
+    
+    private final TaskStatisticsRollup taskStatisticsRollup;
     
     /**
      * 创建任务定义
@@ -37,6 +55,10 @@ public class TaskEngineService {
     public TaskDefinition createTaskDefinition(TaskDefinition taskDefinition) {
         log.info("创建任务定义: {}", taskDefinition.getTaskCode());
         
+        if (taskDefinitionRepository.existsByTaskCode(taskDefinition.getTaskCode())) {
+            throw BusinessException.taskCodeDuplicate(taskDefinition.getTaskCode());
+        }
+        
         // 设置默认值
         if (taskDefinition.getStatus() == null) {
             taskDefinition.setStatus(TaskDefinition.TaskStatus.DRAFT);
@@ -53,11 +75,12 @@ public class TaskEngineService {
         if (taskDefinition.getAllowConcurrent() == null) {
             taskDefinition.setAllowConcurrent(false);
         }
+        validateExecutorClass(taskDefinition);
         
-        // TODO: 保存到数据库
-        // return taskDefinitionRepository.save(taskDefinition);
-        
-        return taskDefinition;
+        TaskDefinition saved = taskDefinitionRepository.save(taskDefinition);
+        // 任务ID由数据库生成，保存后才能确定分片；事务提交时一并写入
+        saved.setShardId(shardLeaseManager.shardOf(saved.getTaskId()));
+        return saved;
     }
     
     /**
@@ -67,13 +90,19 @@ public class TaskEngineService {
     public TaskDefinition updateTaskDefinition(TaskDefinition taskDefinition) {
         log.info("更新任务定义: {}", taskDefinition.getTaskCode());
         
-        // TODO: 更新数据库
-        // TaskDefinition existing = taskDefinitionRepository.findById(taskDefinition.getTaskId())
-        //     .orElseThrow(() -> new RuntimeException("任务定义不存在"));
-        // BeanUtils.copyProperties(taskDefinition, existing, "taskId", "createTime");
-        // return taskDefinitionRepository.save(existing);
+        TaskDefinition existing = getTaskDefinition(taskDefinition.getTaskId());
+        BeanUtils.copyProperties(taskDefinition, existing,
+                "taskId", "shardId", "id", "createTime", "createBy", "version", "deleted");
+        validateExecutorClass(existing);
         
-        return taskDefinition;
+        TaskDefinition saved = taskDefinitionRepository.save(existing);
+        // 执行器或参数可能已变化，下次执行时重新解析
+        taskExecutorRegistry.unbind(saved.getTaskId());
+        if (saved.getStatus() == TaskDefinition.TaskStatus.ENABLED) {
+            // Cron表达式可能已变化，由分片持有节点重建触发器
+            shardedTaskScheduler.publishSchedule(saved.getTaskId());
+        }
+        return saved;
     }
     
     /**
@@ -86,172 +115,172 @@ public class TaskEngineService {
         // 先停止调度
         stopTask(taskId);
         
-        // TODO: 软删除任务定义
-        // TaskDefinition taskDefinition = taskDefinitionRepository.findById(taskId)
-        //     .orElseThrow(() -> new RuntimeException("任务定义不存在"));
-        // taskDefinition.setStatus(TaskDefinition.TaskStatus.DELETED);
-        // taskDefinitionRepository.save(taskDefinition);
+        // 软删除任务定义
+        TaskDefinition taskDefinition = getTaskDefinition(taskId);
+        taskDefinition.setStatus(TaskDefinition.TaskStatus.DELETED);
+        taskDefinitionRepository.save(taskDefinition);
+    }
+    
+    /**
+     * 校验执行器存在（草稿可暂不指定执行器）
+     */
+    private void validateExecutorClass(TaskDefinition taskDefinition) {
+        if (StringUtils.hasText(taskDefinition.getExecutorClass())
+                && !taskExecutorRegistry.contains(taskDefinition.getExecutorClass())) {
+            throw BusinessException.executorClassNotFound(taskDefinition.getExecutorClass());
+        }
+    }
+    
+    /**
+     * 解析任务的执行器并缓存执行绑定，调度前调用以便尽早发现配置错误
+     */
+    private TaskExecutorRegistry.Binding bindExecutor(TaskDefinition taskDefinition) {
+        if (!StringUtils.hasText(taskDefinition.getExecutorClass())) {
+            throw BusinessException.parameterRequired("executorClass");
+        }
+        TaskExecutorRegistry.Binding binding = taskExecutorRegistry.bind(taskDefinition);
+        String missing = binding.findMissingParameter(binding.getDefaultParameters());
+        if (missing != null) {
+            taskExecutorRegistry.unbind(taskDefinition.getTaskId());
+            throw BusinessException.parameterRequired(missing);
+        }
+        return binding;
+    }
+    
+    /**
+     * 获取任务定义
+     */
+    public TaskDefinition getTaskDefinition(Long taskId) {
+        return taskDefinitionRepository.findById(taskId)
+                .orElseThrow(() -> BusinessException.taskNotFound(String.valueOf(taskId)));
     }
     
     /**
      * 启动任务
      */
+    @Transactional
     public void startTask(Long taskId) {
-        try {
-            log.info("启动任务: {}", taskId);
-            
-            // TODO: 从数据库获取任务定义
-            // TaskDefinition taskDefinition = taskDefinitionRepository.findById(taskId)
-            //     .orElseThrow(() -> new RuntimeException("任务定义不存在"));
-            
-            // 创建JobDetail
-            JobDetail jobDetail = JobBuilder.newJob(TaskExecutorJob.class)
-                    .withIdentity("task_" + taskId, "DEFAULT")
-                    .usingJobData("taskId", taskId)
-                    .build();
-            
-            // 创建Trigger
-            Trigger trigger = TriggerBuilder.newTrigger()
-                    .withIdentity("trigger_" + taskId, "DEFAULT")
-                    .startNow()
-                    .withSchedule(CronScheduleBuilder.cronSchedule("0 0 12 * * ?")) // 默认每天12点
-                    .build();
-            
-            // 调度任务
-            scheduler.scheduleJob(jobDetail, trigger);
-            
-            log.info("任务启动成功: {}", taskId);
-            
-        } catch (SchedulerException e) {
-            log.error("启动任务失败: {}", taskId, e);
-            throw new RuntimeException("启动任务失败", e);
+        log.info("启动任务: {}", taskId);
+        
+        TaskDefinition taskDefinition = getTaskDefinition(taskId);
+        String cronExpression = ShardedTaskScheduler.cronOf(taskDefinition);
+        if (!CronExpression.isValidExpression(cronExpression)) {
+            throw BusinessException.cronExpressionInvalid(cronExpression);
         }
+        bindExecutor(taskDefinition);
+        
+        // 由持有该任务分片的节点调度
+        taskDefinition.setStatus(TaskDefinition.TaskStatus.ENABLED);
+        taskDefinition.setShardId(shardLeaseManager.shardOf(taskId));
+        taskDefinitionRepository.save(taskDefinition);
+        shardedTaskScheduler.publishSchedule(taskId);
+        
+        log.info("任务启动成功: {}, 分片: {}", taskId, shardLeaseManager.shardOf(taskId));
     }
     
     /**
      * 停止任务
      */
+    @Transactional
     public void stopTask(Long taskId) {
-        try {
-            log.info("停止任务: {}", taskId);
-            
-            JobKey jobKey = JobKey.jobKey("task_" + taskId, "DEFAULT");
-            if (scheduler.checkExists(jobKey)) {
-                scheduler.deleteJob(jobKey);
-                log.info("任务停止成功: {}", taskId);
-            } else {
-                log.warn("任务不存在或已停止: {}", taskId);
-            }
-            
-        } catch (SchedulerException e) {
-            log.error("停止任务失败: {}", taskId, e);
-            throw new RuntimeException("停止任务失败", e);
-        }
+        log.info("停止任务: {}", taskId);
+        
+        taskExecutorRegistry.unbind(taskId);
+        disableTask(taskId);
+        
+        log.info("任务停止成功: {}", taskId);
     }
     
     /**
      * 暂停任务
      */
+    @Transactional
     public void pauseTask(Long taskId) {
-        try {
-            log.info("暂停任务: {}", taskId);
-            
-            JobKey jobKey = JobKey.jobKey("task_" + taskId, "DEFAULT");
-            scheduler.pauseJob(jobKey);
-            
-            log.info("任务暂停成功: {}", taskId);
-            
-        } catch (SchedulerException e) {
-            log.error("暂停任务失败: {}", taskId, e);
-            throw new RuntimeException("暂停任务失败", e);
-        }
+        log.info("暂停任务: {}", taskId);
+        
+        disableTask(taskId);
+        
+        log.info("任务暂停成功: {}", taskId);
     }
     
     /**
      * 恢复任务
      */
+    @Transactional
     public void resumeTask(Long taskId) {
-        try {
-            log.info("恢复任务: {}", taskId);
-            
-            JobKey jobKey = JobKey.jobKey("task_" + taskId, "DEFAULT");
-            scheduler.resumeJob(jobKey);
-            
-            log.info("任务恢复成功: {}", taskId);
-            
-        } catch (SchedulerException e) {
-            log.error("恢复任务失败: {}", taskId, e);
-            throw new RuntimeException("恢复任务失败", e);
+        log.info("恢复任务: {}", taskId);
+        
+        TaskDefinition taskDefinition = getTaskDefinition(taskId);
+        if (taskDefinition.getStatus() == TaskDefinition.TaskStatus.DELETED) {
+            throw BusinessException.operationNotAllowed("恢复任务", "任务已删除");
         }
+        taskDefinition.setStatus(TaskDefinition.TaskStatus.ENABLED);
+        taskDefinition.setShardId(shardLeaseManager.shardOf(taskId));
+        taskDefinitionRepository.save(taskDefinition);
+        shardedTaskScheduler.publishSchedule(taskId);
+        
+        log.info("任务恢复成功: {}", taskId);
+    }
+    
+    /**
+     * 禁用任务并通知分片持有节点取消调度
+     */
+    private void disableTask(Long taskId) {
+        TaskDefinition taskDefinition = getTaskDefinition(taskId);
+        if (taskDefinition.getStatus() == TaskDefinition.TaskStatus.ENABLED) {
+            taskDefinition.setStatus(TaskDefinition.TaskStatus.DISABLED);
+            taskDefinitionRepository.save(taskDefinition);
+        }
+        shardedTaskScheduler.publishUnschedule(taskId);
     }
     
     /**
      * 立即执行任务
+     *
+     * @return 执行ID，执行记录写入后完成；独占任务已在执行时以 {@link BusinessException} 结束
+     * @throws BusinessException 任务不存在或分发队列已满
      */
-    @Async
-    public CompletableFuture<Void> executeTaskImmediately(Long taskId, Map<String, Object> params) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                log.info("立即执行任务: {}", taskId);
-                
-                // 创建执行记录
-                TaskExecution execution = new TaskExecution();
-                execution.setTaskId(taskId);
-                execution.setExecutionStatus(TaskExecution.ExecutionStatus.RUNNING);
-                execution.setStartTime(LocalDateTime.now());
-                execution.setTriggerType(TaskExecution.TriggerType.MANUAL);
-                
-                // TODO: 保存执行记录
-                // taskExecutionRepository.save(execution);
-                
-                // 执行任务逻辑
-                executeTask(taskId, params, execution);
-                
-            } catch (Exception e) {
-                log.error("立即执行任务失败: {}", taskId, e);
-                throw new RuntimeException("立即执行任务失败", e);
-            }
-        });
+    public CompletableFuture<Long> executeTaskImmediately(Long taskId, Map<String, Object> params) {
+        log.info("立即执行任务: {}", taskId);
+        
+        TaskDefinition taskDefinition = getTaskDefinition(taskId);
+        CompletableFuture<Long> executionId = new CompletableFuture<>();
+        // 执行ID在执行记录异步写入后才生成，执行开始后等待写入，不等待执行结束
+        taskDispatchQueue.submit(taskDefinition, params, TaskExecution.TriggerType.MANUAL, null, null,
+                        execution -> taskExecutionWriter.afterPersisted(execution,
+                                () -> executionId.complete(execution.getExecutionId())))
+                .whenComplete((execution, e) -> {
+                    if (e != null) {
+                        log.error("立即执行任务失败: {}", taskId, e);
+                        executionId.completeExceptionally(e);
+                    } else if (execution == null) {
+                        executionId.completeExceptionally(BusinessException.taskAlreadyRunning(String.valueOf(taskId)));
+                    }
+                });
+        return executionId;
     }
     
     /**
-     * 执行任务核心逻辑
+     * 执行定时触发的任务
      */
-    private void executeTask(Long taskId, Map<String, Object> params, TaskExecution execution) {
-        try {
-            log.info("开始执行任务: {}", taskId);
-            
-            // TODO: 根据任务定义执行具体逻辑
-            // TaskDefinition taskDefinition = taskDefinitionRepository.findById(taskId)
-            //     .orElseThrow(() -> new RuntimeException("任务定义不存在"));
-            
-            // 模拟任务执行
-            Thread.sleep(1000);
-            
-            // 更新执行记录
-            execution.setExecutionStatus(TaskExecution.ExecutionStatus.SUCCESS);
-            execution.setEndTime(LocalDateTime.now());
-            execution.setDuration(System.currentTimeMillis() - execution.getStartTime().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli());
-            
-            // TODO: 更新执行记录
-            // taskExecutionRepository.save(execution);
-            
-            log.info("任务执行成功: {}", taskId);
-            
-        } catch (Exception e) {
-            log.error("任务执行失败: {}", taskId, e);
-            
-            // 更新执行记录
-            execution.setExecutionStatus(TaskExecution.ExecutionStatus.FAILED);
-            execution.setEndTime(LocalDateTime.now());
-            execution.setErrorMessage(e.getMessage());
-            execution.setErrorStack(getStackTrace(e));
-            
-            // TODO: 更新执行记录
-            // taskExecutionRepository.save(execution);
-            
-            throw new RuntimeException("任务执行失败", e);
+    public void executeScheduledTask(Long taskId) {
+        TaskDefinition taskDefinition = getTaskDefinition(taskId);
+        if (taskDefinition.getStatus() == TaskDefinition.TaskStatus.DISABLED
+                || taskDefinition.getStatus() == TaskDefinition.TaskStatus.DELETED) {
+            log.warn("任务已{}，跳过定时执行: {}", taskDefinition.getStatus(), taskId);
+            return;
         }
+        if (!shardLeaseManager.owns(taskId)) {
+            // 分片已易主或租约未能续期，由新的持有节点触发
+            log.warn("本节点未持有任务分片，跳过定时执行: {}", taskId);
+            return;
+        }
+        taskDispatchQueue.submit(taskDefinition, null, TaskExecution.TriggerType.SCHEDULED)
+                .whenComplete((execution, e) -> {
+                    if (e != null) {
+                        log.error("定时执行任务失败: {}", taskId, e);
+                    }
+                });
     }
     
     /**
@@ -260,39 +289,17 @@ public class TaskEngineService {
     public Page<TaskExecution> getTaskExecutionHistory(Long taskId, Pageable pageable) {
         log.info("获取任务执行历史: {}", taskId);
         
-        // TODO: 从数据库查询
-        // return taskExecutionRepository.findByTaskIdOrderByStartTimeDesc(taskId, pageable);
-        
-        return Page.empty();
+        return taskExecutionRepository.findByTaskIdOrderByStartTimeDesc(taskId, pageable);
     }
     
     /**
      * 获取任务统计信息
+     * 由执行统计汇总表按桶汇总，不再对执行记录计数
      */
     public Map<String, Object> getTaskStatistics(Long taskId) {
         log.info("获取任务统计信息: {}", taskId);
         
-        // TODO: 统计任务执行情况
-        // Long totalCount = taskExecutionRepository.countByTaskId(taskId);
-        // Long successCount = taskExecutionRepository.countByTaskIdAndExecutionStatus(taskId, TaskExecution.ExecutionStatus.SUCCESS);
-        // Long failureCount = taskExecutionRepository.countByTaskIdAndExecutionStatus(taskId, TaskExecution.ExecutionStatus.FAILED);
-        
-        return Map.of(
-            "totalCount", 0L,
-            "successCount", 0L,
-            "failureCount", 0L,
-            "successRate", 0.0
-        );
-    }
-    
-    /**
-     * 获取异常堆栈信息
-     */
-    private String getStackTrace(Exception e) {
-        java.io.StringWriter sw = new java.io.StringWriter();
-        java.io.PrintWriter pw = new java.io.PrintWriter(sw);
-        e.printStackTrace(pw);
-        return sw.toString();
+        return taskStatisticsRollup.getStatistics(taskId);
     }
     
     /**
@@ -300,16 +307,20 @@ public class TaskEngineService {
      */
     public static class TaskExecutorJob implements Job {
         
+        @Autowired
+        private TaskEngineService taskEngineService;
+        
         @Override
         public void execute(JobExecutionContext context) throws JobExecutionException {
             JobDataMap dataMap = context.getJobDetail().getJobDataMap();
             Long taskId = dataMap.getLong("taskId");
             
-            // TODO: 获取TaskEngineService实例并执行任务
-            // TaskEngineService taskEngineService = SpringContextHolder.getBean(TaskEngineService.class);
-            // taskEngineService.executeTaskImmediately(taskId, Map.of());
-            
-            System.out.println("执行任务: " + taskId);
+            try {
+                taskEngineService.executeScheduledTask(taskId);
+            } catch (Exception e) {
+                log.error("定时执行任务失败: {}", taskId, e);
+                throw new JobExecutionException(e, false);
+            }
         }
     }
 }
\ No newline at end of file
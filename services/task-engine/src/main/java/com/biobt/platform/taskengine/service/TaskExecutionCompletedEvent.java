@@ -0,0 +1,33 @@
+package com.biobt.platform.taskengine.service;
+
+import com.biobt.platform.taskengine.entity.TaskDefinition;
+import com.biobt.platform.taskengine.entity.TaskExecution;
+import com.biobt.platform.taskengine.executor.TaskExecutionResult;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 执行结束事件
+ * 执行记录到达终态（成功、失败、超时、取消）时由 {@link TaskDispatcher} 在执行线程上同步发布，
+ * 转入待重试的执行不发布；监听器不能阻塞
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Getter
+public class TaskExecutionCompletedEvent extends ApplicationEvent {
+
+    private final TaskDefinition taskDefinition;
+
+    private final TaskExecution execution;
+
+    private final TaskExecutionResult result;
+
+    public TaskExecutionCompletedEvent(Object source, TaskDefinition taskDefinition, TaskExecution execution,
+                                       TaskExecutionResult result) {
+        super(source);
+        this.taskDefinition = taskDefinition;
+        this.execution = execution;
+        this.result = result;
+    }
+}
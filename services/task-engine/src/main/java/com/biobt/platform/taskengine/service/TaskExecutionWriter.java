@@ -0,0 +1,531 @@
+package com.biobt.platform.taskengine.service;
+
+import com.biobt.platform.taskengine.entity.TaskExecution;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 任务执行记录异步批量写入器
+ * 执行线程只调用 {@link #record(TaskExecution)} 登记执行记录的当前状态（复制一份快照），不访问数据库；
+ * 后台线程按固定间隔或积压达到批大小时刷新，同一执行记录在两次刷新之间的多次状态变化（运行中、进度、成功/失败）只写最后一次，
+ * 新记录以一个JDBC批次插入并回填自增ID，已有记录以一个JDBC批次更新，两者在同一事务中提交。
+ * 写入失败的快照放回队列重试（不会覆盖更新的快照），超过最大次数后丢弃并记录错误日志。
+ * 由于写入是异步的，执行历史查询相对执行状态最多滞后一个刷新间隔；需要在落库后继续处理的调用方
+ * 通过 {@link #record(TaskExecution, Runnable)} 登记回调，回调在写入线程上、事务提交并回填ID之后执行
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class TaskExecutionWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO task_execution (task_id, task_code, task_name, batch_id, "
+            + "execution_status, start_time, end_time, duration, execution_params, execution_result, error_message, "
+            + "error_stack, retry_count, max_retry_count, next_retry_time, execution_node, executor_instance, "
+            + "progress_percent, progress_description, business_type, business_id, trigger_type, trigger_user, "
+            + "create_time, update_time, deleted, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0)";
+
+    private static final String UPDATE_SQL = "UPDATE task_execution SET execution_status = ?, end_time = ?, "
+            + "duration = ?, execution_result = ?, error_message = ?, error_stack = ?, retry_count = ?, "
+            + "next_retry_time = ?, execution_node = ?, executor_instance = ?, progress_percent = ?, "
+            + "progress_description = ?, update_time = ?, version = version + 1 WHERE execution_id = ?";
+
+    /**
+     * 结束状态，写入后不再跟踪该执行记录
+     */
+    private static final Set<TaskExecution.ExecutionStatus> FINAL_STATUSES = EnumSet.of(
+            TaskExecution.ExecutionStatus.SUCCESS, TaskExecution.ExecutionStatus.FAILED,
+            TaskExecution.ExecutionStatus.CANCELLED, TaskExecution.ExecutionStatus.TIMEOUT);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${task.engine.execution-writer.batch-size:50}")
+    private int batchSize;
+
+    @Value("${task.engine.execution-writer.flush-interval-millis:200}")
+    private long flushIntervalMillis;
+
+    @Value("${task.engine.execution-writer.max-attempts:5}")
+    private int maxAttempts;
+
+    private final Object lock = new Object();
+
+    /**
+     * 待写入的快照，以执行记录对象本身（引用相等）为key，同一执行记录只保留最新的一份
+     */
+    private Map<TaskExecution, Snapshot> pending = new IdentityHashMap<>();
+
+    /**
+     * 正在写入的快照，写入结束后为null
+     */
+    private Map<TaskExecution, Snapshot> writing;
+
+    /**
+     * 已插入、尚未结束的执行记录及其数据库ID
+     */
+    private final Map<TaskExecution, Long> insertedIds = new IdentityHashMap<>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private ScheduledExecutorService flusher;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Timer flushTimer;
+
+    private Counter droppedCounter;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        flushTimer = Timer.builder("task.execution.writer.flush")
+                .description("执行记录批量写入耗时")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("task.execution.writer.dropped")
+                .description("多次写入失败后丢弃的执行记录快照数")
+                .register(meterRegistry);
+        Gauge.builder("task.execution.writer.pending", this, TaskExecutionWriter::pendingCount)
+                .description("等待写入的执行记录数")
+                .register(meterRegistry);
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-execution-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+
+        log.info("执行记录写入器初始化完成 - 批大小: {}, 刷新间隔: {}ms", batchSize, flushIntervalMillis);
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        // 停机前写入剩余记录
+        flush();
+    }
+
+    /**
+     * 登记执行记录的当前状态，不阻塞调用线程
+     * 调用后对执行记录的修改不影响本次登记的内容，状态变化后需再次调用
+     */
+    public void record(TaskExecution execution) {
+        record(execution, null);
+    }
+
+    /**
+     * 登记执行记录的当前状态，写入成功后在写入线程上执行回调（此时执行记录已有ID）
+     * 写入前被更新的快照取代时，回调随新快照一起执行；多次写入失败被丢弃时不执行
+     *
+     * @param execution 执行记录
+     * @param onPersisted 写入成功后的回调，不能阻塞；可以为null
+     */
+    public void record(TaskExecution execution, Runnable onPersisted) {
+        Snapshot snapshot = new Snapshot(execution);
+        if (onPersisted != null) {
+            snapshot.callbacks = new ArrayList<>(List.of(onPersisted));
+        }
+        int size;
+        synchronized (lock) {
+            Snapshot previous = pending.put(execution, snapshot);
+            if (previous != null) {
+                snapshot.inherit(previous);
+            }
+            size = pending.size();
+        }
+        if (size >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * 执行记录当前登记的状态写入后执行回调；没有待写入的快照时立即在调用线程上执行
+     *
+     * @param execution 执行记录
+     * @param callback 回调，不能阻塞
+     */
+    public void afterPersisted(TaskExecution execution, Runnable callback) {
+        synchronized (lock) {
+            Snapshot snapshot = pending.get(execution);
+            if (snapshot == null && writing != null) {
+                snapshot = writing.get(execution);
+            }
+            if (snapshot != null) {
+                if (snapshot.callbacks == null) {
+                    snapshot.callbacks = new ArrayList<>(1);
+                }
+                snapshot.callbacks.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * 不再跟踪尚未结束的执行记录（例如待重试的记录已被其他节点认领或被取消，本节点不会再写入其终态）
+     */
+    public void forget(TaskExecution execution) {
+        synchronized (lock) {
+            insertedIds.remove(execution);
+        }
+    }
+
+    /**
+     * 等待写入的执行记录数
+     */
+    public int pendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    private void flushQuietly() {
+        flushScheduled.set(false);
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("执行记录写入异常", e);
+        }
+    }
+
+    /**
+     * 写入当前积压的全部快照
+     */
+    synchronized void flush() {
+        Map<TaskExecution, Snapshot> batch;
+        List<Map.Entry<TaskExecution, Snapshot>> inserts = new ArrayList<>();
+        List<Snapshot> updates = new ArrayList<>();
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new IdentityHashMap<>();
+            writing = batch;
+            for (Map.Entry<TaskExecution, Snapshot> entry : batch.entrySet()) {
+                Snapshot snapshot = entry.getValue();
+                if (snapshot.executionId == null) {
+                    snapshot.executionId = insertedIds.get(entry.getKey());
+                }
+                if (snapshot.executionId == null) {
+                    inserts.add(entry);
+                } else {
+                    updates.add(snapshot);
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        List<Long> generatedIds;
+        try {
+            generatedIds = transactionTemplate.execute(status -> {
+                List<Long> ids = insert(inserts);
+                update(updates);
+                return ids;
+            });
+        } catch (Exception e) {
+            log.error("执行记录批量写入失败 - 新增: {}, 更新: {}", inserts.size(), updates.size(), e);
+            requeue(batch);
+            return;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        List<Runnable> callbacks = new ArrayList<>();
+        synchronized (lock) {
+            for (int i = 0; i < inserts.size(); i++) {
+                TaskExecution execution = inserts.get(i).getKey();
+                Long executionId = generatedIds.get(i);
+                execution.setExecutionId(executionId);
+                if (!FINAL_STATUSES.contains(inserts.get(i).getValue().executionStatus)) {
+                    insertedIds.put(execution, executionId);
+                }
+            }
+            for (Map.Entry<TaskExecution, Snapshot> entry : batch.entrySet()) {
+                if (FINAL_STATUSES.contains(entry.getValue().executionStatus)) {
+                    insertedIds.remove(entry.getKey());
+                }
+                if (entry.getValue().callbacks != null) {
+                    callbacks.addAll(entry.getValue().callbacks);
+                }
+            }
+            writing = null;
+        }
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (Exception e) {
+                log.error("执行记录写入回调失败", e);
+            }
+        }
+        log.debug("执行记录批量写入完成 - 新增: {}, 更新: {}", inserts.size(), updates.size());
+    }
+
+    private List<Long> insert(List<Map.Entry<TaskExecution, Snapshot>> inserts) {
+        if (inserts.isEmpty()) {
+            return List.of();
+        }
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        inserts.get(i).getValue().bindInsert(ps, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return inserts.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != inserts.size()) {
+            throw new IllegalStateException("自增ID数量与插入行数不一致: " + keys.size() + " != " + inserts.size());
+        }
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (Map<String, Object> key : keys) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    private void update(List<Snapshot> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                updates.get(i).bindUpdate(ps, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return updates.size();
+            }
+        });
+    }
+
+    /**
+     * 写入失败的快照放回队列，期间已有更新快照的以新快照为准
+     */
+    private void requeue(Map<TaskExecution, Snapshot> batch) {
+        int dropped = 0;
+        synchronized (lock) {
+            writing = null;
+            for (Map.Entry<TaskExecution, Snapshot> entry : batch.entrySet()) {
+                Snapshot snapshot = entry.getValue();
+                if (++snapshot.attempts >= maxAttempts) {
+                    dropped++;
+                    continue;
+                }
+                Snapshot newer = pending.putIfAbsent(entry.getKey(), snapshot);
+                if (newer != null) {
+                    newer.inherit(snapshot);
+                }
+            }
+        }
+        if (dropped > 0) {
+            droppedCounter.increment(dropped);
+            log.error("执行记录多次写入失败，已丢弃 {} 条", dropped);
+        }
+    }
+
+    /**
+     * 执行记录在登记时刻的状态
+     */
+    private static final class Snapshot {
+
+        private Long executionId;
+
+        private final Long taskId;
+
+        private final String taskCode;
+
+        private final String taskName;
+
+        private final String batchId;
+
+        private final TaskExecution.ExecutionStatus executionStatus;
+
+        private final LocalDateTime startTime;
+
+        private final LocalDateTime endTime;
+
+        private final Long duration;
+
+        private final String executionParams;
+
+        private final String executionResult;
+
+        private final String errorMessage;
+
+        private final String errorStack;
+
+        private final Integer retryCount;
+
+        private final Integer maxRetryCount;
+
+        private final LocalDateTime nextRetryTime;
+
+        private final String executionNode;
+
+        private final String executorInstance;
+
+        private final Integer progressPercent;
+
+        private final String progressDescription;
+
+        private final String businessType;
+
+        private final String businessId;
+
+        private final TaskExecution.TriggerType triggerType;
+
+        private final String triggerUser;
+
+        private int attempts;
+
+        /**
+         * 写入成功后的回调，没有时为null
+         */
+        private List<Runnable> callbacks;
+
+        private Snapshot(TaskExecution execution) {
+            this.executionId = execution.getExecutionId();
+            this.taskId = execution.getTaskId();
+            this.taskCode = execution.getTaskCode();
+            this.taskName = execution.getTaskName();
+            this.batchId = execution.getBatchId();
+            this.executionStatus = execution.getExecutionStatus();
+            this.startTime = execution.getStartTime();
+            this.endTime = execution.getEndTime();
+            this.duration = execution.getDuration();
+            this.executionParams = execution.getExecutionParams();
+            this.executionResult = execution.getExecutionResult();
+            this.errorMessage = execution.getErrorMessage();
+            this.errorStack = execution.getErrorStack();
+            this.retryCount = execution.getRetryCount();
+            this.maxRetryCount = execution.getMaxRetryCount();
+            this.nextRetryTime = execution.getNextRetryTime();
+            this.executionNode = execution.getExecutionNode();
+            this.executorInstance = execution.getExecutorInstance();
+            this.progressPercent = execution.getProgressPercent();
+            this.progressDescription = execution.getProgressDescription();
+            this.businessType = execution.getBusinessType();
+            this.businessId = execution.getBusinessId();
+            this.triggerType = execution.getTriggerType();
+            this.triggerUser = execution.getTriggerUser();
+        }
+
+        /**
+         * 接管被取代的旧快照的回调，旧回调先执行
+         */
+        private void inherit(Snapshot older) {
+            if (older.callbacks == null) {
+                return;
+            }
+            if (callbacks == null) {
+                callbacks = older.callbacks;
+            } else {
+                callbacks.addAll(0, older.callbacks);
+            }
+        }
+
+        private void bindInsert(PreparedStatement ps, LocalDateTime now) throws SQLException {
+            int i = 0;
+            ps.setObject(++i, taskId, Types.BIGINT);
+            ps.setString(++i, taskCode);
+            ps.setString(++i, taskName);
+            ps.setString(++i, batchId);
+            ps.setString(++i, name(executionStatus));
+            ps.setObject(++i, startTime);
+            ps.setObject(++i, endTime);
+            ps.setObject(++i, duration, Types.BIGINT);
+            ps.setString(++i, executionParams);
+            ps.setString(++i, executionResult);
+            ps.setString(++i, errorMessage);
+            ps.setString(++i, errorStack);
+            ps.setObject(++i, retryCount, Types.INTEGER);
+            ps.setObject(++i, maxRetryCount, Types.INTEGER);
+            ps.setObject(++i, nextRetryTime);
+            ps.setString(++i, executionNode);
+            ps.setString(++i, executorInstance);
+            ps.setObject(++i, progressPercent, Types.INTEGER);
+            ps.setString(++i, progressDescription);
+            ps.setString(++i, businessType);
+            ps.setString(++i, businessId);
+            ps.setString(++i, name(triggerType));
+            ps.setString(++i, triggerUser);
+            ps.setObject(++i, now);
+            ps.setObject(++i, now);
+        }
+
+        private void bindUpdate(PreparedStatement ps, LocalDateTime now) throws SQLException {
+            int i = 0;
+            ps.setString(++i, name(executionStatus));
+            ps.setObject(++i, endTime);
+            ps.setObject(++i, duration, Types.BIGINT);
+            ps.setString(++i, executionResult);
+            ps.setString(++i, errorMessage);
+            ps.setString(++i, errorStack);
+            ps.setObject(++i, retryCount, Types.INTEGER);
+            ps.setObject(++i, nextRetryTime);
+            ps.setString(++i, executionNode);
+            ps.setString(++i, executorInstance);
+            ps.setObject(++i, progressPercent, Types.INTEGER);
+            ps.setString(++i, progressDescription);
+            ps.setObject(++i, now);
+            ps.setLong(++i, executionId);
+        }
+
+        private static String name(Enum<?> value) {
+            return value != null ? value.name() : null;
+        }
+    }
+}
@@ -0,0 +1,678 @@
+package com.biobt.platform.taskengine.service;
+
+import com.alibaba.fastjson2.JSON;
+import com.biobt.platform.taskengine.dto.TaskBatchStatus;
+import com.biobt.platform.taskengine.dto.TaskProgressEvent;
+import com.biobt.platform.taskengine.entity.TaskExecution;
+import com.biobt.platform.taskengine.executor.CancellationToken;
+import com.biobt.platform.taskengine.executor.TaskExecutionResult;
+import com.biobt.platform.taskengine.executor.TaskExecutor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 执行进度总线
+ * 执行器可以任意频率通过 {@link CancellationToken#reportProgress} 上报，由分发器转给 {@link #report}，
+ * 总线只保留每个执行的最新进度，不写库；
+ * 每 coalesce-millis 统一发布一次有变化的进度，批次只发布一次汇总。未主动上报、但实现了
+ * {@link TaskExecutor#getExecutionProgress} 的执行器按 poll-interval-millis 拉取
+ * <p>
+ * 每个订阅者一个只保留最新事件的信箱，在投递线程上依次发送：慢订阅者只会跳过中间进度，不会阻塞发布或其他订阅者。
+ * 执行结束、转入重试时立即发布最终状态
+ * <p>
+ * 执行在分片所属节点运行、批次在提交节点协调，订阅可能落在任意节点：订阅时经Redis主题广播关注，
+ * 持有该执行或批次的节点立即回复当前进度，此后把被关注的进度转发到主题，由订阅所在节点投递。
+ * 刚结束的执行保留最终状态 recent-retention-millis，覆盖执行记录异步落库期间的关注。
+ * 落在其他节点的批次取消请求同样经该主题转给协调节点
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class TaskProgressBus {
+
+    private static final String RELAY_TOPIC = "task:progress:relay";
+
+    private static final String ACTION_WATCH = "WATCH";
+
+    private static final String ACTION_UNWATCH = "UNWATCH";
+
+    private static final String ACTION_EXECUTION = "EXECUTION";
+
+    private static final String ACTION_BATCH = "BATCH";
+
+    private static final String ACTION_CANCEL_BATCH = "CANCEL_BATCH";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private TaskEngineNode taskEngineNode;
+
+    /**
+     * 批次服务经分发队列依赖分发器，分发器依赖本类，延迟获取以打破循环
+     */
+    @Autowired
+    private ObjectProvider<TaskBatchService> taskBatchService;
+
+    @Value("${task.engine.progress.coalesce-millis:250}")
+    private long coalesceMillis;
+
+    @Value("${task.engine.progress.poll-interval-millis:1000}")
+    private long pollIntervalMillis;
+
+    @Value("${task.engine.progress.delivery-threads:4}")
+    private int deliveryThreads;
+
+    /**
+     * 远程关注的最长保留时间，与推送连接超时一致；取消关注的消息丢失时以此兜底
+     */
+    @Value("${task.engine.progress.stream-timeout-millis:1800000}")
+    private long watchTimeoutMillis;
+
+    @Value("${task.engine.progress.recent-retention-millis:10000}")
+    private long recentRetentionMillis;
+
+    @Value("${task.engine.progress.relay-grace-millis:2000}")
+    private long relayGraceMillis;
+
+    /**
+     * 执行中的记录，以对象标识为键（执行ID在首次批量写入后才有）
+     */
+    private final Map<ExecutionKey, Tracked> running = new ConcurrentHashMap<>();
+
+    private final Map<Long, CopyOnWriteArrayList<Subscriber<TaskProgressEvent>>> executionSubscribers =
+            new ConcurrentHashMap<>();
+
+    private final Map<String, CopyOnWriteArrayList<Subscriber<TaskBatchStatus>>> batchSubscribers =
+            new ConcurrentHashMap<>();
+
+    /**
+     * 自上次发布后有变化的批次
+     */
+    private final Set<String> dirtyBatches = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 执行器类 -> 是否覆盖了 getExecutionProgress
+     */
+    private final Map<Class<?>, Boolean> pollable = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    /**
+     * 其他节点的关注：关注键 -> 关注
+     */
+    private final Map<String, RemoteWatch> remoteWatches = new ConcurrentHashMap<>();
+
+    /**
+     * 刚结束的执行：执行ID -> 最终状态，按结束先后淘汰
+     */
+    private final Map<Long, TaskProgressEvent> recentlyFinished = new ConcurrentHashMap<>();
+
+    private final Queue<Recent> recentOrder = new ConcurrentLinkedQueue<>();
+
+    private ScheduledExecutorService publisher;
+
+    private ExecutorService delivery;
+
+    private RTopic relayTopic;
+
+    private int relayListenerId;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        delivery = Executors.newFixedThreadPool(deliveryThreads, runnable -> {
+            Thread thread = new Thread(runnable, "task-progress-delivery-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-progress-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher.scheduleWithFixedDelay(this::publishQuietly, coalesceMillis, coalesceMillis, TimeUnit.MILLISECONDS);
+        Gauge.builder("task.progress.tracked", running, Map::size)
+                .description("进度总线跟踪的执行数")
+                .register(meterRegistry);
+        Gauge.builder("task.progress.subscribers", subscriberCount, AtomicInteger::get)
+                .description("进度订阅者数")
+                .register(meterRegistry);
+        Gauge.builder("task.progress.remote.watches", remoteWatches, Map::size)
+                .description("其他节点关注的执行和批次数")
+                .register(meterRegistry);
+        relayTopic = redissonClient.getTopic(RELAY_TOPIC, StringCodec.INSTANCE);
+        relayListenerId = relayTopic.addListener(String.class, (channel, message) -> onRelay(message));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        relayTopic.removeListener(relayListenerId);
+        publisher.shutdownNow();
+        delivery.shutdownNow();
+    }
+
+    /**
+     * 上报执行进度；可高频调用，只保留最新值
+     *
+     * @param execution 执行记录
+     * @param progressPercent 进度百分比（0-100）
+     * @param progressDescription 进度描述，可为空
+     */
+    public void report(TaskExecution execution, int progressPercent, String progressDescription) {
+        Tracked tracked = running.get(new ExecutionKey(execution));
+        if (tracked == null) {
+            return;
+        }
+        tracked.reported = true;
+        tracked.update(Math.max(0, Math.min(100, progressPercent)), progressDescription);
+    }
+
+    /**
+     * 以 {@link TaskExecutionResult#running} 上报执行进度
+     */
+    public void report(TaskExecution execution, TaskExecutionResult progress) {
+        report(execution, progress.getProgressPercent() == null ? 0 : progress.getProgressPercent(),
+                progress.getProgressDescription());
+    }
+
+    /**
+     * 开始跟踪执行，由分发器在调用执行器前登记
+     */
+    void track(TaskExecution execution, TaskExecutor executor) {
+        Tracked tracked = new Tracked(execution, executor,
+                pollable.computeIfAbsent(executor.getClass(), TaskProgressBus::overridesProgress));
+        running.put(new ExecutionKey(execution), tracked);
+        tracked.update(execution.getProgressPercent() == null ? 0 : execution.getProgressPercent(),
+                execution.getProgressDescription());
+    }
+
+    /**
+     * 停止跟踪并立即发布执行的最终状态（含转入重试）
+     */
+    void untrack(TaskExecution execution) {
+        running.remove(new ExecutionKey(execution));
+        if (execution.getExecutionId() != null) {
+            TaskProgressEvent event = toEvent(execution);
+            if (event.isTerminal()) {
+                recentlyFinished.put(execution.getExecutionId(), event);
+                recentOrder.add(new Recent(execution.getExecutionId(), System.nanoTime()));
+            }
+            deliver(execution.getExecutionId(), event);
+        }
+        if (execution.getBatchId() != null) {
+            dirtyBatches.add(execution.getBatchId());
+        }
+    }
+
+    /**
+     * 批次节点状态变化（节点结束、取消），下一次发布时推送汇总
+     */
+    void batchChanged(String batchId) {
+        dirtyBatches.add(batchId);
+    }
+
+    /**
+     * 执行中记录的当前进度
+     */
+    public Optional<TaskProgressEvent> current(Long executionId) {
+        for (Tracked tracked : running.values()) {
+            if (executionId.equals(tracked.execution.getExecutionId())) {
+                return Optional.of(toEvent(tracked.execution));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 批次进度；运行中节点的实时进度按比例计入
+     */
+    public TaskBatchStatus currentBatch(String batchId) {
+        TaskBatchStatus status = taskBatchService.getObject().getStatus(batchId);
+        if (status.getTotal() > 0 && status.getRunning() > 0) {
+            long runningPercent = 0;
+            for (Tracked tracked : running.values()) {
+                if (batchId.equals(tracked.execution.getBatchId())) {
+                    runningPercent += tracked.percent;
+                }
+            }
+            int finished = status.getTotal() - status.getPending() - status.getRunning();
+            status.setProgressPercent((int) Math.min(100,
+                    (finished * 100L + runningPercent) / status.getTotal()));
+        }
+        return status;
+    }
+
+    /**
+     * 批次是否由本节点协调
+     */
+    public boolean isBatchLocal(String batchId) {
+        return taskBatchService.getObject().isLocal(batchId);
+    }
+
+    /**
+     * 订阅执行进度；同时广播关注，执行在其他节点运行时由该节点转发
+     *
+     * @return 取消订阅
+     */
+    public Runnable subscribeExecution(Long executionId, Consumer<TaskProgressEvent> listener) {
+        return subscribe(executionSubscribers, executionId, executionKey(executionId), listener);
+    }
+
+    /**
+     * 订阅批次进度；同时广播关注，批次由其他节点协调时由该节点转发
+     *
+     * @return 取消订阅
+     */
+    public Runnable subscribeBatch(String batchId, Consumer<TaskBatchStatus> listener) {
+        return subscribe(batchSubscribers, batchId, batchKey(batchId), listener);
+    }
+
+    /**
+     * 把批次取消请求转给协调该批次的节点
+     */
+    void relayBatchCancel(String batchId) {
+        relay(ACTION_CANCEL_BATCH, batchKey(batchId), null, null);
+    }
+
+    /**
+     * 等待持有节点回复的宽限期结束后，在投递线程上执行
+     */
+    void afterRelayGrace(Runnable task) {
+        publisher.schedule(() -> delivery.execute(task), relayGraceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private <K, E> Runnable subscribe(Map<K, CopyOnWriteArrayList<Subscriber<E>>> subscribers, K key,
+                                      String watchKey, Consumer<E> listener) {
+        Subscriber<E> subscriber = new Subscriber<>(listener);
+        subscribers.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(subscriber);
+        subscriberCount.incrementAndGet();
+        relay(ACTION_WATCH, watchKey, null, null);
+        AtomicBoolean unsubscribed = new AtomicBoolean();
+        return () -> {
+            if (!unsubscribed.compareAndSet(false, true)) {
+                return;
+            }
+            subscribers.computeIfPresent(key, (k, list) -> {
+                if (list.remove(subscriber)) {
+                    subscriberCount.decrementAndGet();
+                }
+                return list.isEmpty() ? null : list;
+            });
+            relay(ACTION_UNWATCH, watchKey, null, null);
+        };
+    }
+
+    private void publishQuietly() {
+        try {
+            publish();
+        } catch (Exception e) {
+            log.error("发布执行进度失败", e);
+        }
+    }
+
+    private void publish() {
+        long now = System.nanoTime();
+        expire(now);
+        for (Tracked tracked : running.values()) {
+            if (tracked.pollable && !tracked.reported
+                    && now - tracked.lastPollNanos >= TimeUnit.MILLISECONDS.toNanos(pollIntervalMillis)) {
+                tracked.lastPollNanos = now;
+                poll(tracked);
+            }
+            if (!tracked.dirty.compareAndSet(true, false)) {
+                continue;
+            }
+            TaskExecution execution = tracked.execution;
+            if (execution.getBatchId() != null) {
+                dirtyBatches.add(execution.getBatchId());
+            }
+            if (execution.getExecutionId() == null) {
+                // 尚未写入，下一轮再发
+                tracked.dirty.set(true);
+                continue;
+            }
+            deliver(execution.getExecutionId(), toEvent(execution));
+        }
+
+        for (String batchId : dirtyBatches) {
+            dirtyBatches.remove(batchId);
+            CopyOnWriteArrayList<Subscriber<TaskBatchStatus>> subscribers = batchSubscribers.get(batchId);
+            boolean watched = remoteWatches.containsKey(batchKey(batchId));
+            // 只有协调节点的汇总是准确的，其他节点上的订阅由协调节点转发
+            if (((subscribers == null || subscribers.isEmpty()) && !watched) || !isBatchLocal(batchId)) {
+                continue;
+            }
+            TaskBatchStatus status;
+            try {
+                status = currentBatch(batchId);
+            } catch (Exception e) {
+                log.debug("获取批次进度失败: {}", batchId, e);
+                continue;
+            }
+            offerBatch(batchId, status);
+            if (watched) {
+                relay(ACTION_BATCH, batchKey(batchId), null, status);
+            }
+        }
+    }
+
+    private void expire(long now) {
+        long retentionNanos = TimeUnit.MILLISECONDS.toNanos(recentRetentionMillis);
+        Recent recent;
+        while ((recent = recentOrder.peek()) != null && now - recent.finishedNanos >= retentionNanos) {
+            recentOrder.poll();
+            recentlyFinished.remove(recent.executionId);
+        }
+        remoteWatches.values().removeIf(watch -> now - watch.expiresNanos >= 0);
+    }
+
+    private void poll(Tracked tracked) {
+        try {
+            int percent = tracked.executor.getExecutionProgress(tracked.execution);
+            String description = tracked.executor.getExecutionStatusDescription(tracked.execution);
+            tracked.update(Math.max(0, Math.min(100, percent)), description);
+        } catch (Exception e) {
+            log.debug("拉取执行进度失败: {}", tracked.execution.getTaskId(), e);
+        }
+    }
+
+    private void deliver(Long executionId, TaskProgressEvent event) {
+        deliverLocal(executionId, event);
+        if (remoteWatches.containsKey(executionKey(executionId))) {
+            relay(ACTION_EXECUTION, executionKey(executionId), event, null);
+        }
+    }
+
+    private void deliverLocal(Long executionId, TaskProgressEvent event) {
+        CopyOnWriteArrayList<Subscriber<TaskProgressEvent>> subscribers = executionSubscribers.get(executionId);
+        if (subscribers != null) {
+            subscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    private void offerBatch(String batchId, TaskBatchStatus status) {
+        CopyOnWriteArrayList<Subscriber<TaskBatchStatus>> subscribers = batchSubscribers.get(batchId);
+        if (subscribers != null) {
+            subscribers.forEach(subscriber -> subscriber.offer(status));
+        }
+    }
+
+    private void relay(String action, String key, TaskProgressEvent event, TaskBatchStatus batch) {
+        RelayMessage message = new RelayMessage();
+        message.setOrigin(taskEngineNode.getNodeId());
+        message.setAction(action);
+        message.setKey(key);
+        message.setEvent(event);
+        message.setBatch(batch);
+        relayTopic.publishAsync(JSON.toJSONString(message)).whenComplete((receivers, e) -> {
+            if (e != null) {
+                log.warn("转发执行进度失败: {} {}", action, key, e);
+            }
+        });
+    }
+
+    /**
+     * 处理其他节点的关注和转发；本节点发出的消息忽略
+     */
+    private void onRelay(String payload) {
+        RelayMessage message;
+        try {
+            message = JSON.parseObject(payload, RelayMessage.class);
+        } catch (Exception e) {
+            log.warn("无法解析进度转发消息: {}", payload, e);
+            return;
+        }
+        if (taskEngineNode.getNodeId().equals(message.getOrigin())) {
+            return;
+        }
+        switch (message.getAction()) {
+            case ACTION_WATCH -> watch(message.getKey());
+            case ACTION_UNWATCH -> remoteWatches.computeIfPresent(message.getKey(),
+                    (key, watch) -> --watch.count > 0 ? watch : null);
+            case ACTION_EXECUTION -> deliverLocal(message.getEvent().getExecutionId(), message.getEvent());
+            case ACTION_BATCH -> offerBatch(message.getBatch().getBatchId(), message.getBatch());
+            case ACTION_CANCEL_BATCH -> cancelBatch(message.getKey().substring(2));
+            default -> log.debug("忽略未知的进度转发消息: {}", message.getAction());
+        }
+    }
+
+    /**
+     * 登记关注，并回复本节点持有的当前进度
+     */
+    private void watch(String key) {
+        long expiresNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(watchTimeoutMillis);
+        remoteWatches.compute(key, (k, watch) -> {
+            RemoteWatch updated = watch != null ? watch : new RemoteWatch();
+            updated.count++;
+            updated.expiresNanos = expiresNanos;
+            return updated;
+        });
+        String id = key.substring(2);
+        if (key.startsWith("E:")) {
+            Long executionId = Long.valueOf(id);
+            current(executionId)
+                    .or(() -> Optional.ofNullable(recentlyFinished.get(executionId)))
+                    .ifPresent(event -> relay(ACTION_EXECUTION, key, event, null));
+        } else if (isBatchLocal(id)) {
+            dirtyBatches.add(id);
+        }
+    }
+
+    /**
+     * 本节点协调的批次在投递线程上取消，不阻塞Redis监听线程
+     */
+    private void cancelBatch(String batchId) {
+        if (!isBatchLocal(batchId)) {
+            return;
+        }
+        delivery.execute(() -> {
+            try {
+                taskBatchService.getObject().cancel(batchId);
+            } catch (Exception e) {
+                log.warn("取消其他节点转来的批次失败: {}", batchId, e);
+            }
+        });
+    }
+
+    private static String executionKey(Long executionId) {
+        return "E:" + executionId;
+    }
+
+    private static String batchKey(String batchId) {
+        return "B:" + batchId;
+    }
+
+    static TaskProgressEvent toEvent(TaskExecution execution) {
+        TaskProgressEvent event = new TaskProgressEvent();
+        event.setExecutionId(execution.getExecutionId());
+        event.setTaskId(execution.getTaskId());
+        event.setBatchId(execution.getBatchId());
+        event.setStatus(execution.getExecutionStatus());
+        event.setProgressPercent(execution.getProgressPercent());
+        event.setProgressDescription(execution.getProgressDescription());
+        event.setTimestamp(System.currentTimeMillis());
+        return event;
+    }
+
+    private static boolean overridesProgress(Class<?> executorClass) {
+        try {
+            return executorClass.getMethod("getExecutionProgress", TaskExecution.class).getDeclaringClass()
+                    != TaskExecutor.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 节点间的进度转发消息
+     */
+    @Data
+    public static class RelayMessage {
+
+        /**
+         * 发出消息的节点
+         */
+        private String origin;
+
+        private String action;
+
+        /**
+         * 关注键：E:执行ID 或 B:批次号
+         */
+        private String key;
+
+        private TaskProgressEvent event;
+
+        private TaskBatchStatus batch;
+    }
+
+    /**
+     * 其他节点的关注，计数只在 Map.compute 中修改
+     */
+    private static final class RemoteWatch {
+
+        private int count;
+
+        private volatile long expiresNanos;
+    }
+
+    /**
+     * 刚结束的执行
+     */
+    private record Recent(Long executionId, long finishedNanos) {
+    }
+
+    /**
+     * 执行记录的对象标识
+     */
+    private static final class ExecutionKey {
+
+        private final TaskExecution execution;
+
+        private ExecutionKey(TaskExecution execution) {
+            this.execution = execution;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ExecutionKey key && key.execution == execution;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(execution);
+        }
+    }
+
+    /**
+     * 跟踪中的执行
+     */
+    private static final class Tracked {
+
+        private final TaskExecution execution;
+
+        private final TaskExecutor executor;
+
+        private final boolean pollable;
+
+        private final AtomicBoolean dirty = new AtomicBoolean();
+
+        private volatile int percent;
+
+        private volatile boolean reported;
+
+        private long lastPollNanos;
+
+        private Tracked(TaskExecution execution, TaskExecutor executor, boolean pollable) {
+            this.execution = execution;
+            this.executor = executor;
+            this.pollable = pollable;
+        }
+
+        private void update(int progressPercent, String progressDescription) {
+            if (progressPercent == percent && Objects.equals(progressDescription, execution.getProgressDescription())) {
+                return;
+            }
+            percent = progressPercent;
+            execution.setProgressPercent(progressPercent);
+            execution.setProgressDescription(progressDescription);
+            dirty.set(true);
+        }
+    }
+
+    /**
+     * 订阅者：只保留最新一条待发送事件，同一时刻最多一个投递任务
+     */
+    private final class Subscriber<E> {
+
+        private final Consumer<E> listener;
+
+        private final AtomicReference<E> latest = new AtomicReference<>();
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(Consumer<E> listener) {
+            this.listener = listener;
+        }
+
+        private void offer(E event) {
+            latest.set(event);
+            if (draining.compareAndSet(false, true)) {
+                delivery.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                E event = latest.getAndSet(null);
+                if (event == null) {
+                    draining.set(false);
+                    // 释放后又有新事件到达且无人投递时继续
+                    if (latest.get() == null || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    listener.accept(event);
+                } catch (Exception e) {
+                    log.debug("投递执行进度失败", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.biobt.platform.taskengine.service;
+
+import com.biobt.platform.taskengine.dto.TaskBatchStatus;
+import com.biobt.platform.taskengine.dto.TaskProgressEvent;
+import com.biobt.platform.taskengine.exception.BusinessException;
+import com.biobt.platform.taskengine.repository.TaskExecutionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 执行进度推送（Server-Sent Events）
+ * 连接建立后先发送当前进度，之后推送 {@link TaskProgressBus} 合并后的变化，到达最终状态后关闭连接。
+ * 先订阅再读取当前进度，读取期间发布的最终状态不会丢失
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+@Service
+public class TaskProgressStreamService {
+
+    private static final String STATUS_RUNNING = "RUNNING";
+
+    @Autowired
+    private TaskProgressBus taskProgressBus;
+
+    @Autowired
+    private TaskExecutionRepository taskExecutionRepository;
+
+    @Value("${task.engine.progress.stream-timeout-millis:1800000}")
+    private long streamTimeoutMillis;
+
+    /**
+     * 订阅单次执行的进度，事件名 progress
+     */
+    public SseEmitter openExecutionStream(Long executionId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        Runnable unsubscribe = taskProgressBus.subscribeExecution(executionId,
+                event -> send(emitter, "progress", event, event.isTerminal()));
+        bindLifecycle(emitter, unsubscribe);
+        TaskProgressEvent initial;
+        try {
+            // 在其他节点运行时库中的进度可能滞后，运行节点收到关注后会回复实时进度
+            initial = taskProgressBus.current(executionId)
+                    .orElseGet(() -> taskExecutionRepository.findById(executionId)
+                            .map(TaskProgressBus::toEvent)
+                            .orElseThrow(() -> BusinessException.executionNotFound(String.valueOf(executionId))));
+        } catch (RuntimeException e) {
+            unsubscribe.run();
+            throw e;
+        }
+        send(emitter, "progress", initial, initial.isTerminal());
+        return emitter;
+    }
+
+    /**
+     * 订阅批次的汇总进度，事件名 batch
+     * 批次由其他节点协调时以协调节点转发的汇总为准；宽限期内没有回复说明批次已不在任何节点上，按执行记录汇总
+     */
+    public SseEmitter openBatchStream(String batchId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        AtomicBoolean received = new AtomicBoolean();
+        Runnable unsubscribe = taskProgressBus.subscribeBatch(batchId, status -> {
+            received.set(true);
+            send(emitter, "batch", status, isFinished(status));
+        });
+        bindLifecycle(emitter, unsubscribe);
+        if (taskProgressBus.isBatchLocal(batchId)) {
+            TaskBatchStatus initial;
+            try {
+                initial = taskProgressBus.currentBatch(batchId);
+            } catch (RuntimeException e) {
+                unsubscribe.run();
+                throw e;
+            }
+            send(emitter, "batch", initial, isFinished(initial));
+            return emitter;
+        }
+        taskProgressBus.afterRelayGrace(() -> {
+            if (received.get()) {
+                return;
+            }
+            try {
+                TaskBatchStatus summary = taskProgressBus.currentBatch(batchId);
+                send(emitter, "batch", summary, isFinished(summary));
+            } catch (RuntimeException e) {
+                log.debug("批次不存在或汇总失败: {}", batchId, e);
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    private static boolean isFinished(TaskBatchStatus status) {
+        return !STATUS_RUNNING.equals(status.getStatus());
+    }
+
+    private static void bindLifecycle(SseEmitter emitter, Runnable unsubscribe) {
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unsubscribe.run());
+    }
+
+    /**
+     * 同一连接的发送串行进行；连接已关闭时忽略
+     */
+    private static void send(SseEmitter emitter, String name, Object data, boolean last) {
+        synchronized (emitter) {
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+                if (last) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("进度推送连接已关闭", e);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package com.biobt.platform.taskengine.service;
+
+import com.biobt.platform.taskengine.entity.TaskDefinition;
+import com.biobt.platform.taskengine.entity.TaskExecution;
+import com.biobt.platform.taskengine.executor.TaskExecutionResult;
+import com.biobt.platform.taskengine.repository.TaskDefinitionRepository;
+import com.biobt.platform.taskengine.repository.TaskExecutionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 任务重试调度器
+ * <ul>
+ *     <li>判定：任务定义的失败策略为 RETRY、执行结果未声明不重试、重试次数未达上限</li>
+ *     <li>延迟：优先用执行结果的 retryDelay；否则以 retryInterval 为基数指数退避（上限 max-backoff-seconds），
+ *     再加等量随机抖动（一半固定、一半随机），避免同一时刻失败的任务同时重试</li>
+ *     <li>持久化：待重试状态（RETRYING、next_retry_time、execution_node）就写在执行记录上，经执行记录写入器异步落库后才进入时间轮，
+ *     不为每次重试创建Quartz触发器，也不轮询数据库；节点启动时一次性加载本节点的待重试记录</li>
+ *     <li>认领：到期时以条件更新 RETRYING -&gt; RUNNING 认领执行记录，只有一个节点能认领成功；
+ *     其他节点宕机遗留、逾期超过 orphan-grace-seconds 的记录由定时扫描接管；认领后未能开始执行（分发队列已满或已关闭、
+ *     分发失败、独占任务仍在执行）时恢复为 RETRYING 并重新排期，不会停留在 RUNNING</li>
+ *     <li>到期回调只把重试项放入专用启动线程池的无界队列，认领、读取和提交都在启动线程上进行，
+ *     启动时加载或批量接管大量逾期记录也不会阻塞时间轮驱动线程</li>
+ * </ul>
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class TaskRetryScheduler {
+
+    private static final String CLAIM_SQL = "UPDATE task_execution SET execution_status = 'RUNNING', "
+            + "execution_node = ?, update_time = ?, version = version + 1 "
+            + "WHERE execution_id = ? AND execution_status = 'RETRYING' AND retry_count = ?";
+
+    private static final String UNCLAIM_SQL = "UPDATE task_execution SET execution_status = 'RETRYING', "
+            + "next_retry_time = ?, execution_node = ?, update_time = ?, version = version + 1 "
+            + "WHERE execution_id = ? AND execution_status = 'RUNNING' AND retry_count = ?";
+
+    private static final String CANCEL_SQL = "UPDATE task_execution SET execution_status = 'CANCELLED', "
+            + "next_retry_time = NULL, error_message = ?, end_time = ?, update_time = ?, version = version + 1 "
+            + "WHERE execution_id = ? AND execution_status = 'RETRYING'";
+
+    private static final String RECOVER_SQL = "SELECT execution_id, task_id, retry_count, next_retry_time "
+            + "FROM task_execution WHERE execution_status = 'RETRYING' AND execution_node = ?";
+
+    private static final String ORPHAN_SQL = "SELECT execution_id, task_id, retry_count, next_retry_time "
+            + "FROM task_execution WHERE execution_status = 'RETRYING' AND next_retry_time < ? "
+            + "ORDER BY next_retry_time LIMIT ?";
+
+    private static final int DEFAULT_RETRY_INTERVAL_SECONDS = 60;
+
+    @Autowired
+    private TaskDefinitionRepository taskDefinitionRepository;
+
+    @Autowired
+    private TaskExecutionRepository taskExecutionRepository;
+
+    @Autowired
+    private TaskExecutionWriter taskExecutionWriter;
+
+    @Autowired
+    private TaskEngineNode taskEngineNode;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 分发队列依赖分发器、分发器依赖本类，延迟获取以打破循环
+     */
+    @Autowired
+    private ObjectProvider<TaskDispatchQueue> taskDispatchQueue;
+
+    @Value("${task.engine.retry.tick-millis:100}")
+    private long tickMillis;
+
+    @Value("${task.engine.retry.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${task.engine.retry.min-delay-millis:1000}")
+    private long minDelayMillis;
+
+    @Value("${task.engine.retry.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    @Value("${task.engine.retry.orphan-grace-seconds:300}")
+    private long orphanGraceSeconds;
+
+    @Value("${task.engine.retry.orphan-batch-size:1000}")
+    private int orphanBatchSize;
+
+    @Value("${task.engine.retry.launch-threads:4}")
+    private int launchThreads;
+
+    /**
+     * 已在本节点时间轮中的执行记录，避免扫描遗留记录时重复加入
+     */
+    private final Map<Long, RetryEntry> scheduledEntries = new ConcurrentHashMap<>();
+
+    private TimingWheel<RetryEntry> timingWheel;
+
+    /**
+     * 重试启动线程池（无界队列），从不在提交线程上执行
+     */
+    private ExecutorService launcher;
+
+    private Counter scheduledCounter;
+
+    private Counter claimMissCounter;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        launcher = Executors.newFixedThreadPool(launchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "task-retry-launcher-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        timingWheel = new TimingWheel<>("task-retry-wheel", tickMillis, wheelSize, this::onExpired);
+        scheduledCounter = Counter.builder("task.retry.scheduled")
+                .description("进入重试调度的执行记录数")
+                .register(meterRegistry);
+        claimMissCounter = Counter.builder("task.retry.claim.miss")
+                .description("到期时已被其他节点认领或已不再待重试的记录数")
+                .register(meterRegistry);
+        Gauge.builder("task.retry.pending", this, scheduler -> scheduler.timingWheel.pendingCount())
+                .description("时间轮中等待重试的记录数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        // 待重试记录已持久化，重启后由本节点重新加载；尚未认领的排队项直接丢弃
+        timingWheel.close();
+        launcher.shutdownNow();
+        launcher.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 计算下次重试时间
+     *
+     * @param taskDefinition 任务定义
+     * @param execution 执行记录（retryCount为已重试次数）
+     * @param result 本次执行结果
+     * @return 下次重试时间；不重试时返回null
+     */
+    public LocalDateTime planRetry(TaskDefinition taskDefinition, TaskExecution execution, TaskExecutionResult result) {
+        if (taskDefinition.getFailureStrategy() != TaskDefinition.FailureStrategy.RETRY
+                || result.isSuccess() || result.isCancelled() || Boolean.FALSE.equals(result.getNeedRetry())) {
+            return null;
+        }
+        int retryCount = execution.getRetryCount() == null ? 0 : execution.getRetryCount();
+        int maxRetryCount = taskDefinition.getMaxRetryCount() == null ? 0 : taskDefinition.getMaxRetryCount();
+        if (retryCount >= maxRetryCount) {
+            return null;
+        }
+        long delayMillis = result.getRetryDelay() != null && result.getRetryDelay() > 0
+                ? result.getRetryDelay() * 1000L
+                : backoffMillis(taskDefinition.getRetryInterval(), retryCount);
+        return LocalDateTime.now().plus(Duration.ofMillis(Math.max(minDelayMillis, delayMillis)));
+    }
+
+    /**
+     * 指数退避加抖动：base = retryInterval × 2^retryCount（不超过上限），延迟在 [base/2, base] 内均匀分布
+     */
+    private long backoffMillis(Integer retryInterval, int retryCount) {
+        long intervalMillis = (retryInterval == null || retryInterval <= 0
+                ? DEFAULT_RETRY_INTERVAL_SECONDS : retryInterval) * 1000L;
+        long capMillis = maxBackoffSeconds * 1000L;
+        long base = retryCount >= 30 ? capMillis : Math.min(capMillis, intervalMillis << retryCount);
+        long half = base / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    /**
+     * 持久化待重试状态并加入时间轮
+     * 执行记录须已设置 RETRYING 状态和下次重试时间；不阻塞调用线程，写入器落库（回填ID）后才入轮，
+     * 保证到期时能以条件更新认领。多次写入失败被丢弃的记录不会入轮
+     */
+    public void schedule(TaskExecution execution) {
+        execution.setExecutionNode(taskEngineNode.getNodeId());
+        int retryCount = execution.getRetryCount() == null ? 0 : execution.getRetryCount();
+        LocalDateTime nextRetryTime = execution.getNextRetryTime();
+        taskExecutionWriter.record(execution, () -> {
+            scheduledCounter.increment();
+            add(new RetryEntry(execution.getExecutionId(), execution.getTaskId(), retryCount, execution),
+                    nextRetryTime);
+        });
+    }
+
+    /**
+     * 取消待重试的执行记录；时间轮中的条目到期时认领失败，自然丢弃
+     *
+     * @return 是否取消成功，已被认领执行时返回false
+     */
+    public boolean cancel(Long executionId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (jdbcTemplate.update(CANCEL_SQL, "任务已取消", now, now, executionId) == 0) {
+            return false;
+        }
+        RetryEntry entry = scheduledEntries.get(executionId);
+        if (entry != null && entry.execution != null) {
+            taskExecutionWriter.forget(entry.execution);
+        }
+        return true;
+    }
+
+    private void add(RetryEntry entry, LocalDateTime nextRetryTime) {
+        if (scheduledEntries.putIfAbsent(entry.executionId, entry) != null) {
+            return;
+        }
+        long delayMillis = nextRetryTime == null ? 0 : Duration.between(LocalDateTime.now(), nextRetryTime).toMillis();
+        timingWheel.schedule(entry, delayMillis);
+    }
+
+    /**
+     * 到期回调（时间轮驱动线程，持有时间轮写锁），只入队不阻塞，认领和提交交给启动线程池
+     */
+    private void onExpired(RetryEntry entry) {
+        try {
+            launcher.execute(() -> launch(entry));
+        } catch (RejectedExecutionException e) {
+            // 停机中，记录仍为待重试，重启后重新加载
+            log.debug("重试启动线程池已关闭: {}", entry.executionId);
+        }
+    }
+
+    private void launch(RetryEntry entry) {
+        scheduledEntries.remove(entry.executionId, entry);
+        int claimed;
+        try {
+            claimed = jdbcTemplate.update(CLAIM_SQL, taskEngineNode.getNodeId(), LocalDateTime.now(),
+                    entry.executionId, entry.retryCount);
+        } catch (Exception e) {
+            // 认领未生效，记录仍为待重试，重新入轮
+            log.error("重试记录认领失败，稍后再试: {}", entry.executionId, e);
+            add(entry, nextAttemptTime(null, entry.retryCount));
+            return;
+        }
+        if (claimed == 0) {
+            claimMissCounter.increment();
+            // 已被取消或由其他节点认领，本节点不会再写入该记录的终态
+            if (entry.execution != null) {
+                taskExecutionWriter.forget(entry.execution);
+            }
+            log.debug("重试记录已被认领或不再待重试: {}", entry.executionId);
+            return;
+        }
+        TaskExecution execution = entry.execution;
+        TaskDefinition taskDefinition = null;
+        try {
+            if (execution == null) {
+                execution = taskExecutionRepository.findById(entry.executionId).orElse(null);
+                if (execution == null) {
+                    return;
+                }
+            }
+            taskDefinition = taskDefinitionRepository.findById(entry.taskId).orElse(null);
+            if (taskDefinition == null || taskDefinition.getStatus() == TaskDefinition.TaskStatus.DELETED
+                    || taskDefinition.getStatus() == TaskDefinition.TaskStatus.DISABLED) {
+                execution.setExecutionStatus(TaskExecution.ExecutionStatus.CANCELLED);
+                execution.setNextRetryTime(null);
+                execution.setEndTime(LocalDateTime.now());
+                execution.setErrorMessage("任务已删除或禁用，取消重试");
+                taskExecutionWriter.record(execution);
+                TaskExecutionResult result = TaskExecutionResult.cancelled();
+                result.setErrorMessage(execution.getErrorMessage());
+                eventPublisher.publishEvent(new TaskExecutionCompletedEvent(this, taskDefinition, execution, result));
+                return;
+            }
+            TaskDefinition retryDefinition = taskDefinition;
+            TaskExecution retryExecution = execution;
+            taskDispatchQueue.getObject().submitRetry(retryDefinition, retryExecution)
+                    .whenComplete((result, e) -> {
+                        if (result != null) {
+                            return;
+                        }
+                        if (e != null && started(entry, retryExecution)) {
+                            // 已开始执行，执行记录的状态由分发器写入
+                            log.error("重试执行失败: {}", entry.executionId, e);
+                            return;
+                        }
+                        if (e != null) {
+                            // 包括停机时分发队列取消的排队重试，恢复为待重试后重启时重新加载
+                            log.warn("重试未能执行，稍后再试: {}, 原因: {}", entry.executionId, e.toString());
+                        }
+                        // 独占任务仍在执行或未能开始执行
+                        postpone(retryDefinition, retryExecution);
+                    });
+        } catch (Exception e) {
+            log.error("重试提交失败，稍后再试: {}", entry.executionId, e);
+            if (execution != null) {
+                postpone(taskDefinition, execution);
+            } else {
+                unclaim(entry);
+            }
+        }
+    }
+
+    /**
+     * 分发器开始执行重试时重试次数加一
+     */
+    private static boolean started(RetryEntry entry, TaskExecution execution) {
+        return execution.getRetryCount() != null && execution.getRetryCount() > entry.retryCount;
+    }
+
+    /**
+     * 本次未能执行的重试按退避时间重新排期，不计入重试次数
+     */
+    private void postpone(TaskDefinition taskDefinition, TaskExecution execution) {
+        int retryCount = execution.getRetryCount() == null ? 0 : execution.getRetryCount();
+        execution.setExecutionStatus(TaskExecution.ExecutionStatus.RETRYING);
+        execution.setNextRetryTime(nextAttemptTime(taskDefinition, retryCount));
+        schedule(execution);
+    }
+
+    /**
+     * 未能读取执行记录时直接将已认领的记录恢复为待重试并重新入轮；恢复失败时记录停留在 RUNNING，需人工处理
+     */
+    private void unclaim(RetryEntry entry) {
+        LocalDateTime nextRetryTime = nextAttemptTime(null, entry.retryCount);
+        try {
+            jdbcTemplate.update(UNCLAIM_SQL, nextRetryTime, taskEngineNode.getNodeId(), LocalDateTime.now(),
+                    entry.executionId, entry.retryCount);
+            add(entry, nextRetryTime);
+        } catch (Exception e) {
+            log.error("重试记录恢复待重试失败: {}", entry.executionId, e);
+        }
+    }
+
+    private LocalDateTime nextAttemptTime(TaskDefinition taskDefinition, int retryCount) {
+        long delayMillis = backoffMillis(taskDefinition == null ? null : taskDefinition.getRetryInterval(), retryCount);
+        return LocalDateTime.now().plus(Duration.ofMillis(Math.max(minDelayMillis, delayMillis)));
+    }
+
+    /**
+     * 启动后加载本节点的待重试记录
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        AtomicInteger recovered = new AtomicInteger();
+        jdbcTemplate.query(RECOVER_SQL, (RowCallbackHandler) rs -> {
+            addRecovered(rs);
+            recovered.incrementAndGet();
+        }, taskEngineNode.getNodeId());
+        log.info("已加载本节点待重试记录: {}", recovered.get());
+    }
+
+    /**
+     * 接管逾期未执行的待重试记录（通常来自已下线的节点）
+     */
+    @Scheduled(fixedDelayString = "${task.engine.retry.orphan-scan-interval-millis:60000}",
+            initialDelayString = "${task.engine.retry.orphan-scan-interval-millis:60000}")
+    public void adoptOrphans() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(orphanGraceSeconds);
+        AtomicInteger adopted = new AtomicInteger();
+        jdbcTemplate.query(ORPHAN_SQL, (RowCallbackHandler) rs -> {
+            addRecovered(rs);
+            adopted.incrementAndGet();
+        }, cutoff, orphanBatchSize);
+        if (adopted.get() > 0) {
+            log.warn("接管逾期待重试记录: {}", adopted.get());
+        }
+    }
+
+    private void addRecovered(ResultSet rs) throws SQLException {
+        Timestamp nextRetryTime = rs.getTimestamp("next_retry_time");
+        add(new RetryEntry(rs.getLong("execution_id"), rs.getLong("task_id"), rs.getInt("retry_count"), null),
+                nextRetryTime == null ? null : nextRetryTime.toLocalDateTime());
+    }
+
+    /**
+     * 时间轮中的重试项；本节点排期的保留执行记录对象，启动加载的只保留ID，到期认领后再读取
+     */
+    private static final class RetryEntry {
+
+        private final Long executionId;
+
+        private final Long taskId;
+
+        private final int retryCount;
+
+        private final TaskExecution execution;
+
+        private RetryEntry(Long executionId, Long taskId, int retryCount, TaskExecution execution) {
+            this.executionId = executionId;
+            this.taskId = taskId;
+            this.retryCount = retryCount;
+            this.execution = execution;
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package com.biobt.platform.taskengine.service;
+
+import com.biobt.platform.taskengine.entity.TaskExecution;
+import com.biobt.platform.taskengine.entity.TaskExecutionRollup;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务执行统计增量汇总
+ * 执行结束事件只在内存中累加到 (任务, 分钟) 与 (任务, 天) 两个桶，后台线程按固定间隔把增量以一个JDBC批次
+ * upsert 到 task_execution_rollup（计数相加、最大值取大），多个节点写同一行也不会互相覆盖。
+ * 查询按桶行汇总，再叠加本节点尚未写入的增量：全部历史汇总天桶，近1小时、近24小时汇总分钟桶，
+ * 代价只与桶数相关；其他节点的增量最多滞后一个刷新间隔。
+ * 汇总表为空时（首次上线）由一个节点从执行记录回填启动前已结束的执行，分钟桶只回填保留期内的部分
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class TaskStatisticsRollup {
+
+    private static final String UPSERT_SQL = "INSERT INTO task_execution_rollup (task_id, granularity, bucket_start, "
+            + "total_count, success_count, failure_count, timeout_count, cancelled_count, duration_count, "
+            + "duration_sum, duration_max, duration_le_100ms, duration_le_1s, duration_le_10s, duration_le_1m, "
+            + "duration_le_10m, duration_gt_10m, update_time) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE total_count = total_count + VALUES(total_count), "
+            + "success_count = success_count + VALUES(success_count), "
+            + "failure_count = failure_count + VALUES(failure_count), "
+            + "timeout_count = timeout_count + VALUES(timeout_count), "
+            + "cancelled_count = cancelled_count + VALUES(cancelled_count), "
+            + "duration_count = duration_count + VALUES(duration_count), "
+            + "duration_sum = duration_sum + VALUES(duration_sum), "
+            + "duration_max = GREATEST(duration_max, VALUES(duration_max)), "
+            + "duration_le_100ms = duration_le_100ms + VALUES(duration_le_100ms), "
+            + "duration_le_1s = duration_le_1s + VALUES(duration_le_1s), "
+            + "duration_le_10s = duration_le_10s + VALUES(duration_le_10s), "
+            + "duration_le_1m = duration_le_1m + VALUES(duration_le_1m), "
+            + "duration_le_10m = duration_le_10m + VALUES(duration_le_10m), "
+            + "duration_gt_10m = duration_gt_10m + VALUES(duration_gt_10m), "
+            + "update_time = VALUES(update_time)";
+
+    private static final String SUMMARY_SQL = "SELECT COALESCE(SUM(total_count), 0), COALESCE(SUM(success_count), 0), "
+            + "COALESCE(SUM(failure_count), 0), COALESCE(SUM(timeout_count), 0), COALESCE(SUM(cancelled_count), 0), "
+            + "COALESCE(SUM(duration_count), 0), COALESCE(SUM(duration_sum), 0), COALESCE(MAX(duration_max), 0), "
+            + "COALESCE(SUM(duration_le_100ms), 0), COALESCE(SUM(duration_le_1s), 0), "
+            + "COALESCE(SUM(duration_le_10s), 0), COALESCE(SUM(duration_le_1m), 0), "
+            + "COALESCE(SUM(duration_le_10m), 0), COALESCE(SUM(duration_gt_10m), 0) "
+            + "FROM task_execution_rollup WHERE task_id = ? AND granularity = ? AND bucket_start >= ?";
+
+    private static final String PURGE_SQL = "DELETE FROM task_execution_rollup "
+            + "WHERE granularity = 'MINUTE' AND bucket_start < ?";
+
+    private static final String EXISTS_SQL = "SELECT COUNT(*) FROM (SELECT 1 FROM task_execution_rollup LIMIT 1) t";
+
+    private static final String BACKFILL_SQL = "INSERT INTO task_execution_rollup (task_id, granularity, bucket_start, "
+            + "total_count, success_count, failure_count, timeout_count, cancelled_count, duration_count, "
+            + "duration_sum, duration_max, duration_le_100ms, duration_le_1s, duration_le_10s, duration_le_1m, "
+            + "duration_le_10m, duration_gt_10m, update_time) "
+            + "SELECT task_id, ?, %s, COUNT(*), "
+            + "COALESCE(SUM(execution_status = 'SUCCESS'), 0), COALESCE(SUM(execution_status = 'FAILED'), 0), "
+            + "COALESCE(SUM(execution_status = 'TIMEOUT'), 0), COALESCE(SUM(execution_status = 'CANCELLED'), 0), "
+            + "COUNT(duration), COALESCE(SUM(duration), 0), COALESCE(MAX(duration), 0), "
+            + "COALESCE(SUM(duration <= 100), 0), COALESCE(SUM(duration > 100 AND duration <= 1000), 0), "
+            + "COALESCE(SUM(duration > 1000 AND duration <= 10000), 0), "
+            + "COALESCE(SUM(duration > 10000 AND duration <= 60000), 0), "
+            + "COALESCE(SUM(duration > 60000 AND duration <= 600000), 0), COALESCE(SUM(duration > 600000), 0), ? "
+            + "FROM task_execution WHERE deleted = 0 "
+            + "AND execution_status IN ('SUCCESS', 'FAILED', 'TIMEOUT', 'CANCELLED') "
+            + "AND end_time >= ? AND end_time < ? GROUP BY task_id, %s";
+
+    private static final String MINUTE_BUCKET_SQL = "DATE_FORMAT(end_time, '%Y-%m-%d %H:%i:00')";
+
+    private static final String DAY_BUCKET_SQL = "DATE_FORMAT(end_time, '%Y-%m-%d 00:00:00')";
+
+    private static final String BACKFILL_LOCK = "task:statistics:backfill";
+
+    private static final LocalDateTime ALL_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    /**
+     * 耗时直方图区间上限（毫秒），最后一个区间无上限
+     */
+    private static final long[] DURATION_BOUNDS = {100, 1000, 10000, 60000, 600000};
+
+    private static final String[] DURATION_LABELS = {"<=100ms", "<=1s", "<=10s", "<=1m", "<=10m", ">10m"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${task.engine.statistics.flush-interval-millis:500}")
+    private long flushIntervalMillis;
+
+    @Value("${task.engine.statistics.minute-retention-hours:48}")
+    private long minuteRetentionHours;
+
+    @Value("${task.engine.statistics.backfill-enabled:true}")
+    private boolean backfillEnabled;
+
+    private final Object lock = new Object();
+
+    /**
+     * 尚未写入的增量
+     */
+    private Map<BucketKey, Counters> pending = new HashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void init() {
+        flushTimer = Timer.builder("task.statistics.flush")
+                .description("执行统计汇总写入耗时")
+                .register(meterRegistry);
+        Gauge.builder("task.statistics.pending", this, TaskStatisticsRollup::pendingCount)
+                .description("等待写入的统计桶数")
+                .register(meterRegistry);
+
+        // 回填在开始写入之前完成，此后结束的执行只经由事件累加，两者不会重复
+        if (backfillEnabled) {
+            backfillIfEmpty(LocalDateTime.now());
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-statistics-rollup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+
+        log.info("执行统计汇总初始化完成 - 刷新间隔: {}ms, 分钟桶保留: {}小时", flushIntervalMillis, minuteRetentionHours);
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    /**
+     * 执行结束时累加到所属的分钟桶与天桶
+     */
+    @EventListener
+    public void onExecutionCompleted(TaskExecutionCompletedEvent event) {
+        TaskExecution execution = event.getExecution();
+        if (execution.getTaskId() == null || execution.getExecutionStatus() == null) {
+            return;
+        }
+        LocalDateTime endTime = execution.getEndTime() != null ? execution.getEndTime() : LocalDateTime.now();
+        BucketKey minute = new BucketKey(execution.getTaskId(), TaskExecutionRollup.Granularity.MINUTE,
+                endTime.truncatedTo(ChronoUnit.MINUTES));
+        BucketKey day = new BucketKey(execution.getTaskId(), TaskExecutionRollup.Granularity.DAY,
+                endTime.truncatedTo(ChronoUnit.DAYS));
+        synchronized (lock) {
+            pending.computeIfAbsent(minute, key -> new Counters()).add(execution);
+            pending.computeIfAbsent(day, key -> new Counters()).add(execution);
+        }
+    }
+
+    /**
+     * 任务统计：全部历史、近1小时、近24小时
+     *
+     * @param taskId 任务ID
+     */
+    public Map<String, Object> getStatistics(Long taskId) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Object> statistics = summarize(taskId, TaskExecutionRollup.Granularity.DAY, ALL_TIME).toMap();
+        statistics.put("lastHour", summarize(taskId, TaskExecutionRollup.Granularity.MINUTE,
+                now.minusHours(1).truncatedTo(ChronoUnit.MINUTES)).toMap());
+        statistics.put("last24Hours", summarize(taskId, TaskExecutionRollup.Granularity.MINUTE,
+                now.minusHours(24).truncatedTo(ChronoUnit.MINUTES)).toMap());
+        return statistics;
+    }
+
+    /**
+     * 等待写入的统计桶数
+     */
+    public int pendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * 清理超出保留期的分钟桶；天桶长期保留
+     */
+    @Scheduled(fixedDelayString = "${task.engine.statistics.purge-interval-millis:3600000}")
+    public void purgeExpiredMinuteBuckets() {
+        try {
+            int deleted = jdbcTemplate.update(PURGE_SQL, LocalDateTime.now().minusHours(minuteRetentionHours));
+            if (deleted > 0) {
+                log.info("清理过期分钟统计桶: {}", deleted);
+            }
+        } catch (Exception e) {
+            log.error("清理过期分钟统计桶失败", e);
+        }
+    }
+
+    private Counters summarize(Long taskId, TaskExecutionRollup.Granularity granularity, LocalDateTime since) {
+        Counters counters = jdbcTemplate.queryForObject(SUMMARY_SQL, (rs, rowNum) -> Counters.read(rs),
+                taskId, granularity.name(), since);
+        if (counters == null) {
+            counters = new Counters();
+        }
+        synchronized (lock) {
+            for (Map.Entry<BucketKey, Counters> entry : pending.entrySet()) {
+                BucketKey key = entry.getKey();
+                if (key.taskId.equals(taskId) && key.granularity == granularity
+                        && !key.bucketStart.isBefore(since)) {
+                    counters.merge(entry.getValue());
+                }
+            }
+        }
+        return counters;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("执行统计汇总写入异常", e);
+        }
+    }
+
+    /**
+     * 写入当前积压的全部增量，失败时合并回积压等待下次写入
+     */
+    synchronized void flush() {
+        Map<BucketKey, Counters> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+
+        // 固定加锁顺序，避免多个节点同时upsert相同的行时死锁
+        List<Map.Entry<BucketKey, Counters>> entries = new ArrayList<>(batch.entrySet());
+        entries.sort(Map.Entry.comparingByKey(BucketKey.ORDER));
+        LocalDateTime now = LocalDateTime.now();
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Map.Entry<BucketKey, Counters> entry = entries.get(i);
+                    entry.getValue().bind(ps, entry.getKey(), now);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return entries.size();
+                }
+            });
+        } catch (Exception e) {
+            log.error("执行统计汇总写入失败，下次重试 - 桶数: {}", entries.size(), e);
+            synchronized (lock) {
+                for (Map.Entry<BucketKey, Counters> entry : batch.entrySet()) {
+                    pending.merge(entry.getKey(), entry.getValue(), Counters::merge);
+                }
+            }
+            return;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        log.debug("执行统计汇总写入完成 - 桶数: {}", entries.size());
+    }
+
+    /**
+     * 汇总表为空时从执行记录回填 cutoff 之前结束的执行；多个节点同时启动时只有一个执行回填
+     */
+    private void backfillIfEmpty(LocalDateTime cutoff) {
+        RLock backfillLock = redissonClient.getLock(BACKFILL_LOCK);
+        try {
+            backfillLock.lock();
+            try {
+                Long existing = jdbcTemplate.queryForObject(EXISTS_SQL, Long.class);
+                if (existing != null && existing > 0) {
+                    return;
+                }
+                long start = System.currentTimeMillis();
+                int days = jdbcTemplate.update(String.format(BACKFILL_SQL, DAY_BUCKET_SQL, DAY_BUCKET_SQL),
+                        TaskExecutionRollup.Granularity.DAY.name(), cutoff, ALL_TIME, cutoff);
+                int minutes = jdbcTemplate.update(String.format(BACKFILL_SQL, MINUTE_BUCKET_SQL, MINUTE_BUCKET_SQL),
+                        TaskExecutionRollup.Granularity.MINUTE.name(), cutoff,
+                        cutoff.minusHours(minuteRetentionHours).truncatedTo(ChronoUnit.MINUTES), cutoff);
+                log.info("执行统计回填完成 - 天桶: {}, 分钟桶: {}, 耗时: {}ms", days, minutes,
+                        System.currentTimeMillis() - start);
+            } finally {
+                backfillLock.unlock();
+            }
+        } catch (Exception e) {
+            log.error("执行统计回填失败，仅统计此后结束的执行", e);
+        }
+    }
+
+    /**
+     * 统计桶标识
+     */
+    private record BucketKey(Long taskId, TaskExecutionRollup.Granularity granularity, LocalDateTime bucketStart) {
+
+        private static final Comparator<BucketKey> ORDER = Comparator.comparing(BucketKey::taskId)
+                .thenComparing(BucketKey::granularity)
+                .thenComparing(BucketKey::bucketStart);
+    }
+
+    /**
+     * 一个桶（或多个桶汇总）的计数，非线程安全，由调用方加锁
+     */
+    private static final class Counters {
+
+        private long total;
+
+        private long success;
+
+        private long failure;
+
+        private long timeout;
+
+        private long cancelled;
+
+        private long durationCount;
+
+        private long durationSum;
+
+        private long durationMax;
+
+        private final long[] histogram = new long[DURATION_BOUNDS.length + 1];
+
+        private void add(TaskExecution execution) {
+            total++;
+            switch (execution.getExecutionStatus()) {
+                case SUCCESS -> success++;
+                case FAILED -> failure++;
+                case TIMEOUT -> timeout++;
+                case CANCELLED -> cancelled++;
+                default -> {
+                }
+            }
+            Long duration = execution.getDuration();
+            if (duration == null) {
+                return;
+            }
+            durationCount++;
+            durationSum += duration;
+            durationMax = Math.max(durationMax, duration);
+            int slot = 0;
+            while (slot < DURATION_BOUNDS.length && duration > DURATION_BOUNDS[slot]) {
+                slot++;
+            }
+            histogram[slot]++;
+        }
+
+        private Counters merge(Counters other) {
+            total += other.total;
+            success += other.success;
+            failure += other.failure;
+            timeout += other.timeout;
+            cancelled += other.cancelled;
+            durationCount += other.durationCount;
+            durationSum += other.durationSum;
+            durationMax = Math.max(durationMax, other.durationMax);
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += other.histogram[i];
+            }
+            return this;
+        }
+
+        private void bind(PreparedStatement ps, BucketKey key, LocalDateTime now) throws SQLException {
+            int i = 0;
+            ps.setLong(++i, key.taskId());
+            ps.setString(++i, key.granularity().name());
+            ps.setObject(++i, key.bucketStart());
+            ps.setLong(++i, total);
+            ps.setLong(++i, success);
+            ps.setLong(++i, failure);
+            ps.setLong(++i, timeout);
+            ps.setLong(++i, cancelled);
+            ps.setLong(++i, durationCount);
+            ps.setLong(++i, durationSum);
+            ps.setLong(++i, durationMax);
+            for (long count : histogram) {
+                ps.setLong(++i, count);
+            }
+            ps.setObject(++i, now);
+        }
+
+        private static Counters read(ResultSet rs) throws SQLException {
+            Counters counters = new Counters();
+            int i = 0;
+            counters.total = rs.getLong(++i);
+            counters.success = rs.getLong(++i);
+            counters.failure = rs.getLong(++i);
+            counters.timeout = rs.getLong(++i);
+            counters.cancelled = rs.getLong(++i);
+            counters.durationCount = rs.getLong(++i);
+            counters.durationSum = rs.getLong(++i);
+            counters.durationMax = rs.getLong(++i);
+            for (int slot = 0; slot < counters.histogram.length; slot++) {
+                counters.histogram[slot] = rs.getLong(++i);
+            }
+            return counters;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("totalCount", total);
+            map.put("successCount", success);
+            map.put("failureCount", failure);
+            map.put("timeoutCount", timeout);
+            map.put("cancelledCount", cancelled);
+            map.put("successRate", total == 0 ? 0.0 : (double) success / total);
+            map.put("avgDuration", durationCount == 0 ? 0 : durationSum / durationCount);
+            map.put("maxDuration", durationMax);
+            Map<String, Long> durationHistogram = new LinkedHashMap<>();
+            for (int slot = 0; slot < histogram.length; slot++) {
+                durationHistogram.put(DURATION_LABELS[slot], histogram[slot]);
+            }
+            map.put("durationHistogram", durationHistogram);
+            return map;
+        }
+    }
+}
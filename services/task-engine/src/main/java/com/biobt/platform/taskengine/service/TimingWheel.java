@@ -0,0 +1,303 @@
+package com.biobt.platform.taskengine.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ * 每层 wheelSize 个槽，槽宽为下一层一圈的时长；超出本层范围的定时任务放入上一层，到期前逐层降级。
+ * 添加、取消都是O(1)，只有非空槽进入 {@link DelayQueue}，驱动线程按最近到期的槽唤醒，没有空转的tick，
+ * 适合承载百万级的延迟任务
+ * <p>
+ * 到期任务在驱动线程上交给 expiredHandler，处理逻辑不能阻塞
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+@Slf4j
+public class TimingWheel<T> implements AutoCloseable {
+
+    private final DelayQueue<Bucket<T>> delayQueue = new DelayQueue<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final Wheel<T> wheel;
+
+    private final Consumer<T> expiredHandler;
+
+    private final Thread driver;
+
+    private volatile boolean running = true;
+
+    /**
+     * @param name 驱动线程名
+     * @param tickMillis 最底层槽宽（毫秒），即定时精度
+     * @param wheelSize 每层槽数
+     * @param expiredHandler 到期处理，不能阻塞
+     */
+    public TimingWheel(String name, long tickMillis, int wheelSize, Consumer<T> expiredHandler) {
+        this.wheel = new Wheel<>(tickMillis, wheelSize, now(), pending, delayQueue);
+        this.expiredHandler = expiredHandler;
+        this.driver = new Thread(this::drive, name);
+        this.driver.setDaemon(true);
+        this.driver.start();
+    }
+
+    /**
+     * 添加定时任务
+     *
+     * @param item 任务
+     * @param delayMillis 延迟毫秒数，小于等于0时立即到期
+     * @return 取消句柄
+     */
+    public Timeout<T> schedule(T item, long delayMillis) {
+        Timeout<T> timeout = new Timeout<>(item, now() + Math.max(0, delayMillis));
+        lock.readLock().lock();
+        try {
+            addOrExpire(timeout);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return timeout;
+    }
+
+    /**
+     * 未到期的任务数（含已取消、尚未随槽到期丢弃的）
+     */
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    private void addOrExpire(Timeout<T> timeout) {
+        if (timeout.cancelled) {
+            return;
+        }
+        if (!wheel.add(timeout)) {
+            expire(timeout);
+        }
+    }
+
+    private void expire(Timeout<T> timeout) {
+        try {
+            expiredHandler.accept(timeout.item);
+        } catch (Exception e) {
+            log.error("定时任务到期处理失败", e);
+        }
+    }
+
+    private void drive() {
+        while (running) {
+            try {
+                Bucket<T> bucket = delayQueue.poll(200, TimeUnit.MILLISECONDS);
+                if (bucket == null) {
+                    continue;
+                }
+                lock.writeLock().lock();
+                try {
+                    while (bucket != null) {
+                        wheel.advanceClock(bucket.getExpiration());
+                        for (Timeout<T> timeout : bucket.drain(pending)) {
+                            addOrExpire(timeout);
+                        }
+                        bucket = delayQueue.poll();
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        driver.interrupt();
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * 定时任务句柄
+     */
+    public static final class Timeout<T> {
+
+        private final T item;
+
+        private final long expiration;
+
+        private volatile boolean cancelled;
+
+        /**
+         * 所在的槽，到期取出后为null
+         */
+        private volatile Bucket<T> bucket;
+
+        private Timeout(T item, long expiration) {
+            this.item = item;
+            this.expiration = expiration;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * 取消；只做标记，槽到期时丢弃。已到期的任务取消无效
+         *
+         * @return 是否取消成功
+         */
+        public boolean cancel() {
+            if (cancelled || bucket == null) {
+                return false;
+            }
+            cancelled = true;
+            return true;
+        }
+    }
+
+    /**
+     * 时间轮的一层
+     */
+    private static final class Wheel<T> {
+
+        private final long tickMillis;
+
+        private final int wheelSize;
+
+        private final long interval;
+
+        private final Bucket<T>[] buckets;
+
+        private final AtomicInteger pending;
+
+        private final DelayQueue<Bucket<T>> delayQueue;
+
+        private long currentTime;
+
+        private volatile Wheel<T> overflowWheel;
+
+        @SuppressWarnings("unchecked")
+        private Wheel(long tickMillis, int wheelSize, long startMillis, AtomicInteger pending,
+                      DelayQueue<Bucket<T>> delayQueue) {
+            this.tickMillis = tickMillis;
+            this.wheelSize = wheelSize;
+            this.interval = tickMillis * wheelSize;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+            this.pending = pending;
+            this.delayQueue = delayQueue;
+            this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+        }
+
+        /**
+         * 放入对应的槽
+         *
+         * @return 已到期（不足一个槽宽）时返回false
+         */
+        private boolean add(Timeout<T> timeout) {
+            long expiration = timeout.expiration;
+            if (expiration < currentTime + tickMillis) {
+                return false;
+            }
+            if (expiration < currentTime + interval) {
+                long virtualId = Math.floorDiv(expiration, tickMillis);
+                Bucket<T> bucket = buckets[(int) Math.floorMod(virtualId, (long) wheelSize)];
+                bucket.add(timeout, pending);
+                if (bucket.setExpiration(virtualId * tickMillis)) {
+                    delayQueue.offer(bucket);
+                }
+                return true;
+            }
+            return overflow().add(timeout);
+        }
+
+        private Wheel<T> overflow() {
+            if (overflowWheel == null) {
+                synchronized (this) {
+                    if (overflowWheel == null) {
+                        overflowWheel = new Wheel<>(interval, wheelSize, currentTime, pending, delayQueue);
+                    }
+                }
+            }
+            return overflowWheel;
+        }
+
+        private void advanceClock(long timeMillis) {
+            if (timeMillis >= currentTime + tickMillis) {
+                currentTime = timeMillis - Math.floorMod(timeMillis, tickMillis);
+                if (overflowWheel != null) {
+                    overflowWheel.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+
+    /**
+     * 槽：同一时间段内到期的定时任务
+     */
+    private static final class Bucket<T> implements Delayed {
+
+        private final AtomicLong expiration = new AtomicLong(-1);
+
+        private List<Timeout<T>> timeouts = new ArrayList<>();
+
+        private synchronized void add(Timeout<T> timeout, AtomicInteger pending) {
+            timeouts.add(timeout);
+            timeout.bucket = this;
+            pending.incrementAndGet();
+        }
+
+        /**
+         * 取出全部定时任务并重置槽，已取消的直接丢弃
+         */
+        private synchronized List<Timeout<T>> drain(AtomicInteger pending) {
+            List<Timeout<T>> drained = new ArrayList<>(timeouts.size());
+            for (Timeout<T> timeout : timeouts) {
+                timeout.bucket = null;
+                pending.decrementAndGet();
+                if (!timeout.cancelled) {
+                    drained.add(timeout);
+                }
+            }
+            timeouts = new ArrayList<>();
+            expiration.set(-1);
+            return drained;
+        }
+
+        private boolean setExpiration(long expirationMillis) {
+            return expiration.getAndSet(expirationMillis) != expirationMillis;
+        }
+
+        private long getExpiration() {
+            return expiration.get();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Math.max(getExpiration() - now(), 0), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getExpiration(), ((Bucket<?>) other).getExpiration());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.biobt.platform.taskengine.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分片归属（rendezvous hashing）测试
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+class ShardLeaseManagerTest {
+
+    private static final int SHARDS = 4096;
+
+    /**
+     * 同一主机上的多个实例，节点ID只有末尾不同
+     */
+    private static final List<String> NODES = List.of(
+            "task-engine-7f9c:10.0.0.12:8080", "task-engine-7f9c:10.0.0.12:8081",
+            "task-engine-7f9c:10.0.0.12:8082", "task-engine-7f9c:10.0.0.13:8080",
+            "task-engine-7f9c:10.0.0.13:8081");
+
+    @Test
+    void testHashNodeSpreadsSimilarIds() {
+        // Then：末尾不同的节点ID哈希高位也不同
+        long first = ShardLeaseManager.hashNode(NODES.get(0));
+        long second = ShardLeaseManager.hashNode(NODES.get(1));
+        assertNotEquals(first, second);
+        assertTrue(Long.bitCount(first ^ second) > 16);
+        assertEquals(first, ShardLeaseManager.hashNode(NODES.get(0)));
+    }
+
+    @Test
+    void testShardsBalancedAcrossSimilarNodes() {
+        // Given
+        Map<String, Long> nodeHashes = hashes(NODES);
+
+        // When
+        Map<String, Integer> owned = new HashMap<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            owned.merge(ShardLeaseManager.ownerOf(shard, nodeHashes), 1, Integer::sum);
+        }
+
+        // Then：每个节点的分片数在平均值的±20%以内
+        double fair = (double) SHARDS / NODES.size();
+        assertEquals(NODES.size(), owned.size());
+        owned.forEach((node, count) ->
+                assertTrue(Math.abs(count - fair) < fair * 0.2, node + " 持有 " + count + " 个分片"));
+    }
+
+    @Test
+    void testOnlyDepartedNodeShardsMove() {
+        // Given
+        Map<String, Long> before = hashes(NODES);
+        Map<String, Long> after = hashes(NODES.subList(0, NODES.size() - 1));
+        String departed = NODES.get(NODES.size() - 1);
+
+        // Then：节点离开时只有它持有的分片易主
+        for (int shard = 0; shard < SHARDS; shard++) {
+            String previous = ShardLeaseManager.ownerOf(shard, before);
+            String current = ShardLeaseManager.ownerOf(shard, after);
+            if (!previous.equals(departed)) {
+                assertEquals(previous, current);
+            }
+        }
+    }
+
+    private static Map<String, Long> hashes(List<String> nodes) {
+        Map<String, Long> hashes = new LinkedHashMap<>();
+        nodes.forEach(node -> hashes.put(node, ShardLeaseManager.hashNode(node)));
+        return hashes;
+    }
+}
@@ -0,0 +1,147 @@
+package com.biobt.platform.taskengine.service;
+
+import com.biobt.platform.taskengine.config.TaskDispatchProperties;
+import com.biobt.platform.taskengine.entity.TaskDefinition;
+import com.biobt.platform.taskengine.entity.TaskExecution;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 任务分发队列测试
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+class TaskDispatchQueueTest {
+
+    private final TaskDispatcher taskDispatcher = mock(TaskDispatcher.class);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    /**
+     * I/O型执行器只有1个许可，CPU型执行器不限制
+     */
+    private final Semaphore ioPermits = new Semaphore(1);
+
+    private final CountDownLatch ioGate = new CountDownLatch(1);
+
+    private final AtomicInteger ioRunning = new AtomicInteger();
+
+    private final AtomicInteger maxIoRunning = new AtomicInteger();
+
+    private TaskDispatchQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        TaskDispatchProperties properties = new TaskDispatchProperties();
+        properties.setMaxInFlight(4);
+        queue = new TaskDispatchQueue(taskDispatcher, executor, properties, new SimpleMeterRegistry());
+
+        when(taskDispatcher.permitsFor(any())).thenAnswer(invocation -> {
+            TaskDefinition definition = invocation.getArgument(0);
+            return "io".equals(definition.getCategory()) ? ioPermits : null;
+        });
+        when(taskDispatcher.dispatch(any(), isNull(), eq(TaskExecution.TriggerType.SCHEDULED), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    TaskDefinition definition = invocation.getArgument(0);
+                    Semaphore held = invocation.getArgument(4);
+                    try {
+                        if (held != null) {
+                            maxIoRunning.accumulateAndGet(ioRunning.incrementAndGet(), Math::max);
+                            ioGate.await(5, TimeUnit.SECONDS);
+                            ioRunning.decrementAndGet();
+                        }
+                        TaskExecution execution = new TaskExecution();
+                        execution.setTaskId(definition.getTaskId());
+                        return execution;
+                    } finally {
+                        if (held != null) {
+                            held.release();
+                        }
+                    }
+                });
+        queue.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ioGate.countDown();
+        queue.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testSaturatedExecutorDoesNotStallOtherLanes() throws Exception {
+        // Given：I/O型任务的突发超过 maxInFlight
+        List<CompletableFuture<TaskExecution>> ioTasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ioTasks.add(queue.submit(definition(100L + i, "io"), null, TaskExecution.TriggerType.SCHEDULED));
+        }
+
+        // When
+        CompletableFuture<TaskExecution> cpuTask =
+                queue.submit(definition(1L, "cpu"), null, TaskExecution.TriggerType.SCHEDULED);
+
+        // Then：其他通道不受影响，I/O型任务不超过其许可数，其余仍在队列中而不是占着分发名额
+        assertEquals(1L, cpuTask.get(2, TimeUnit.SECONDS).getTaskId());
+        assertEquals(1, maxIoRunning.get());
+        assertEquals(9, queue.size());
+
+        ioGate.countDown();
+        for (CompletableFuture<TaskExecution> ioTask : ioTasks) {
+            assertNotNull(ioTask.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, maxIoRunning.get());
+        assertEquals(1, ioPermits.availablePermits());
+    }
+
+    @Test
+    void testCancelledBeforeDispatchIsSkipped() throws Exception {
+        // Given：I/O型执行器的唯一许可被占用，后续任务留在队列中
+        CompletableFuture<TaskExecution> running =
+                queue.submit(definition(100L, "io"), null, TaskExecution.TriggerType.SCHEDULED);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        CompletableFuture<TaskExecution> queued = queue.submit(definition(101L, "io"), null,
+                TaskExecution.TriggerType.SCHEDULED, "batch-1", cancelled::get);
+
+        // When：出队前取消
+        cancelled.set(true);
+        ioGate.countDown();
+
+        // Then：不再交给分发器，许可归还
+        assertNotNull(running.get(5, TimeUnit.SECONDS));
+        assertThrows(CancellationException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        verify(taskDispatcher, never()).dispatch(any(), any(), any(), eq("batch-1"), any(), any(), any());
+        assertEquals(1, ioPermits.availablePermits());
+    }
+
+    private static TaskDefinition definition(Long taskId, String category) {
+        TaskDefinition definition = new TaskDefinition();
+        definition.setTaskId(taskId);
+        definition.setCategory(category);
+        return definition;
+    }
+}
@@ -0,0 +1,155 @@
+package com.biobt.platform.taskengine.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分层时间轮测试
+ *
+ * @author BioBt Platform
+ * @since 1.0.0
+ */
+class TimingWheelTest {
+
+    private static final long TICK_MILLIS = 10;
+
+    /**
+     * 每层4个槽：第一层覆盖40ms，第二层160ms，第三层640ms
+     */
+    private static final int WHEEL_SIZE = 4;
+
+    private final List<String> expired = new CopyOnWriteArrayList<>();
+
+    private final Map<String, Long> expiredAt = new ConcurrentHashMap<>();
+
+    private final Map<String, Thread> expiredOn = new ConcurrentHashMap<>();
+
+    private TimingWheel<String> timingWheel;
+
+    private CountDownLatch latch;
+
+    @AfterEach
+    void tearDown() {
+        if (timingWheel != null) {
+            timingWheel.close();
+        }
+    }
+
+    @Test
+    void testZeroAndNegativeDelayExpireImmediately() {
+        // Given
+        start(2);
+
+        // When
+        timingWheel.schedule("zero", 0);
+        timingWheel.schedule("negative", -1000);
+
+        // Then：在调用线程上同步到期，不进入时间轮
+        assertEquals(List.of("zero", "negative"), expired);
+        assertSame(Thread.currentThread(), expiredOn.get("zero"));
+        assertSame(Thread.currentThread(), expiredOn.get("negative"));
+        assertEquals(0, timingWheel.pendingCount());
+    }
+
+    @Test
+    void testExpiresAfterDelay() throws InterruptedException {
+        // Given
+        start(1);
+        long start = nowMillis();
+
+        // When
+        timingWheel.schedule("task", 30);
+
+        // Then
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(expiredAt.get("task") - start >= 30 - TICK_MILLIS);
+        assertNotSame(Thread.currentThread(), expiredOn.get("task"));
+    }
+
+    @Test
+    void testOverflowWheelDemotion() throws InterruptedException {
+        // Given：分别落在第一、二、三层
+        start(3);
+        long start = nowMillis();
+
+        // When
+        timingWheel.schedule("level3", 400);
+        timingWheel.schedule("level2", 120);
+        timingWheel.schedule("level1", 25);
+        assertEquals(3, timingWheel.pendingCount());
+
+        // Then：逐层降级后按到期时间先后执行，且不早于到期时间
+        assertTrue(latch.await(3, TimeUnit.SECONDS));
+        assertEquals(List.of("level1", "level2", "level3"), expired);
+        assertTrue(expiredAt.get("level1") - start >= 25 - TICK_MILLIS);
+        assertTrue(expiredAt.get("level2") - start >= 120 - TICK_MILLIS);
+        assertTrue(expiredAt.get("level3") - start >= 400 - TICK_MILLIS);
+        assertEquals(0, timingWheel.pendingCount());
+    }
+
+    @Test
+    void testCancel() throws InterruptedException {
+        // Given
+        start(1);
+        TimingWheel.Timeout<String> cancelled = timingWheel.schedule("cancelled", 50);
+        TimingWheel.Timeout<String> overflowCancelled = timingWheel.schedule("overflowCancelled", 200);
+        timingWheel.schedule("kept", 300);
+
+        // When
+        assertTrue(cancelled.cancel());
+        assertTrue(overflowCancelled.cancel());
+
+        // Then：重复取消无效，已取消的不执行，随槽到期后不再计入待执行数
+        assertFalse(cancelled.cancel());
+        assertTrue(latch.await(3, TimeUnit.SECONDS));
+        assertEquals(List.of("kept"), expired);
+        assertEquals(0, timingWheel.pendingCount());
+    }
+
+    @Test
+    void testCancelAfterExpiryHasNoEffect() throws InterruptedException {
+        // Given
+        start(1);
+        TimingWheel.Timeout<String> timeout = timingWheel.schedule("task", 20);
+        TimingWheel.Timeout<String> immediate = timingWheel.schedule("immediate", 0);
+
+        // When
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+
+        // Then
+        assertFalse(immediate.cancel());
+        awaitExpired("task");
+        assertFalse(timeout.cancel());
+    }
+
+    private void start(int expectedCount) {
+        latch = new CountDownLatch(expectedCount);
+        timingWheel = new TimingWheel<>("timing-wheel-test", TICK_MILLIS, WHEEL_SIZE, item -> {
+            expiredAt.put(item, nowMillis());
+            expiredOn.put(item, Thread.currentThread());
+            expired.add(item);
+            latch.countDown();
+        });
+    }
+
+    private void awaitExpired(String item) throws InterruptedException {
+        long deadline = nowMillis() + 2000;
+        while (!expired.contains(item) && nowMillis() < deadline) {
+            Thread.sleep(TICK_MILLIS);
+        }
+        assertTrue(expired.contains(item));
+    }
+
+    private static long nowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
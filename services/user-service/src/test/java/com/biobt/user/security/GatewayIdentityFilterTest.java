@@ -0,0 +1,106 @@
+package com.biobt.user.security;
+
+import com.biobt.common.core.utils.SecurityUtils;
+import com.biobt.common.security.identity.GatewayIdentity;
+import com.biobt.common.security.identity.GatewayIdentityFilter;
+import com.biobt.common.security.identity.IdentityHeaderCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 网关身份过滤器测试
+ *
+ * @author biobt
+ * @since 2024-01-01
+ */
+class GatewayIdentityFilterTest {
+
+    private static final String SECRET = "test-only-identity-signing-key-0123456789";
+
+    private IdentityHeaderCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        codec = new IdentityHeaderCodec(SECRET, 300);
+        SecurityContextHolder.clearContext();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testValidHeaderSetsIdentityPrincipal() throws Exception {
+        // Given
+        GatewayIdentityFilter filter = new GatewayIdentityFilter(codec, false);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.addHeader(IdentityHeaderCodec.IDENTITY_HEADER, header("1001", "zhangsan"));
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+        AtomicReference<Long> seenUserId = new AtomicReference<>();
+        AtomicReference<String> seenUsername = new AtomicReference<>();
+
+        // When
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            seen.set(SecurityContextHolder.getContext().getAuthentication());
+            seenUserId.set(SecurityUtils.getCurrentUserId());
+            seenUsername.set(SecurityUtils.getCurrentUsername());
+        });
+
+        // Then
+        assertNotNull(seen.get());
+        assertInstanceOf(GatewayIdentity.class, seen.get().getPrincipal());
+        assertEquals("zhangsan", seen.get().getName());
+        assertEquals(1001L, seenUserId.get());
+        assertEquals("zhangsan", seenUsername.get());
+        assertInstanceOf(GatewayIdentity.class, request.getAttribute(GatewayIdentityFilter.IDENTITY_ATTRIBUTE));
+        // 请求结束后恢复原有上下文
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void testInvalidHeaderPassesThroughWhenNotRequired() throws Exception {
+        // Given
+        GatewayIdentityFilter filter = new GatewayIdentityFilter(codec, false);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.addHeader(IdentityHeaderCodec.IDENTITY_HEADER, header("1001", "zhangsan") + "x");
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        filter.doFilter(request, response, (req, res) -> seen.set(SecurityContextHolder.getContext().getAuthentication()));
+
+        // Then
+        assertEquals(200, response.getStatus());
+        assertNull(seen.get());
+        assertNull(request.getAttribute(GatewayIdentityFilter.IDENTITY_ATTRIBUTE));
+    }
+
+    @Test
+    void testMissingHeaderRejectedWhenRequired() throws Exception {
+        // Given
+        GatewayIdentityFilter filter = new GatewayIdentityFilter(codec, true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<Boolean> invoked = new AtomicReference<>(false);
+
+        // When
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/users"), response, (req, res) -> invoked.set(true));
+
+        // Then
+        assertEquals(401, response.getStatus());
+        assertFalse(invoked.get());
+    }
+
+    private String header(String userId, String username) {
+        return codec.encode(new GatewayIdentity(userId, username, "1", System.currentTimeMillis() / 1000));
+    }
+}
@@ -0,0 +1,100 @@
+package com.biobt.user.security;
+
+import com.biobt.common.core.utils.SecurityUtils;
+import com.biobt.common.security.identity.GatewayIdentity;
+import com.biobt.common.security.identity.GatewayIdentityFilter;
+import com.biobt.common.security.identity.IdentityHeaderCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 网关身份过滤器链集成测试
+ * 过滤器由默认配置器安装在Spring Security过滤器链内，授权判断时身份已生效
+ *
+ * @author biobt
+ * @since 2024-01-01
+ */
+@SpringJUnitWebConfig(GatewayIdentitySecurityChainTest.Config.class)
+class GatewayIdentitySecurityChainTest {
+
+    private static final String SECRET = "test-only-identity-signing-key-0123456789";
+
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IdentityHeaderCodec codec;
+
+    @BeforeEach
+    void setUp(WebApplicationContext context) {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    }
+
+    @Test
+    void testAuthenticatedRouteAcceptsSignedIdentity() throws Exception {
+        String header = codec.encode(new GatewayIdentity("1001", "zhangsan", "1", System.currentTimeMillis() / 1000));
+
+        mockMvc.perform(get("/whoami").header(IdentityHeaderCodec.IDENTITY_HEADER, header))
+                .andExpect(status().isOk())
+                .andExpect(content().string("zhangsan"));
+    }
+
+    @Test
+    void testAuthenticatedRouteRejectsMissingIdentity() throws Exception {
+        mockMvc.perform(get("/whoami"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Configuration
+    @EnableWebMvc
+    @EnableWebSecurity
+    static class Config {
+
+        @Bean
+        IdentityHeaderCodec identityHeaderCodec() {
+            return new IdentityHeaderCodec(SECRET, 300);
+        }
+
+        @Bean
+        GatewayIdentityFilter gatewayIdentityFilter(IdentityHeaderCodec identityHeaderCodec) {
+            return new GatewayIdentityFilter(identityHeaderCodec, false);
+        }
+
+        @Bean
+        SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+            http.authorizeHttpRequests(authorize -> authorize.anyRequest().authenticated());
+            return http.build();
+        }
+
+        @Bean
+        WhoAmIController whoAmIController() {
+            return new WhoAmIController();
+        }
+    }
+
+    @RestController
+    static class WhoAmIController {
+
+        @GetMapping("/whoami")
+        String whoami() {
+            return SecurityUtils.getCurrentUsername();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.biobt.user.security;
+
+import com.biobt.common.security.identity.GatewayIdentity;
+import com.biobt.common.security.identity.IdentityHeaderCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 身份请求头编解码测试
+ *
+ * @author biobt
+ * @since 2024-01-01
+ */
+class IdentityHeaderCodecTest {
+
+    private static final String SECRET = "test-only-identity-signing-key-0123456789";
+
+    private static final long NOW = 1_700_000_000L;
+
+    private IdentityHeaderCodec codec;
+
+    @BeforeEach
+    void setUp() {
+        codec = new IdentityHeaderCodec(SECRET, 300);
+    }
+
+    @Test
+    void testSignAndVerify() {
+        // Given
+        String header = codec.encode(new GatewayIdentity("1001", "张三", "1", NOW));
+
+        // When
+        GatewayIdentity identity = codec.decode(header, NOW + 10);
+
+        // Then
+        assertNotNull(identity);
+        assertEquals("1001", identity.getUserId());
+        assertEquals("张三", identity.getUsername());
+        assertEquals("1", identity.getTenantId());
+        assertEquals(NOW, identity.getIssuedAt());
+        assertEquals("张三", identity.getName());
+    }
+
+    @Test
+    void testNullFieldsRoundTrip() {
+        // Given
+        String header = codec.encode(new GatewayIdentity("1001", null, null, NOW));
+
+        // When
+        GatewayIdentity identity = codec.decode(header, NOW);
+
+        // Then
+        assertNotNull(identity);
+        assertNull(identity.getUsername());
+        assertNull(identity.getTenantId());
+        assertEquals("1001", identity.getName());
+    }
+
+    @Test
+    void testExpiredHeaderRejected() {
+        // Given
+        String header = codec.encode(new GatewayIdentity("1001", "zhangsan", "1", NOW));
+
+        // Then
+        assertNotNull(codec.decode(header, NOW + 300));
+        assertNull(codec.decode(header, NOW + 301));
+    }
+
+    @Test
+    void testFutureIssuedAtRejected() {
+        // Given
+        String header = codec.encode(new GatewayIdentity("1001", "zhangsan", "1", NOW + 61));
+
+        // Then
+        assertNull(codec.decode(header, NOW));
+    }
+
+    @Test
+    void testTamperedPayloadRejected() {
+        // Given
+        String header = codec.encode(new GatewayIdentity("1001", "zhangsan", "1", NOW));
+        String forgedUserId = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("1".getBytes(StandardCharsets.UTF_8));
+        String[] parts = header.split("\\.");
+        parts[1] = forgedUserId;
+
+        // When
+        GatewayIdentity identity = codec.decode(String.join(".", parts), NOW);
+
+        // Then
+        assertNull(identity);
+    }
+
+    @Test
+    void testTamperedSignatureRejected() {
+        // Given
+        String header = codec.encode(new GatewayIdentity("1001", "zhangsan", "1", NOW));
+        int signatureStart = header.lastIndexOf('.') + 1;
+        char first = header.charAt(signatureStart);
+        String tampered = header.substring(0, signatureStart) + (first == 'A' ? 'B' : 'A')
+                + header.substring(signatureStart + 1);
+
+        // Then
+        assertNull(codec.decode(tampered, NOW));
+        assertNull(codec.decode(header.substring(0, signatureStart) + "!!!", NOW));
+    }
+
+    @Test
+    void testOtherSecretRejected() {
+        // Given
+        IdentityHeaderCodec other = new IdentityHeaderCodec("another-identity-signing-key-0123456789", 300);
+        String header = other.encode(new GatewayIdentity("1001", "zhangsan", "1", NOW));
+
+        // Then
+        assertNull(codec.decode(header, NOW));
+    }
+
+    @Test
+    void testMalformedHeaderRejected() {
+        assertNull(codec.decode(null, NOW));
+        assertNull(codec.decode("", NOW));
+        assertNull(codec.decode("v2.a.b.c.1.sig", NOW));
+        assertNull(codec.decode("1001", NOW));
+    }
+
+    @Test
+    void testShortSecretRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new IdentityHeaderCodec(null, 300));
+        assertThrows(IllegalArgumentException.class, () -> new IdentityHeaderCodec("too-short", 300));
+    }
+}